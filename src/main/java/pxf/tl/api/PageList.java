@@ -67,6 +67,26 @@ public class PageList<E> extends ArrayList<E> implements Page<E> {
      * 只增加排序
      */
     private boolean orderByOnly;
+    /**
+     * count查询与分页查询并行执行，count查询使用单独的连接
+     */
+    private boolean asyncCount;
+    /**
+     * 相同SQL和参数的count结果缓存时间，单位：毫秒，不大于0表示不缓存
+     */
+    private long countCacheTtl;
+    /**
+     * keyset分页的排序键，必须有序且唯一，为null表示不使用keyset分页
+     */
+    private String keysetOrderBy;
+    /**
+     * 上一页最后一行的排序键值，为null表示第一页
+     */
+    private Object[] keysetValues;
+    /**
+     * 下一页的排序键值，为null表示没有下一页
+     */
+    private Object[] nextCursor;
 
     public PageList() {
         super();
@@ -169,6 +189,13 @@ public class PageList<E> extends ArrayList<E> implements Page<E> {
         }
     }
 
+    /**
+     * 是否keyset分页
+     */
+    public boolean isKeyset() {
+        return keysetOrderBy != null;
+    }
+
     public PageInfo<E> toPageInfo() {
         return new PageInfo<>(this);
     }
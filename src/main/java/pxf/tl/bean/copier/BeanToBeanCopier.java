@@ -1,13 +1,9 @@
 package pxf.tl.bean.copier;
 
 
-import pxf.tl.bean.BeanUtil;
-import pxf.tl.bean.PropDesc;
 import pxf.tl.help.Assert;
-import pxf.tl.util.ToolBytecode;
 
 import java.lang.reflect.Type;
-import java.util.Map;
 
 /**
  * Bean属性拷贝到Bean中的拷贝器
@@ -47,52 +43,13 @@ public class BeanToBeanCopier<S, T> extends AbsCopier<S, T> {
                     copyOptions.editable.getName());
             actualEditable = copyOptions.editable;
         }
-        final Map<String, PropDesc> targetPropDescMap =
-                BeanUtil.getBeanDesc(actualEditable).getPropMap(copyOptions.ignoreCase);
-
-        final Map<String, PropDesc> sourcePropDescMap =
-                BeanUtil.getBeanDesc(source.getClass()).getPropMap(copyOptions.ignoreCase);
-        sourcePropDescMap.forEach(
-                (sFieldName, sDesc) -> {
-                    if (null == sFieldName || false == sDesc.isReadable(copyOptions.transientSupport)) {
-                        // 字段空或不可读，跳过
-                        return;
-                    }
-
-                    sFieldName = copyOptions.editFieldName(sFieldName);
-                    // 对key做转换，转换后为null的跳过
-                    if (null == sFieldName) {
-                        return;
-                    }
-
-                    // 检查目标字段可写性
-                    final PropDesc tDesc = targetPropDescMap.get(sFieldName);
-                    if (null == tDesc || false == tDesc.isWritable(this.copyOptions.transientSupport)) {
-                        // 字段不可写，跳过之
-                        return;
-                    }
-
-                    // 检查源对象属性是否过滤属性
-                    Object sValue = sDesc.getValue(this.source);
-                    if (false == copyOptions.testPropertyFilter(sDesc.getField(), sValue)) {
-                        return;
-                    }
-
-                    // 获取目标字段真实类型并转换源值
-                    final Type fieldType = ToolBytecode.getActualType(this.targetType, tDesc.getFieldType());
-                    // sValue = Convert.convertWithCheck(fieldType, sValue, null,
-                    // this.copyOptions.ignoreError);
-                    sValue = this.copyOptions.convertField(fieldType, sValue);
-                    sValue = copyOptions.editFieldValue(sFieldName, sValue);
-
-                    // 目标赋值
-                    tDesc.setValue(
-                            this.target,
-                            sValue,
-                            copyOptions.ignoreNullValue,
-                            copyOptions.ignoreError,
-                            copyOptions.override);
-                });
+        CopyPlan.beanToBean(
+                        source.getClass(),
+                        actualEditable,
+                        this.targetType,
+                        copyOptions.ignoreCase,
+                        copyOptions.transientSupport)
+                .copyBeanToBean(this.source, this.target, this.copyOptions);
         return this.target;
     }
 }
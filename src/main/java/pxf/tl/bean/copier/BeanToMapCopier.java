@@ -1,10 +1,7 @@
 package pxf.tl.bean.copier;
 
 
-import pxf.tl.bean.BeanUtil;
-import pxf.tl.bean.PropDesc;
 import pxf.tl.help.Assert;
-import pxf.tl.util.ToolBytecode;
 
 import java.lang.reflect.Type;
 import java.util.Map;
@@ -46,42 +43,9 @@ public class BeanToMapCopier extends AbsCopier<Object, Map> {
             actualEditable = copyOptions.editable;
         }
 
-        final Map<String, PropDesc> sourcePropDescMap =
-                BeanUtil.getBeanDesc(actualEditable).getPropMap(copyOptions.ignoreCase);
-        sourcePropDescMap.forEach(
-                (sFieldName, sDesc) -> {
-                    if (null == sFieldName || false == sDesc.isReadable(copyOptions.transientSupport)) {
-                        // 字段空或不可读，跳过
-                        return;
-                    }
-
-                    sFieldName = copyOptions.editFieldName(sFieldName);
-                    // 对key做转换，转换后为null的跳过
-                    if (null == sFieldName) {
-                        return;
-                    }
-
-                    // 检查源对象属性是否过滤属性
-                    Object sValue = sDesc.getValue(this.source);
-                    if (false == copyOptions.testPropertyFilter(sDesc.getField(), sValue)) {
-                        return;
-                    }
-
-                    // 获取目标值真实类型并转换源值
-                    final Type[] typeArguments = ToolBytecode.getTypeArguments(this.targetType);
-                    if (null != typeArguments) {
-                        // sValue = Convert.convertWithCheck(typeArguments[1], sValue, null,
-                        // this.copyOptions.ignoreError);
-                        sValue = this.copyOptions.convertField(typeArguments[1], sValue);
-                        sValue = copyOptions.editFieldValue(sFieldName, sValue);
-                    }
-
-                    // 目标赋值
-                    if (null != sValue || false == copyOptions.ignoreNullValue) {
-                        //noinspection unchecked
-                        target.put(sFieldName, sValue);
-                    }
-                });
+        CopyPlan.beanToMap(
+                        actualEditable, this.targetType, copyOptions.ignoreCase, copyOptions.transientSupport)
+                .copyBeanToMap(this.source, this.target, this.copyOptions);
         return this.target;
     }
 }
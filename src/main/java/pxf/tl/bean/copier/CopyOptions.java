@@ -55,10 +55,14 @@ public class CopyOptions implements Serializable {
      */
     protected boolean override = true;
     /**
-     * 自定义类型转换器，默认使用全局万能转换器转换
+     * 默认类型转换器，使用全局万能转换器转换
      */
-    protected TypeConverter converter =
+    private final TypeConverter defaultConverter =
             (type, value) -> Convert.convertWithCheck(type, value, null, ignoreError);
+    /**
+     * 自定义类型转换器，默认使用全局万能转换器转换
+     */
+    protected TypeConverter converter = defaultConverter;
     /**
      * 属性过滤器，断言通过的属性才会被复制<br>
      * 断言参数中Field为源对象的字段对象,如果源对象为Map，使用目标对象，Object为源对象的对应值
@@ -313,6 +317,24 @@ public class CopyOptions implements Serializable {
         return (null != this.fieldNameEditor) ? this.fieldNameEditor.edit(fieldName) : fieldName;
     }
 
+    /**
+     * 是否设置了字段属性编辑器
+     *
+     * @return 是否设置了字段属性编辑器
+     */
+    protected boolean hasFieldNameEditor() {
+        return null != this.fieldNameEditor;
+    }
+
+    /**
+     * 是否使用默认类型转换器
+     *
+     * @return 是否使用默认类型转换器
+     */
+    protected boolean isDefaultConverter() {
+        return this.converter == this.defaultConverter;
+    }
+
     /**
      * 测试是否保留字段，{@code true}保留，{@code false}不保留
      *
@@ -0,0 +1,592 @@
+package pxf.tl.bean.copier;
+
+
+import pxf.tl.api.PoolOfObject;
+import pxf.tl.bean.BeanException;
+import pxf.tl.bean.BeanUtil;
+import pxf.tl.bean.PropDesc;
+import pxf.tl.collection.map.CaseInsensitiveMap;
+import pxf.tl.collection.map.WeakConcurrentMap;
+import pxf.tl.convert.Convert;
+import pxf.tl.convert.ConverterRegistry;
+import pxf.tl.exception.InvocationTargetRuntimeException;
+import pxf.tl.help.Safe;
+import pxf.tl.help.Whether;
+import pxf.tl.util.ToolBytecode;
+import pxf.tl.util.ToolString;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 拷贝计划<br>
+ * 按（源类型、目标类型、目标泛型类型、是否忽略大小写、是否支持transient）缓存属性的对应关系、字段的真实类型，
+ * 并将Getter和Setter解析为{@link MethodHandle}直接调用，重复拷贝时不再查找属性和反射调用。<br>
+ * 字段名编辑器、属性过滤器、值编辑器和转换器依赖{@link CopyOptions}实例，仍在每次拷贝时执行。
+ *
+ * @author potatoxf
+ */
+final class CopyPlan {
+    /**
+     * 缓存的Map转Bean键名解析结果的最大数量，防止任意键撑大缓存
+     */
+    private static final int MAX_RESOLVED_KEYS = 1024;
+    /**
+     * 拷贝计划缓存，以Bean类型为弱键
+     */
+    private static final WeakConcurrentMap<Class<?>, Map<Key, CopyPlan>> PLAN_CACHE =
+            new WeakConcurrentMap<>();
+    /**
+     * 属性访问器缓存
+     */
+    private static final WeakConcurrentMap<PropDesc, Accessor> ACCESSOR_CACHE =
+            new WeakConcurrentMap<>();
+    /**
+     * 不需要转换即可直接赋值的类型
+     */
+    private static final Set<Class<?>> IMMUTABLE_TYPES =
+            Set.of(
+                    String.class,
+                    Boolean.class,
+                    Character.class,
+                    Byte.class,
+                    Short.class,
+                    Integer.class,
+                    Long.class,
+                    Float.class,
+                    Double.class);
+    /**
+     * 不存在的写入属性，用于缓存未找到的键
+     */
+    private static final Writer ABSENT = new Writer();
+
+    /**
+     * 源Bean的可读属性，源为Map时为{@code null}
+     */
+    private final Reader[] readers;
+    /**
+     * 与{@link #readers}按名称对应的目标可写属性，目标为Map时为{@code null}
+     */
+    private final Writer[] matched;
+    /**
+     * 目标Bean的属性，目标为Map时为{@code null}
+     */
+    private final Map<String, Writer> writers;
+    /**
+     * Map转Bean时键名到属性的解析结果
+     */
+    private final Map<String, Writer> resolved;
+    /**
+     * 目标Map的值类型，{@code null}表示不转换
+     */
+    private final Type mapValueType;
+
+    private CopyPlan(
+            Class<?> sourceClass,
+            Class<?> targetClass,
+            Type targetType,
+            boolean ignoreCase,
+            boolean transientSupport) {
+        if (null != targetClass) {
+            final Map<String, PropDesc> targetPropDescMap =
+                    BeanUtil.getBeanDesc(targetClass).getPropMap(ignoreCase);
+            this.writers = ignoreCase ? new CaseInsensitiveMap<>() : new HashMap<>();
+            targetPropDescMap.forEach(
+                    (name, desc) -> writers.put(name, new Writer(desc, targetType, transientSupport)));
+            this.resolved = null == sourceClass ? new ConcurrentHashMap<>() : null;
+            this.mapValueType = null;
+        } else {
+            this.writers = null;
+            this.resolved = null;
+            final Type[] typeArguments = ToolBytecode.getTypeArguments(targetType);
+            this.mapValueType = null == typeArguments ? null : typeArguments[1];
+        }
+        if (null != sourceClass) {
+            final List<Reader> readerList = new ArrayList<>();
+            BeanUtil.getBeanDesc(sourceClass)
+                    .getPropMap(ignoreCase)
+                    .forEach(
+                            (name, desc) -> {
+                                if (null != name && desc.isReadable(transientSupport)) {
+                                    readerList.add(new Reader(name, desc));
+                                }
+                            });
+            this.readers = readerList.toArray(new Reader[0]);
+            if (null != writers) {
+                this.matched = new Writer[readers.length];
+                for (int i = 0; i < readers.length; i++) {
+                    final Writer writer = writers.get(readers[i].name);
+                    matched[i] = null != writer && writer.writable ? writer : null;
+                }
+            } else {
+                this.matched = null;
+            }
+        } else {
+            this.readers = null;
+            this.matched = null;
+        }
+    }
+
+    /**
+     * 获取Bean转Bean的拷贝计划
+     *
+     * @param sourceClass      源Bean类型
+     * @param targetClass      目标Bean类型或限制类
+     * @param targetType       目标泛型类型
+     * @param ignoreCase       是否忽略大小写
+     * @param transientSupport 是否支持transient
+     * @return 拷贝计划
+     */
+    static CopyPlan beanToBean(
+            Class<?> sourceClass,
+            Class<?> targetClass,
+            Type targetType,
+            boolean ignoreCase,
+            boolean transientSupport) {
+        return get(sourceClass, new Key(sourceClass, targetClass, targetType, ignoreCase, transientSupport));
+    }
+
+    /**
+     * 获取Bean转Map的拷贝计划
+     *
+     * @param sourceClass      源Bean类型或限制类
+     * @param targetType       目标Map泛型类型
+     * @param ignoreCase       是否忽略大小写
+     * @param transientSupport 是否支持transient
+     * @return 拷贝计划
+     */
+    static CopyPlan beanToMap(
+            Class<?> sourceClass, Type targetType, boolean ignoreCase, boolean transientSupport) {
+        return get(sourceClass, new Key(sourceClass, null, targetType, ignoreCase, transientSupport));
+    }
+
+    /**
+     * 获取Map转Bean的拷贝计划
+     *
+     * @param targetClass      目标Bean类型或限制类
+     * @param targetType       目标泛型类型
+     * @param ignoreCase       是否忽略大小写
+     * @param transientSupport 是否支持transient
+     * @return 拷贝计划
+     */
+    static CopyPlan mapToBean(
+            Class<?> targetClass, Type targetType, boolean ignoreCase, boolean transientSupport) {
+        return get(targetClass, new Key(null, targetClass, targetType, ignoreCase, transientSupport));
+    }
+
+    private static CopyPlan get(Class<?> beanClass, Key key) {
+        return PLAN_CACHE
+                .computeIfAbsent(beanClass, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(
+                        key,
+                        k ->
+                                new CopyPlan(
+                                        k.sourceClass, k.targetClass, k.targetType, k.ignoreCase, k.transientSupport));
+    }
+
+    /**
+     * Bean转Bean
+     *
+     * @param source      源Bean
+     * @param target      目标Bean
+     * @param copyOptions 拷贝选项
+     */
+    void copyBeanToBean(Object source, Object target, CopyOptions copyOptions) {
+        final boolean editName = copyOptions.hasFieldNameEditor();
+        for (int i = 0; i < readers.length; i++) {
+            final Reader reader = readers[i];
+            String name = reader.name;
+            final Writer writer;
+            if (editName) {
+                // 对key做转换，转换后为null的跳过
+                name = copyOptions.editFieldName(name);
+                if (null == name) {
+                    continue;
+                }
+                writer = writers.get(name);
+                if (null == writer || false == writer.writable) {
+                    continue;
+                }
+            } else {
+                writer = matched[i];
+                if (null == writer) {
+                    continue;
+                }
+            }
+
+            Object value = reader.accessor.getValue(source);
+            if (false == copyOptions.testPropertyFilter(reader.field, value)) {
+                continue;
+            }
+            value = convert(copyOptions, writer.fieldType, value);
+            value = copyOptions.editFieldValue(name, value);
+            writer.setValue(
+                    target, value, copyOptions.ignoreNullValue, copyOptions.ignoreError, copyOptions.override);
+        }
+    }
+
+    /**
+     * Bean转Map
+     *
+     * @param source      源Bean
+     * @param target      目标Map
+     * @param copyOptions 拷贝选项
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    void copyBeanToMap(Object source, Map target, CopyOptions copyOptions) {
+        for (final Reader reader : readers) {
+            // 对key做转换，转换后为null的跳过
+            final String name = copyOptions.editFieldName(reader.name);
+            if (null == name) {
+                continue;
+            }
+
+            Object value = reader.accessor.getValue(source);
+            if (false == copyOptions.testPropertyFilter(reader.field, value)) {
+                continue;
+            }
+            if (null != mapValueType) {
+                value = convert(copyOptions, mapValueType, value);
+                value = copyOptions.editFieldValue(name, value);
+            }
+            if (null != value || false == copyOptions.ignoreNullValue) {
+                target.put(name, value);
+            }
+        }
+    }
+
+    /**
+     * Map转Bean
+     *
+     * @param source      源Map
+     * @param target      目标Bean
+     * @param copyOptions 拷贝选项
+     */
+    void copyMapToBean(Map<?, ?> source, Object target, CopyOptions copyOptions) {
+        for (final Map.Entry<?, ?> entry : source.entrySet()) {
+            final Object key = entry.getKey();
+            if (null == key) {
+                continue;
+            }
+            // 对key做转换，转换后为null的跳过
+            final String name = copyOptions.editFieldName(key.toString());
+            if (null == name) {
+                continue;
+            }
+            final Writer writer = resolve(name);
+            if (null == writer || false == writer.writable) {
+                continue;
+            }
+
+            Object value = entry.getValue();
+            if (false == copyOptions.testPropertyFilter(writer.field, value)) {
+                continue;
+            }
+            value = convert(copyOptions, writer.fieldType, value);
+            value = copyOptions.editFieldValue(writer.fieldName, value);
+            writer.setValue(
+                    target, value, copyOptions.ignoreNullValue, copyOptions.ignoreError, copyOptions.override);
+        }
+    }
+
+    /**
+     * 查找Map键对应的Bean属性<br>
+     * 尝试原名称、转驼峰名称、isXxx去掉is的名称，结果按键名缓存
+     *
+     * @param name 键名
+     * @return 属性，不存在返回{@code null}
+     */
+    private Writer resolve(String name) {
+        Writer writer = resolved.get(name);
+        if (null == writer) {
+            writer = findWriter(name);
+            if (null == writer) {
+                writer = ABSENT;
+            }
+            if (resolved.size() < MAX_RESOLVED_KEYS) {
+                resolved.put(name, writer);
+            }
+        }
+        return writer == ABSENT ? null : writer;
+    }
+
+    private Writer findWriter(String name) {
+        Writer writer = writers.get(name);
+        if (null != writer) {
+            return writer;
+        }
+
+        // 转驼峰尝试查找
+        name = Safe.toCamelCase(name, false);
+        writer = writers.get(name);
+        if (null != writer) {
+            return writer;
+        }
+
+        // boolean类型参数名转换尝试查找
+        if (name.startsWith("is")) {
+            return writers.get(ToolString.removePreAndLowerFirst(name, 2));
+        }
+        return null;
+    }
+
+    /**
+     * 转换字段值，使用默认转换器且值已是目标的不可变类型时直接返回
+     *
+     * @param copyOptions 拷贝选项
+     * @param type        目标类型
+     * @param value       值
+     * @return 转换后的值
+     */
+    private static Object convert(CopyOptions copyOptions, Type type, Object value) {
+        if (null != value
+                && type instanceof Class
+                && PoolOfObject.wrap((Class<?>) type) == value.getClass()
+                && IMMUTABLE_TYPES.contains(value.getClass())
+                && copyOptions.isDefaultConverter()
+                && Whether.noNvl(value)
+                && null == ConverterRegistry.getInstance().getCustomConverter(type)) {
+            return value;
+        }
+        return copyOptions.convertField(type, value);
+    }
+
+    private static Accessor accessor(PropDesc desc) {
+        return ACCESSOR_CACHE.computeIfAbsent(desc, Accessor::new);
+    }
+
+    /**
+     * 缓存键
+     */
+    private static final class Key {
+        private final Class<?> sourceClass;
+        private final Class<?> targetClass;
+        private final Type targetType;
+        private final boolean ignoreCase;
+        private final boolean transientSupport;
+
+        private Key(
+                Class<?> sourceClass,
+                Class<?> targetClass,
+                Type targetType,
+                boolean ignoreCase,
+                boolean transientSupport) {
+            this.sourceClass = sourceClass;
+            this.targetClass = targetClass;
+            this.targetType = targetType;
+            this.ignoreCase = ignoreCase;
+            this.transientSupport = transientSupport;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return ignoreCase == key.ignoreCase
+                    && transientSupport == key.transientSupport
+                    && sourceClass == key.sourceClass
+                    && targetClass == key.targetClass
+                    && Objects.equals(targetType, key.targetType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourceClass, targetClass, targetType, ignoreCase, transientSupport);
+        }
+    }
+
+    /**
+     * 源Bean的可读属性
+     */
+    private static final class Reader {
+        private final String name;
+        private final Field field;
+        private final Accessor accessor;
+
+        private Reader(String name, PropDesc desc) {
+            this.name = name;
+            this.field = desc.getField();
+            this.accessor = accessor(desc);
+        }
+    }
+
+    /**
+     * 目标Bean的属性，赋值规则与{@link PropDesc#setValue(Object, Object, boolean, boolean, boolean)}一致
+     */
+    private static final class Writer {
+        private final String fieldName;
+        private final Field field;
+        private final Type fieldType;
+        private final Class<?> fieldClass;
+        private final boolean writable;
+        private final Accessor accessor;
+
+        private Writer() {
+            this.fieldName = null;
+            this.field = null;
+            this.fieldType = null;
+            this.fieldClass = null;
+            this.writable = false;
+            this.accessor = null;
+        }
+
+        private Writer(PropDesc desc, Type targetType, boolean transientSupport) {
+            this.fieldName = desc.getFieldName();
+            this.field = desc.getField();
+            this.writable = desc.isWritable(transientSupport);
+            if (writable) {
+                this.fieldType = ToolBytecode.getActualType(targetType, desc.getFieldType());
+                // 原始类型按包装类型判断是否需要转换，装箱值与转换结果一致
+                this.fieldClass = PoolOfObject.wrap(desc.getFieldClass());
+                this.accessor = accessor(desc);
+            } else {
+                this.fieldType = null;
+                this.fieldClass = null;
+                this.accessor = null;
+            }
+        }
+
+        private void setValue(
+                Object bean, Object value, boolean ignoreNull, boolean ignoreError, boolean override) {
+            if (null == value && ignoreNull) {
+                return;
+            }
+            // 非覆盖模式下，如果目标值存在，则跳过
+            if (false == override && null != accessor.getValue(bean)) {
+                return;
+            }
+            // 当类型不匹配的时候，执行默认转换
+            if (null != value && false == fieldClass.isInstance(value)) {
+                value = Convert.convertWithCheck(fieldClass, value, null, ignoreError);
+            }
+            if (null != value || false == ignoreNull) {
+                try {
+                    accessor.setValue(bean, value);
+                } catch (Exception e) {
+                    if (false == ignoreError) {
+                        throw new BeanException(e, "Set value of [{}] error!", fieldName);
+                    }
+                    // 忽略注入失败
+                }
+            }
+        }
+    }
+
+    /**
+     * 属性访问器，Getter和Setter解析为{@link MethodHandle}直接调用，Bean与类库不在同一个类加载器时同样适用，
+     * 无法解析时（如无访问权限）回退到反射调用，两种方式对{@code null}值的处理一致
+     */
+    private static final class Accessor {
+        /**
+         * Getter适配后的类型
+         */
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        /**
+         * Setter适配后的类型
+         */
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+        private final PropDesc desc;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private Accessor(PropDesc desc) {
+            this.desc = desc;
+            this.getter = unreflect(desc.getGetter(), GETTER_TYPE);
+            this.setter = unreflect(desc.getSetter(), SETTER_TYPE);
+        }
+
+        /**
+         * 将方法解析为指定类型的{@link MethodHandle}，原始类型由{@link MethodHandle#asType(MethodType)}自动装箱和拆箱
+         *
+         * @param method 方法
+         * @param type   适配后的类型，第一个参数为Bean
+         * @return {@link MethodHandle}，无法解析时返回{@code null}
+         */
+        private static MethodHandle unreflect(Method method, MethodType type) {
+            if (null == method
+                    || method.getParameterCount() != type.parameterCount() - 1
+                    || Modifier.isStatic(method.getModifiers())) {
+                return null;
+            }
+            try {
+                // 抑制访问检查后解析不受调用方所在类加载器和Bean可见性的限制
+                final MethodHandle handle = method.trySetAccessible()
+                        ? MethodHandles.lookup().unreflect(method)
+                        : MethodHandles.publicLookup().unreflect(method);
+                return handle.asType(type);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        private Object getValue(Object bean) {
+            if (null == getter) {
+                return desc.getValue(bean);
+            }
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetRuntimeException(e);
+            }
+        }
+
+        private void setValue(Object bean, Object value) {
+            if (null == setter) {
+                if (null == value && null != desc.getSetter()) {
+                    // PropDesc#setValue(Object, Object)按参数类型匹配方法，不接受null值，直接调用Setter
+                    setNull(bean, desc.getSetter());
+                } else {
+                    desc.setValue(bean, value);
+                }
+                return;
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetRuntimeException(e);
+            }
+        }
+
+        /**
+         * 通过反射调用Setter赋值{@code null}，原始类型参数与{@link MethodHandle}一样抛出{@link NullPointerException}
+         *
+         * @param bean   Bean对象
+         * @param method Setter方法
+         */
+        private static void setNull(Object bean, Method method) {
+            if (method.getParameterTypes()[0].isPrimitive()) {
+                throw new NullPointerException("Can not set null to primitive type: " + method);
+            }
+            try {
+                method.setAccessible(true);
+                method.invoke(bean, (Object) null);
+            } catch (InvocationTargetException e) {
+                throw new InvocationTargetRuntimeException(e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new InvocationTargetRuntimeException(e);
+            }
+        }
+    }
+}
@@ -1,14 +1,9 @@
 package pxf.tl.bean.copier;
 
 
-import pxf.tl.bean.BeanUtil;
-import pxf.tl.bean.PropDesc;
 import pxf.tl.collection.map.CaseInsensitiveMap;
 import pxf.tl.collection.map.MapWrapper;
 import pxf.tl.help.Assert;
-import pxf.tl.help.Safe;
-import pxf.tl.util.ToolBytecode;
-import pxf.tl.util.ToolString;
 
 import java.lang.reflect.Type;
 import java.util.Map;
@@ -59,79 +54,9 @@ public class MapToBeanCopier<T> extends AbsCopier<Map<?, ?>, T> {
                     copyOptions.editable.getName());
             actualEditable = copyOptions.editable;
         }
-        final Map<String, PropDesc> targetPropDescMap =
-                BeanUtil.getBeanDesc(actualEditable).getPropMap(copyOptions.ignoreCase);
-
-        this.source.forEach(
-                (sKey, sValue) -> {
-                    if (null == sKey) {
-                        return;
-                    }
-                    String sKeyStr = copyOptions.editFieldName(sKey.toString());
-                    // 对key做转换，转换后为null的跳过
-                    if (null == sKeyStr) {
-                        return;
-                    }
-
-                    // 检查目标字段可写性
-                    final PropDesc tDesc = findPropDesc(targetPropDescMap, sKeyStr);
-                    if (null == tDesc || false == tDesc.isWritable(this.copyOptions.transientSupport)) {
-                        // 字段不可写，跳过之
-                        return;
-                    }
-                    sKeyStr = tDesc.getFieldName();
-
-                    // 检查目标是否过滤属性
-                    if (false == copyOptions.testPropertyFilter(tDesc.getField(), sValue)) {
-                        return;
-                    }
-
-                    // 获取目标字段真实类型并转换源值
-                    final Type fieldType = ToolBytecode.getActualType(this.targetType, tDesc.getFieldType());
-                    // Object newValue = Convert.convertWithCheck(fieldType, sValue, null,
-                    // this.copyOptions.ignoreError);
-                    Object newValue = this.copyOptions.convertField(fieldType, sValue);
-                    newValue = copyOptions.editFieldValue(sKeyStr, newValue);
-
-                    // 目标赋值
-                    tDesc.setValue(
-                            this.target,
-                            newValue,
-                            copyOptions.ignoreNullValue,
-                            copyOptions.ignoreError,
-                            copyOptions.override);
-                });
+        CopyPlan.mapToBean(
+                        actualEditable, this.targetType, copyOptions.ignoreCase, copyOptions.transientSupport)
+                .copyMapToBean(this.source, this.target, this.copyOptions);
         return this.target;
     }
-
-    /**
-     * 查找Map对应Bean的名称<br>
-     * 尝试原名称、转驼峰名称、isXxx去掉is的名称
-     *
-     * @param targetPropDescMap 目标bean的属性描述Map
-     * @param sKeyStr           键或字段名
-     * @return {@link PropDesc}
-     */
-    private PropDesc findPropDesc(Map<String, PropDesc> targetPropDescMap, String sKeyStr) {
-        PropDesc propDesc = targetPropDescMap.get(sKeyStr);
-        if (null != propDesc) {
-            return propDesc;
-        }
-
-        // 转驼峰尝试查找
-        sKeyStr = Safe.toCamelCase(sKeyStr,false);
-        propDesc = targetPropDescMap.get(sKeyStr);
-        if (null != propDesc) {
-            return propDesc;
-        }
-
-        // boolean类型参数名转换尝试查找
-        if (sKeyStr.startsWith("is")) {
-            sKeyStr = ToolString.removePreAndLowerFirst(sKeyStr, 2);
-            propDesc = targetPropDescMap.get(sKeyStr);
-            return propDesc;
-        }
-
-        return null;
-    }
 }
@@ -0,0 +1,275 @@
+package pxf.tl.bloomfilter;
+
+
+import pxf.tl.bloomfilter.bitMap.BitArray;
+import pxf.tl.bloomfilter.bitMap.LongArrayBitMap;
+import pxf.tl.bloomfilter.bitMap.MappedBitMap;
+import pxf.tl.exception.IORuntimeException;
+import pxf.tl.io.FileUtil;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 布隆过滤器的二进制格式，所有数值按大端序存放<br>
+ * 头部：魔数{@code PXBF}(int)、版本(byte)、类型(byte)、Hash算法(byte)，之后按类型存放：
+ * <ul>
+ *     <li>双重Hash：Hash函数个数(int)、long个数(int)、位值(long...)</li>
+ *     <li>计数：Hash函数个数(int)、long个数(int)、计数器(long...)</li>
+ *     <li>可扩容：初始容量(long)、误判率(double)、增长因子(int)、收紧比例(double)、当前切片容量(long)、
+ *     当前切片元素数(long)、切片数(int)，之后依次为每个切片的Hash函数个数(int)、long个数(int)、位值(long...)</li>
+ * </ul>
+ * 位值在文件中连续存放，可以直接通过{@link MappedBitMap}映射
+ *
+ * @author potatoxf
+ */
+final class BloomFilterCodec {
+    private static final int MAGIC = 0x50584246;
+    private static final byte VERSION = 1;
+    private static final byte TYPE_DOUBLE_HASH = 1;
+    private static final byte TYPE_COUNTING = 2;
+    private static final byte TYPE_SCALABLE = 3;
+    /**
+     * 头部长度
+     */
+    private static final int HEADER_SIZE = 7;
+    /**
+     * 可扩容过滤器头部之后的固定部分长度
+     */
+    private static final int SCALABLE_SIZE = 8 + 8 + 4 + 8 + 8 + 8 + 4;
+    /**
+     * 位值读写缓冲区的long个数
+     */
+    private static final int BUFFER_WORDS = 8192;
+
+    private BloomFilterCodec() {
+    }
+
+    /**
+     * 写出过滤器
+     *
+     * @param filter 过滤器，支持{@link DoubleHashBloomFilter}、{@link CountingBloomFilter}、{@link ScalableBloomFilter}
+     * @param out    输出流，不关闭
+     * @throws IORuntimeException IO异常
+     */
+    static void write(BloomFilter filter, OutputStream out) throws IORuntimeException {
+        final DataOutputStream dos = new DataOutputStream(out);
+        try {
+            dos.writeInt(MAGIC);
+            dos.writeByte(VERSION);
+            if (filter instanceof DoubleHashBloomFilter f) {
+                dos.writeByte(TYPE_DOUBLE_HASH);
+                dos.writeByte(f.hash().ordinal());
+                writeBits(dos, f);
+            } else if (filter instanceof CountingBloomFilter f) {
+                final long[] counters = f.counters();
+                dos.writeByte(TYPE_COUNTING);
+                dos.writeByte(f.hash().ordinal());
+                dos.writeInt(f.numHashFunctions());
+                dos.writeInt(counters.length);
+                writeWords(dos, new LongArrayBitMap(counters));
+            } else if (filter instanceof ScalableBloomFilter f) {
+                dos.writeByte(TYPE_SCALABLE);
+                dos.writeByte(f.hash().ordinal());
+                synchronized (f) {
+                    final DoubleHashBloomFilter[] slices = f.slices();
+                    dos.writeLong(f.initialCapacity());
+                    dos.writeDouble(f.fpp());
+                    dos.writeInt(f.growthFactor());
+                    dos.writeDouble(f.tighteningRatio());
+                    dos.writeLong(f.currentSliceCapacity());
+                    dos.writeLong(f.currentSliceCount());
+                    dos.writeInt(slices.length);
+                    for (DoubleHashBloomFilter slice : slices) {
+                        writeBits(dos, slice);
+                    }
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported bloom filter: " + filter.getClass().getName());
+            }
+            dos.flush();
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    /**
+     * 读取过滤器到堆中，读取后可以继续加入元素
+     *
+     * @param in 输入流，不关闭
+     * @return 过滤器
+     * @throws IORuntimeException IO异常
+     */
+    static BloomFilter read(InputStream in) throws IORuntimeException {
+        final DataInputStream dis = new DataInputStream(in);
+        try {
+            final byte type = readHeader(dis);
+            final BloomHash hash = toHash(dis.readUnsignedByte());
+            switch (type) {
+                case TYPE_DOUBLE_HASH:
+                    return readBits(dis, hash);
+                case TYPE_COUNTING: {
+                    final int numHashFunctions = dis.readInt();
+                    return new CountingBloomFilter(readWords(dis, dis.readInt()), numHashFunctions, hash);
+                }
+                case TYPE_SCALABLE: {
+                    final long initialCapacity = dis.readLong();
+                    final double fpp = dis.readDouble();
+                    final int growthFactor = dis.readInt();
+                    final double tighteningRatio = dis.readDouble();
+                    final long sliceCapacity = dis.readLong();
+                    final long sliceCount = dis.readLong();
+                    final DoubleHashBloomFilter[] slices = new DoubleHashBloomFilter[dis.readInt()];
+                    for (int i = 0; i < slices.length; i++) {
+                        slices[i] = readBits(dis, hash);
+                    }
+                    return new ScalableBloomFilter(initialCapacity, fpp, growthFactor, tighteningRatio, hash,
+                            slices, sliceCapacity, sliceCount);
+                }
+                default:
+                    throw new IORuntimeException("Unknown bloom filter type: {}", type);
+            }
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    /**
+     * 以只读方式映射过滤器文件，位值不读入堆，双重Hash过滤器加入元素时抛出{@link UnsupportedOperationException}，
+     * 可扩容过滤器加入元素时在堆中追加新切片<br>
+     * 计数过滤器不支持映射，将读入堆中
+     *
+     * @param file 文件
+     * @return 过滤器
+     * @throws IORuntimeException IO异常
+     */
+    static BloomFilter map(File file) throws IORuntimeException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            final byte type = readHeader(header);
+            final BloomHash hash = toHash(header.get() & 0xFF);
+            switch (type) {
+                case TYPE_DOUBLE_HASH:
+                    return mapBits(channel, HEADER_SIZE, hash);
+                case TYPE_COUNTING:
+                    try (InputStream in = FileUtil.getInputStream(file)) {
+                        return read(in);
+                    }
+                case TYPE_SCALABLE: {
+                    final ByteBuffer buffer = readFully(channel, HEADER_SIZE, SCALABLE_SIZE);
+                    final long initialCapacity = buffer.getLong();
+                    final double fpp = buffer.getDouble();
+                    final int growthFactor = buffer.getInt();
+                    final double tighteningRatio = buffer.getDouble();
+                    final long sliceCapacity = buffer.getLong();
+                    final long sliceCount = buffer.getLong();
+                    final DoubleHashBloomFilter[] slices = new DoubleHashBloomFilter[buffer.getInt()];
+                    long position = HEADER_SIZE + SCALABLE_SIZE;
+                    for (int i = 0; i < slices.length; i++) {
+                        slices[i] = mapBits(channel, position, hash);
+                        position += 8 + (long) slices[i].bits().wordCount() * Long.BYTES;
+                    }
+                    return new ScalableBloomFilter(initialCapacity, fpp, growthFactor, tighteningRatio, hash,
+                            slices, sliceCapacity, sliceCount);
+                }
+                default:
+                    throw new IORuntimeException("Unknown bloom filter type: {}", type);
+            }
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    private static void writeBits(DataOutputStream dos, DoubleHashBloomFilter filter) throws IOException {
+        final BitArray bits = filter.bits();
+        dos.writeInt(filter.numHashFunctions());
+        dos.writeInt(bits.wordCount());
+        writeWords(dos, bits);
+    }
+
+    private static void writeWords(DataOutputStream dos, BitArray bits) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_WORDS * Long.BYTES);
+        for (int i = 0, n = bits.wordCount(); i < n; i++) {
+            if (false == buffer.hasRemaining()) {
+                dos.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+            buffer.putLong(bits.word(i));
+        }
+        dos.write(buffer.array(), 0, buffer.position());
+    }
+
+    private static DoubleHashBloomFilter readBits(DataInputStream dis, BloomHash hash) throws IOException {
+        final int numHashFunctions = dis.readInt();
+        final long[] words = readWords(dis, dis.readInt());
+        return new DoubleHashBloomFilter(new LongArrayBitMap(words), numHashFunctions, hash);
+    }
+
+    private static long[] readWords(DataInputStream dis, int wordCount) throws IOException {
+        final long[] words = new long[wordCount];
+        final byte[] bytes = new byte[BUFFER_WORDS * Long.BYTES];
+        for (int i = 0; i < wordCount; ) {
+            final int n = Math.min(BUFFER_WORDS, wordCount - i);
+            dis.readFully(bytes, 0, n * Long.BYTES);
+            ByteBuffer.wrap(bytes, 0, n * Long.BYTES).asLongBuffer().get(words, i, n);
+            i += n;
+        }
+        return words;
+    }
+
+    private static DoubleHashBloomFilter mapBits(FileChannel channel, long position, BloomHash hash) throws IOException {
+        final ByteBuffer buffer = readFully(channel, position, 8);
+        final int numHashFunctions = buffer.getInt();
+        final int wordCount = buffer.getInt();
+        return new DoubleHashBloomFilter(new MappedBitMap(channel, position + 8, wordCount), numHashFunctions, hash);
+    }
+
+    private static byte readHeader(DataInputStream dis) throws IOException {
+        final int magic = dis.readInt();
+        final byte version = dis.readByte();
+        checkHeader(magic, version);
+        return dis.readByte();
+    }
+
+    private static byte readHeader(ByteBuffer buffer) {
+        final int magic = buffer.getInt();
+        final byte version = buffer.get();
+        checkHeader(magic, version);
+        return buffer.get();
+    }
+
+    private static BloomHash toHash(int ordinal) {
+        final BloomHash[] hashes = BloomHash.values();
+        if (ordinal >= hashes.length) {
+            throw new IORuntimeException("Unknown bloom hash: {}", ordinal);
+        }
+        return hashes[ordinal];
+    }
+
+    private static void checkHeader(int magic, byte version) {
+        if (magic != MAGIC) {
+            throw new IORuntimeException("Not a bloom filter file");
+        }
+        if (version != VERSION) {
+            throw new IORuntimeException("Unsupported bloom filter version: {}", version);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IORuntimeException("Unexpected end of bloom filter file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -1,5 +1,13 @@
 package pxf.tl.bloomfilter;
 
+import pxf.tl.exception.IORuntimeException;
+import pxf.tl.io.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  * 布隆过滤器工具
  *
@@ -28,4 +36,141 @@ public class BloomFilterUtil {
     public static BitMapBloomFilter createBitMap(int m) {
         return new BitMapBloomFilter(m);
     }
+
+    /**
+     * 创建使用双重Hash的布隆过滤器，位数可超过{@link Integer#MAX_VALUE}
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param fpp                期望误判率，取值(0, 1)
+     * @return DoubleHashBloomFilter
+     */
+    public static DoubleHashBloomFilter createDoubleHash(long expectedInsertions, double fpp) {
+        return new DoubleHashBloomFilter(expectedInsertions, fpp);
+    }
+
+    /**
+     * 创建使用双重Hash的线程安全布隆过滤器，多个线程可以不加锁地同时加入
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param fpp                期望误判率，取值(0, 1)
+     * @return DoubleHashBloomFilter
+     */
+    public static DoubleHashBloomFilter createConcurrent(long expectedInsertions, double fpp) {
+        return new DoubleHashBloomFilter(expectedInsertions, fpp, BloomHash.MURMUR3_128, true);
+    }
+
+    /**
+     * 创建可扩容的布隆过滤器
+     *
+     * @param initialCapacity 初始容量
+     * @param fpp             整体期望误判率，取值(0, 1)
+     * @return ScalableBloomFilter
+     */
+    public static ScalableBloomFilter createScalable(long initialCapacity, double fpp) {
+        return new ScalableBloomFilter(initialCapacity, fpp);
+    }
+
+    /**
+     * 创建支持删除的计数布隆过滤器
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param fpp                期望误判率，取值(0, 1)
+     * @return CountingBloomFilter
+     */
+    public static CountingBloomFilter createCounting(long expectedInsertions, double fpp) {
+        return new CountingBloomFilter(expectedInsertions, fpp);
+    }
+
+    /**
+     * 将过滤器以二进制格式写出
+     *
+     * @param filter 过滤器，支持{@link DoubleHashBloomFilter}、{@link CountingBloomFilter}、{@link ScalableBloomFilter}
+     * @param out    输出流，不关闭
+     * @throws IORuntimeException IO异常
+     */
+    public static void write(BloomFilter filter, OutputStream out) throws IORuntimeException {
+        BloomFilterCodec.write(filter, out);
+    }
+
+    /**
+     * 将过滤器以二进制格式写出到文件
+     *
+     * @param filter 过滤器，支持{@link DoubleHashBloomFilter}、{@link CountingBloomFilter}、{@link ScalableBloomFilter}
+     * @param file   文件
+     * @throws IORuntimeException IO异常
+     */
+    public static void write(BloomFilter filter, File file) throws IORuntimeException {
+        try (OutputStream out = FileUtil.getOutputStream(file)) {
+            BloomFilterCodec.write(filter, out);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    /**
+     * 读取{@link #write(BloomFilter, OutputStream)}写出的过滤器到堆中，读取后可以继续加入元素
+     *
+     * @param in 输入流，不关闭
+     * @return 过滤器
+     * @throws IORuntimeException IO异常
+     */
+    public static BloomFilter read(InputStream in) throws IORuntimeException {
+        return BloomFilterCodec.read(in);
+    }
+
+    /**
+     * 读取{@link #write(BloomFilter, File)}写出的过滤器到堆中，读取后可以继续加入元素
+     *
+     * @param file 文件
+     * @return 过滤器
+     * @throws IORuntimeException IO异常
+     */
+    public static BloomFilter read(File file) throws IORuntimeException {
+        try (InputStream in = FileUtil.getInputStream(file)) {
+            return BloomFilterCodec.read(in);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    /**
+     * 以只读方式映射{@link #write(BloomFilter, File)}写出的过滤器，位数组直接映射文件而不读入堆，适合快速加载大型过滤器<br>
+     * 映射得到的双重Hash过滤器加入元素时抛出{@link UnsupportedOperationException}，可扩容过滤器加入元素时在堆中追加新切片，
+     * 已映射的切片保持只读；计数过滤器不支持映射，将读入堆中
+     *
+     * @param file 文件
+     * @return 过滤器
+     * @throws IORuntimeException IO异常
+     */
+    public static BloomFilter map(File file) throws IORuntimeException {
+        return BloomFilterCodec.map(file);
+    }
+
+    /**
+     * 计算最优位数：{@code m = -n * ln(p) / (ln2)^2}
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param fpp                期望误判率，取值(0, 1)
+     * @return 位数
+     */
+    public static long optimalNumOfBits(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive: " + expectedInsertions);
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("False positive probability must be in (0, 1): " + fpp);
+        }
+        return Math.max(Long.SIZE, (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+    }
+
+    /**
+     * 计算最优Hash函数个数：{@code k = m / n * ln2}
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param numBits            位数
+     * @return Hash函数个数
+     */
+    public static int optimalNumOfHashFunctions(long expectedInsertions, long numBits) {
+        return Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    }
 }
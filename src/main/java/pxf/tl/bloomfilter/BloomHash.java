@@ -0,0 +1,40 @@
+package pxf.tl.bloomfilter;
+
+import pxf.tl.math.Number128;
+import pxf.tl.math.hash.MetroHash;
+import pxf.tl.math.hash.MurmurHash;
+
+/**
+ * 布隆过滤器使用的128位Hash算法，结果拆分为两个64位值用于双重Hash：{@code h1 + i * h2}
+ *
+ * @author potatoxf
+ */
+public enum BloomHash {
+    /**
+     * Murmur3 128位
+     */
+    MURMUR3_128 {
+        @Override
+        public long[] hash(byte[] data) {
+            return MurmurHash.hash128(data);
+        }
+    },
+    /**
+     * MetroHash 128位
+     */
+    METRO_128 {
+        @Override
+        public long[] hash(byte[] data) {
+            final Number128 number = MetroHash.hash128(data);
+            return new long[]{number.getLowValue(), number.getHighValue()};
+        }
+    };
+
+    /**
+     * 计算128位Hash值
+     *
+     * @param data 数据
+     * @return 两个64位Hash值
+     */
+    public abstract long[] hash(byte[] data);
+}
@@ -0,0 +1,212 @@
+package pxf.tl.bloomfilter;
+
+
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 计数布隆过滤器，支持删除元素<br>
+ * 每个位置使用4位计数器，每个{@code long}存放16个计数器，计数器达到15后不再变化（饱和），饱和的计数器也不会被减小，
+ * 以避免误删其他元素。<br>
+ * 位置计算与{@link DoubleHashBloomFilter}相同，使用双重Hash。<br>
+ * 非线程安全。
+ *
+ * @author potatoxf
+ */
+public class CountingBloomFilter implements BloomFilter {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_LONG = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MASK = 0xFL;
+
+    private final long[] counters;
+    private final long counterSize;
+    private final int numHashFunctions;
+    private final BloomHash hash;
+
+    /**
+     * 构造，根据预计元素数量和期望误判率计算计数器个数及Hash函数个数
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param fpp                期望误判率，取值(0, 1)
+     */
+    public CountingBloomFilter(long expectedInsertions, double fpp) {
+        this(BloomFilterUtil.optimalNumOfBits(expectedInsertions, fpp),
+                BloomFilterUtil.optimalNumOfHashFunctions(expectedInsertions,
+                        BloomFilterUtil.optimalNumOfBits(expectedInsertions, fpp)),
+                BloomHash.MURMUR3_128);
+    }
+
+    /**
+     * 构造
+     *
+     * @param numCounters      计数器个数，向上取整为16的倍数
+     * @param numHashFunctions Hash函数个数
+     * @param hash             Hash算法
+     */
+    public CountingBloomFilter(long numCounters, int numHashFunctions, BloomHash hash) {
+        if (numCounters <= 0) {
+            throw new IllegalArgumentException("Number of counters must be positive: " + numCounters);
+        }
+        if (numHashFunctions <= 0) {
+            throw new IllegalArgumentException("Number of hash functions must be positive: " + numHashFunctions);
+        }
+        final long length = (numCounters + COUNTERS_PER_LONG - 1) / COUNTERS_PER_LONG;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Number of counters is too large: " + numCounters);
+        }
+        this.counters = new long[(int) length];
+        this.counterSize = length * COUNTERS_PER_LONG;
+        this.numHashFunctions = numHashFunctions;
+        this.hash = null == hash ? BloomHash.MURMUR3_128 : hash;
+    }
+
+    /**
+     * 使用已有的计数器构造，用于反序列化，不复制数组
+     *
+     * @param counters         计数器，每个{@code long}存放16个计数器
+     * @param numHashFunctions Hash函数个数
+     * @param hash             Hash算法
+     */
+    CountingBloomFilter(long[] counters, int numHashFunctions, BloomHash hash) {
+        this.counters = counters;
+        this.counterSize = (long) counters.length * COUNTERS_PER_LONG;
+        this.numHashFunctions = numHashFunctions;
+        this.hash = hash;
+    }
+
+    @Override
+    public boolean contains(String str) {
+        return contains(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 加入字符串，已存在的字符串也会增加计数，以便多次加入后多次删除
+     *
+     * @param str 字符串
+     * @return 加入前是否不存在
+     */
+    @Override
+    public boolean add(String str) {
+        return add(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 删除字符串
+     *
+     * @param str 字符串
+     * @return 是否删除，字符串不存在时返回{@code false}
+     */
+    public boolean remove(String str) {
+        return remove(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param data 数据
+     * @return 数据是否可能存在
+     */
+    public boolean contains(byte[] data) {
+        final long[] h = hash.hash(data);
+        long combined = h[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            if (0 == counter(index(combined))) {
+                return false;
+            }
+            combined += h[1];
+        }
+        return true;
+    }
+
+    /**
+     * 加入数据，已存在的数据也会增加计数
+     *
+     * @param data 数据
+     * @return 加入前是否不存在
+     */
+    public boolean add(byte[] data) {
+        final long[] h = hash.hash(data);
+        boolean absent = false;
+        long combined = h[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            final long index = index(combined);
+            final long count = counter(index);
+            if (0 == count) {
+                absent = true;
+            }
+            if (count < COUNTER_MASK) {
+                setCounter(index, count + 1);
+            }
+            combined += h[1];
+        }
+        return absent;
+    }
+
+    /**
+     * 删除数据，数据不存在时不做任何修改
+     *
+     * @param data 数据
+     * @return 是否删除，数据不存在时返回{@code false}
+     */
+    public boolean remove(byte[] data) {
+        if (false == contains(data)) {
+            return false;
+        }
+        final long[] h = hash.hash(data);
+        long combined = h[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            final long index = index(combined);
+            final long count = counter(index);
+            // 饱和的计数器无法得知真实计数，保持不变
+            if (count < COUNTER_MASK) {
+                setCounter(index, count - 1);
+            }
+            combined += h[1];
+        }
+        return true;
+    }
+
+    /**
+     * @return 计数器个数
+     */
+    public long counterSize() {
+        return counterSize;
+    }
+
+    /**
+     * @return Hash函数个数
+     */
+    public int numHashFunctions() {
+        return numHashFunctions;
+    }
+
+    /**
+     * @return Hash算法
+     */
+    public BloomHash hash() {
+        return hash;
+    }
+
+    /**
+     * @return 计数器
+     */
+    long[] counters() {
+        return counters;
+    }
+
+    private long index(long combined) {
+        return (combined & Long.MAX_VALUE) % counterSize;
+    }
+
+    private long counter(long index) {
+        final int shift = (int) (index % COUNTERS_PER_LONG) * COUNTER_BITS;
+        return (counters[(int) (index / COUNTERS_PER_LONG)] >>> shift) & COUNTER_MASK;
+    }
+
+    private void setCounter(long index, long value) {
+        final int r = (int) (index / COUNTERS_PER_LONG);
+        final int shift = (int) (index % COUNTERS_PER_LONG) * COUNTER_BITS;
+        counters[r] = (counters[r] & ~(COUNTER_MASK << shift)) | (value << shift);
+    }
+}
@@ -0,0 +1,315 @@
+package pxf.tl.bloomfilter;
+
+
+import pxf.tl.bloomfilter.bitMap.BitArray;
+import pxf.tl.bloomfilter.bitMap.ConcurrentBitMap;
+import pxf.tl.bloomfilter.bitMap.LongArrayBitMap;
+import pxf.tl.bloomfilter.bitMap.MappedBitMap;
+
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 使用双重Hash的布隆过滤器<br>
+ * 对元素只计算一次128位Hash，拆分为{@code h1}、{@code h2}，第i个位置为{@code (h1 + i * h2) mod m}，
+ * 避免{@link BitSetBloomFilter}逐个调用多个Hash函数的开销。<br>
+ * 位存储使用{@link LongArrayBitMap}，位数可以超过{@link Integer#MAX_VALUE}；
+ * 并发模式下使用{@link ConcurrentBitMap}，多个线程可以不加锁地同时写入。<br>
+ * 批量加入或查询时使用{@link #addAll(Collection)}和{@link #containsAll(Collection)}，先计算一批元素的所有位置并排序，再按顺序访问位数组。
+ *
+ * @author potatoxf
+ */
+public class DoubleHashBloomFilter implements BloomFilter {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 批量操作时每批的元素数
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    private final BitArray bits;
+    private final long bitSize;
+    private final int numHashFunctions;
+    private final BloomHash hash;
+
+    /**
+     * 构造，根据预计元素数量和期望误判率计算位数及Hash函数个数
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param fpp                期望误判率，取值(0, 1)
+     */
+    public DoubleHashBloomFilter(long expectedInsertions, double fpp) {
+        this(expectedInsertions, fpp, BloomHash.MURMUR3_128);
+    }
+
+    /**
+     * 构造，根据预计元素数量和期望误判率计算位数及Hash函数个数
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param fpp                期望误判率，取值(0, 1)
+     * @param hash               Hash算法
+     */
+    public DoubleHashBloomFilter(long expectedInsertions, double fpp, BloomHash hash) {
+        this(expectedInsertions, fpp, hash, false);
+    }
+
+    /**
+     * 构造，根据预计元素数量和期望误判率计算位数及Hash函数个数
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param fpp                期望误判率，取值(0, 1)
+     * @param hash               Hash算法
+     * @param concurrent         是否允许多线程并发写入
+     */
+    public DoubleHashBloomFilter(long expectedInsertions, double fpp, BloomHash hash, boolean concurrent) {
+        this(BloomFilterUtil.optimalNumOfBits(expectedInsertions, fpp),
+                BloomFilterUtil.optimalNumOfHashFunctions(expectedInsertions,
+                        BloomFilterUtil.optimalNumOfBits(expectedInsertions, fpp)),
+                hash, concurrent);
+    }
+
+    /**
+     * 构造
+     *
+     * @param numBits          位数，向上取整为64的倍数
+     * @param numHashFunctions Hash函数个数
+     * @param hash             Hash算法
+     */
+    public DoubleHashBloomFilter(long numBits, int numHashFunctions, BloomHash hash) {
+        this(numBits, numHashFunctions, hash, false);
+    }
+
+    /**
+     * 构造
+     *
+     * @param numBits          位数，向上取整为64的倍数
+     * @param numHashFunctions Hash函数个数
+     * @param hash             Hash算法
+     * @param concurrent       是否允许多线程并发写入
+     */
+    public DoubleHashBloomFilter(long numBits, int numHashFunctions, BloomHash hash, boolean concurrent) {
+        if (numHashFunctions <= 0) {
+            throw new IllegalArgumentException("Number of hash functions must be positive: " + numHashFunctions);
+        }
+        this.bits = concurrent ? new ConcurrentBitMap(numBits) : new LongArrayBitMap(numBits);
+        this.bitSize = bits.bitSize();
+        this.numHashFunctions = numHashFunctions;
+        this.hash = null == hash ? BloomHash.MURMUR3_128 : hash;
+    }
+
+    /**
+     * 使用已有的位数组构造，用于反序列化或映射文件
+     *
+     * @param bits             位数组
+     * @param numHashFunctions Hash函数个数
+     * @param hash             Hash算法
+     */
+    DoubleHashBloomFilter(BitArray bits, int numHashFunctions, BloomHash hash) {
+        this.bits = bits;
+        this.bitSize = bits.bitSize();
+        this.numHashFunctions = numHashFunctions;
+        this.hash = hash;
+    }
+
+    @Override
+    public boolean contains(String str) {
+        return contains(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean add(String str) {
+        return add(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param data 数据
+     * @return 数据是否可能存在
+     */
+    public boolean contains(byte[] data) {
+        final long[] h = hash.hash(data);
+        return mightContain(h[0], h[1]);
+    }
+
+    /**
+     * 加入数据
+     *
+     * @param data 数据
+     * @return 是否改变了过滤器，如果可能已存在返回{@code false}
+     */
+    public boolean add(byte[] data) {
+        final long[] h = hash.hash(data);
+        return put(h[0], h[1]);
+    }
+
+    /**
+     * 批量加入字符串，每批计算所有元素的位置并排序后再设置，减少随机访问
+     *
+     * @param strs 字符串
+     * @return 是否改变了过滤器
+     */
+    public boolean addAll(Collection<String> strs) {
+        final long[] positions = new long[Math.min(Math.max(strs.size(), 1), BATCH_SIZE) * numHashFunctions];
+        boolean changed = false;
+        int n = 0;
+        for (String str : strs) {
+            n = fillPositions(str, positions, n);
+            if (n == positions.length) {
+                changed |= setAll(positions, n);
+                n = 0;
+            }
+        }
+        return setAll(positions, n) | changed;
+    }
+
+    /**
+     * 批量判断字符串是否都可能存在，每批计算所有元素的位置并排序后再检查，减少随机访问
+     *
+     * @param strs 字符串
+     * @return 是否都可能存在
+     */
+    public boolean containsAll(Collection<String> strs) {
+        final long[] positions = new long[Math.min(Math.max(strs.size(), 1), BATCH_SIZE) * numHashFunctions];
+        int n = 0;
+        for (String str : strs) {
+            n = fillPositions(str, positions, n);
+            if (n == positions.length) {
+                if (false == containsAll(positions, n)) {
+                    return false;
+                }
+                n = 0;
+            }
+        }
+        return containsAll(positions, n);
+    }
+
+    /**
+     * 使用已计算好的Hash值加入元素，多个过滤器共享同一个{@link BloomHash}时可以只计算一次Hash
+     *
+     * @param h1 Hash值低64位
+     * @param h2 Hash值高64位
+     * @return 是否改变了过滤器
+     */
+    public boolean put(long h1, long h2) {
+        boolean changed = false;
+        long combined = h1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            changed |= bits.set((combined & Long.MAX_VALUE) % bitSize);
+            combined += h2;
+        }
+        return changed;
+    }
+
+    /**
+     * 使用已计算好的Hash值判断元素是否可能存在
+     *
+     * @param h1 Hash值低64位
+     * @param h2 Hash值高64位
+     * @return 元素是否可能存在
+     */
+    public boolean mightContain(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            if (false == bits.contains((combined & Long.MAX_VALUE) % bitSize)) {
+                return false;
+            }
+            combined += h2;
+        }
+        return true;
+    }
+
+    /**
+     * 计算字符串的所有位置
+     *
+     * @param str       字符串
+     * @param positions 位置数组
+     * @param offset    写入起始下标
+     * @return 写入后的下标
+     */
+    private int fillPositions(String str, long[] positions, int offset) {
+        final long[] h = hash.hash(str.getBytes(StandardCharsets.UTF_8));
+        long combined = h[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            positions[offset++] = (combined & Long.MAX_VALUE) % bitSize;
+            combined += h[1];
+        }
+        return offset;
+    }
+
+    private boolean setAll(long[] positions, int length) {
+        Arrays.sort(positions, 0, length);
+        boolean changed = false;
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || positions[i] != positions[i - 1]) {
+                changed |= bits.set(positions[i]);
+            }
+        }
+        return changed;
+    }
+
+    private boolean containsAll(long[] positions, int length) {
+        Arrays.sort(positions, 0, length);
+        for (int i = 0; i < length; i++) {
+            if (false == bits.contains(positions[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 位数组是否为只读的文件映射
+     */
+    boolean isReadOnly() {
+        return bits instanceof MappedBitMap;
+    }
+
+    /**
+     * @return 位数
+     */
+    public long bitSize() {
+        return bitSize;
+    }
+
+    /**
+     * @return Hash函数个数
+     */
+    public int numHashFunctions() {
+        return numHashFunctions;
+    }
+
+    /**
+     * @return Hash算法
+     */
+    public BloomHash hash() {
+        return hash;
+    }
+
+    /**
+     * 根据已设置的位数估算当前误判率
+     *
+     * @return 当前误判率
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bits.cardinality() / bitSize, numHashFunctions);
+    }
+
+    /**
+     * 根据已设置的位数估算已加入的元素数量
+     *
+     * @return 估算的元素数量
+     */
+    public long approximateElementCount() {
+        final double fractionOfBitsSet = (double) bits.cardinality() / bitSize;
+        return Math.round(-Math.log1p(-fractionOfBitsSet) * bitSize / numHashFunctions);
+    }
+
+    /**
+     * @return 位数组
+     */
+    BitArray bits() {
+        return bits;
+    }
+}
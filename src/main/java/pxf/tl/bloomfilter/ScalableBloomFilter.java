@@ -0,0 +1,253 @@
+package pxf.tl.bloomfilter;
+
+
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 可扩容的布隆过滤器<br>
+ * 由多个{@link DoubleHashBloomFilter}切片组成，当前切片加入的元素达到容量时追加一个新切片，
+ * 新切片容量按增长因子放大，误判率按收紧比例缩小，使整体误判率收敛于初始设置的误判率，不需要预先知道元素总数。<br>
+ * 所有切片使用同一个{@link BloomHash}，每个元素只计算一次Hash。<br>
+ * 加入操作是同步的，查询不加锁。<br>
+ * 通过文件映射加载的过滤器依旧可以加入元素，已映射的切片保持只读，首次加入时在堆中追加新切片。
+ *
+ * @author potatoxf
+ */
+public class ScalableBloomFilter implements BloomFilter {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 默认增长因子
+     */
+    public static final int DEFAULT_GROWTH_FACTOR = 2;
+    /**
+     * 默认误判率收紧比例
+     */
+    public static final double DEFAULT_TIGHTENING_RATIO = 0.85;
+
+    private final long initialCapacity;
+    private final double fpp;
+    private final int growthFactor;
+    private final double tighteningRatio;
+    private final BloomHash hash;
+
+    /**
+     * 切片，只追加
+     */
+    private volatile DoubleHashBloomFilter[] slices;
+    /**
+     * 当前切片的容量
+     */
+    private long sliceCapacity;
+    /**
+     * 当前切片已加入的元素数
+     */
+    private long sliceCount;
+
+    /**
+     * 构造
+     *
+     * @param initialCapacity 初始容量
+     * @param fpp             整体期望误判率，取值(0, 1)
+     */
+    public ScalableBloomFilter(long initialCapacity, double fpp) {
+        this(initialCapacity, fpp, DEFAULT_GROWTH_FACTOR, DEFAULT_TIGHTENING_RATIO, BloomHash.MURMUR3_128);
+    }
+
+    /**
+     * 构造
+     *
+     * @param initialCapacity 初始容量
+     * @param fpp             整体期望误判率，取值(0, 1)
+     * @param growthFactor    增长因子，新切片容量为上一个切片的倍数
+     * @param tighteningRatio 误判率收紧比例，取值(0, 1)
+     * @param hash            Hash算法
+     */
+    public ScalableBloomFilter(long initialCapacity, double fpp, int growthFactor, double tighteningRatio, BloomHash hash) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive: " + initialCapacity);
+        }
+        if (growthFactor < 1) {
+            throw new IllegalArgumentException("Growth factor must not be less than 1: " + growthFactor);
+        }
+        if (tighteningRatio <= 0 || tighteningRatio >= 1) {
+            throw new IllegalArgumentException("Tightening ratio must be in (0, 1): " + tighteningRatio);
+        }
+        this.initialCapacity = initialCapacity;
+        this.fpp = fpp;
+        this.growthFactor = growthFactor;
+        this.tighteningRatio = tighteningRatio;
+        this.hash = null == hash ? BloomHash.MURMUR3_128 : hash;
+        this.sliceCapacity = initialCapacity;
+        // 各切片误判率为 fpp * (1 - r) * r^i，总和不超过fpp
+        this.slices = new DoubleHashBloomFilter[]{
+                new DoubleHashBloomFilter(initialCapacity, fpp * (1 - tighteningRatio), this.hash)
+        };
+    }
+
+    /**
+     * 使用已有的切片构造，用于反序列化或映射文件
+     *
+     * @param initialCapacity 初始容量
+     * @param fpp             整体期望误判率
+     * @param growthFactor    增长因子
+     * @param tighteningRatio 误判率收紧比例
+     * @param hash            Hash算法
+     * @param slices          切片
+     * @param sliceCapacity   当前切片的容量
+     * @param sliceCount      当前切片已加入的元素数
+     */
+    ScalableBloomFilter(long initialCapacity, double fpp, int growthFactor, double tighteningRatio, BloomHash hash,
+                        DoubleHashBloomFilter[] slices, long sliceCapacity, long sliceCount) {
+        this.initialCapacity = initialCapacity;
+        this.fpp = fpp;
+        this.growthFactor = growthFactor;
+        this.tighteningRatio = tighteningRatio;
+        this.hash = hash;
+        this.slices = slices;
+        this.sliceCapacity = sliceCapacity;
+        this.sliceCount = sliceCount;
+    }
+
+    @Override
+    public boolean contains(String str) {
+        return contains(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean add(String str) {
+        return add(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param data 数据
+     * @return 数据是否可能存在
+     */
+    public boolean contains(byte[] data) {
+        final long[] h = hash.hash(data);
+        return mightContain(slices, h[0], h[1]);
+    }
+
+    /**
+     * 加入数据，如果任一切片可能已包含该数据则不加入
+     *
+     * @param data 数据
+     * @return 是否加入，如果可能已存在返回{@code false}
+     */
+    public synchronized boolean add(byte[] data) {
+        final long[] h = hash.hash(data);
+        DoubleHashBloomFilter[] current = slices;
+        if (mightContain(current, h[0], h[1])) {
+            return false;
+        }
+        if (sliceCount >= sliceCapacity || current[current.length - 1].isReadOnly()) {
+            current = grow(current);
+        }
+        current[current.length - 1].put(h[0], h[1]);
+        sliceCount++;
+        return true;
+    }
+
+    /**
+     * @return 切片数
+     */
+    public int sliceCount() {
+        return slices.length;
+    }
+
+    /**
+     * @return 所有切片的总位数
+     */
+    public long bitSize() {
+        long size = 0;
+        for (DoubleHashBloomFilter slice : slices) {
+            size += slice.bitSize();
+        }
+        return size;
+    }
+
+    /**
+     * @return 初始容量
+     */
+    public long initialCapacity() {
+        return initialCapacity;
+    }
+
+    /**
+     * @return 整体期望误判率
+     */
+    public double fpp() {
+        return fpp;
+    }
+
+    /**
+     * @return 增长因子
+     */
+    public int growthFactor() {
+        return growthFactor;
+    }
+
+    /**
+     * @return 误判率收紧比例
+     */
+    public double tighteningRatio() {
+        return tighteningRatio;
+    }
+
+    /**
+     * @return Hash算法
+     */
+    public BloomHash hash() {
+        return hash;
+    }
+
+    /**
+     * @return 切片，调用时需持有锁
+     */
+    DoubleHashBloomFilter[] slices() {
+        return slices;
+    }
+
+    /**
+     * @return 当前切片的容量，调用时需持有锁
+     */
+    long currentSliceCapacity() {
+        return sliceCapacity;
+    }
+
+    /**
+     * @return 当前切片已加入的元素数，调用时需持有锁
+     */
+    long currentSliceCount() {
+        return sliceCount;
+    }
+
+    /**
+     * 追加新切片，调用时需持有锁
+     *
+     * @param current 当前切片
+     * @return 新的切片数组
+     */
+    private DoubleHashBloomFilter[] grow(DoubleHashBloomFilter[] current) {
+        final int n = current.length;
+        sliceCapacity = sliceCapacity * growthFactor;
+        sliceCount = 0;
+        final double sliceFpp = fpp * (1 - tighteningRatio) * Math.pow(tighteningRatio, n);
+        final DoubleHashBloomFilter[] grown = Arrays.copyOf(current, n + 1);
+        grown[n] = new DoubleHashBloomFilter(sliceCapacity, sliceFpp, hash);
+        slices = grown;
+        return grown;
+    }
+
+    private static boolean mightContain(DoubleHashBloomFilter[] slices, long h1, long h2) {
+        for (int i = slices.length - 1; i >= 0; i--) {
+            if (slices[i].mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package pxf.tl.bloomfilter.bitMap;
+
+/**
+ * 定长位数组，位下标为{@code long}
+ *
+ * @author potatoxf
+ */
+public interface BitArray extends BitMap {
+
+    /**
+     * 设置位，与{@link #add(long)}相同，但返回是否改变，实现为原子操作时可以代替先{@link #contains(long)}再{@link #add(long)}
+     *
+     * @param i 位下标
+     * @return 此位之前是否未设置，即本次是否改变了位数组
+     */
+    boolean set(long i);
+
+    /**
+     * @return 位数
+     */
+    long bitSize();
+
+    /**
+     * @return 已设置的位数
+     */
+    long cardinality();
+
+    /**
+     * @return 存储位的{@code long}个数
+     */
+    int wordCount();
+
+    /**
+     * 获取第{@code index}个{@code long}，第{@code i}位位于第{@code i / 64}个{@code long}的第{@code i % 64}位
+     *
+     * @param index 下标
+     * @return 位值
+     */
+    long word(int index);
+}
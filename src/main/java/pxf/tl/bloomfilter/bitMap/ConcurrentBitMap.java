@@ -0,0 +1,109 @@
+package pxf.tl.bloomfilter.bitMap;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的位数组，使用{@link AtomicLongArray}存储，设置与移除位通过CAS完成，多个线程并发写入不会丢失位，也不需要加锁
+ *
+ * @author potatoxf
+ */
+public class ConcurrentBitMap implements BitArray, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final AtomicLongArray longs;
+    private final long bitSize;
+
+    /**
+     * 构造
+     *
+     * @param bitSize 位数，向上取整为64的倍数
+     */
+    public ConcurrentBitMap(long bitSize) {
+        if (bitSize <= 0) {
+            throw new IllegalArgumentException("Bit size must be positive: " + bitSize);
+        }
+        final long length = (bitSize + BitMap.MACHINE64 - 1) / BitMap.MACHINE64;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bit size is too large: " + bitSize);
+        }
+        this.longs = new AtomicLongArray((int) length);
+        this.bitSize = length * BitMap.MACHINE64;
+    }
+
+    /**
+     * 使用已有的位值构造，复制数组
+     *
+     * @param longs 位值
+     */
+    public ConcurrentBitMap(long[] longs) {
+        if (longs.length == 0) {
+            throw new IllegalArgumentException("Bit array must not be empty");
+        }
+        this.longs = new AtomicLongArray(longs);
+        this.bitSize = (long) longs.length * BitMap.MACHINE64;
+    }
+
+    @Override
+    public void add(long i) {
+        set(i);
+    }
+
+    @Override
+    public boolean set(long i) {
+        final int r = (int) (i >>> 6);
+        final long mask = 1L << i;
+        long old;
+        do {
+            old = longs.get(r);
+            if ((old & mask) != 0) {
+                return false;
+            }
+        } while (false == longs.compareAndSet(r, old, old | mask));
+        return true;
+    }
+
+    @Override
+    public boolean contains(long i) {
+        return (longs.get((int) (i >>> 6)) & (1L << i)) != 0;
+    }
+
+    @Override
+    public void remove(long i) {
+        final int r = (int) (i >>> 6);
+        final long mask = 1L << i;
+        long old;
+        do {
+            old = longs.get(r);
+            if ((old & mask) == 0) {
+                return;
+            }
+        } while (false == longs.compareAndSet(r, old, old & ~mask));
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    @Override
+    public long cardinality() {
+        long count = 0;
+        for (int i = 0, n = longs.length(); i < n; i++) {
+            count += Long.bitCount(longs.get(i));
+        }
+        return count;
+    }
+
+    @Override
+    public int wordCount() {
+        return longs.length();
+    }
+
+    @Override
+    public long word(int index) {
+        return longs.get(index);
+    }
+}
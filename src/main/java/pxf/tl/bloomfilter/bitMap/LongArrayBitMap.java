@@ -0,0 +1,99 @@
+package pxf.tl.bloomfilter.bitMap;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 使用{@code long[]}存储的BitMap，位下标为{@code long}，最多可容纳{@code 2^31 * 64}个位，不受{@code int}下标限制<br>
+ * 非线程安全，多线程写入使用{@link ConcurrentBitMap}
+ *
+ * @author potatoxf
+ */
+public class LongArrayBitMap implements BitArray, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long[] longs;
+    private final long bitSize;
+
+    /**
+     * 构造
+     *
+     * @param bitSize 位数
+     */
+    public LongArrayBitMap(long bitSize) {
+        if (bitSize <= 0) {
+            throw new IllegalArgumentException("Bit size must be positive: " + bitSize);
+        }
+        final long length = (bitSize + BitMap.MACHINE64 - 1) / BitMap.MACHINE64;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bit size is too large: " + bitSize);
+        }
+        this.longs = new long[(int) length];
+        this.bitSize = (long) longs.length * BitMap.MACHINE64;
+    }
+
+    /**
+     * 使用已有的位值构造，不复制数组
+     *
+     * @param longs 位值
+     */
+    public LongArrayBitMap(long[] longs) {
+        if (longs.length == 0) {
+            throw new IllegalArgumentException("Bit array must not be empty");
+        }
+        this.longs = longs;
+        this.bitSize = (long) longs.length * BitMap.MACHINE64;
+    }
+
+    @Override
+    public void add(long i) {
+        set(i);
+    }
+
+    @Override
+    public boolean set(long i) {
+        final int r = (int) (i >>> 6);
+        final long mask = 1L << i;
+        final long old = longs[r];
+        if ((old & mask) != 0) {
+            return false;
+        }
+        longs[r] = old | mask;
+        return true;
+    }
+
+    @Override
+    public boolean contains(long i) {
+        return (longs[(int) (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    @Override
+    public void remove(long i) {
+        longs[(int) (i >>> 6)] &= ~(1L << i);
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    @Override
+    public long cardinality() {
+        long count = 0;
+        for (long value : longs) {
+            count += Long.bitCount(value);
+        }
+        return count;
+    }
+
+    @Override
+    public int wordCount() {
+        return longs.length;
+    }
+
+    @Override
+    public long word(int index) {
+        return longs[index];
+    }
+}
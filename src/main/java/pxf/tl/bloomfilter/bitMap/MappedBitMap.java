@@ -0,0 +1,97 @@
+package pxf.tl.bloomfilter.bitMap;
+
+import pxf.tl.exception.IORuntimeException;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 只读位数组，直接通过{@link FileChannel#map(FileChannel.MapMode, long, long)}映射文件中的位值，不读入堆<br>
+ * 位值按大端序存放，映射按1GB分段，可以映射超过2GB的位数组。<br>
+ * 映射的内存在本对象被垃圾回收后释放，修改操作抛出{@link UnsupportedOperationException}
+ *
+ * @author potatoxf
+ */
+public class MappedBitMap implements BitArray {
+    /**
+     * 每段的{@code long}个数的位数，每段1GB
+     */
+    private static final int SEGMENT_SHIFT = 27;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+    private final LongBuffer[] segments;
+    private final int wordCount;
+
+    /**
+     * 构造
+     *
+     * @param channel   文件通道，映射完成后可以关闭
+     * @param position  位值在文件中的起始位置
+     * @param wordCount {@code long}个数
+     * @throws IORuntimeException IO异常
+     */
+    public MappedBitMap(FileChannel channel, long position, int wordCount) throws IORuntimeException {
+        if (wordCount <= 0) {
+            throw new IllegalArgumentException("Word count must be positive: " + wordCount);
+        }
+        this.wordCount = wordCount;
+        final int segmentCount = ((wordCount - 1) >>> SEGMENT_SHIFT) + 1;
+        this.segments = new LongBuffer[segmentCount];
+        try {
+            for (int i = 0; i < segmentCount; i++) {
+                final long words = Math.min(wordCount - ((long) i << SEGMENT_SHIFT), 1L << SEGMENT_SHIFT);
+                final long offset = position + ((long) i << SEGMENT_SHIFT) * Long.BYTES;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, words * Long.BYTES).asLongBuffer();
+            }
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    @Override
+    public void add(long i) {
+        throw new UnsupportedOperationException("Mapped bit map is read only");
+    }
+
+    @Override
+    public boolean set(long i) {
+        throw new UnsupportedOperationException("Mapped bit map is read only");
+    }
+
+    @Override
+    public boolean contains(long i) {
+        return (word((int) (i >>> 6)) & (1L << i)) != 0;
+    }
+
+    @Override
+    public void remove(long i) {
+        throw new UnsupportedOperationException("Mapped bit map is read only");
+    }
+
+    @Override
+    public long bitSize() {
+        return (long) wordCount * BitMap.MACHINE64;
+    }
+
+    @Override
+    public long cardinality() {
+        long count = 0;
+        for (LongBuffer segment : segments) {
+            for (int i = 0, n = segment.limit(); i < n; i++) {
+                count += Long.bitCount(segment.get(i));
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public long word(int index) {
+        return segments[index >>> SEGMENT_SHIFT].get(index & SEGMENT_MASK);
+    }
+}
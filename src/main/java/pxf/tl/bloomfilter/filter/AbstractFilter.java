@@ -2,6 +2,7 @@ package pxf.tl.bloomfilter.filter;
 
 
 import pxf.tl.bloomfilter.BloomFilter;
+import pxf.tl.bloomfilter.bitMap.BitArray;
 import pxf.tl.bloomfilter.bitMap.BitMap;
 import pxf.tl.bloomfilter.bitMap.IntMap;
 import pxf.tl.bloomfilter.bitMap.LongMap;
@@ -28,6 +29,16 @@ public abstract class AbstractFilter implements BloomFilter {
         init(maxValue, machineNum);
     }
 
+    /**
+     * 使用指定的位数组构造，位数组为{@link pxf.tl.bloomfilter.bitMap.ConcurrentBitMap}时可以多线程并发加入
+     *
+     * @param bitArray 位数组
+     */
+    public AbstractFilter(BitArray bitArray) {
+        this.size = bitArray.bitSize();
+        this.bm = bitArray;
+    }
+
     /**
      * 构造32位
      *
@@ -65,6 +76,9 @@ public abstract class AbstractFilter implements BloomFilter {
     @Override
     public boolean add(String str) {
         final long hash = Math.abs(hash(str));
+        if (bm instanceof BitArray) {
+            return ((BitArray) bm).set(hash);
+        }
         if (bm.contains(hash)) {
             return false;
         }
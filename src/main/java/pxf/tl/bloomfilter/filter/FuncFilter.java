@@ -2,6 +2,7 @@ package pxf.tl.bloomfilter.filter;
 
 
 import pxf.tl.bloomfilter.BloomFilter;
+import pxf.tl.bloomfilter.bitMap.BitArray;
 
 import java.util.function.Function;
 
@@ -35,6 +36,15 @@ public class FuncFilter extends AbstractFilter {
         this.hashFunc = hashFunc;
     }
 
+    /**
+     * @param bitArray 位数组
+     * @param hashFunc Hash函数
+     */
+    public FuncFilter(BitArray bitArray, Function<String, Number> hashFunc) {
+        super(bitArray);
+        this.hashFunc = hashFunc;
+    }
+
     @Override
     public long hash(String str) {
         return hashFunc.apply(str).longValue() % size;
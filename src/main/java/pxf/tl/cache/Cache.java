@@ -6,6 +6,7 @@ import pxf.tl.cache.impl.CacheObj;
 
 import java.io.Serializable;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 /**
@@ -94,6 +95,18 @@ public interface Cache<K, V> extends Iterable<V>, Serializable, Sized {
      */
     V get(K key, boolean isUpdateLastAccess, Supplier<V> supplier);
 
+    /**
+     * 异步从缓存中获得对象，当对象不在缓存中或已经过期时异步调用加载函数产生对象并放入缓存<br>
+     * 同一个键的并发加载由实现决定是否合并
+     *
+     * @param key      键
+     * @param supplier 用于生产值对象的加载函数
+     * @return 值对象的{@link CompletableFuture}
+     */
+    default CompletableFuture<V> getAsync(K key, Supplier<V> supplier) {
+        return CompletableFuture.supplyAsync(() -> get(key, supplier));
+    }
+
     /**
      * 从缓存中获得对象，当对象不在缓存中或已经过期返回{@code null}
      *
@@ -148,6 +161,15 @@ public interface Cache<K, V> extends Iterable<V>, Serializable, Sized {
      */
     boolean containsKey(K key);
 
+    /**
+     * 获取统计快照，不支持统计的实现返回{@link CacheStats#EMPTY}
+     *
+     * @return {@link CacheStats}
+     */
+    default CacheStats stats() {
+        return CacheStats.EMPTY;
+    }
+
     /**
      * 设置监听
      *
@@ -0,0 +1,86 @@
+package pxf.tl.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存注册表，记录通过{@link CacheUtil}创建的缓存，用于导出统计数据<br>
+ * 注册表只持有缓存的弱引用，不影响缓存被回收
+ *
+ * @author potatoxf
+ */
+public final class CacheRegistry {
+
+    private static final ConcurrentMap<String, WeakReference<Cache<?, ?>>> CACHES = new ConcurrentHashMap<>();
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private CacheRegistry() {
+    }
+
+    /**
+     * 以"类名-序号"为名称注册缓存
+     *
+     * @param cache 缓存
+     * @param <C>   缓存类型
+     * @return 缓存
+     */
+    public static <C extends Cache<?, ?>> C register(C cache) {
+        return register(cache.getClass().getSimpleName() + "-" + SEQUENCE.incrementAndGet(), cache);
+    }
+
+    /**
+     * 注册缓存，名称已存在时覆盖
+     *
+     * @param name  名称
+     * @param cache 缓存
+     * @param <C>   缓存类型
+     * @return 缓存
+     */
+    public static <C extends Cache<?, ?>> C register(String name, C cache) {
+        CACHES.put(name, new WeakReference<>(cache));
+        return cache;
+    }
+
+    /**
+     * 取消注册
+     *
+     * @param name 名称
+     */
+    public static void unregister(String name) {
+        CACHES.remove(name);
+    }
+
+    /**
+     * 获取所有存活的缓存，同时清理已被回收的缓存
+     *
+     * @return 名称到缓存的只读映射
+     */
+    public static Map<String, Cache<?, ?>> getCaches() {
+        final Map<String, Cache<?, ?>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, WeakReference<Cache<?, ?>>> entry : CACHES.entrySet()) {
+            final Cache<?, ?> cache = entry.getValue().get();
+            if (null == cache) {
+                CACHES.remove(entry.getKey(), entry.getValue());
+            } else {
+                result.put(entry.getKey(), cache);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 获取所有存活缓存的统计快照
+     *
+     * @return 名称到统计快照的只读映射
+     */
+    public static Map<String, CacheStats> getStats() {
+        final Map<String, CacheStats> result = new LinkedHashMap<>();
+        getCaches().forEach((name, cache) -> result.put(name, cache.stats()));
+        return Collections.unmodifiableMap(result);
+    }
+}
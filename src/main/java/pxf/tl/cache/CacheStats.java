@@ -0,0 +1,215 @@
+package pxf.tl.cache;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 缓存统计快照，创建后不再变化
+ *
+ * @author potatoxf
+ */
+public final class CacheStats implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /**
+     * 无统计数据
+     */
+    public static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final long size;
+    private final long capacity;
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long explicitRemovalCount;
+    private final long sizeEvictionCount;
+    private final long expiredEvictionCount;
+    private final long collectedEvictionCount;
+    private final long getCount;
+    private final long totalGetTime;
+    private final long pruneCount;
+    private final long totalPruneTime;
+
+    /**
+     * 构造
+     *
+     * @param size                   当前对象数
+     * @param capacity               容量，{@code 0}表示无限制
+     * @param hitCount               命中数
+     * @param missCount              丢失数
+     * @param loadSuccessCount       加载成功数
+     * @param loadFailureCount       加载失败数
+     * @param totalLoadTime          加载总耗时，单位纳秒
+     * @param explicitRemovalCount   主动移除数
+     * @param sizeEvictionCount      超出容量淘汰数
+     * @param expiredEvictionCount   过期清理数
+     * @param collectedEvictionCount 垃圾回收清理数
+     * @param getCount               记录了耗时的读取数
+     * @param totalGetTime           读取总耗时，单位纳秒
+     * @param pruneCount             清理执行次数
+     * @param totalPruneTime         清理总耗时，单位纳秒
+     */
+    public CacheStats(long size, long capacity, long hitCount, long missCount,
+                      long loadSuccessCount, long loadFailureCount, long totalLoadTime,
+                      long explicitRemovalCount, long sizeEvictionCount, long expiredEvictionCount, long collectedEvictionCount,
+                      long getCount, long totalGetTime, long pruneCount, long totalPruneTime) {
+        this.size = size;
+        this.capacity = capacity;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.explicitRemovalCount = explicitRemovalCount;
+        this.sizeEvictionCount = sizeEvictionCount;
+        this.expiredEvictionCount = expiredEvictionCount;
+        this.collectedEvictionCount = collectedEvictionCount;
+        this.getCount = getCount;
+        this.totalGetTime = totalGetTime;
+        this.pruneCount = pruneCount;
+        this.totalPruneTime = totalPruneTime;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return 命中率，无访问时为{@code 1.0}
+     */
+    public double getHitRate() {
+        final long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * @return 加载总耗时，单位纳秒
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * @return 平均加载耗时，单位纳秒
+     */
+    public double getAverageLoadTime() {
+        final long loadCount = loadSuccessCount + loadFailureCount;
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    public long getExplicitRemovalCount() {
+        return explicitRemovalCount;
+    }
+
+    public long getSizeEvictionCount() {
+        return sizeEvictionCount;
+    }
+
+    public long getExpiredEvictionCount() {
+        return expiredEvictionCount;
+    }
+
+    public long getCollectedEvictionCount() {
+        return collectedEvictionCount;
+    }
+
+    /**
+     * @return 非主动移除的总数，即容量淘汰、过期清理和垃圾回收清理之和
+     */
+    public long getEvictionCount() {
+        return sizeEvictionCount + expiredEvictionCount + collectedEvictionCount;
+    }
+
+    /**
+     * 获取指定原因的移除数
+     *
+     * @param cause 移除原因
+     * @return 移除数
+     */
+    public long getRemovalCount(RemovalCause cause) {
+        return switch (cause) {
+            case EXPLICIT -> explicitRemovalCount;
+            case SIZE -> sizeEvictionCount;
+            case EXPIRED -> expiredEvictionCount;
+            case COLLECTED -> collectedEvictionCount;
+        };
+    }
+
+    public long getGetCount() {
+        return getCount;
+    }
+
+    /**
+     * @return 读取总耗时，单位纳秒
+     */
+    public long getTotalGetTime() {
+        return totalGetTime;
+    }
+
+    /**
+     * @return 平均读取耗时，单位纳秒
+     */
+    public double getAverageGetTime() {
+        return getCount == 0 ? 0.0 : (double) totalGetTime / getCount;
+    }
+
+    public long getPruneCount() {
+        return pruneCount;
+    }
+
+    /**
+     * @return 清理总耗时，单位纳秒
+     */
+    public long getTotalPruneTime() {
+        return totalPruneTime;
+    }
+
+    /**
+     * @return 平均清理耗时，单位纳秒
+     */
+    public double getAveragePruneTime() {
+        return pruneCount == 0 ? 0.0 : (double) totalPruneTime / pruneCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats [size=" + size
+                + ", capacity=" + capacity
+                + ", hitCount=" + hitCount
+                + ", missCount=" + missCount
+                + ", loadSuccessCount=" + loadSuccessCount
+                + ", loadFailureCount=" + loadFailureCount
+                + ", totalLoadTime=" + totalLoadTime
+                + ", explicitRemovalCount=" + explicitRemovalCount
+                + ", sizeEvictionCount=" + sizeEvictionCount
+                + ", expiredEvictionCount=" + expiredEvictionCount
+                + ", collectedEvictionCount=" + collectedEvictionCount
+                + ", getCount=" + getCount
+                + ", totalGetTime=" + totalGetTime
+                + ", pruneCount=" + pruneCount
+                + ", totalPruneTime=" + totalPruneTime
+                + "]";
+    }
+}
@@ -4,7 +4,8 @@ package pxf.tl.cache;
 import pxf.tl.cache.impl.*;
 
 /**
- * 缓存工具类
+ * 缓存工具类<br>
+ * 通过此类创建的缓存会登记到{@link CacheRegistry}，可用于统一导出统计数据
  *
  * @author potatoxf
  */
@@ -20,7 +21,7 @@ public class CacheUtil {
      * @return {@link FIFOCache}
      */
     public static <K, V> FIFOCache<K, V> newFIFOCache(int capacity, long timeout) {
-        return new FIFOCache<>(capacity, timeout);
+        return CacheRegistry.register(new FIFOCache<>(capacity, timeout));
     }
 
     /**
@@ -32,7 +33,7 @@ public class CacheUtil {
      * @return {@link FIFOCache}
      */
     public static <K, V> FIFOCache<K, V> newFIFOCache(int capacity) {
-        return new FIFOCache<>(capacity);
+        return CacheRegistry.register(new FIFOCache<>(capacity));
     }
 
     /**
@@ -45,7 +46,7 @@ public class CacheUtil {
      * @return {@link LFUCache}
      */
     public static <K, V> LFUCache<K, V> newLFUCache(int capacity, long timeout) {
-        return new LFUCache<>(capacity, timeout);
+        return CacheRegistry.register(new LFUCache<>(capacity, timeout));
     }
 
     /**
@@ -57,7 +58,32 @@ public class CacheUtil {
      * @return {@link LFUCache}
      */
     public static <K, V> LFUCache<K, V> newLFUCache(int capacity) {
-        return new LFUCache<>(capacity);
+        return CacheRegistry.register(new LFUCache<>(capacity));
+    }
+
+    /**
+     * 创建基于频率桶的LFU(least frequently used) 最少使用率缓存，访问和淘汰均为常数时间.
+     *
+     * @param <K>      Key类型
+     * @param <V>      Value类型
+     * @param capacity 容量
+     * @param timeout  过期时长，单位：毫秒
+     * @return {@link BucketLFUCache}
+     */
+    public static <K, V> BucketLFUCache<K, V> newBucketLFUCache(int capacity, long timeout) {
+        return CacheRegistry.register(new BucketLFUCache<>(capacity, timeout));
+    }
+
+    /**
+     * 创建基于频率桶的LFU(least frequently used) 最少使用率缓存，访问和淘汰均为常数时间.
+     *
+     * @param <K>      Key类型
+     * @param <V>      Value类型
+     * @param capacity 容量
+     * @return {@link BucketLFUCache}
+     */
+    public static <K, V> BucketLFUCache<K, V> newBucketLFUCache(int capacity) {
+        return CacheRegistry.register(new BucketLFUCache<>(capacity));
     }
 
     /**
@@ -70,7 +96,7 @@ public class CacheUtil {
      * @return {@link LRUCache}
      */
     public static <K, V> LRUCache<K, V> newLRUCache(int capacity, long timeout) {
-        return new LRUCache<>(capacity, timeout);
+        return CacheRegistry.register(new LRUCache<>(capacity, timeout));
     }
 
     /**
@@ -82,7 +108,32 @@ public class CacheUtil {
      * @return {@link LRUCache}
      */
     public static <K, V> LRUCache<K, V> newLRUCache(int capacity) {
-        return new LRUCache<>(capacity);
+        return CacheRegistry.register(new LRUCache<>(capacity));
+    }
+
+    /**
+     * 创建W-TinyLFU(Window Tiny Least Frequently Used) 缓存，读操作无锁.
+     *
+     * @param <K>      Key类型
+     * @param <V>      Value类型
+     * @param capacity 容量
+     * @param timeout  过期时长，单位：毫秒
+     * @return {@link TinyLFUCache}
+     */
+    public static <K, V> TinyLFUCache<K, V> newTinyLFUCache(int capacity, long timeout) {
+        return CacheRegistry.register(new TinyLFUCache<>(capacity, timeout));
+    }
+
+    /**
+     * 创建W-TinyLFU(Window Tiny Least Frequently Used) 缓存，读操作无锁.
+     *
+     * @param <K>      Key类型
+     * @param <V>      Value类型
+     * @param capacity 容量
+     * @return {@link TinyLFUCache}
+     */
+    public static <K, V> TinyLFUCache<K, V> newTinyLFUCache(int capacity) {
+        return CacheRegistry.register(new TinyLFUCache<>(capacity));
     }
 
     /**
@@ -94,7 +145,7 @@ public class CacheUtil {
      * @return {@link TimedCache}
      */
     public static <K, V> TimedCache<K, V> newTimedCache(long timeout) {
-        return new TimedCache<>(timeout);
+        return CacheRegistry.register(new TimedCache<>(timeout));
     }
 
     /**
@@ -106,7 +157,7 @@ public class CacheUtil {
      * @return {@link WeakCache}
      */
     public static <K, V> WeakCache<K, V> newWeakCache(long timeout) {
-        return new WeakCache<>(timeout);
+        return CacheRegistry.register(new WeakCache<>(timeout));
     }
 
     /**
@@ -117,6 +168,6 @@ public class CacheUtil {
      * @return {@link NoCache}
      */
     public static <K, V> NoCache<K, V> newNoCache() {
-        return new NoCache<>();
+        return CacheRegistry.register(new NoCache<>());
     }
 }
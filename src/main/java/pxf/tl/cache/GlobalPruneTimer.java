@@ -1,6 +1,7 @@
 package pxf.tl.cache;
 
 
+import pxf.tl.text.cron.timingwheel.SystemTimer;
 import pxf.tl.util.ToolString;
 import pxf.tl.util.ToolThread;
 
@@ -32,6 +33,11 @@ public enum GlobalPruneTimer {
      */
     private ScheduledExecutorService pruneTimer;
 
+    /**
+     * 过期时间轮，首次使用时创建
+     */
+    private volatile SystemTimer expireTimer;
+
     /**
      * 构造
      */
@@ -50,12 +56,31 @@ public enum GlobalPruneTimer {
         return this.pruneTimer.scheduleAtFixedRate(task, delay, delay, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * 获取全局过期时间轮，首次调用时创建并启动
+     *
+     * @return {@link SystemTimer}
+     */
+    public SystemTimer getExpireTimer() {
+        SystemTimer timer = this.expireTimer;
+        if (null == timer) {
+            synchronized (this) {
+                timer = this.expireTimer;
+                if (null == timer) {
+                    timer = new SystemTimer().start();
+                    this.expireTimer = timer;
+                }
+            }
+        }
+        return timer;
+    }
+
     /**
      * 创建定时器
      */
     public void create() {
         if (null != pruneTimer) {
-            shutdownNow();
+            pruneTimer.shutdownNow();
         }
         this.pruneTimer =
                 new ScheduledThreadPoolExecutor(
@@ -72,6 +97,7 @@ public enum GlobalPruneTimer {
         if (null != pruneTimer) {
             pruneTimer.shutdown();
         }
+        stopExpireTimer();
     }
 
     /**
@@ -80,9 +106,20 @@ public enum GlobalPruneTimer {
      * @return 销毁时未被执行的任务列表
      */
     public List<Runnable> shutdownNow() {
+        stopExpireTimer();
         if (null != pruneTimer) {
             return pruneTimer.shutdownNow();
         }
         return null;
     }
+
+    /**
+     * 停止过期时间轮
+     */
+    private synchronized void stopExpireTimer() {
+        if (null != expireTimer) {
+            expireTimer.stop();
+            expireTimer = null;
+        }
+    }
 }
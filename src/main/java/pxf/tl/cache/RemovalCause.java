@@ -0,0 +1,25 @@
+package pxf.tl.cache;
+
+/**
+ * 缓存对象被移除的原因
+ *
+ * @author potatoxf
+ */
+public enum RemovalCause {
+    /**
+     * 调用移除方法主动移除
+     */
+    EXPLICIT,
+    /**
+     * 超出容量被淘汰
+     */
+    SIZE,
+    /**
+     * 过期被清理
+     */
+    EXPIRED,
+    /**
+     * 弱引用的键被垃圾回收
+     */
+    COLLECTED
+}
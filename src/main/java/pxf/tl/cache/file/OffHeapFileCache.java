@@ -0,0 +1,349 @@
+package pxf.tl.cache.file;
+
+
+import pxf.tl.exception.IORuntimeException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外文件缓存，文件内容存放在直接内存{@link ByteBuffer}中，不占用Java堆，适合缓存大量静态资源<br>
+ * 小文件读入直接内存，不小于映射阈值的文件通过{@link FileChannel#map(FileChannel.MapMode, long, long)}映射。<br>
+ * 容量以字节数计算，超出容量时淘汰最久未使用的文件。<br>
+ * 通过{@link #getFileBuffer(File)}获取只读的{@link ByteBuffer}视图，可直接写入{@link java.nio.channels.WritableByteChannel}而无需复制。
+ *
+ * <p>被淘汰的直接内存在对应{@link ByteBuffer}被垃圾回收后释放，直接内存上限受{@code -XX:MaxDirectMemorySize}限制<br>
+ * 每次访问都会检查文件的修改时间和大小，文件变化时重新加载；被映射的文件应只整体替换而不应原地截断，
+ * 否则读取已返回的视图时可能导致JVM崩溃<br>
+ * 序列化只保存配置，反序列化后缓存为空
+ *
+ * @author potatoxf
+ */
+public class OffHeapFileCache implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 默认映射阈值，1MB
+     */
+    public static final long DEFAULT_MAP_THRESHOLD = 1024 * 1024;
+
+    /**
+     * 容量，单位字节
+     */
+    protected final long capacity;
+    /**
+     * 缓存的最大文件大小，文件大于此大小时将不被缓存，{@code 0}表示不限制
+     */
+    protected final long maxFileSize;
+    /**
+     * 文件大小不小于此值时使用内存映射
+     */
+    protected final long mapThreshold;
+    /**
+     * 默认超时时间，0表示无默认超时
+     */
+    protected final long timeout;
+
+    /**
+     * 按访问顺序排列的缓存
+     */
+    private transient Map<File, Segment> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private transient ReentrantLock lock = new ReentrantLock();
+    /**
+     * 已使用缓存空间
+     */
+    private transient long usedSize;
+
+    /**
+     * 构造<br>
+     * 最大文件大小为缓存容量的一半<br>
+     * 默认无超时
+     *
+     * @param capacity 缓存容量，单位字节
+     */
+    public OffHeapFileCache(long capacity) {
+        this(capacity, capacity / 2, 0);
+    }
+
+    /**
+     * 构造
+     *
+     * @param capacity    缓存容量，单位字节
+     * @param maxFileSize 文件最大大小
+     * @param timeout     默认超时时间，0表示无默认超时
+     */
+    public OffHeapFileCache(long capacity, long maxFileSize, long timeout) {
+        this(capacity, maxFileSize, timeout, DEFAULT_MAP_THRESHOLD);
+    }
+
+    /**
+     * 构造
+     *
+     * @param capacity     缓存容量，单位字节
+     * @param maxFileSize  文件最大大小
+     * @param timeout      默认超时时间，0表示无默认超时
+     * @param mapThreshold 文件大小不小于此值时使用内存映射
+     */
+    public OffHeapFileCache(long capacity, long maxFileSize, long timeout, long mapThreshold) {
+        this.capacity = capacity;
+        this.maxFileSize = maxFileSize;
+        this.timeout = timeout;
+        this.mapThreshold = mapThreshold;
+    }
+
+    /**
+     * @return 缓存容量（byte数）
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return 已使用空间大小（byte数）
+     */
+    public long getUsedSize() {
+        lock.lock();
+        try {
+            return usedSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 允许被缓存文件的最大byte数
+     */
+    public long maxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * @return 缓存的文件数
+     */
+    public int getCachedFilesCount() {
+        lock.lock();
+        try {
+            return cache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 超时时间
+     */
+    public long timeout() {
+        return this.timeout;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            cache.clear();
+            usedSize = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- get
+
+    /**
+     * 获得缓存过的文件内容的只读视图
+     *
+     * @param path 文件路径
+     * @return 只读{@link ByteBuffer}，position为0，limit为文件大小
+     * @throws IORuntimeException IO异常
+     */
+    public ByteBuffer getFileBuffer(String path) throws IORuntimeException {
+        return getFileBuffer(new File(path));
+    }
+
+    /**
+     * 获得缓存过的文件内容的只读视图，每次返回新的视图，调用方修改position和limit互不影响
+     *
+     * @param file 文件
+     * @return 只读{@link ByteBuffer}，position为0，limit为文件大小
+     * @throws IORuntimeException IO异常
+     */
+    public ByteBuffer getFileBuffer(File file) throws IORuntimeException {
+        lock.lock();
+        try {
+            final Segment segment = cache.get(file);
+            if (null != segment) {
+                if (false == segment.isExpired() && false == segment.isModified(file)) {
+                    segment.lastAccess = System.currentTimeMillis();
+                    return segment.buffer.duplicate();
+                }
+                cache.remove(file);
+                usedSize -= segment.buffer.capacity();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // 先记录文件状态再读取，读取期间文件被修改时下次访问会重新加载
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        final ByteBuffer buffer = load(file);
+        if ((maxFileSize != 0) && (buffer.capacity() > maxFileSize)) {
+            // 大于缓存空间，不缓存，直接返回
+            return buffer.duplicate();
+        }
+
+        lock.lock();
+        try {
+            final Segment prior = cache.put(file, new Segment(buffer, timeout, lastModified, length));
+            if (null != prior) {
+                usedSize -= prior.buffer.capacity();
+            }
+            usedSize += buffer.capacity();
+            prune();
+        } finally {
+            lock.unlock();
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * 获得缓存过的文件bytes，从直接内存复制到堆中
+     *
+     * @param path 文件路径
+     * @return 文件bytes
+     * @throws IORuntimeException IO异常
+     */
+    public byte[] getFileBytes(String path) throws IORuntimeException {
+        return getFileBytes(new File(path));
+    }
+
+    /**
+     * 获得缓存过的文件bytes，从直接内存复制到堆中
+     *
+     * @param file 文件
+     * @return 文件bytes
+     * @throws IORuntimeException IO异常
+     */
+    public byte[] getFileBytes(File file) throws IORuntimeException {
+        final ByteBuffer buffer = getFileBuffer(file);
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // ---------------------------------------------------------------- protected method start
+
+    /**
+     * 读取文件到直接内存，大文件使用内存映射
+     *
+     * @param file 文件
+     * @return 只读{@link ByteBuffer}
+     * @throws IORuntimeException IO异常
+     */
+    protected ByteBuffer load(File file) throws IORuntimeException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IORuntimeException("File [{}] is too large to cache: {} bytes", file, size);
+            }
+            if (size >= mapThreshold) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asReadOnlyBuffer();
+            }
+            final ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+    // ---------------------------------------------------------------- protected method end
+
+    /**
+     * 清理过期文件，依旧超出容量时淘汰最久未使用的文件，调用时需持有锁
+     */
+    private void prune() {
+        if (usedSize <= capacity) {
+            return;
+        }
+        Iterator<Segment> values = cache.values().iterator();
+        while (values.hasNext()) {
+            final Segment segment = values.next();
+            if (segment.isExpired()) {
+                values.remove();
+                usedSize -= segment.buffer.capacity();
+            }
+        }
+        values = cache.values().iterator();
+        while (values.hasNext() && usedSize > capacity) {
+            final Segment segment = values.next();
+            values.remove();
+            usedSize -= segment.buffer.capacity();
+        }
+    }
+
+    // region 序列化与反序列化重写
+    @Serial
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        cache = new LinkedHashMap<>(16, 0.75f, true);
+        lock = new ReentrantLock();
+    }
+    // endregion
+
+    /**
+     * 缓存的文件内容
+     */
+    private static final class Segment {
+        final ByteBuffer buffer;
+        final long ttl;
+        /**
+         * 加载时文件的修改时间
+         */
+        final long lastModified;
+        /**
+         * 加载时文件的大小
+         */
+        final long length;
+        long lastAccess;
+
+        Segment(ByteBuffer buffer, long ttl, long lastModified, long length) {
+            this.buffer = buffer;
+            this.ttl = ttl;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        boolean isExpired() {
+            return ttl > 0 && (System.currentTimeMillis() - lastAccess) > ttl;
+        }
+
+        /**
+         * 文件自加载后是否被修改、删除或改变了大小
+         *
+         * @param file 文件
+         * @return 是否被修改
+         */
+        boolean isModified(File file) {
+            return file.lastModified() != lastModified || file.length() != length;
+        }
+    }
+}
@@ -5,14 +5,26 @@ import pxf.tl.api.Mutable;
 import pxf.tl.api.MutableObject;
 import pxf.tl.cache.Cache;
 import pxf.tl.cache.CacheListener;
+import pxf.tl.cache.CacheStats;
+import pxf.tl.cache.GlobalPruneTimer;
+import pxf.tl.cache.RemovalCause;
+import pxf.tl.text.cron.timingwheel.SystemTimer;
+import pxf.tl.text.cron.timingwheel.TimerTask;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.LongAdder;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -32,9 +44,9 @@ import java.util.stream.Collectors;
 public abstract class AbstractCache<K, V> implements Cache<K, V> {
     private static final long serialVersionUID = 1L;
     /**
-     * 写的时候每个key一把锁，降低锁的粒度
+     * 正在加载的键，同一个键的并发加载合并为一次
      */
-    protected final Map<K, Lock> keyLockMap = new ConcurrentHashMap<>();
+    protected transient Map<K, CompletableFuture<V>> loadingMap = new ConcurrentHashMap<>();
 
     protected Map<Mutable<K>, CacheObj<K, V>> cacheMap;
     /**
@@ -59,12 +71,62 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      * 丢失数，即未命中缓存计数
      */
     protected LongAdder missCount = new LongAdder();
+    /**
+     * 加载成功数
+     */
+    protected LongAdder loadSuccessCount = new LongAdder();
+    /**
+     * 加载失败数
+     */
+    protected LongAdder loadFailureCount = new LongAdder();
+    /**
+     * 加载总耗时，单位纳秒
+     */
+    protected LongAdder totalLoadTime = new LongAdder();
+    /**
+     * 各原因的移除数，下标为{@link RemovalCause#ordinal()}
+     */
+    protected LongAdder[] removalCounts = newRemovalCounts();
+    /**
+     * 是否记录读取耗时
+     */
+    protected boolean recordGetTime;
+    /**
+     * 记录了耗时的读取数
+     */
+    protected LongAdder getCount = new LongAdder();
+    /**
+     * 读取总耗时，单位纳秒
+     */
+    protected LongAdder totalGetTime = new LongAdder();
+    /**
+     * 清理执行次数
+     */
+    protected LongAdder pruneCount = new LongAdder();
+    /**
+     * 清理总耗时，单位纳秒
+     */
+    protected LongAdder totalPruneTime = new LongAdder();
+
+    /**
+     * 写入后超过此时长，访问时在后台重新加载，{@code 0}表示不刷新，单位毫秒
+     */
+    protected long refreshAfterWrite;
+    /**
+     * 异步加载使用的线程池
+     */
+    protected transient Executor loadExecutor = ForkJoinPool.commonPool();
 
     /**
      * 缓存监听
      */
     protected CacheListener<K, V> listener;
 
+    /**
+     * 过期时间轮，{@code null}表示过期对象只能通过遍历清理
+     */
+    protected transient SystemTimer expireTimer;
+
     // ---------------------------------------------------------------- put start
     @Override
     public void put(K key, V object) {
@@ -86,7 +148,11 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         if (isFull()) {
             pruneCache();
         }
-        cacheMap.put(MutableObject.of(key), co);
+        final CacheObj<K, V> prior = cacheMap.put(MutableObject.of(key), co);
+        if (null != prior) {
+            unindexExpire(prior);
+        }
+        indexExpire(co);
     }
     // ---------------------------------------------------------------- put end
 
@@ -106,32 +172,238 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         return missCount.sum();
     }
 
+    /**
+     * @return 加载成功数
+     */
+    public long getLoadSuccessCount() {
+        return loadSuccessCount.sum();
+    }
+
+    /**
+     * @return 加载失败数
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    /**
+     * @return 加载总耗时，单位纳秒
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime.sum();
+    }
+
+    /**
+     * 设置是否记录读取耗时，开启后每次读取会额外调用两次{@link System#nanoTime()}
+     *
+     * @param recordGetTime 是否记录读取耗时
+     * @return this
+     */
+    public AbstractCache<K, V> setRecordGetTime(boolean recordGetTime) {
+        this.recordGetTime = recordGetTime;
+        return this;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(
+                size(), capacity, hitCount.sum(), missCount.sum(),
+                loadSuccessCount.sum(), loadFailureCount.sum(), totalLoadTime.sum(),
+                removalCounts[RemovalCause.EXPLICIT.ordinal()].sum(),
+                removalCounts[RemovalCause.SIZE.ordinal()].sum(),
+                removalCounts[RemovalCause.EXPIRED.ordinal()].sum(),
+                removalCounts[RemovalCause.COLLECTED.ordinal()].sum(),
+                getCount.sum(), totalGetTime.sum(), pruneCount.sum(), totalPruneTime.sum());
+    }
+
+    /**
+     * 开始读取计时
+     *
+     * @return 开始时间，未开启记录时为{@code 0}
+     */
+    protected final long beginGet() {
+        return recordGetTime ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 结束读取计时
+     *
+     * @param start {@link #beginGet()}返回的开始时间
+     */
+    protected final void endGet(long start) {
+        if (0L != start) {
+            getCount.increment();
+            totalGetTime.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 记录一次清理的耗时
+     *
+     * @param start 清理开始时间，{@link System#nanoTime()}
+     */
+    protected final void recordPrune(long start) {
+        pruneCount.increment();
+        totalPruneTime.add(System.nanoTime() - start);
+    }
+
+    /**
+     * 设置写入后刷新时长<br>
+     * 对象写入后超过此时长，带有加载函数的访问会先返回旧值，同时在后台重新加载，使热点对象在过期前得到刷新
+     *
+     * @param refreshAfterWrite 写入后刷新时长，{@code 0}表示不刷新，单位毫秒
+     * @return this
+     */
+    public AbstractCache<K, V> setRefreshAfterWrite(long refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+        return this;
+    }
+
+    /**
+     * 设置异步加载和后台刷新使用的线程池，默认{@link ForkJoinPool#commonPool()}
+     *
+     * @param loadExecutor 线程池
+     * @return this
+     */
+    public AbstractCache<K, V> setLoadExecutor(Executor loadExecutor) {
+        this.loadExecutor = loadExecutor;
+        return this;
+    }
+
     @Override
     public V get(K key, boolean isUpdateLastAccess, Supplier<V> supplier) {
-        V v = get(key, isUpdateLastAccess);
-        if (null == v && null != supplier) {
-            // 每个key单独获取一把锁，降低锁的粒度提高并发能力，see pr#1385@Github
-            final Lock keyLock = keyLockMap.computeIfAbsent(key, k -> new ReentrantLock());
-            keyLock.lock();
-            try {
-                // 双重检查锁，防止在竞争锁的过程中已经有其它线程写入
-                final CacheObj<K, V> co = getWithoutLock(key);
-                if (null == co || co.isExpired()) {
-                    try {
-                        v = supplier.get();
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                    put(key, v, this.timeout);
-                } else {
-                    v = co.get(isUpdateLastAccess);
-                }
-            } finally {
-                keyLock.unlock();
-                keyLockMap.remove(key);
+        final V v = get(key, isUpdateLastAccess);
+        if (null == supplier) {
+            return v;
+        }
+        if (null != v) {
+            refreshIfNecessary(key, supplier);
+            return v;
+        }
+        // 同一个键只有一个线程执行加载，其它线程等待加载结果
+        final LoadingFuture<V> future = new LoadingFuture<>();
+        final CompletableFuture<V> loading = loadingMap.putIfAbsent(key, future);
+        if (null != loading) {
+            if (loading instanceof LoadingFuture<V> loadingFuture && loadingFuture.loader == Thread.currentThread()) {
+                // 加载函数中再次加载同一个键，等待自身的加载结果会死锁，直接加载
+                final LoadingFuture<V> nested = new LoadingFuture<>();
+                load(key, supplier, nested);
+                return join(nested);
             }
+            return join(loading);
+        }
+        // 双重检查，防止在发起加载前已经有其它线程写入
+        final CacheObj<K, V> co = peek(key);
+        if (null != co && false == co.isExpired()) {
+            loadingMap.remove(key, future);
+            future.complete(co.obj);
+            return co.get(isUpdateLastAccess);
+        }
+        load(key, supplier, future);
+        return join(future);
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key, Supplier<V> supplier) {
+        final V v = get(key, true);
+        if (null != v) {
+            refreshIfNecessary(key, supplier);
+            return CompletableFuture.completedFuture(v);
         }
-        return v;
+        return loadAsync(key, supplier);
+    }
+
+    /**
+     * 对象写入后超过{@link #refreshAfterWrite}时在后台重新加载
+     *
+     * @param key      键
+     * @param supplier 加载函数
+     */
+    protected void refreshIfNecessary(K key, Supplier<V> supplier) {
+        if (refreshAfterWrite <= 0 || loadingMap.containsKey(key)) {
+            return;
+        }
+        final CacheObj<K, V> co = peek(key);
+        if (null != co && System.currentTimeMillis() - co.writeTime >= refreshAfterWrite) {
+            loadAsync(key, supplier);
+        }
+    }
+
+    /**
+     * 在{@link #loadExecutor}中异步加载，同一个键已在加载时返回正在进行的加载
+     *
+     * @param key      键
+     * @param supplier 加载函数
+     * @return 加载结果
+     */
+    protected CompletableFuture<V> loadAsync(K key, Supplier<V> supplier) {
+        final LoadingFuture<V> future = new LoadingFuture<>();
+        final CompletableFuture<V> loading = loadingMap.putIfAbsent(key, future);
+        if (null != loading) {
+            return loading;
+        }
+        try {
+            loadExecutor.execute(() -> load(key, supplier, future));
+        } catch (RejectedExecutionException e) {
+            loadingMap.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 执行加载并放入缓存，记录加载耗时和失败数，完成后通知所有等待者
+     *
+     * @param key      键
+     * @param supplier 加载函数
+     * @param future   加载结果
+     */
+    private void load(K key, Supplier<V> supplier, LoadingFuture<V> future) {
+        final long start = System.nanoTime();
+        future.loader = Thread.currentThread();
+        try {
+            final V v = supplier.get();
+            totalLoadTime.add(System.nanoTime() - start);
+            loadSuccessCount.increment();
+            put(key, v, this.timeout);
+            future.complete(v);
+        } catch (Throwable e) {
+            totalLoadTime.add(System.nanoTime() - start);
+            loadFailureCount.increment();
+            future.completeExceptionally(e);
+        } finally {
+            future.loader = null;
+            loadingMap.remove(key, future);
+        }
+    }
+
+    /**
+     * 等待加载结果，加载异常以{@link RuntimeException}抛出
+     *
+     * @param future 加载结果
+     * @return 值
+     */
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * 获取键对应的{@link CacheObj}，不计入命中数和丢失数，也不更新访问时间<br>
+     * 默认无锁，需要加锁的子类应重写此方法
+     *
+     * @param key 键
+     * @return {@link CacheObj}
+     */
+    protected CacheObj<K, V> peek(K key) {
+        return getWithoutLock(key);
     }
 
     /**
@@ -241,6 +513,18 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         }
     }
 
+    /**
+     * 对象移除回调，按原因计数后调用{@link #onRemove(Object, Object)}
+     *
+     * @param key          键
+     * @param cachedObject 被缓存的对象
+     * @param cause        移除原因
+     */
+    protected void onRemove(K key, V cachedObject, RemovalCause cause) {
+        removalCounts[cause.ordinal()].increment();
+        onRemove(key, cachedObject);
+    }
+
     /**
      * 移除key对应的对象，不加锁
      *
@@ -250,6 +534,9 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     protected CacheObj<K, V> removeWithoutLock(K key, boolean withMissCount) {
         final CacheObj<K, V> co = cacheMap.remove(MutableObject.of(key));
+        if (null != co) {
+            unindexExpire(co);
+        }
         if (withMissCount) {
             // 在丢失计数有效的情况下，移除一般为get时的超时操作，此处应该丢失数+1
             this.missCount.increment();
@@ -265,4 +552,131 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     protected Iterator<CacheObj<K, V>> cacheObjIter() {
         return this.cacheMap.values().iterator();
     }
+
+    // ---------------------------------------------------------------- expire timer start
+
+    /**
+     * 使用全局过期时间轮索引对象
+     *
+     * @return this
+     * @see #setExpireTimer(SystemTimer)
+     */
+    public AbstractCache<K, V> enableExpireTimer() {
+        return setExpireTimer(GlobalPruneTimer.INSTANCE.getExpireTimer());
+    }
+
+    /**
+     * 设置过期时间轮，应在缓存使用前设置<br>
+     * 设置后有超时时长的对象都会按过期时间加入时间轮，到期时单独检查并移除，
+     * 清理开销只与到期对象数有关，不再需要定时遍历全部对象，每个对象单独的失效时长依旧有效<br>
+     * 默认无锁，需要加锁的子类应重写此方法
+     *
+     * @param expireTimer 已启动的{@link SystemTimer}
+     * @return this
+     */
+    public AbstractCache<K, V> setExpireTimer(SystemTimer expireTimer) {
+        this.expireTimer = expireTimer;
+        for (CacheObj<K, V> co : new ArrayList<>(cacheMap.values())) {
+            indexExpire(co);
+        }
+        return this;
+    }
+
+    /**
+     * 按过期时间将对象加入时间轮
+     *
+     * @param co 缓存对象
+     */
+    protected void indexExpire(CacheObj<K, V> co) {
+        final SystemTimer timer = this.expireTimer;
+        if (null == timer || co.ttl <= 0) {
+            return;
+        }
+        // 过期判断为严格大于，多延迟1毫秒
+        final long delay = co.lastAccess + co.ttl - System.currentTimeMillis() + 1;
+        final TimerTask task = new TimerTask(() -> expire(co), delay);
+        final TimerTask prior = co.expireTask;
+        co.expireTask = task;
+        if (null != prior) {
+            prior.cancel();
+        }
+        timer.addTask(task);
+    }
+
+    /**
+     * 将对象从时间轮中移除
+     *
+     * @param co 缓存对象
+     */
+    protected void unindexExpire(CacheObj<K, V> co) {
+        final TimerTask task = co.expireTask;
+        if (null != task) {
+            co.expireTask = null;
+            task.cancel();
+        }
+    }
+
+    /**
+     * 时间轮到期回调，子类需加锁后调用{@link #expireWithoutLock(CacheObj)}
+     *
+     * @param co 到期的缓存对象
+     */
+    protected void expire(CacheObj<K, V> co) {
+        final CacheObj<K, V> removed = expireWithoutLock(co);
+        if (null != removed) {
+            onRemove(removed.key, removed.obj, RemovalCause.EXPIRED);
+        }
+    }
+
+    /**
+     * 时间轮到期处理，无锁<br>
+     * 对象已被替换或移除时忽略，已过期时移除，因访问刷新而未过期时按新的过期时间重新加入时间轮
+     *
+     * @param co 到期的缓存对象
+     * @return 被移除的对象，未移除返回{@code null}
+     */
+    protected CacheObj<K, V> expireWithoutLock(CacheObj<K, V> co) {
+        if (getWithoutLock(co.key) != co) {
+            return null;
+        }
+        if (co.isExpired()) {
+            return removeWithoutLock(co.key, false);
+        }
+        indexExpire(co);
+        return null;
+    }
+    // ---------------------------------------------------------------- expire timer end
+
+    // region 序列化与反序列化重写
+
+    /**
+     * 反序列化，正在进行的加载不会被序列化，异步加载使用默认线程池
+     */
+    @Serial
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        loadingMap = new ConcurrentHashMap<>();
+        loadExecutor = ForkJoinPool.commonPool();
+    }
+    // endregion
+
+    /**
+     * 记录执行加载线程的加载结果，用于识别加载函数中对同一个键的重入加载
+     *
+     * @param <V> 值类型
+     */
+    private static final class LoadingFuture<V> extends CompletableFuture<V> {
+        /**
+         * 正在执行加载的线程，未开始或已结束时为{@code null}
+         */
+        volatile Thread loader;
+    }
+
+    private static LongAdder[] newRemovalCounts() {
+        final LongAdder[] counts = new LongAdder[RemovalCause.values().length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        return counts;
+    }
 }
@@ -0,0 +1,367 @@
+package pxf.tl.cache.impl;
+
+
+import pxf.tl.api.MutableObject;
+import pxf.tl.cache.RemovalCause;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 基于频率桶的LFU(least frequently used) 最少使用率缓存<br>
+ * 相同访问次数的对象放在同一个频率桶中，桶之间按频率升序组成双向链表，桶内按访问先后排列。<br>
+ * 访问对象时将其移到相邻的更高频率桶，缓存满时直接淘汰最低频率桶中最久未访问的对象，
+ * 访问与淘汰都是常数时间，不需要像{@link LFUCache}那样遍历全部对象。<br>
+ * 过期对象在访问时移除，调用{@link #prune()}时会额外遍历清理所有过期对象。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author potatoxf
+ */
+public class BucketLFUCache<K, V> extends ReentrantCache<K, V> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 频率最低的桶，也是频率桶链表的头
+     */
+    private transient FrequencyBucket<K, V> minBucket;
+
+    /**
+     * 构造
+     *
+     * @param capacity 容量
+     */
+    public BucketLFUCache(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * 构造
+     *
+     * @param capacity 容量
+     * @param timeout  过期时长
+     */
+    public BucketLFUCache(int capacity, long timeout) {
+        if (Integer.MAX_VALUE == capacity) {
+            capacity -= 1;
+        }
+
+        this.capacity = capacity;
+        this.timeout = timeout;
+        cacheMap = new HashMap<>(capacity + 1, 1.0f);
+    }
+
+    @Override
+    public V get(K key, boolean isUpdateLastAccess) {
+        final long start = beginGet();
+        try {
+            CacheObj<K, V> co;
+            lock.lock();
+            try {
+                co = getWithoutLock(key);
+                if (null != co && false == co.isExpired()) {
+                    increment((Node<K, V>) co);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // 未命中
+            if (null == co) {
+                missCount.increment();
+                return null;
+            } else if (false == co.isExpired()) {
+                hitCount.increment();
+                return co.get(isUpdateLastAccess);
+            }
+
+            // 过期，既不算命中也不算非命中
+            remove(key, true);
+            return null;
+        } finally {
+            endGet(start);
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            for (CacheObj<K, V> co : cacheMap.values()) {
+                unindexExpire(co);
+            }
+            cacheMap.clear();
+            minBucket = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 加入元素，缓存满时淘汰最低频率桶中最久未访问的对象，无锁
+     *
+     * @param key     键
+     * @param object  值
+     * @param timeout 超时时长
+     */
+    @Override
+    protected void putWithoutLock(K key, V object, long timeout) {
+        final Node<K, V> node = new Node<>(key, object, timeout);
+        if (timeout != 0) {
+            existCustomTimeout = true;
+        }
+        final MutableObject<K> mKey = MutableObject.of(key);
+        final CacheObj<K, V> prior = cacheMap.get(mKey);
+        if (null != prior) {
+            unlink((Node<K, V>) prior);
+            unindexExpire(prior);
+        } else if (isFull()) {
+            evictLeastFrequent();
+        }
+        cacheMap.put(mKey, node);
+        link(node);
+        indexExpire(node);
+    }
+
+    @Override
+    protected CacheObj<K, V> removeWithoutLock(K key, boolean withMissCount) {
+        final CacheObj<K, V> co = super.removeWithoutLock(key, withMissCount);
+        if (null != co) {
+            unlink((Node<K, V>) co);
+        }
+        return co;
+    }
+
+    /**
+     * 清理过期对象，清理后依旧满的情况下淘汰最低频率桶中最久未访问的对象
+     *
+     * @return 清理个数
+     */
+    @Override
+    protected int pruneCache() {
+        int count = 0;
+        if (isPruneExpiredActive()) {
+            final List<CacheObj<K, V>> expired = new ArrayList<>();
+            final Iterator<CacheObj<K, V>> values = cacheObjIter();
+            while (values.hasNext()) {
+                final CacheObj<K, V> co = values.next();
+                if (co.isExpired()) {
+                    expired.add(co);
+                }
+            }
+            for (CacheObj<K, V> co : expired) {
+                removeWithoutLock(co.key, false);
+                onRemove(co.key, co.obj, RemovalCause.EXPIRED);
+                count++;
+            }
+        }
+        if (isFull() && evictLeastFrequent()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 淘汰最低频率桶中最久未访问的对象
+     *
+     * @return 是否有对象被淘汰
+     */
+    private boolean evictLeastFrequent() {
+        if (null == minBucket) {
+            return false;
+        }
+        final Node<K, V> victim = minBucket.head;
+        removeWithoutLock(victim.key, false);
+        onRemove(victim.key, victim.obj, RemovalCause.SIZE);
+        return true;
+    }
+
+    /**
+     * 新对象放入频率为1的桶
+     *
+     * @param node 节点
+     */
+    private void link(Node<K, V> node) {
+        FrequencyBucket<K, V> bucket = minBucket;
+        if (null == bucket || bucket.frequency != 1) {
+            bucket = new FrequencyBucket<>(1);
+            bucket.next = minBucket;
+            if (null != minBucket) {
+                minBucket.prev = bucket;
+            }
+            minBucket = bucket;
+        }
+        bucket.addLast(node);
+    }
+
+    /**
+     * 对象访问频率加1，移到下一个桶，必要时创建或删除桶
+     *
+     * @param node 节点
+     */
+    private void increment(Node<K, V> node) {
+        final FrequencyBucket<K, V> bucket = node.bucket;
+        if (null == bucket) {
+            return;
+        }
+        FrequencyBucket<K, V> next = bucket.next;
+        if (null == next || next.frequency != bucket.frequency + 1) {
+            next = new FrequencyBucket<>(bucket.frequency + 1);
+            next.prev = bucket;
+            next.next = bucket.next;
+            if (null != bucket.next) {
+                bucket.next.prev = next;
+            }
+            bucket.next = next;
+        }
+        bucket.remove(node);
+        next.addLast(node);
+        if (bucket.isEmpty()) {
+            removeBucket(bucket);
+        }
+    }
+
+    /**
+     * 从所在桶中移除对象，桶为空时删除桶
+     *
+     * @param node 节点
+     */
+    private void unlink(Node<K, V> node) {
+        final FrequencyBucket<K, V> bucket = node.bucket;
+        if (null == bucket) {
+            return;
+        }
+        bucket.remove(node);
+        if (bucket.isEmpty()) {
+            removeBucket(bucket);
+        }
+    }
+
+    private void removeBucket(FrequencyBucket<K, V> bucket) {
+        if (null == bucket.prev) {
+            minBucket = bucket.next;
+        } else {
+            bucket.prev.next = bucket.next;
+        }
+        if (null != bucket.next) {
+            bucket.next.prev = bucket.prev;
+        }
+        bucket.prev = null;
+        bucket.next = null;
+    }
+
+    // region 序列化与反序列化重写
+
+    /**
+     * 反序列化，按对象的访问频率重建频率桶，同一频率按最后访问时间排列，超出容量时淘汰
+     */
+    @Serial
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        minBucket = null;
+        final List<Node<K, V>> nodes = new ArrayList<>(cacheMap.size());
+        for (CacheObj<K, V> co : cacheMap.values()) {
+            nodes.add((Node<K, V>) co);
+        }
+        nodes.sort(Comparator.<Node<K, V>>comparingLong(node -> node.frequency)
+                .thenComparingLong(node -> node.lastAccess));
+        FrequencyBucket<K, V> last = null;
+        for (Node<K, V> node : nodes) {
+            if (null == last || last.frequency != node.frequency) {
+                final FrequencyBucket<K, V> bucket = new FrequencyBucket<>(node.frequency);
+                bucket.prev = last;
+                if (null == last) {
+                    minBucket = bucket;
+                } else {
+                    last.next = bucket;
+                }
+                last = bucket;
+            }
+            last.addLast(node);
+        }
+        while (capacity > 0 && cacheMap.size() > capacity && evictLeastFrequent()) {
+            // 淘汰直到不超过容量
+        }
+    }
+    // endregion
+
+    /**
+     * 带有频率桶指针的缓存对象
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    private static final class Node<K, V> extends CacheObj<K, V> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        transient FrequencyBucket<K, V> bucket;
+        transient Node<K, V> prev;
+        transient Node<K, V> next;
+        /**
+         * 访问频率，与所在桶的频率一致，用于反序列化时重建频率桶
+         */
+        long frequency = 1;
+
+        Node(K key, V obj, long ttl) {
+            super(key, obj, ttl);
+        }
+    }
+
+    /**
+     * 频率桶，桶内对象按访问先后排列
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    private static final class FrequencyBucket<K, V> {
+        final long frequency;
+        FrequencyBucket<K, V> prev;
+        FrequencyBucket<K, V> next;
+        Node<K, V> head;
+        Node<K, V> tail;
+
+        FrequencyBucket(long frequency) {
+            this.frequency = frequency;
+        }
+
+        boolean isEmpty() {
+            return null == head;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.bucket = this;
+            node.frequency = frequency;
+            node.prev = tail;
+            node.next = null;
+            if (null == tail) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (null == node.prev) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (null == node.next) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.bucket = null;
+        }
+    }
+}
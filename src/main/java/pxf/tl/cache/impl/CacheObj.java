@@ -2,6 +2,7 @@ package pxf.tl.cache.impl;
 
 
 import pxf.tl.date.DateUtil;
+import pxf.tl.text.cron.timingwheel.TimerTask;
 
 import java.io.Serializable;
 import java.util.Date;
@@ -23,6 +24,10 @@ public class CacheObj<K, V> implements Serializable {
      * 对象存活时长，0表示永久存活
      */
     protected final long ttl;
+    /**
+     * 写入时间
+     */
+    protected final long writeTime;
     /**
      * 上次访问时间
      */
@@ -31,6 +36,10 @@ public class CacheObj<K, V> implements Serializable {
      * 访问次数
      */
     protected AtomicLong accessCount = new AtomicLong();
+    /**
+     * 过期时间轮中的任务，未使用时间轮时为{@code null}
+     */
+    protected transient volatile TimerTask expireTask;
 
     /**
      * 构造
@@ -44,6 +53,7 @@ public class CacheObj<K, V> implements Serializable {
         this.obj = obj;
         this.ttl = ttl;
         this.lastAccess = System.currentTimeMillis();
+        this.writeTime = this.lastAccess;
     }
 
     /**
@@ -85,6 +95,15 @@ public class CacheObj<K, V> implements Serializable {
         return null;
     }
 
+    /**
+     * 获取写入时间
+     *
+     * @return 写入时间
+     */
+    public long getWriteTime() {
+        return this.writeTime;
+    }
+
     /**
      * 获取上次访问时间
      *
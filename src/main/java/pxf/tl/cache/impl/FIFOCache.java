@@ -1,5 +1,6 @@
 package pxf.tl.cache.impl;
 
+import pxf.tl.cache.RemovalCause;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 
@@ -55,7 +56,8 @@ public class FIFOCache<K, V> extends StampedCache<K, V> {
                 CacheObj<K, V> co = values.next();
                 if (co.isExpired()) {
                     values.remove();
-                    onRemove(co.key, co.obj);
+                    unindexExpire(co);
+                    onRemove(co.key, co.obj, RemovalCause.EXPIRED);
                     count++;
                     continue;
                 }
@@ -70,7 +72,7 @@ public class FIFOCache<K, V> extends StampedCache<K, V> {
         // 清理结束后依旧是满的，则删除第一个被缓存的对象
         if (isFull() && null != first) {
             removeWithoutLock(first.key, false);
-            onRemove(first.key, first.obj);
+            onRemove(first.key, first.obj, RemovalCause.SIZE);
             count++;
         }
         return count;
@@ -0,0 +1,137 @@
+package pxf.tl.cache.impl;
+
+import java.util.Arrays;
+
+/**
+ * 基于Count-Min Sketch的访问频率估算器，用于TinyLFU准入策略<br>
+ * 每个计数器占4位，一个{@code long}容纳16个计数器，每个元素对应4个计数器，估算频率取其中的最小值。<br>
+ * 当累计增加次数达到采样大小时，所有计数器减半，使频率随时间老化。
+ *
+ * <p>此类非线程安全，调用方需保证同一时刻只有一个线程修改
+ *
+ * @author potatoxf
+ */
+final class FrequencySketch {
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    /**
+     * 计数器表
+     */
+    private final long[] table;
+    /**
+     * 表长度掩码
+     */
+    private final int tableMask;
+    /**
+     * 计数器老化的采样大小
+     */
+    private final int sampleSize;
+    /**
+     * 自上次老化后的增加次数
+     */
+    private int size;
+
+    /**
+     * 构造
+     *
+     * @param maximumSize 缓存最大容量
+     */
+    FrequencySketch(long maximumSize) {
+        int maximum = (int) Math.min(Math.max(maximumSize, 1), Integer.MAX_VALUE >>> 1);
+        this.table = new long[ceilingPowerOfTwo(maximum)];
+        this.tableMask = Math.max(0, table.length - 1);
+        this.sampleSize = (int) Math.min(10L * maximum, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 估算元素的访问频率，最大值为{@code 15}
+     *
+     * @param e 元素
+     * @return 估算的访问频率
+     */
+    int frequency(Object e) {
+        int hash = spread(e == null ? 0 : e.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 元素访问频率加1，计数器已饱和时不再增加
+     *
+     * @param e 元素
+     */
+    void increment(Object e) {
+        int hash = spread(e == null ? 0 : e.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && (++size == sampleSize)) {
+            reset();
+        }
+    }
+
+    /**
+     * 清空所有计数器
+     */
+    void clear() {
+        Arrays.fill(table, 0L);
+        size = 0;
+    }
+
+    /**
+     * 指定位置的计数器加1
+     *
+     * @param i 表索引
+     * @param j 计数器在{@code long}中的位置，0~15
+     * @return 是否增加成功
+     */
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = (0xfL << offset);
+        if ((table[i] & mask) != mask) {
+            table[i] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+}
@@ -1,5 +1,6 @@
 package pxf.tl.cache.impl;
 
+import pxf.tl.cache.RemovalCause;
 import java.util.HashMap;
 import java.util.Iterator;
 
@@ -62,7 +63,8 @@ public class LFUCache<K, V> extends StampedCache<K, V> {
             co = values.next();
             if (co.isExpired() == true) {
                 values.remove();
-                onRemove(co.key, co.obj);
+                unindexExpire(co);
+                onRemove(co.key, co.obj, RemovalCause.EXPIRED);
                 count++;
                 continue;
             }
@@ -83,7 +85,8 @@ public class LFUCache<K, V> extends StampedCache<K, V> {
                 co1 = values.next();
                 if (co1.accessCount.addAndGet(-minAccessCount) <= 0) {
                     values.remove();
-                    onRemove(co1.key, co1.obj);
+                    unindexExpire(co1);
+                    onRemove(co1.key, co1.obj, RemovalCause.SIZE);
                     count++;
                 }
             }
@@ -1,9 +1,12 @@
 package pxf.tl.cache.impl;
 
 
+import pxf.tl.api.Mutable;
+import pxf.tl.cache.RemovalCause;
 import pxf.tl.collection.map.FixedLinkedHashMap;
 
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * LRU (least recently used)最近最久未使用缓存<br>
@@ -45,7 +48,39 @@ public class LRUCache<K, V> extends ReentrantCache<K, V> {
         this.timeout = timeout;
 
         // 链表key按照访问顺序排序，调用get方法后，会将这次访问的元素移至头部
-        cacheMap = new FixedLinkedHashMap<>(capacity);
+        cacheMap = new FixedLinkedHashMap<>(capacity) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Mutable<K>, CacheObj<K, V>> eldest) {
+                if (super.removeEldestEntry(eldest)) {
+                    final CacheObj<K, V> co = eldest.getValue();
+                    unindexExpire(co);
+                    onRemove(co.key, co.obj, RemovalCause.SIZE);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 按访问顺序排列的{@code LinkedHashMap}中查询会将对象移到队尾，到期检查不能通过查询判断对象是否仍在缓存中，
+     * 对象被替换或移除时都会从时间轮中移除，因此仍持有时间轮任务的对象即为缓存中的对象
+     *
+     * @param co 到期的缓存对象
+     * @return 被移除的对象，未移除返回{@code null}
+     */
+    @Override
+    protected CacheObj<K, V> expireWithoutLock(CacheObj<K, V> co) {
+        if (null == co.expireTask) {
+            return null;
+        }
+        if (co.isExpired()) {
+            return removeWithoutLock(co.key, false);
+        }
+        indexExpire(co);
+        return null;
     }
 
     // ---------------------------------------------------------------- prune
@@ -65,7 +100,8 @@ public class LRUCache<K, V> extends ReentrantCache<K, V> {
             co = values.next();
             if (co.isExpired()) {
                 values.remove();
-                onRemove(co.key, co.obj);
+                unindexExpire(co);
+                onRemove(co.key, co.obj, RemovalCause.EXPIRED);
                 count++;
             }
         }
@@ -1,7 +1,9 @@
 package pxf.tl.cache.impl;
 
 
+import pxf.tl.cache.RemovalCause;
 import pxf.tl.iter.AnyIter;
+import pxf.tl.text.cron.timingwheel.SystemTimer;
 
 import java.io.Serial;
 import java.util.Iterator;
@@ -57,27 +59,42 @@ public abstract class ReentrantCache<K, V> extends AbstractCache<K, V> {
     }
 
     @Override
-    public V get(K key, boolean isUpdateLastAccess) {
-        CacheObj<K, V> co;
+    protected CacheObj<K, V> peek(K key) {
         lock.lock();
         try {
-            co = getWithoutLock(key);
+            return getWithoutLock(key);
         } finally {
             lock.unlock();
         }
+    }
+
+    @Override
+    public V get(K key, boolean isUpdateLastAccess) {
+        final long start = beginGet();
+        try {
+            CacheObj<K, V> co;
+            lock.lock();
+            try {
+                co = getWithoutLock(key);
+            } finally {
+                lock.unlock();
+            }
 
-        // 未命中
-        if (null == co) {
-            missCount.increment();
+            // 未命中
+            if (null == co) {
+                missCount.increment();
+                return null;
+            } else if (!co.isExpired()) {
+                hitCount.increment();
+                return co.get(isUpdateLastAccess);
+            }
+
+            // 过期，既不算命中也不算非命中
+            remove(key, true);
             return null;
-        } else if (!co.isExpired()) {
-            hitCount.increment();
-            return co.get(isUpdateLastAccess);
+        } finally {
+            endGet(start);
         }
-
-        // 过期，既不算命中也不算非命中
-        remove(key, true);
-        return null;
     }
 
     @Override
@@ -92,11 +109,13 @@ public abstract class ReentrantCache<K, V> extends AbstractCache<K, V> {
 
     @Override
     public final int prune() {
+        final long start = System.nanoTime();
         lock.lock();
         try {
             return pruneCache();
         } finally {
             lock.unlock();
+            recordPrune(start);
         }
     }
 
@@ -109,12 +128,25 @@ public abstract class ReentrantCache<K, V> extends AbstractCache<K, V> {
     public void clear() {
         lock.lock();
         try {
+            for (CacheObj<K, V> co : cacheMap.values()) {
+                unindexExpire(co);
+            }
             cacheMap.clear();
         } finally {
             lock.unlock();
         }
     }
 
+    @Override
+    public AbstractCache<K, V> setExpireTimer(SystemTimer expireTimer) {
+        lock.lock();
+        try {
+            return super.setExpireTimer(expireTimer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     public String toString() {
         lock.lock();
@@ -125,13 +157,27 @@ public abstract class ReentrantCache<K, V> extends AbstractCache<K, V> {
         }
     }
 
+    @Override
+    protected void expire(CacheObj<K, V> co) {
+        lock.lock();
+        CacheObj<K, V> removed;
+        try {
+            removed = expireWithoutLock(co);
+        } finally {
+            lock.unlock();
+        }
+        if (null != removed) {
+            onRemove(removed.key, removed.obj, RemovalCause.EXPIRED);
+        }
+    }
+
     /**
      * 移除key对应的对象
      *
      * @param key           键
      * @param withMissCount 是否计数丢失数
      */
-    private void remove(K key, boolean withMissCount) {
+    protected void remove(K key, boolean withMissCount) {
         lock.lock();
         CacheObj<K, V> co;
         try {
@@ -140,7 +186,7 @@ public abstract class ReentrantCache<K, V> extends AbstractCache<K, V> {
             lock.unlock();
         }
         if (null != co) {
-            onRemove(co.key, co.obj);
+            onRemove(co.key, co.obj, withMissCount ? RemovalCause.EXPIRED : RemovalCause.EXPLICIT);
         }
     }
 }
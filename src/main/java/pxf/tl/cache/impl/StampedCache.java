@@ -1,7 +1,9 @@
 package pxf.tl.cache.impl;
 
 
+import pxf.tl.cache.RemovalCause;
 import pxf.tl.iter.AnyIter;
+import pxf.tl.text.cron.timingwheel.SystemTimer;
 
 import java.util.Iterator;
 import java.util.concurrent.locks.StampedLock;
@@ -54,33 +56,48 @@ public abstract class StampedCache<K, V> extends AbstractCache<K, V> {
         return false;
     }
 
+    @Override
+    protected CacheObj<K, V> peek(K key) {
+        final long stamp = lock.readLock();
+        try {
+            return getWithoutLock(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
     @Override
     public V get(K key, boolean isUpdateLastAccess) {
-        // 尝试读取缓存，使用乐观读锁
-        long stamp = lock.tryOptimisticRead();
-        CacheObj<K, V> co = getWithoutLock(key);
-        if (false == lock.validate(stamp)) {
-            // 有写线程修改了此对象，悲观读
-            stamp = lock.readLock();
-            try {
-                co = getWithoutLock(key);
-            } finally {
-                lock.unlockRead(stamp);
+        final long start = beginGet();
+        try {
+            // 尝试读取缓存，使用乐观读锁
+            long stamp = lock.tryOptimisticRead();
+            CacheObj<K, V> co = getWithoutLock(key);
+            if (false == lock.validate(stamp)) {
+                // 有写线程修改了此对象，悲观读
+                stamp = lock.readLock();
+                try {
+                    co = getWithoutLock(key);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+
+            // 未命中
+            if (null == co) {
+                missCount.increment();
+                return null;
+            } else if (false == co.isExpired()) {
+                hitCount.increment();
+                return co.get(isUpdateLastAccess);
             }
-        }
 
-        // 未命中
-        if (null == co) {
-            missCount.increment();
+            // 过期，既不算命中也不算非命中
+            remove(key, true);
             return null;
-        } else if (false == co.isExpired()) {
-            hitCount.increment();
-            return co.get(isUpdateLastAccess);
+        } finally {
+            endGet(start);
         }
-
-        // 过期，既不算命中也不算非命中
-        remove(key, true);
-        return null;
     }
 
     @Override
@@ -95,11 +112,13 @@ public abstract class StampedCache<K, V> extends AbstractCache<K, V> {
 
     @Override
     public final int prune() {
+        final long start = System.nanoTime();
         final long stamp = lock.writeLock();
         try {
             return pruneCache();
         } finally {
             lock.unlockWrite(stamp);
+            recordPrune(start);
         }
     }
 
@@ -112,12 +131,39 @@ public abstract class StampedCache<K, V> extends AbstractCache<K, V> {
     public void clear() {
         final long stamp = lock.writeLock();
         try {
+            for (CacheObj<K, V> co : cacheMap.values()) {
+                unindexExpire(co);
+            }
             cacheMap.clear();
         } finally {
             lock.unlockWrite(stamp);
         }
     }
 
+    @Override
+    public AbstractCache<K, V> setExpireTimer(SystemTimer expireTimer) {
+        final long stamp = lock.writeLock();
+        try {
+            return super.setExpireTimer(expireTimer);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    protected void expire(CacheObj<K, V> co) {
+        final long stamp = lock.writeLock();
+        CacheObj<K, V> removed;
+        try {
+            removed = expireWithoutLock(co);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (null != removed) {
+            onRemove(removed.key, removed.obj, RemovalCause.EXPIRED);
+        }
+    }
+
     /**
      * 移除key对应的对象
      *
@@ -133,7 +179,7 @@ public abstract class StampedCache<K, V> extends AbstractCache<K, V> {
             lock.unlockWrite(stamp);
         }
         if (null != co) {
-            onRemove(co.key, co.obj);
+            onRemove(co.key, co.obj, withMissCount ? RemovalCause.EXPIRED : RemovalCause.EXPLICIT);
         }
     }
 }
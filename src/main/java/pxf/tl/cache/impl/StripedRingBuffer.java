@@ -0,0 +1,119 @@
+package pxf.tl.cache.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 分段环形缓冲区，多生产者单消费者<br>
+ * 生产者根据线程散列到不同的环上，通过CAS追加元素，缓冲区满时直接丢弃元素（有损），不会阻塞生产者。<br>
+ * 消费者需在外部锁保护下调用{@link #drainTo(Consumer)}。
+ *
+ * @param <E> 元素类型
+ * @author potatoxf
+ */
+final class StripedRingBuffer<E> {
+    /**
+     * 追加成功
+     */
+    static final int SUCCESS = 0;
+    /**
+     * 竞争失败，元素被丢弃
+     */
+    static final int FAILED = -1;
+    /**
+     * 缓冲区已满，元素被丢弃
+     */
+    static final int FULL = 1;
+
+    /**
+     * 每个环的大小
+     */
+    private static final int RING_SIZE = 16;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    private final Ring<E>[] rings;
+    private final int ringMask;
+
+    /**
+     * 构造，环的数量为不小于CPU核数的2的幂
+     */
+    @SuppressWarnings("unchecked")
+    StripedRingBuffer() {
+        int ncpu = Math.min(Runtime.getRuntime().availableProcessors(), 64);
+        int count = 1 << -Integer.numberOfLeadingZeros(Math.max(ncpu, 2) - 1);
+        this.rings = new Ring[count];
+        for (int i = 0; i < count; i++) {
+            rings[i] = new Ring<>();
+        }
+        this.ringMask = count - 1;
+    }
+
+    /**
+     * 追加元素
+     *
+     * @param e 元素
+     * @return {@link #SUCCESS}、{@link #FAILED}或{@link #FULL}
+     */
+    int offer(E e) {
+        return rings[probe() & ringMask].offer(e);
+    }
+
+    /**
+     * 将所有环中的元素交给消费者
+     *
+     * @param consumer 消费者
+     */
+    void drainTo(Consumer<E> consumer) {
+        for (Ring<E> ring : rings) {
+            ring.drainTo(consumer);
+        }
+    }
+
+    private static int probe() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 单个环形缓冲区
+     *
+     * @param <E> 元素类型
+     */
+    private static final class Ring<E> {
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(RING_SIZE);
+
+        int offer(E e) {
+            long h = head.get();
+            long t = tail.get();
+            if (t - h >= RING_SIZE) {
+                return FULL;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                buffer.lazySet((int) (t & RING_MASK), e);
+                return SUCCESS;
+            }
+            return FAILED;
+        }
+
+        void drainTo(Consumer<E> consumer) {
+            long h = head.get();
+            long t = tail.get();
+            while (h < t) {
+                int index = (int) (h & RING_MASK);
+                E e = buffer.get(index);
+                if (e == null) {
+                    // 生产者已占位但尚未写入
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(e);
+                h++;
+            }
+            head.lazySet(h);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package pxf.tl.cache.impl;
 
 import pxf.tl.api.Mutable;
 import pxf.tl.cache.GlobalPruneTimer;
+import pxf.tl.cache.RemovalCause;
 
 import java.util.HashMap;
 import java.util.Iterator;
@@ -62,7 +63,8 @@ public class TimedCache<K, V> extends StampedCache<K, V> {
             co = values.next();
             if (co.isExpired()) {
                 values.remove();
-                onRemove(co.key, co.obj);
+                unindexExpire(co);
+                onRemove(co.key, co.obj, RemovalCause.EXPIRED);
                 count++;
             }
         }
@@ -72,7 +74,8 @@ public class TimedCache<K, V> extends StampedCache<K, V> {
     // ---------------------------------------------------------------- auto prune
 
     /**
-     * 定时清理
+     * 定时清理，每次清理都会遍历全部对象<br>
+     * 对象较多时可使用{@link #enableExpireTimer()}，只处理到期的对象
      *
      * @param delay 间隔时长，单位毫秒
      */
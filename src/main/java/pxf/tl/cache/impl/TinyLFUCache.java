@@ -0,0 +1,672 @@
+package pxf.tl.cache.impl;
+
+
+import pxf.tl.api.MutableObject;
+import pxf.tl.cache.RemovalCause;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * W-TinyLFU(Window Tiny Least Frequently Used) 缓存<br>
+ * 数据存放于{@link ConcurrentHashMap}中，读操作不加锁，访问记录写入分段环形缓冲区，写操作记录写入写缓冲队列，
+ * 由维护任务异步回放到淘汰策略上。<br>
+ * 淘汰策略分为窗口区（LRU，约占容量1%）和主区（分段LRU，其中保护区占80%，试用区占20%），
+ * 新对象先进入窗口区，被挤出窗口区后与试用区最久未访问的对象比较由{@link FrequencySketch}估算的访问频率，频率高者留下。<br>
+ * 这种准入策略使得偶发的扫描式访问无法冲掉热点数据，命中率高于普通LRU。
+ *
+ * <p>注意：由于淘汰是异步完成的，缓存大小可能短暂超过容量。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author potatoxf
+ */
+public class TinyLFUCache<K, V> extends AbstractCache<K, V> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 窗口区占总容量的比例
+     */
+    private static final double WINDOW_PERCENT = 0.01d;
+    /**
+     * 保护区占主区容量的比例
+     */
+    private static final double PROTECTED_PERCENT = 0.80d;
+    /**
+     * 缓存大小超出容量达到此值时，写线程同步执行维护，避免无限增长
+     */
+    private static final int WRITE_BACK_PRESSURE = 1024;
+
+    private static final int IDLE = 0;
+    private static final int REQUIRED = 1;
+    private static final int PROCESSING_TO_IDLE = 2;
+    private static final int PROCESSING_TO_REQUIRED = 3;
+
+    /**
+     * 执行异步维护任务的线程池，反序列化后为{@link ForkJoinPool#commonPool()}
+     */
+    private transient Executor executor;
+    /**
+     * 访问记录缓冲区
+     */
+    private transient StripedRingBuffer<Node<K, V>> readBuffer = new StripedRingBuffer<>();
+    /**
+     * 写记录缓冲区
+     */
+    private transient ConcurrentLinkedQueue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    /**
+     * 淘汰策略锁，只有维护任务持有
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    /**
+     * 维护任务状态，不序列化，避免序列化时维护任务正在执行导致反序列化后不再维护
+     */
+    private transient AtomicInteger drainStatus = new AtomicInteger(IDLE);
+    /**
+     * 访问频率估算
+     */
+    private transient FrequencySketch sketch;
+
+    private transient AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private transient AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private transient AccessOrderDeque<K, V> protect = new AccessOrderDeque<>();
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private transient long windowSize;
+    private transient long probationSize;
+    private transient long protectedSize;
+
+    /**
+     * 构造<br>
+     * 默认无超时
+     *
+     * @param capacity 容量
+     */
+    public TinyLFUCache(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * 构造
+     *
+     * @param capacity 容量
+     * @param timeout  默认超时时间，单位：毫秒
+     */
+    public TinyLFUCache(int capacity, long timeout) {
+        this(capacity, timeout, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 构造
+     *
+     * @param capacity 容量，{@code 0}表示无大小限制
+     * @param timeout  默认超时时间，单位：毫秒
+     * @param executor 执行异步维护任务的线程池
+     */
+    public TinyLFUCache(int capacity, long timeout, Executor executor) {
+        this.capacity = capacity;
+        this.timeout = timeout;
+        this.executor = executor;
+        this.cacheMap = new ConcurrentHashMap<>();
+        this.sketch = new FrequencySketch(capacity);
+        this.windowMaximum = Math.max(1, (long) (capacity * WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((capacity - windowMaximum) * PROTECTED_PERCENT);
+    }
+
+    // ---------------------------------------------------------------- put
+
+    @Override
+    public void put(K key, V object, long timeout) {
+        if (timeout != 0) {
+            existCustomTimeout = true;
+        }
+        final Node<K, V> node = new Node<>(key, object, timeout);
+        final CacheObj<K, V> prior = cacheMap.put(MutableObject.of(key), node);
+        if (null != prior) {
+            retire((Node<K, V>) prior);
+        }
+        indexExpire(node);
+        afterWrite(() -> onAdd(node));
+    }
+
+    // ---------------------------------------------------------------- get
+
+    @Override
+    public V get(K key, boolean isUpdateLastAccess) {
+        final long start = beginGet();
+        try {
+            final CacheObj<K, V> co = getWithoutLock(key);
+            // 未命中
+            if (null == co) {
+                missCount.increment();
+                return null;
+            } else if (false == co.isExpired()) {
+                hitCount.increment();
+                afterRead((Node<K, V>) co);
+                return co.get(isUpdateLastAccess);
+            }
+
+            // 过期，既不算命中也不算非命中
+            remove(key, co, true);
+            return null;
+        } finally {
+            endGet(start);
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        final CacheObj<K, V> co = getWithoutLock(key);
+        if (co == null) {
+            return false;
+        }
+        if (false == co.isExpired()) {
+            return true;
+        }
+        remove(key, co, true);
+        return false;
+    }
+
+    @Override
+    public Iterator<CacheObj<K, V>> cacheObjIterator() {
+        return new CacheObjIterator<>(cacheObjIter());
+    }
+
+    // ---------------------------------------------------------------- remove
+
+    @Override
+    public void remove(K key) {
+        final CacheObj<K, V> co = cacheMap.remove(MutableObject.of(key));
+        if (null != co) {
+            retire((Node<K, V>) co);
+            onRemove(co.key, co.obj, RemovalCause.EXPLICIT);
+        }
+    }
+
+    @Override
+    public void clear() {
+        evictionLock.lock();
+        try {
+            drainBuffers();
+            for (Map.Entry<?, CacheObj<K, V>> entry : cacheMap.entrySet()) {
+                final Node<K, V> node = (Node<K, V>) entry.getValue();
+                if (cacheMap.remove(entry.getKey(), node)) {
+                    node.retired = true;
+                    unlink(node);
+                    unindexExpire(node);
+                }
+            }
+            sketch.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- prune
+
+    @Override
+    public final int prune() {
+        final long start = System.nanoTime();
+        evictionLock.lock();
+        try {
+            return pruneCache();
+        } finally {
+            evictionLock.unlock();
+            recordPrune(start);
+        }
+    }
+
+    /**
+     * 回放缓冲区，清理过期对象，再按照W-TinyLFU策略淘汰超出容量的对象
+     *
+     * @return 清理数
+     */
+    @Override
+    protected int pruneCache() {
+        drainBuffers();
+        int count = 0;
+        if (isPruneExpiredActive()) {
+            final Iterator<CacheObj<K, V>> values = cacheObjIter();
+            while (values.hasNext()) {
+                final Node<K, V> node = (Node<K, V>) values.next();
+                if (node.isExpired() && evict(node, RemovalCause.EXPIRED)) {
+                    count++;
+                }
+            }
+        }
+        return count + evictEntries();
+    }
+
+    @Override
+    protected void expire(CacheObj<K, V> co) {
+        if (getWithoutLock(co.key) != co) {
+            return;
+        }
+        if (co.isExpired()) {
+            remove(co.key, co, false);
+        } else {
+            indexExpire(co);
+        }
+    }
+
+    // ---------------------------------------------------------------- buffer
+
+    /**
+     * 记录访问，访问缓冲区满时调度异步维护，不阻塞读线程
+     *
+     * @param node 被访问的节点
+     */
+    private void afterRead(Node<K, V> node) {
+        final int result = readBuffer.offer(node);
+        if (result == StripedRingBuffer.FULL || drainStatus.get() == REQUIRED) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 记录写操作并调度维护
+     *
+     * @param task 在淘汰策略上回放的写操作
+     */
+    private void afterWrite(Runnable task) {
+        writeBuffer.offer(task);
+        if (capacity > 0 && cacheMap.size() - capacity > WRITE_BACK_PRESSURE) {
+            // 维护跟不上写入速度，写线程同步执行
+            performCleanUp();
+            return;
+        }
+        for (; ; ) {
+            final int status = drainStatus.get();
+            if (status == IDLE) {
+                drainStatus.compareAndSet(IDLE, REQUIRED);
+                scheduleDrain();
+                return;
+            } else if (status == REQUIRED) {
+                scheduleDrain();
+                return;
+            } else if (status == PROCESSING_TO_IDLE) {
+                if (drainStatus.compareAndSet(PROCESSING_TO_IDLE, PROCESSING_TO_REQUIRED)) {
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 将维护任务提交到线程池，已有维护任务在执行时直接返回
+     */
+    private void scheduleDrain() {
+        if (drainStatus.get() >= PROCESSING_TO_IDLE || false == evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (drainStatus.get() >= PROCESSING_TO_IDLE) {
+                return;
+            }
+            drainStatus.set(PROCESSING_TO_IDLE);
+            executor.execute(this::performCleanUp);
+        } catch (Throwable e) {
+            // 线程池拒绝执行，由当前线程完成维护
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 加锁执行维护
+     */
+    private void performCleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+        if (drainStatus.get() == REQUIRED) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 回放缓冲区并淘汰超出容量的对象，调用时需持有{@link #evictionLock}
+     */
+    private void maintenance() {
+        drainStatus.set(PROCESSING_TO_IDLE);
+        try {
+            drainBuffers();
+            evictEntries();
+        } finally {
+            if (false == drainStatus.compareAndSet(PROCESSING_TO_IDLE, IDLE)) {
+                drainStatus.set(REQUIRED);
+            }
+        }
+    }
+
+    private void drainBuffers() {
+        readBuffer.drainTo(this::onAccess);
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+    }
+
+    // ---------------------------------------------------------------- policy
+
+    /**
+     * 新对象进入窗口区
+     *
+     * @param node 节点
+     */
+    private void onAdd(Node<K, V> node) {
+        if (node.retired) {
+            return;
+        }
+        sketch.increment(node.key);
+        node.queueType = Node.WINDOW;
+        window.addLast(node);
+        windowSize++;
+    }
+
+    /**
+     * 对象被访问，窗口区和保护区移到队尾，试用区晋升到保护区
+     *
+     * @param node 节点
+     */
+    private void onAccess(Node<K, V> node) {
+        if (node.retired || node.queueType == Node.NONE) {
+            return;
+        }
+        sketch.increment(node.key);
+        if (node.queueType == Node.WINDOW) {
+            window.moveToBack(node);
+        } else if (node.queueType == Node.PROBATION) {
+            probation.unlink(node);
+            probationSize--;
+            node.queueType = Node.PROTECTED;
+            protect.addLast(node);
+            protectedSize++;
+            // 保护区溢出的对象降级到试用区
+            while (protectedSize > protectedMaximum) {
+                final Node<K, V> demoted = protect.pollFirst();
+                protectedSize--;
+                demoted.queueType = Node.PROBATION;
+                probation.addLast(demoted);
+                probationSize++;
+            }
+        } else {
+            protect.moveToBack(node);
+        }
+    }
+
+    /**
+     * 淘汰超出容量的对象
+     *
+     * @return 淘汰数
+     */
+    private int evictEntries() {
+        if (capacity <= 0) {
+            return 0;
+        }
+        int count = 0;
+        // 窗口区溢出的对象作为候选者，与试用区的牺牲者比较频率
+        while (windowSize > windowMaximum) {
+            final Node<K, V> candidate = window.pollFirst();
+            windowSize--;
+            candidate.queueType = Node.NONE;
+            if (policySize() + 1 > capacity) {
+                Node<K, V> victim = probation.peekFirst();
+                if (null == victim) {
+                    victim = protect.peekFirst();
+                }
+                if (null != victim && false == admit(candidate.key, victim.key)) {
+                    if (evict(candidate, RemovalCause.SIZE)) {
+                        count++;
+                    }
+                    continue;
+                }
+                if (null != victim && evict(victim, RemovalCause.SIZE)) {
+                    count++;
+                }
+            }
+            candidate.queueType = Node.PROBATION;
+            probation.addLast(candidate);
+            probationSize++;
+        }
+        while (policySize() > capacity) {
+            Node<K, V> victim = probation.peekFirst();
+            if (null == victim) {
+                victim = protect.peekFirst();
+            }
+            if (null == victim) {
+                victim = window.peekFirst();
+            }
+            if (null == victim) {
+                break;
+            }
+            if (evict(victim, RemovalCause.SIZE)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 候选者频率高于牺牲者时准入，频率较高时随机准入少量候选者，防止哈希碰撞攻击
+     *
+     * @param candidateKey 候选者键
+     * @param victimKey    牺牲者键
+     * @return 是否准入候选者
+     */
+    private boolean admit(K candidateKey, K victimKey) {
+        final int victimFreq = sketch.frequency(victimKey);
+        final int candidateFreq = sketch.frequency(candidateKey);
+        if (candidateFreq > victimFreq) {
+            return true;
+        } else if (candidateFreq <= 5) {
+            return false;
+        }
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    /**
+     * 从淘汰策略和缓存中移除节点
+     *
+     * @param node  节点
+     * @param cause 移除原因
+     * @return 是否由本次操作从缓存中移除
+     */
+    private boolean evict(Node<K, V> node, RemovalCause cause) {
+        unlink(node);
+        node.retired = true;
+        unindexExpire(node);
+        if (cacheMap.remove(MutableObject.of(node.key), node)) {
+            onRemove(node.key, node.obj, cause);
+            return true;
+        }
+        return false;
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queueType) {
+            case Node.WINDOW -> {
+                window.unlink(node);
+                windowSize--;
+            }
+            case Node.PROBATION -> {
+                probation.unlink(node);
+                probationSize--;
+            }
+            case Node.PROTECTED -> {
+                protect.unlink(node);
+                protectedSize--;
+            }
+            default -> {
+            }
+        }
+        node.queueType = Node.NONE;
+    }
+
+    private long policySize() {
+        return windowSize + probationSize + protectedSize;
+    }
+
+    /**
+     * 节点已从缓存中移除，标记后由维护任务从淘汰策略中移除
+     *
+     * @param node 节点
+     */
+    private void retire(Node<K, V> node) {
+        node.retired = true;
+        unindexExpire(node);
+        afterWrite(() -> unlink(node));
+    }
+
+    /**
+     * 条件移除，仅当键仍映射到指定对象时移除
+     *
+     * @param key           键
+     * @param co            缓存对象
+     * @param withMissCount 是否计数丢失数
+     */
+    private void remove(K key, CacheObj<K, V> co, boolean withMissCount) {
+        if (cacheMap.remove(MutableObject.of(key), co)) {
+            if (withMissCount) {
+                missCount.increment();
+            }
+            retire((Node<K, V>) co);
+            onRemove(co.key, co.obj, RemovalCause.EXPIRED);
+        }
+    }
+
+    // region 序列化与反序列化重写
+
+    /**
+     * 反序列化后重建缓冲区和淘汰策略，已有对象全部重新进入窗口区，访问频率从零开始统计
+     *
+     * @param in ObjectInputStream
+     * @throws IOException            IO异常
+     * @throws ClassNotFoundException 类未找到
+     */
+    @Serial
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        executor = ForkJoinPool.commonPool();
+        readBuffer = new StripedRingBuffer<>();
+        writeBuffer = new ConcurrentLinkedQueue<>();
+        drainStatus = new AtomicInteger(IDLE);
+        sketch = new FrequencySketch(capacity);
+        window = new AccessOrderDeque<>();
+        probation = new AccessOrderDeque<>();
+        protect = new AccessOrderDeque<>();
+        for (CacheObj<K, V> co : cacheMap.values()) {
+            final Node<K, V> node = (Node<K, V>) co;
+            node.retired = false;
+            node.queueType = Node.NONE;
+            onAdd(node);
+        }
+        evictEntries();
+    }
+    // endregion
+
+    /**
+     * 带有淘汰策略链表指针的缓存对象
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    private static final class Node<K, V> extends CacheObj<K, V> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        static final int NONE = 0;
+        static final int WINDOW = 1;
+        static final int PROBATION = 2;
+        static final int PROTECTED = 3;
+
+        /**
+         * 已从缓存中移除
+         */
+        volatile boolean retired;
+        /**
+         * 所在区域，只在维护任务中读写
+         */
+        int queueType;
+        transient Node<K, V> prev;
+        transient Node<K, V> next;
+
+        Node(K key, V obj, long ttl) {
+            super(key, obj, ttl);
+        }
+    }
+
+    /**
+     * 以访问顺序排列的侵入式双向链表，非线程安全
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    private static final class AccessOrderDeque<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        Node<K, V> pollFirst() {
+            final Node<K, V> node = first;
+            if (null != node) {
+                unlink(node);
+            }
+            return node;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (null == last) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                unlink(node);
+                addLast(node);
+            }
+        }
+
+        void unlink(Node<K, V> node) {
+            final Node<K, V> prev = node.prev;
+            final Node<K, V> next = node.next;
+            if (null == prev) {
+                first = next;
+            } else {
+                prev.next = next;
+            }
+            if (null == next) {
+                last = prev;
+            } else {
+                next.prev = prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package pxf.tl.cache.impl;
 
 import pxf.tl.api.Mutable;
 import pxf.tl.cache.CacheListener;
+import pxf.tl.cache.RemovalCause;
 import pxf.tl.collection.map.WeakConcurrentMap;
 
 import java.lang.ref.Reference;
@@ -28,20 +29,20 @@ public class WeakCache<K, V> extends TimedCache<K, V> {
      */
     public WeakCache(long timeout) {
         super(timeout, new WeakConcurrentMap<>());
-    }
-
-    @Override
-    public WeakCache<K, V> setListener(CacheListener<K, V> listener) {
-        super.setListener(listener);
-
         final WeakConcurrentMap<Mutable<K>, CacheObj<K, V>> map =
                 (WeakConcurrentMap<Mutable<K>, CacheObj<K, V>>) this.cacheMap;
-        // WeakKey回收之后，key对应的值已经是null了，因此此处的key也为null
+        // WeakKey回收之后，key对应的值已经是null了，因此此处的key也可能为null
         map.setPurgeListener(
                 (key, value) ->
-                        listener.onRemove(
-                                Optional.ofNullable(key).map(Reference::get).map(Mutable::get).get(), value.getValue()));
+                        onRemove(
+                                Optional.ofNullable(key).map(Reference::get).map(Mutable::get).orElse(null),
+                                value.getValue(),
+                                RemovalCause.COLLECTED));
+    }
 
+    @Override
+    public WeakCache<K, V> setListener(CacheListener<K, V> listener) {
+        super.setListener(listener);
         return this;
     }
 }
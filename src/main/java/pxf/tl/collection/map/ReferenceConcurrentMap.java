@@ -3,60 +3,146 @@ package pxf.tl.collection.map;
 
 import pxf.tl.api.ReferenceType;
 import pxf.tl.collection.ExtendConcurrentMap;
-import pxf.tl.util.ToolCollection;
-import pxf.tl.util.ToolObject;
 
 import javax.annotation.Nonnull;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * 线程安全的ReferenceMap实现<br>
- * 参考：jdk.management.resource.internal.WeakKeyConcurrentHashMap
+ * 参考：jdk.management.resource.internal.WeakKeyConcurrentHashMap、Guava的MapMaker
+ *
+ * <p>表分为多个段，每个段有自己的锁和{@link ReferenceQueue}，节点本身就是键的{@link Reference}。
+ * 读操作不加锁，直接用原始键比较节点中的键，不会创建任何对象；写操作只锁住键所在的段。
+ *
+ * <p>被回收的键在写操作时清理，读操作平均每64次、{@link #size()}每次尝试清理一次，
+ * 只在段锁空闲时进行，每次最多清理{@value #PURGE_MAX}个，不会阻塞读操作，不同段的清理可并发进行。
+ * 每个段维护自己的键值对计数，{@link #size()}只累加计数，不加锁。
+ *
+ * <p>{@code compute}、{@code computeIfAbsent}、{@code computeIfPresent}、{@code merge}和{@code replaceAll}
+ * 的函数在键所在段的锁内调用，函数执行期间同一段的写操作会被阻塞，函数应简短且不应修改本映射；
+ * 函数中修改了同一个键时，以函数的返回值为准。
  *
  * @param <K> 键类型
  * @param <V> 值类型
  * @author potatoxf
  */
 public class ReferenceConcurrentMap<K, V> implements ExtendConcurrentMap<K, V> {
+    /**
+     * 默认初始容量
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /**
+     * 默认并发级别，即段的个数
+     */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final int MAX_SEGMENTS = 1 << 16;
+    /**
+     * 读操作触发清理的掩码
+     */
+    private static final int PURGE_READ_MASK = 0x3F;
+    /**
+     * 每次最多清理的键数
+     */
+    private static final int PURGE_MAX = 16;
 
-    final ConcurrentMap<Reference<K>, V> raw;
-    private final ReferenceQueue<K> lastQueue;
     private final ReferenceType keyType;
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
     /**
      * 回收监听
      */
-    private BiConsumer<Reference<? extends K>, V> purgeListener;
+    private volatile BiConsumer<Reference<? extends K>, V> purgeListener;
 
     // region 构造
 
     /**
      * 构造
      *
-     * @param raw           {@link ConcurrentMap}实现
-     * @param referenceType Reference类型
+     * @param referenceType Reference类型，只支持{@link ReferenceType#WEAK}和{@link ReferenceType#SOFT}
      */
+    public ReferenceConcurrentMap(ReferenceType referenceType) {
+        this(referenceType, DEFAULT_INITIAL_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * 构造
+     *
+     * @param referenceType    Reference类型，只支持{@link ReferenceType#WEAK}和{@link ReferenceType#SOFT}
+     * @param initialCapacity  初始容量
+     * @param concurrencyLevel 并发级别，即段的个数，会调整为2的幂
+     */
+    @SuppressWarnings("unchecked")
     public ReferenceConcurrentMap(
-            ConcurrentMap<Reference<K>, V> raw, ReferenceType referenceType) {
-        this.raw = raw;
+            ReferenceType referenceType, int initialCapacity, int concurrencyLevel) {
+        if (referenceType != ReferenceType.WEAK && referenceType != ReferenceType.SOFT) {
+            throw new IllegalArgumentException("Unsupported key type: " + referenceType);
+        }
+        if (initialCapacity < 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException(
+                    "Illegal initial capacity or concurrency level: " + initialCapacity + ", " + concurrencyLevel);
+        }
         this.keyType = referenceType;
-        lastQueue = new ReferenceQueue<>();
+        int shift = 0;
+        int segmentCount = 1;
+        while (segmentCount < Math.min(concurrencyLevel, MAX_SEGMENTS)) {
+            segmentCount <<= 1;
+            shift++;
+        }
+        this.segmentShift = 32 - shift;
+        this.segmentMask = segmentCount - 1;
+        final int perSegment = (Math.min(initialCapacity, MAXIMUM_CAPACITY) + segmentCount - 1) / segmentCount;
+        int segmentCapacity = 2;
+        while (segmentCapacity < perSegment) {
+            segmentCapacity <<= 1;
+        }
+        this.segments = (Segment[]) Array.newInstance(Segment.class, segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * 构造，复制{@code raw}中键尚未被回收的映射，之后不再使用{@code raw}
+     *
+     * @param raw           原有的映射，键为{@link Reference}
+     * @param referenceType Reference类型，只支持{@link ReferenceType#WEAK}和{@link ReferenceType#SOFT}
+     * @deprecated 不再使用外部{@link ConcurrentMap}存储，使用{@link #ReferenceConcurrentMap(ReferenceType, int, int)}
+     */
+    @Deprecated
+    public ReferenceConcurrentMap(ConcurrentMap<Reference<K>, V> raw, ReferenceType referenceType) {
+        this(referenceType, Math.max(raw.size(), DEFAULT_INITIAL_CAPACITY), DEFAULT_CONCURRENCY_LEVEL);
+        raw.forEach((reference, value) -> {
+            final K key = reference.get();
+            if (null != key && null != value) {
+                put(key, value);
+            }
+        });
     }
     // endregion
 
     /**
-     * 设置对象回收清除监听
+     * 设置对象回收清除监听，监听在键所在段的锁内调用，不应执行耗时操作
      *
      * @param purgeListener 监听函数
      */
@@ -64,40 +150,67 @@ public class ReferenceConcurrentMap<K, V> implements ExtendConcurrentMap<K, V> {
         this.purgeListener = purgeListener;
     }
 
+    /**
+     * 键值对数量，累加各段的计数，不加锁<br>
+     * 段锁空闲时顺带清理，键已被回收但尚未清理的键值对可能被计入
+     *
+     * @return 键值对数量
+     */
     @Override
     public int size() {
-        this.purgeStaleKeys();
-        return this.raw.size();
+        long sum = 0;
+        for (Segment segment : segments) {
+            segment.tryPurge();
+            sum += segment.count;
+        }
+        return (int) Math.min(sum, Integer.MAX_VALUE);
     }
 
     @Override
     public V get(Object key) {
-        this.purgeStaleKeys();
-        return this.raw.get(ofKey(key, null));
+        final int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
     }
 
     @Override
     public boolean containsKey(Object key) {
-        this.purgeStaleKeys();
-        return this.raw.containsKey(ofKey(key, null));
+        final int hash = hash(key);
+        final Segment segment = segmentFor(hash);
+        final boolean contains = segment.getNode(key, hash) != null;
+        segment.postRead();
+        return contains;
     }
 
     @Override
     public boolean containsValue(Object value) {
-        this.purgeStaleKeys();
-        return this.raw.containsValue(value);
+        if (null == value) {
+            return false;
+        }
+        for (Segment segment : segments) {
+            final AtomicReferenceArray<Node<K, V>> table = segment.table;
+            for (int i = 0; i < table.length(); i++) {
+                for (Node<K, V> e = table.get(i); e != null; e = e.getNext()) {
+                    if (e.get() != null && value.equals(e.getValue())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
     }
 
     @Override
     public V put(K key, V value) {
-        this.purgeStaleKeys();
-        return this.raw.put(ofKey(key, this.lastQueue), value);
+        Objects.requireNonNull(value);
+        final int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, false);
     }
 
     @Override
     public V putIfAbsent(@Nonnull K key, V value) {
-        this.purgeStaleKeys();
-        return this.raw.putIfAbsent(ofKey(key, this.lastQueue), value);
+        Objects.requireNonNull(value);
+        final int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, true);
     }
 
     @Override
@@ -107,198 +220,699 @@ public class ReferenceConcurrentMap<K, V> implements ExtendConcurrentMap<K, V> {
 
     @Override
     public V replace(@Nonnull K key, @Nonnull V value) {
-        this.purgeStaleKeys();
-        return this.raw.replace(ofKey(key, this.lastQueue), value);
+        Objects.requireNonNull(value);
+        final int hash = hash(key);
+        return segmentFor(hash).replace(key, hash, null, value);
     }
 
     @Override
     public boolean replace(@Nonnull K key, @Nonnull V oldValue, @Nonnull V newValue) {
-        this.purgeStaleKeys();
-        return this.raw.replace(ofKey(key, this.lastQueue), oldValue, newValue);
+        Objects.requireNonNull(oldValue);
+        Objects.requireNonNull(newValue);
+        final int hash = hash(key);
+        return segmentFor(hash).replace(key, hash, oldValue, newValue) != null;
     }
 
     @Override
     public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
-        this.purgeStaleKeys();
-        this.raw.replaceAll((kWeakKey, value) -> function.apply(kWeakKey.get(), value));
+        for (Segment segment : segments) {
+            segment.replaceAll(function);
+        }
     }
 
     @Override
     public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
-        this.purgeStaleKeys();
-        return this.raw.computeIfAbsent(
-                ofKey(key, this.lastQueue), kWeakKey -> mappingFunction.apply(key));
+        final int hash = hash(key);
+        final Segment segment = segmentFor(hash);
+        final V value = segment.get(key, hash);
+        if (null != value) {
+            return value;
+        }
+        return segment.compute(key, hash, (k, oldValue) -> null == oldValue ? mappingFunction.apply(k) : oldValue);
     }
 
     @Override
     public V computeIfPresent(
             K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
-        this.purgeStaleKeys();
-        return this.raw.computeIfPresent(
-                ofKey(key, this.lastQueue), (kWeakKey, value) -> remappingFunction.apply(key, value));
+        final int hash = hash(key);
+        return segmentFor(hash).compute(key, hash,
+                (k, oldValue) -> null == oldValue ? null : remappingFunction.apply(k, oldValue));
     }
 
     @Override
     public V remove(Object key) {
-        this.purgeStaleKeys();
-        return this.raw.remove(ofKey(key, null));
+        final int hash = hash(key);
+        return segmentFor(hash).remove(key, hash, null);
     }
 
     @Override
     public boolean remove(@Nonnull Object key, Object value) {
-        this.purgeStaleKeys();
-        return this.raw.remove(ofKey(key, null), value);
+        if (null == value) {
+            return false;
+        }
+        final int hash = hash(key);
+        return segmentFor(hash).remove(key, hash, value) != null;
     }
 
     @Override
     public void clear() {
-        this.raw.clear();
-        //noinspection StatementWithEmptyBody
-        while (lastQueue.poll() != null)
-            ;
+        for (Segment segment : segments) {
+            segment.clear();
+        }
     }
 
     @Override
     public Set<K> keySet() {
-        // TODO 非高效方式的set转换，应该返回一个view
-        final Collection<K> trans =
-                ToolCollection.trans(
-                        this.raw.keySet(), (reference) -> null == reference ? null : reference.get());
-        return new HashSet<>(trans);
+        return new KeySet();
     }
 
     @Override
     public Collection<V> values() {
-        this.purgeStaleKeys();
-        return this.raw.values();
+        return new Values();
     }
 
     @Override
     public Set<Entry<K, V>> entrySet() {
-        this.purgeStaleKeys();
-        return this.raw.entrySet().stream()
-                .map(entry -> Map.entry(entry.getKey().get(), entry.getValue()))
-                .collect(Collectors.toSet());
+        return new EntrySet();
     }
 
     @Override
     public void forEach(BiConsumer<? super K, ? super V> action) {
-        this.purgeStaleKeys();
-        this.raw.forEach((key, value) -> action.accept(key.get(), value));
+        for (Segment segment : segments) {
+            final AtomicReferenceArray<Node<K, V>> table = segment.table;
+            for (int i = 0; i < table.length(); i++) {
+                for (Node<K, V> e = table.get(i); e != null; e = e.getNext()) {
+                    final K key = e.get();
+                    if (null != key) {
+                        action.accept(key, e.getValue());
+                    }
+                }
+            }
+        }
     }
 
     @Override
     public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
-        this.purgeStaleKeys();
-        return this.raw.compute(
-                ofKey(key, this.lastQueue), (kWeakKey, value) -> remappingFunction.apply(key, value));
+        final int hash = hash(key);
+        return segmentFor(hash).compute(key, hash, remappingFunction);
     }
 
     @Override
     public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
-        this.purgeStaleKeys();
-        return this.raw.merge(ofKey(key, this.lastQueue), value, remappingFunction);
+        Objects.requireNonNull(value);
+        final int hash = hash(key);
+        return segmentFor(hash).compute(key, hash,
+                (k, oldValue) -> null == oldValue ? value : remappingFunction.apply(oldValue, value));
+    }
+
+    /**
+     * 计算键的hash，高位用于选择段，低位用于选择桶
+     *
+     * @param key 键，不能为{@code null}
+     * @return hash
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    private Node<K, V> newNode(K key, int hash, V value, Node<K, V> next, ReferenceQueue<K> queue) {
+        return keyType == ReferenceType.WEAK
+                ? new WeakNode<>(key, hash, value, next, queue)
+                : new SoftNode<>(key, hash, value, next, queue);
     }
 
     /**
-     * 清除被回收的键
+     * 段，读操作不加锁，写操作持有段锁
      */
-    private void purgeStaleKeys() {
-        Reference<? extends K> reference;
-        V value;
-        while ((reference = this.lastQueue.poll()) != null) {
-            value = this.raw.remove(reference);
-            if (null != purgeListener) {
-                purgeListener.accept(reference, value);
+    private final class Segment extends ReentrantLock {
+        final ReferenceQueue<K> queue = new ReferenceQueue<>();
+        volatile AtomicReferenceArray<Node<K, V>> table;
+        /**
+         * 节点数，包括键已被回收但尚未清理的节点
+         */
+        volatile int count;
+        int threshold;
+
+        Segment(int capacity) {
+            this.table = new AtomicReferenceArray<>(capacity);
+            this.threshold = capacity * 3 / 4;
+        }
+
+        Node<K, V> getNode(Object key, int hash) {
+            if (count != 0) {
+                final AtomicReferenceArray<Node<K, V>> tab = table;
+                for (Node<K, V> e = tab.get(hash & (tab.length() - 1)); e != null; e = e.getNext()) {
+                    if (e.getHash() == hash) {
+                        final K k = e.get();
+                        if (k == key || (k != null && key.equals(k))) {
+                            return e;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        V get(Object key, int hash) {
+            final Node<K, V> e = getNode(key, hash);
+            final V value = null == e ? null : e.getValue();
+            postRead();
+            return value;
+        }
+
+        /**
+         * 读操作后按概率尝试清理
+         */
+        void postRead() {
+            if ((ThreadLocalRandom.current().nextInt() & PURGE_READ_MASK) == 0) {
+                tryPurge();
+            }
+        }
+
+        /**
+         * 尝试清理，段锁被占用时跳过
+         */
+        void tryPurge() {
+            if (tryLock()) {
+                try {
+                    purge(PURGE_MAX);
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        V put(K key, int hash, V value, boolean onlyIfAbsent) {
+            lock();
+            try {
+                purge(PURGE_MAX);
+                final Node<K, V> e = getNode(key, hash);
+                if (null != e) {
+                    final V oldValue = e.getValue();
+                    if (!onlyIfAbsent) {
+                        e.setValue(value);
+                    }
+                    return oldValue;
+                }
+                insert(key, hash, value);
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        V replace(K key, int hash, V expect, V value) {
+            lock();
+            try {
+                purge(PURGE_MAX);
+                final Node<K, V> e = getNode(key, hash);
+                if (null == e) {
+                    return null;
+                }
+                final V oldValue = e.getValue();
+                if (null != expect && !expect.equals(oldValue)) {
+                    return null;
+                }
+                e.setValue(value);
+                return oldValue;
+            } finally {
+                unlock();
+            }
+        }
+
+        V remove(Object key, int hash, Object expect) {
+            lock();
+            try {
+                purge(PURGE_MAX);
+                final AtomicReferenceArray<Node<K, V>> tab = table;
+                final int index = hash & (tab.length() - 1);
+                Node<K, V> pred = null;
+                for (Node<K, V> e = tab.get(index); e != null; pred = e, e = e.getNext()) {
+                    if (e.getHash() == hash) {
+                        final K k = e.get();
+                        if (k == key || (k != null && key.equals(k))) {
+                            final V oldValue = e.getValue();
+                            if (null != expect && !expect.equals(oldValue)) {
+                                return null;
+                            }
+                            unlink(tab, index, pred, e);
+                            return oldValue;
+                        }
+                    }
+                }
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        V compute(K key, int hash, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+            lock();
+            try {
+                purge(PURGE_MAX);
+                final Node<K, V> e = getNode(key, hash);
+                final V oldValue = null == e ? null : e.getValue();
+                final V newValue = remappingFunction.apply(key, oldValue);
+                // 段锁可重入，函数中对本段的写操作可能已修改或替换节点，重新查找
+                final Node<K, V> current = getNode(key, hash);
+                if (null == newValue) {
+                    if (null != current) {
+                        remove(key, hash, null);
+                    }
+                } else if (null != current) {
+                    current.setValue(newValue);
+                } else {
+                    insert(key, hash, newValue);
+                }
+                return newValue;
+            } finally {
+                unlock();
+            }
+        }
+
+        void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+            lock();
+            try {
+                purge(PURGE_MAX);
+                final AtomicReferenceArray<Node<K, V>> tab = table;
+                for (int i = 0; i < tab.length(); i++) {
+                    for (Node<K, V> e = tab.get(i); e != null; e = e.getNext()) {
+                        final K key = e.get();
+                        if (null != key) {
+                            final V newValue = Objects.requireNonNull(function.apply(key, e.getValue()));
+                            if (tab == table) {
+                                e.setValue(newValue);
+                            } else {
+                                // 函数中的写操作导致扩容，节点已复制到新表
+                                final Node<K, V> current = getNode(key, e.getHash());
+                                if (null != current) {
+                                    current.setValue(newValue);
+                                }
+                            }
+                        }
+                    }
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                table = new AtomicReferenceArray<>(table.length());
+                count = 0;
+                //noinspection StatementWithEmptyBody
+                while (queue.poll() != null)
+                    ;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 在桶头插入新节点，调用前须持有段锁且确认键不存在
+         */
+        void insert(K key, int hash, V value) {
+            if (count + 1 > threshold) {
+                expand();
+            }
+            final AtomicReferenceArray<Node<K, V>> tab = table;
+            final int index = hash & (tab.length() - 1);
+            tab.set(index, newNode(key, hash, value, tab.get(index), queue));
+            count = count + 1;
+        }
+
+        /**
+         * 从链表中移除节点，调用前须持有段锁<br>
+         * 被移除节点的后继保持不变，正在遍历该节点的读操作可以继续
+         */
+        void unlink(AtomicReferenceArray<Node<K, V>> tab, int index, Node<K, V> pred, Node<K, V> e) {
+            if (null == pred) {
+                tab.set(index, e.getNext());
+            } else {
+                pred.setNext(e.getNext());
+            }
+            count = count - 1;
+        }
+
+        /**
+         * 扩容，复制存活节点到新表，旧表保持不变供并发读取，调用前须持有段锁
+         */
+        void expand() {
+            final AtomicReferenceArray<Node<K, V>> oldTable = table;
+            final int oldCapacity = oldTable.length();
+            if (oldCapacity >= MAXIMUM_CAPACITY) {
+                return;
+            }
+            final AtomicReferenceArray<Node<K, V>> newTable = new AtomicReferenceArray<>(oldCapacity << 1);
+            final int mask = newTable.length() - 1;
+            int newCount = 0;
+            for (int i = 0; i < oldCapacity; i++) {
+                for (Node<K, V> e = oldTable.get(i); e != null; e = e.getNext()) {
+                    final K key = e.get();
+                    if (null == key) {
+                        // 旧节点不会被复制，之后从队列取出时找不到，在此通知
+                        notifyPurged(e);
+                        continue;
+                    }
+                    final int index = e.getHash() & mask;
+                    newTable.set(index, newNode(key, e.getHash(), e.getValue(), newTable.get(index), queue));
+                    newCount++;
+                }
+            }
+            table = newTable;
+            threshold = newTable.length() * 3 / 4;
+            count = newCount;
+        }
+
+        /**
+         * 清理键已被回收的节点，调用前须持有段锁
+         *
+         * @param max 最多清理的个数
+         */
+        @SuppressWarnings("unchecked")
+        void purge(int max) {
+            Reference<? extends K> reference;
+            for (int i = 0; i < max && (reference = queue.poll()) != null; i++) {
+                final Node<K, V> node = (Node<K, V>) reference;
+                final AtomicReferenceArray<Node<K, V>> tab = table;
+                final int index = node.getHash() & (tab.length() - 1);
+                Node<K, V> pred = null;
+                for (Node<K, V> e = tab.get(index); e != null; pred = e, e = e.getNext()) {
+                    if (e == node) {
+                        unlink(tab, index, pred, e);
+                        notifyPurged(e);
+                        break;
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void notifyPurged(Node<K, V> node) {
+            final BiConsumer<Reference<? extends K>, V> listener = purgeListener;
+            if (null != listener) {
+                listener.accept((Reference<? extends K>) node, node.getValue());
             }
         }
     }
 
     /**
-     * 根据Reference类型构建key对应的{@link Reference}
-     *
-     * @param key   键
-     * @param queue {@link ReferenceQueue}
-     * @return {@link Reference}
+     * 遍历所有段中键存活的节点，遍历期间的修改可能可见也可能不可见
      */
-    @SuppressWarnings("unchecked")
-    private Reference<K> ofKey(Object key, ReferenceQueue<? super K> queue) {
-        switch (keyType) {
-            case WEAK:
-                return new WeakKey<>((K) key, queue);
-            case SOFT:
-                return new SoftKey<>((K) key, queue);
+    private abstract class HashIterator<T> implements Iterator<T> {
+        private int segmentIndex;
+        private AtomicReferenceArray<Node<K, V>> table;
+        private int bucket;
+        private Node<K, V> nextNode;
+        /**
+         * 持有下一个键的强引用，避免在返回前被回收
+         */
+        private K nextKey;
+        private K lastKey;
+
+        HashIterator() {
+            advance();
+        }
+
+        private void advance() {
+            Node<K, V> e = null == nextNode ? null : nextNode.getNext();
+            for (; ; ) {
+                for (; e != null; e = e.getNext()) {
+                    final K key = e.get();
+                    if (null != key) {
+                        nextNode = e;
+                        nextKey = key;
+                        return;
+                    }
+                }
+                if (null != table && ++bucket < table.length()) {
+                    e = table.get(bucket);
+                } else if (segmentIndex < segments.length) {
+                    table = segments[segmentIndex++].table;
+                    bucket = -1;
+                } else {
+                    nextNode = null;
+                    nextKey = null;
+                    return;
+                }
+            }
+        }
+
+        abstract T next(K key, Node<K, V> node);
+
+        @Override
+        public boolean hasNext() {
+            return null != nextNode;
+        }
+
+        @Override
+        public T next() {
+            if (null == nextNode) {
+                throw new NoSuchElementException();
+            }
+            final Node<K, V> node = nextNode;
+            lastKey = nextKey;
+            advance();
+            return next(lastKey, node);
+        }
+
+        @Override
+        public void remove() {
+            if (null == lastKey) {
+                throw new IllegalStateException();
+            }
+            ReferenceConcurrentMap.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new HashIterator<>() {
+                @Override
+                K next(K key, Node<K, V> node) {
+                    return key;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ReferenceConcurrentMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return null != o && containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return null != o && ReferenceConcurrentMap.this.remove(o) != null;
+        }
+
+        @Override
+        public void clear() {
+            ReferenceConcurrentMap.this.clear();
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new HashIterator<>() {
+                @Override
+                V next(K key, Node<K, V> node) {
+                    return node.getValue();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ReferenceConcurrentMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        @Override
+        public void clear() {
+            ReferenceConcurrentMap.this.clear();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new HashIterator<>() {
+                @Override
+                Entry<K, V> next(K key, Node<K, V> node) {
+                    return new WriteThroughEntry(key, node.getValue());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ReferenceConcurrentMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Entry<?, ?> entry && null != entry.getKey()) {
+                final V value = get(entry.getKey());
+                return null != value && value.equals(entry.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof Entry<?, ?> entry
+                    && null != entry.getKey()
+                    && ReferenceConcurrentMap.this.remove(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void clear() {
+            ReferenceConcurrentMap.this.clear();
+        }
+    }
+
+    /**
+     * 修改值时同步写入Map的条目
+     */
+    private final class WriteThroughEntry extends java.util.AbstractMap.SimpleEntry<K, V> {
+        WriteThroughEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
         }
-        throw new IllegalArgumentException("Unsupported key type: " + keyType);
     }
 
     /**
-     * 弱键
+     * 节点，本身即为键的{@link Reference}
      *
      * @param <K> 键类型
+     * @param <V> 值类型
      */
-    private static class WeakKey<K> extends WeakReference<K> {
-        private final int hashCode;
+    private interface Node<K, V> {
+        K get();
 
-        /**
-         * 构造
-         *
-         * @param key   原始Key，不能为{@code null}
-         * @param queue {@link ReferenceQueue}
-         */
-        WeakKey(K key, ReferenceQueue<? super K> queue) {
+        int getHash();
+
+        Node<K, V> getNext();
+
+        void setNext(Node<K, V> next);
+
+        V getValue();
+
+        void setValue(V value);
+    }
+
+    /**
+     * 弱键节点
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    private static final class WeakNode<K, V> extends WeakReference<K> implements Node<K, V> {
+        private final int hash;
+        private volatile Node<K, V> next;
+        private volatile V value;
+
+        WeakNode(K key, int hash, V value, Node<K, V> next, ReferenceQueue<? super K> queue) {
             super(key, queue);
-            hashCode = key.hashCode();
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
         }
 
         @Override
-        public int hashCode() {
-            return hashCode;
+        public int getHash() {
+            return hash;
         }
 
         @Override
-        public boolean equals(Object other) {
-            if (other == this) {
-                return true;
-            } else if (other instanceof WeakKey) {
-                return ToolObject.equals(((WeakKey<?>) other).get(), get());
-            }
-            return false;
+        public Node<K, V> getNext() {
+            return next;
+        }
+
+        @Override
+        public void setNext(Node<K, V> next) {
+            this.next = next;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public void setValue(V value) {
+            this.value = value;
         }
     }
 
     /**
-     * 弱键
+     * 软键节点
      *
      * @param <K> 键类型
+     * @param <V> 值类型
      */
-    private static class SoftKey<K> extends SoftReference<K> {
-        private final int hashCode;
+    private static final class SoftNode<K, V> extends SoftReference<K> implements Node<K, V> {
+        private final int hash;
+        private volatile Node<K, V> next;
+        private volatile V value;
 
-        /**
-         * 构造
-         *
-         * @param key   原始Key，不能为{@code null}
-         * @param queue {@link ReferenceQueue}
-         */
-        SoftKey(K key, ReferenceQueue<? super K> queue) {
+        SoftNode(K key, int hash, V value, Node<K, V> next, ReferenceQueue<? super K> queue) {
             super(key, queue);
-            hashCode = key.hashCode();
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
         }
 
         @Override
-        public int hashCode() {
-            return hashCode;
+        public int getHash() {
+            return hash;
         }
 
         @Override
-        public boolean equals(Object other) {
-            if (other == this) {
-                return true;
-            } else if (other instanceof SoftKey) {
-                return ToolObject.equals(((SoftKey<?>) other).get(), get());
-            }
-            return false;
+        public Node<K, V> getNext() {
+            return next;
+        }
+
+        @Override
+        public void setNext(Node<K, V> next) {
+            this.next = next;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public void setValue(V value) {
+            this.value = value;
         }
     }
 }
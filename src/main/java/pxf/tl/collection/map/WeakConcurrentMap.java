@@ -4,7 +4,6 @@ package pxf.tl.collection.map;
 import pxf.tl.api.ReferenceType;
 
 import java.lang.ref.Reference;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -21,14 +20,35 @@ public class WeakConcurrentMap<K, V> extends ReferenceConcurrentMap<K, V> {
      * 构造
      */
     public WeakConcurrentMap() {
-        this(new ConcurrentHashMap<>());
+        this(DEFAULT_INITIAL_CAPACITY);
     }
 
     /**
      * 构造
      *
-     * @param raw {@link ConcurrentMap}实现
+     * @param initialCapacity 初始容量
      */
+    public WeakConcurrentMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * 构造
+     *
+     * @param initialCapacity  初始容量
+     * @param concurrencyLevel 并发级别，即段的个数
+     */
+    public WeakConcurrentMap(int initialCapacity, int concurrencyLevel) {
+        super(ReferenceType.WEAK, initialCapacity, concurrencyLevel);
+    }
+
+    /**
+     * 构造，复制{@code raw}中键尚未被回收的映射，之后不再使用{@code raw}
+     *
+     * @param raw 原有的映射，键为{@link Reference}
+     * @deprecated 不再使用外部{@link ConcurrentMap}存储，使用{@link #WeakConcurrentMap(int, int)}
+     */
+    @Deprecated
     public WeakConcurrentMap(ConcurrentMap<Reference<K>, V> raw) {
         super(raw, ReferenceType.WEAK);
     }
@@ -0,0 +1,226 @@
+package pxf.tl.concurrent;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 限制并发数的{@link ExecutorService}<br>
+ * 同时执行的任务数不超过给定值，获取信号量的时机有两种：
+ *
+ * <ul>
+ *   <li>任务中获取：任务在执行前获取信号量，执行后释放，其余任务在各自的线程中等待，只适用于虚拟线程，
+ *   用于避免大量虚拟线程同时访问数据库、远程服务等下游资源
+ *   <li>提交前获取：提交任务的线程先获取信号量，任务执行后释放，信号量不足时阻塞提交者，不会占用线程池的工作线程，适用于普通线程池
+ * </ul>
+ *
+ * @author potatoxf
+ */
+public class ConcurrencyLimitedExecutorService extends DelegatedExecutorService {
+    /**
+     * 信号量
+     */
+    private final Semaphore semaphore;
+    /**
+     * 是否在任务中获取信号量，否则在提交前获取
+     */
+    private final boolean acquireInTask;
+    /**
+     * 提交前获取信号量时，提交和批量执行都通过{@link #execute(Runnable)}完成
+     */
+    private final ExecutorService submitter = new AbstractExecutorService() {
+        @Override
+        public void execute(Runnable command) {
+            ConcurrencyLimitedExecutorService.this.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            ConcurrencyLimitedExecutorService.this.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return ConcurrencyLimitedExecutorService.this.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return ConcurrencyLimitedExecutorService.this.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return ConcurrencyLimitedExecutorService.this.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return ConcurrencyLimitedExecutorService.this.awaitTermination(timeout, unit);
+        }
+    };
+
+    /**
+     * 构造，提交前获取信号量
+     *
+     * @param executor       实际执行任务的{@link ExecutorService}
+     * @param maxConcurrency 最大并发数
+     */
+    public ConcurrencyLimitedExecutorService(ExecutorService executor, int maxConcurrency) {
+        this(executor, new Semaphore(maxConcurrency), false);
+    }
+
+    /**
+     * 构造，提交前获取信号量
+     *
+     * @param executor  实际执行任务的{@link ExecutorService}
+     * @param semaphore 信号量，多个{@link ExecutorService}可以共享同一信号量
+     */
+    public ConcurrencyLimitedExecutorService(ExecutorService executor, Semaphore semaphore) {
+        this(executor, semaphore, false);
+    }
+
+    /**
+     * 构造
+     *
+     * @param executor      实际执行任务的{@link ExecutorService}
+     * @param semaphore     信号量，多个{@link ExecutorService}可以共享同一信号量
+     * @param acquireInTask 是否在任务中获取信号量，只有每个任务一个虚拟线程的{@link ExecutorService}才应使用{@code true}
+     */
+    public ConcurrencyLimitedExecutorService(ExecutorService executor, Semaphore semaphore, boolean acquireInTask) {
+        super(executor);
+        this.semaphore = semaphore;
+        this.acquireInTask = acquireInTask;
+    }
+
+    /**
+     * 获得信号量
+     *
+     * @return {@link Semaphore}
+     */
+    public Semaphore getSemaphore() {
+        return semaphore;
+    }
+
+    /**
+     * 是否在任务中获取信号量
+     *
+     * @return {@code true}表示在任务中获取，{@code false}表示在提交前获取
+     */
+    public boolean isAcquireInTask() {
+        return acquireInTask;
+    }
+
+    /**
+     * 执行任务，提交前获取信号量时阻塞直到获得信号量，等待中被中断时抛出{@link RejectedExecutionException}
+     *
+     * @param command 任务
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (acquireInTask) {
+            super.execute(new SemaphoreRunnable(command, semaphore));
+            return;
+        }
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+        try {
+            super.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    semaphore.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        if (acquireInTask) {
+            return super.submit(new SemaphoreRunnable(task, semaphore));
+        }
+        return submitter.submit(task);
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        if (acquireInTask) {
+            return super.submit(new SemaphoreRunnable(task, semaphore), result);
+        }
+        return submitter.submit(task, result);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        if (acquireInTask) {
+            return super.submit(limit(task));
+        }
+        return submitter.submit(task);
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks)
+            throws InterruptedException {
+        if (acquireInTask) {
+            return super.invokeAll(limit(tasks));
+        }
+        return submitter.invokeAll(tasks);
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(
+            Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (acquireInTask) {
+            return super.invokeAll(limit(tasks), timeout, unit);
+        }
+        return submitter.invokeAll(tasks, timeout, unit);
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+            throws InterruptedException, ExecutionException {
+        if (acquireInTask) {
+            return super.invokeAny(limit(tasks));
+        }
+        return submitter.invokeAny(tasks);
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (acquireInTask) {
+            return super.invokeAny(limit(tasks), timeout, unit);
+        }
+        return submitter.invokeAny(tasks, timeout, unit);
+    }
+
+    private <T> Callable<T> limit(Callable<T> task) {
+        return () -> {
+            semaphore.acquire();
+            try {
+                return task.call();
+            } finally {
+                semaphore.release();
+            }
+        };
+    }
+
+    private <T> List<Callable<T>> limit(Collection<? extends Callable<T>> tasks) {
+        final List<Callable<T>> result = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            result.add(limit(task));
+        }
+        return result;
+    }
+}
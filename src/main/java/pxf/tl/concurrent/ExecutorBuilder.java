@@ -16,6 +16,10 @@ import java.util.concurrent.*;
  *     4. 执行中的线程 &gt; maxPoolSize        -》 触发handler（RejectedExecutionHandler）异常
  * </pre>
  *
+ * <p>通过{@link #setVirtualThreads(boolean)}开启虚拟线程模式后，{@link #buildExecutorService()}在支持虚拟线程的运行时
+ * 创建每个任务一个虚拟线程的{@link ExecutorService}，不支持时退回到{@link ThreadPoolExecutor}。
+ * 通过{@link #setMaxConcurrency(int)}可限制同时执行的任务数。
+ *
  * @author potatoxf
  */
 public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
@@ -53,6 +57,14 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
      * 线程执行超时后是否回收线程
      */
     private Boolean allowCoreThreadTimeOut;
+    /**
+     * 是否使用虚拟线程
+     */
+    private boolean virtualThreads;
+    /**
+     * 最大并发数，不大于0表示不限制
+     */
+    private int maxConcurrency;
 
     /**
      * 创建ExecutorBuilder，开始构建
@@ -236,6 +248,31 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
         return this;
     }
 
+    /**
+     * 设置是否使用虚拟线程，只对{@link #buildExecutorService()}和{@link #buildFinalizable()}有效<br>
+     * 虚拟线程模式下池大小、队列和拒绝策略无效，线程工厂未设置时使用{@link VirtualThreads#newThreadFactory(String)}
+     *
+     * @param virtualThreads 是否使用虚拟线程
+     * @return this
+     * @see VirtualThreads
+     */
+    public ExecutorBuilder setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * 设置最大并发数，通过信号量限制同时执行的任务数，只对{@link #buildExecutorService()}和{@link #buildFinalizable()}有效
+     *
+     * @param maxConcurrency 最大并发数，不大于0表示不限制
+     * @return this
+     * @see ConcurrencyLimitedExecutorService
+     */
+    public ExecutorBuilder setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
     /**
      * 构建ThreadPoolExecutor
      */
@@ -244,12 +281,35 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
         return build(this);
     }
 
+    /**
+     * 构建ExecutorService<br>
+     * 虚拟线程模式且运行时支持时创建每个任务一个虚拟线程的{@link ExecutorService}，否则创建{@link ThreadPoolExecutor}，
+     * 设置了最大并发数时使用{@link ConcurrencyLimitedExecutorService}包装，
+     * 虚拟线程在任务中等待信号量，普通线程池由提交者等待信号量，不占用工作线程
+     *
+     * @return {@link ExecutorService}
+     */
+    public ExecutorService buildExecutorService() {
+        final ExecutorService executor;
+        final boolean threadPerTask = virtualThreads && VirtualThreads.isSupported();
+        if (threadPerTask) {
+            executor = VirtualThreads.newThreadPerTaskExecutor(
+                    null != threadFactory ? threadFactory : VirtualThreads.newThreadFactory(null));
+        } else {
+            executor = build();
+        }
+        if (maxConcurrency > 0) {
+            return new ConcurrencyLimitedExecutorService(executor, new Semaphore(maxConcurrency), threadPerTask);
+        }
+        return executor;
+    }
+
     /**
      * 创建有回收关闭功能的ExecutorService
      *
      * @return 创建有回收关闭功能的ExecutorService
      */
     public ExecutorService buildFinalizable() {
-        return new FinalizableDelegatedExecutorService(build());
+        return new FinalizableDelegatedExecutorService(buildExecutorService());
     }
 }
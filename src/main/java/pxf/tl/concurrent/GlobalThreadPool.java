@@ -9,7 +9,8 @@ import java.util.concurrent.Future;
 
 /**
  * 全局公共线程池<br>
- * 此线程池是一个无限线程池，即加入的线程不等待任何线程，直接执行
+ * 此线程池是一个无限线程池，即加入的线程不等待任何线程，直接执行<br>
+ * 通过{@link #init(boolean, int)}可切换为虚拟线程，适合大量阻塞IO的任务
  *
  * @author potatoxf
  */
@@ -27,10 +28,24 @@ public class GlobalThreadPool {
      * 初始化全局线程池
      */
     public static synchronized void init() {
+        init(false, 0);
+    }
+
+    /**
+     * 初始化全局线程池
+     *
+     * @param virtualThreads 是否使用虚拟线程，运行时不支持虚拟线程时使用普通线程池
+     * @param maxConcurrency 最大并发数，不大于0表示不限制
+     */
+    public static synchronized void init(boolean virtualThreads, int maxConcurrency) {
         if (null != executor) {
             executor.shutdownNow();
         }
-        executor = ExecutorBuilder.create().useSynchronousQueue().build();
+        executor = ExecutorBuilder.create()
+                .useSynchronousQueue()
+                .setVirtualThreads(virtualThreads)
+                .setMaxConcurrency(maxConcurrency)
+                .buildExecutorService();
     }
 
     /**
@@ -0,0 +1,380 @@
+package pxf.tl.concurrent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按键串行的执行器<br>
+ * 相同键的任务严格按提交顺序依次执行，不同键的任务在线程池中并行执行。<br>
+ * 每个键拥有一个无锁邮箱，只有邮箱中有任务时才会被提交到线程池，没有任务时不占用任何线程，邮箱清空后自动移除。<br>
+ * 邮箱每次被调度最多连续执行{@link #getThroughput()}个任务，之后重新提交到线程池，避免繁忙的键长期占用线程。
+ *
+ * <p>通过{@link #executeCoalesced(Object, Runnable)}提交的任务会合并：同一个键已有尚未开始执行的合并任务时，新的提交被忽略。
+ *
+ * <p>线程池拒绝执行时，触发调度的提交抛出异常，同一个键已入队的其他任务不会再执行，
+ * 以{@link RejectedExecutionException}交给{@link #onException(Object, Throwable)}处理。
+ *
+ * <pre>
+ * KeyedSerialExecutor&lt;String&gt; executor = new KeyedSerialExecutor&lt;&gt;(executorService);
+ * executor.execute("order-1", () -&gt; ...);
+ * executor.execute("order-1", () -&gt; ...); // 在上一个任务完成后执行
+ * executor.execute("order-2", () -&gt; ...); // 与order-1的任务并行执行
+ * </pre>
+ *
+ * @param <K> 键类型
+ * @author potatoxf
+ */
+public class KeyedSerialExecutor<K> {
+    /**
+     * 默认每次调度最多连续执行的任务数
+     */
+    public static final int DEFAULT_THROUGHPUT = 64;
+
+    /**
+     * 实际执行任务的线程池
+     */
+    private final Executor executor;
+    /**
+     * 每次调度最多连续执行的任务数
+     */
+    private final int throughput;
+    /**
+     * 键到邮箱
+     */
+    private final Map<K, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    /**
+     * 构造
+     *
+     * @param executor 实际执行任务的线程池
+     */
+    public KeyedSerialExecutor(Executor executor) {
+        this(executor, DEFAULT_THROUGHPUT);
+    }
+
+    /**
+     * 构造
+     *
+     * @param executor   实际执行任务的线程池
+     * @param throughput 每次调度最多连续执行的任务数
+     */
+    public KeyedSerialExecutor(Executor executor, int throughput) {
+        if (throughput <= 0) {
+            throw new IllegalArgumentException("The throughput must be greater than 0");
+        }
+        this.executor = executor;
+        this.throughput = throughput;
+    }
+
+    /**
+     * 提交任务，相同键的任务按提交顺序依次执行
+     *
+     * @param key  键
+     * @param task 任务
+     */
+    public void execute(K key, Runnable task) {
+        submit(key, task, false);
+    }
+
+    /**
+     * 提交可合并的任务，同一个键已有尚未开始执行的合并任务时忽略本次提交
+     *
+     * @param key  键
+     * @param task 任务
+     * @return 是否加入队列，{@code false}表示被合并
+     */
+    public boolean executeCoalesced(K key, Runnable task) {
+        return submit(key, task, true);
+    }
+
+    /**
+     * 获取键的队列深度，包括正在等待执行的任务
+     *
+     * @param key 键
+     * @return 队列深度
+     */
+    public int getQueueDepth(K key) {
+        final Mailbox mailbox = mailboxes.get(key);
+        return mailbox == null ? 0 : Math.max(0, mailbox.size.get());
+    }
+
+    /**
+     * 获取所有有任务的键的队列深度快照
+     *
+     * @return 键到队列深度
+     */
+    public Map<K, Integer> getQueueDepths() {
+        final Map<K, Integer> result = new HashMap<>(mailboxes.size() * 2);
+        for (Map.Entry<K, Mailbox> entry : mailboxes.entrySet()) {
+            final int depth = entry.getValue().size.get();
+            if (depth > 0) {
+                result.put(entry.getKey(), depth);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取有任务的键的数量
+     *
+     * @return 键的数量
+     */
+    public int getActiveKeyCount() {
+        return mailboxes.size();
+    }
+
+    /**
+     * @return 提交的任务数，不包括被合并的任务
+     */
+    public long getSubmittedCount() {
+        return submittedCount.sum();
+    }
+
+    /**
+     * @return 执行完成的任务数，包括执行失败的任务
+     */
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    /**
+     * @return 被合并而忽略的任务数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * @return 执行失败的任务数
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * @return 每次调度最多连续执行的任务数
+     */
+    public int getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * 是否没有等待或正在执行的任务
+     *
+     * @return 是否空闲
+     */
+    public boolean isIdle() {
+        return mailboxes.isEmpty();
+    }
+
+    /**
+     * 任务执行失败时调用，默认交给当前线程的{@link Thread.UncaughtExceptionHandler}处理，不影响同一个键的后续任务
+     *
+     * @param key 键
+     * @param e   异常
+     */
+    protected void onException(K key, Throwable e) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    /**
+     * 任务执行完成后调用，无论成功与否
+     *
+     * @param key 键
+     */
+    protected void afterExecute(K key) {
+    }
+
+    private boolean submit(K key, Runnable task, boolean coalesce) {
+        for (; ; ) {
+            Mailbox mailbox = mailboxes.get(key);
+            if (mailbox == null) {
+                final Mailbox created = new Mailbox(key);
+                mailbox = mailboxes.putIfAbsent(key, created);
+                if (mailbox == null) {
+                    mailbox = created;
+                }
+            }
+            if (!mailbox.reserve()) {
+                // 邮箱已退役，移除后重试
+                mailboxes.remove(key, mailbox);
+                continue;
+            }
+            final Runnable queued;
+            if (coalesce) {
+                if (!mailbox.coalescePending.compareAndSet(false, true)) {
+                    mailbox.size.decrementAndGet();
+                    coalescedCount.increment();
+                    return false;
+                }
+                queued = new CoalescedTask(mailbox, task);
+            } else {
+                queued = task;
+            }
+            mailbox.queue.add(queued);
+            try {
+                mailbox.schedule();
+            } catch (RuntimeException e) {
+                // 线程池拒绝执行，撤销本次提交，同一个邮箱中其他提交者的任务也不会再被调度，按执行失败处理
+                mailbox.reject(queued, e);
+                throw e;
+            }
+            submittedCount.increment();
+            return true;
+        }
+    }
+
+    /**
+     * 键的邮箱
+     */
+    private final class Mailbox implements Runnable {
+        final K key;
+        final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        /**
+         * 已预留的任务数，-1表示邮箱已退役
+         */
+        final AtomicInteger size = new AtomicInteger();
+        /**
+         * 是否已提交到线程池，一旦提交直到邮箱退役都由同一个调度持有
+         */
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * 是否有尚未开始执行的合并任务
+         */
+        final AtomicBoolean coalescePending = new AtomicBoolean();
+
+        Mailbox(K key) {
+            this.key = key;
+        }
+
+        /**
+         * 预留一个任务位置
+         *
+         * @return 邮箱已退役时返回{@code false}
+         */
+        boolean reserve() {
+            int current;
+            do {
+                current = size.get();
+                if (current < 0) {
+                    return false;
+                }
+            } while (!size.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        /**
+         * 提交到线程池，只有第一次调用会提交，线程池拒绝时由调用方执行{@link #reject(Runnable, RuntimeException)}
+         */
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * 线程池拒绝执行时退役邮箱，取出所有已入队的任务，直到没有提交者持有预留位置<br>
+         * 调用方的任务不计入统计，其他任务以{@link RejectedExecutionException}按执行失败处理。
+         * 调度标记保持不变，退役前仍然入队的提交者不会再次提交邮箱，退役后的提交会创建新的邮箱重新调度。
+         *
+         * @param own   调用方的任务
+         * @param cause 线程池拒绝执行的异常
+         */
+        void reject(Runnable own, RuntimeException cause) {
+            boolean ownRemoved = false;
+            for (; ; ) {
+                Runnable task;
+                while ((task = queue.poll()) != null) {
+                    size.decrementAndGet();
+                    if (false == ownRemoved && task == own) {
+                        ownRemoved = true;
+                        continue;
+                    }
+                    failedCount.increment();
+                    try {
+                        onException(key, new RejectedExecutionException("The mailbox of key [" + key + "] was rejected", cause));
+                    } finally {
+                        completedCount.increment();
+                        afterExecute(key);
+                    }
+                }
+                if (size.compareAndSet(0, -1)) {
+                    mailboxes.remove(key, this);
+                    return;
+                }
+                // 提交者已预留位置但任务尚未入队
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public void run() {
+            for (; ; ) {
+                int count = 0;
+                Runnable task;
+                while (count < throughput && (task = queue.poll()) != null) {
+                    size.decrementAndGet();
+                    count++;
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        failedCount.increment();
+                        onException(key, e);
+                    } finally {
+                        completedCount.increment();
+                        afterExecute(key);
+                    }
+                }
+                if (count == throughput && !queue.isEmpty()) {
+                    // 让出线程，重新排队，线程池拒绝时继续在当前线程执行
+                    try {
+                        executor.execute(this);
+                        return;
+                    } catch (RejectedExecutionException e) {
+                        continue;
+                    }
+                }
+                // 没有预留的任务时退役，之后的提交会创建新的邮箱
+                if (size.compareAndSet(0, -1)) {
+                    mailboxes.remove(key, this);
+                    return;
+                }
+                if (count == 0) {
+                    // 提交者已预留位置但任务尚未入队
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    /**
+     * 合并任务，开始执行时清除合并标记，之后的提交会重新入队
+     */
+    private final class CoalescedTask implements Runnable {
+        private final Mailbox mailbox;
+        private final Runnable task;
+
+        CoalescedTask(Mailbox mailbox, Runnable task) {
+            this.mailbox = mailbox;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            mailbox.coalescePending.set(false);
+            task.run();
+        }
+    }
+}
@@ -1,19 +1,30 @@
 package pxf.tl.concurrent;
 
-import java.util.*;
+import java.util.Collection;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * 按键执行任务的多线程执行器，通过{@link #createTask(Object)}为键创建任务<br>
+ * 相同键的任务依次执行，不同键的任务并行执行；键的任务正在执行时重复添加的键会合并为一次后续执行。
+ *
+ * <p>基于{@link KeyedSerialExecutor}实现，只有有任务的键才会被调度，没有常驻的分发线程。
+ *
  * @author potatoxf
  */
 public abstract class MultiThreadExecutor<Key> {
 
-    private final AtomicBoolean isActive = new AtomicBoolean(false);
     private final ExecutorService executorService;
+    private final KeyedSerialExecutor<Key> keyedExecutor;
+    /**
+     * 已添加但尚未调用{@link #execute()}的键
+     */
     private final ConcurrentLinkedQueue<Key> executeList;
-    private final Map<Key, TaskInfo> tasks;
+    /**
+     * 已提交但尚未执行完成的任务数
+     */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Object monitor = new Object();
 
     public MultiThreadExecutor() {
         this(5, 10);
@@ -30,17 +41,12 @@ public abstract class MultiThreadExecutor<Key> {
         this.executorService = new ThreadPoolExecutor(corePoolSize, maximumPoolSize,
                 0L, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<Runnable>(), threadFactory);
+        this.keyedExecutor = new KeyedSerialExecutor<>(executorService);
         this.executeList = new ConcurrentLinkedQueue<Key>();
-        this.tasks = Collections.synchronizedMap(new LinkedHashMap<Key, TaskInfo>());
     }
 
     public final void addTask(Key key) {
-        if (tasks.containsKey(key)) {
-            tasks.get(key).increment();
-        } else {
-            tasks.put(key, new TaskInfo());
-            executeList.add(key);
-        }
+        executeList.add(key);
     }
 
     public final void addTask(Key[] keys) {
@@ -59,8 +65,28 @@ public abstract class MultiThreadExecutor<Key> {
         }
     }
 
+    /**
+     * 提交已添加的键，线程池拒绝执行时抛出{@link RejectedExecutionException}，被拒绝的键不计入等待的任务，
+     * 尚未提交的键保留到下次调用
+     */
     public final void execute() {
-        tryExecute();
+        Key key;
+        while ((key = executeList.poll()) != null) {
+            final Key taskKey = key;
+            pendingCount.incrementAndGet();
+            final boolean queued;
+            try {
+                queued = keyedExecutor.executeCoalesced(taskKey, () -> runTask(taskKey));
+            } catch (RuntimeException e) {
+                // 线程池已关闭或饱和，任务未提交
+                finishTask();
+                throw e;
+            }
+            if (!queued) {
+                // 已有等待执行的任务，合并
+                finishTask();
+            }
+        }
     }
 
     public final void shutdown() {
@@ -68,140 +94,51 @@ public abstract class MultiThreadExecutor<Key> {
     }
 
     public final void shutdownNow() {
-        executorService.shutdown();
+        executorService.shutdownNow();
     }
 
     public final boolean isEmpty() {
-        return tasks.isEmpty();
+        return executeList.isEmpty() && pendingCount.get() == 0;
     }
 
     public final void tryAwait() throws InterruptedException {
         if (!isEmpty()) {
-            synchronized (isActive) {
+            synchronized (monitor) {
                 while (!isEmpty()) {
-                    isActive.wait();
+                    monitor.wait();
                 }
             }
         }
     }
 
-    protected abstract Runnable createTask(Key key);
-
-    private void tryExecute() {
-        if (!isActive.get()) {
-            executorService.execute(new TaskDispatcher());
-        }
-    }
-
-    private void tryNotifyAll() {
-        if (isEmpty()) {
-            synchronized (isActive) {
-                isActive.notifyAll();
-            }
-        }
-    }
-
-    private boolean isRunningTask(Key key) {
-        return tasks.get(key).running.get();
-    }
-
-    private class TaskDispatcher implements Runnable {
-
-        @Override
-        public void run() {
-            synchronized (isActive) {
-                isActive.set(true);
-                while (!executeList.isEmpty()) {
-                    executeTask();
-                    executeRestTask();
-                }
-                isActive.set(false);
-                tryNotifyAll();
-            }
-        }
-
-        private void executeTask() {
-            Key key;
-            while ((key = executeList.poll()) != null) {
-                TaskInfo taskInfo = tasks.get(key);
-                if (isRunningTask(key)) {
-                    taskInfo.increment();
-                } else {
-                    Runnable task = createTask(key);
-                    if (task != null) {
-                        taskInfo.start();
-                        executorService.execute(new WrapperRunnable(key, task));
-                    } else {
-                        tasks.remove(key);
-                    }
-                }
-            }
-        }
-
-        private void executeRestTask() {
-            Set<Key> keys = tasks.keySet();
-            for (Key key : keys) {
-                if (!isRunningTask(key)) {
-                    executeList.add(key);
-                }
-            }
-            executeTask();
-        }
+    /**
+     * 获取键等待执行的任务数
+     *
+     * @param key 键
+     * @return 任务数
+     */
+    public final int getQueueDepth(Key key) {
+        return keyedExecutor.getQueueDepth(key);
     }
 
-    private class WrapperRunnable implements Runnable {
-        private final Key key;
-        private final Runnable runnable;
-
-        private WrapperRunnable(Key key, Runnable runnable) {
-            this.key = key;
-            this.runnable = runnable;
-        }
+    protected abstract Runnable createTask(Key key);
 
-        @Override
-        public void run() {
-            runnable.run();
-            TaskInfo taskInfo = tasks.get(key);
-            if (!taskInfo.hasCount()) {
-                tasks.remove(key);
-            } else {
-                taskInfo.end();
+    private void runTask(Key key) {
+        try {
+            Runnable task = createTask(key);
+            if (task != null) {
+                task.run();
             }
-            tryNotifyAll();
-            System.out.println(key + "：执行完成");
+        } finally {
+            finishTask();
         }
-
     }
 
-    private static class TaskInfo {
-        private final AtomicBoolean running = new AtomicBoolean(false);
-        private final AtomicInteger count = new AtomicInteger(1);
-
-        boolean isRunning() {
-            return running.get();
-        }
-
-        boolean hasCount() {
-            return count.get() > 0;
-        }
-
-        void start() {
-            if (!isRunning()) {
-                running.set(true);
-                count.decrementAndGet();
+    private void finishTask() {
+        if (pendingCount.decrementAndGet() == 0) {
+            synchronized (monitor) {
+                monitor.notifyAll();
             }
         }
-
-        void end() {
-            if (isRunning()) {
-                running.set(false);
-                count.set(1);
-            }
-        }
-
-        void increment() {
-            count.incrementAndGet();
-        }
     }
-
 }
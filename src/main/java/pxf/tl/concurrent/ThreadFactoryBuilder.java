@@ -11,7 +11,8 @@ import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ThreadFactory创建器<br>
- * 参考：Guava的ThreadFactoryBuilder
+ * 参考：Guava的ThreadFactoryBuilder<br>
+ * 通过{@link #setVirtual(boolean)}可以创建虚拟线程，虚拟线程总是守护线程且不支持优先级，此时守护线程和优先级设置被忽略
  *
  * @author potatoxf
  */
@@ -38,6 +39,10 @@ public class ThreadFactoryBuilder implements Builder<ThreadFactory> {
      * 未捕获异常处理器
      */
     private UncaughtExceptionHandler uncaughtExceptionHandler;
+    /**
+     * 是否创建虚拟线程，默认false
+     */
+    private boolean virtual;
 
     /**
      * 创建{@code ThreadFactoryBuilder}
@@ -55,10 +60,14 @@ public class ThreadFactoryBuilder implements Builder<ThreadFactory> {
      * @return {@link ThreadFactory}
      */
     private static ThreadFactory build(ThreadFactoryBuilder builder) {
-        final ThreadFactory backingThreadFactory =
-                (null != builder.backingThreadFactory) //
-                        ? builder.backingThreadFactory //
-                        : Executors.defaultThreadFactory();
+        final ThreadFactory backingThreadFactory;
+        if (null != builder.backingThreadFactory) {
+            backingThreadFactory = builder.backingThreadFactory;
+        } else if (builder.virtual && VirtualThreads.isSupported()) {
+            backingThreadFactory = VirtualThreads.newThreadFactory(null);
+        } else {
+            backingThreadFactory = Executors.defaultThreadFactory();
+        }
         final String namePrefix = builder.namePrefix;
         final Boolean daemon = builder.daemon;
         final Integer priority = builder.priority;
@@ -69,6 +78,13 @@ public class ThreadFactoryBuilder implements Builder<ThreadFactory> {
             if (null != namePrefix) {
                 thread.setName(namePrefix + count.getAndIncrement());
             }
+            if (VirtualThreads.isVirtual(thread)) {
+                // 虚拟线程总是守护线程且优先级固定
+                if (null != handler) {
+                    thread.setUncaughtExceptionHandler(handler);
+                }
+                return thread;
+            }
             if (null != daemon) {
                 thread.setDaemon(daemon);
             }
@@ -149,6 +165,18 @@ public class ThreadFactoryBuilder implements Builder<ThreadFactory> {
         return this;
     }
 
+    /**
+     * 设置是否创建虚拟线程，运行时不支持虚拟线程时创建普通线程
+     *
+     * @param virtual 是否创建虚拟线程
+     * @return this
+     * @see VirtualThreads#isSupported()
+     */
+    public ThreadFactoryBuilder setVirtual(boolean virtual) {
+        this.virtual = virtual;
+        return this;
+    }
+
     /**
      * 构建{@link ThreadFactory}
      *
@@ -0,0 +1,171 @@
+package pxf.tl.concurrent;
+
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程工具<br>
+ * 项目以Java 17编译，运行在Java 21及以上版本时通过反射使用虚拟线程，低版本运行时{@link #isSupported()}返回{@code false}。
+ *
+ * <p>虚拟线程适合大量阻塞IO的任务，阻塞时不占用平台线程。虚拟线程总是守护线程，且不支持设置优先级。
+ *
+ * @author potatoxf
+ */
+public final class VirtualThreads {
+    /**
+     * {@code Thread.ofVirtual()}
+     */
+    private static final MethodHandle OF_VIRTUAL;
+    /**
+     * {@code Thread.Builder.name(String, long)}
+     */
+    private static final MethodHandle NAME;
+    /**
+     * {@code Thread.Builder.factory()}
+     */
+    private static final MethodHandle FACTORY;
+    /**
+     * {@code Executors.newThreadPerTaskExecutor(ThreadFactory)}
+     */
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+    /**
+     * {@code Thread.isVirtual()}
+     */
+    private static final MethodHandle IS_VIRTUAL;
+    private static final boolean SUPPORTED;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        MethodHandle isVirtual = null;
+        boolean supported = false;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualClass));
+            name = lookup.findVirtual(builderClass, "name",
+                    MethodType.methodType(builderClass, String.class, long.class));
+            factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            newThreadPerTaskExecutor = lookup.findStatic(java.util.concurrent.Executors.class,
+                    "newThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+            isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+            // Java 19、20中虚拟线程为预览特性，未开启预览时调用会抛出异常
+            ofVirtual.invoke();
+            supported = true;
+        } catch (Throwable ignored) {
+            // 运行时不支持虚拟线程
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+        IS_VIRTUAL = isVirtual;
+        SUPPORTED = supported;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     *
+     * @return 是否支持
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * 判断线程是否为虚拟线程
+     *
+     * @param thread 线程
+     * @return 是否为虚拟线程，运行时不支持虚拟线程时返回{@code false}
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (!SUPPORTED) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invoke(thread);
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     *
+     * @param namePrefix 线程名前缀，{@code null}表示不命名
+     * @return 虚拟线程工厂
+     * @throws UnsupportedOperationException 运行时不支持虚拟线程
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        checkSupported();
+        try {
+            Object builder = OF_VIRTUAL.invoke();
+            if (null != namePrefix) {
+                builder = NAME.invoke(builder, namePrefix, 0L);
+            }
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (Throwable e) {
+            throw new ThreadException(e);
+        }
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的{@link ExecutorService}
+     *
+     * @param namePrefix 线程名前缀，{@code null}表示不命名
+     * @return {@link ExecutorService}
+     * @throws UnsupportedOperationException 运行时不支持虚拟线程
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        return newThreadPerTaskExecutor(newThreadFactory(namePrefix));
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的{@link ExecutorService}，同时执行的任务数不超过给定值
+     *
+     * @param namePrefix     线程名前缀，{@code null}表示不命名
+     * @param maxConcurrency 最大并发数，不大于0表示不限制
+     * @return {@link ExecutorService}
+     * @throws UnsupportedOperationException 运行时不支持虚拟线程
+     */
+    public static ExecutorService newExecutor(String namePrefix, int maxConcurrency) {
+        final ExecutorService executor = newExecutor(namePrefix);
+        return maxConcurrency > 0
+                ? new ConcurrencyLimitedExecutorService(executor, new Semaphore(maxConcurrency), true)
+                : executor;
+    }
+
+    /**
+     * 创建每个任务一个线程的{@link ExecutorService}
+     *
+     * @param threadFactory 线程工厂
+     * @return {@link ExecutorService}
+     * @throws UnsupportedOperationException 运行时不支持虚拟线程
+     */
+    public static ExecutorService newThreadPerTaskExecutor(ThreadFactory threadFactory) {
+        checkSupported();
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (Throwable e) {
+            throw new ThreadException(e);
+        }
+    }
+
+    private static void checkSupported() {
+        if (!SUPPORTED) {
+            throw new UnsupportedOperationException(
+                    "Virtual threads are not supported by Java " + Runtime.version().feature());
+        }
+    }
+}
@@ -24,6 +24,22 @@ public class SqlFormatterHelper {
     public static final String BRACKET = "[]";
     public static final Map<String, String> LITERALS = new HashMap<>();
 
+    static {
+        LITERALS.put(BACK_QUOTE, "((`[^`]*($|`))+)");
+        LITERALS.put(BRACE, "((\\{[^\\}]*($|\\}))+)");
+        LITERALS.put(BRACKET, "((\\[[^\\]]*($|\\]))(\\][^\\]]*($|\\]))*)");
+        LITERALS.put(DOUBLE_QUOTE, "((\"[^\"\\\\]*(?:\\\\.[^\"\\\\]*)*(\"|$))+)");
+        LITERALS.put(SINGLE_QUOTE, "(('[^'\\\\]*(?:\\\\.[^'\\\\]*)*('|$))+)");
+        LITERALS.put(N_SINGLE_QUOTE, "((N'[^'\\\\]*(?:\\\\.[^'\\\\]*)*('|$))+)");
+        LITERALS.put(E_SINGLE_QUOTE, "(((E|e)'[^'\\\\]*(?:\\\\.[^'\\\\]*)*('|$))+)");
+        LITERALS.put(Q_SINGLE_QUOTE,
+                "((?i:Q)'(?:\\[[\\s\\S]*?\\]|\\{[\\s\\S]*?\\}|<[\\s\\S]*?>|\\([\\s\\S]*?\\)"
+                        + "|(?<qd>[^\\s(\\[{<])[\\s\\S]*?\\k<qd>)('|$))");
+        LITERALS.put(U_DOUBLE_QUOTE, "((U&\"[^\"\\\\]*(?:\\\\.[^\"\\\\]*)*(\"|$))+)");
+        LITERALS.put(U_SINGLE_QUOTE, "((U&'[^'\\\\]*(?:\\\\.[^'\\\\]*)*('|$))+)");
+        LITERALS.put(DOLLAR, "((?<tag>\\$\\w*\\$)[\\s\\S]*?(?:\\k<tag>|$))");
+    }
+
     public static String createOperatorRegex(JSLikeList<String> multiLetterOperators) {
         return String.format(
                 "^(%s|.)",
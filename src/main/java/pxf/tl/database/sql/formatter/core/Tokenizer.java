@@ -1,15 +1,25 @@
 package pxf.tl.database.sql.formatter.core;
 
 
-import pxf.tl.help.Whether;
 import pxf.tl.util.ToolRegex;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * SQL分词器<br>
+ * 使用一个游标遍历原始输入，每个模式通过{@link Matcher#region(int, int)}限定在游标之后匹配，
+ * 不复制剩余输入，分词耗时与输入长度成线性关系。<br>
+ * 匹配区域使用默认的锚定边界和不透明边界，{@code ^}、{@code $}和{@code \b}的行为与在剩余输入的子串上匹配相同。
+ *
+ * @author potatoxf
+ */
 public class Tokenizer {
     // private final Pattern WHITESPACE_PATTERN;
     private final Pattern NUMBER_PATTERN;
@@ -97,17 +107,14 @@ public class Tokenizer {
                         SqlFormatterHelper.createStringPattern(new JSLikeList<>(cfg.stringTypes)));
     }
 
-    private static String getFirstMatch(String input, Pattern regex) {
-        if (regex == null) {
-            return null;
-        }
-
-        Matcher matcher = regex.matcher(input);
-        if (matcher.find()) {
-            return matcher.group(1);
-        } else {
-            return null;
-        }
+    /**
+     * Takes a SQL string and breaks it into tokens. Each token is an object with type and value.
+     *
+     * @param input input The SQL string
+     * @return {Object[]} tokens An array of tokens.
+     */
+    public JSLikeList<Token> tokenize(String input) {
+        return tokenize((CharSequence) input);
     }
 
     /**
@@ -116,176 +123,248 @@ public class Tokenizer {
      * @param input input The SQL string
      * @return {Object[]} tokens An array of tokens.
      */
-    public JSLikeList<Token> tokenize(String input) {
+    public JSLikeList<Token> tokenize(CharSequence input) {
         List<Token> tokens = new ArrayList<>();
-        Token token = null;
+        Iterator<Token> iterator = this.iterator(input);
+        while (iterator.hasNext()) {
+            tokens.add(iterator.next());
+        }
+        return new JSLikeList<>(tokens);
+    }
 
-        // Keep processing the string until it is empty
-        while (!Whether.empty(input)) {
-            // grab any preceding whitespace
-            String[] findBeforeWhitespace = findBeforeWhitespace(input);
-            String whitespaceBefore = findBeforeWhitespace[0];
-            input = findBeforeWhitespace[1];
+    /**
+     * 逐个读取Token，不保留已读取的Token，适合处理很大的SQL脚本
+     *
+     * @param input SQL，可以是{@link java.nio.CharBuffer}等不在堆中复制的字符序列
+     * @return Token迭代器
+     */
+    public Iterator<Token> iterator(CharSequence input) {
+        return new TokenIterator(input);
+    }
 
-            if (!Whether.empty(input)) {
-                // Get the next token and the token type
-                token = this.getNextToken(input, token);
-                // Advance the string
-                input = input.substring(token.value.length());
+    private String getEscapedPlaceholderKey(String key, String quoteChar) {
+        return key.replaceAll(ToolRegex.escapeRegExp("\\") + quoteChar, quoteChar);
+    }
+
+    /**
+     * 在同一个输入上移动游标的Token迭代器，每个模式只创建一个{@link Matcher}
+     */
+    private final class TokenIterator implements Iterator<Token> {
+        private final CharSequence input;
+        private final int length;
+
+        private final Matcher numberMatcher;
+        private final Matcher operatorMatcher;
+        private final Matcher blockCommentMatcher;
+        private final Matcher lineCommentMatcher;
+        private final Matcher reservedTopLevelMatcher;
+        private final Matcher reservedTopLevelNoIndentMatcher;
+        private final Matcher reservedNewlineMatcher;
+        private final Matcher reservedPlainMatcher;
+        private final Matcher wordMatcher;
+        private final Matcher stringMatcher;
+        private final Matcher openParenMatcher;
+        private final Matcher closeParenMatcher;
+        private final Matcher indexedPlaceholderMatcher;
+        private final Matcher identNamedPlaceholderMatcher;
+        private final Matcher stringNamedPlaceholderMatcher;
+
+        /**
+         * 游标，下一个未读取字符的位置
+         */
+        private int position;
+        private Token previousToken;
+        private Token nextToken;
+
+        TokenIterator(CharSequence input) {
+            this.input = input == null ? "" : input;
+            this.length = this.input.length();
+            this.numberMatcher = matcher(NUMBER_PATTERN);
+            this.operatorMatcher = matcher(OPERATOR_PATTERN);
+            this.blockCommentMatcher = matcher(BLOCK_COMMENT_PATTERN);
+            this.lineCommentMatcher = matcher(LINE_COMMENT_PATTERN);
+            this.reservedTopLevelMatcher = matcher(RESERVED_TOP_LEVEL_PATTERN);
+            this.reservedTopLevelNoIndentMatcher = matcher(RESERVED_TOP_LEVEL_NO_INDENT_PATTERN);
+            this.reservedNewlineMatcher = matcher(RESERVED_NEWLINE_PATTERN);
+            this.reservedPlainMatcher = matcher(RESERVED_PLAIN_PATTERN);
+            this.wordMatcher = matcher(WORD_PATTERN);
+            this.stringMatcher = matcher(STRING_PATTERN);
+            this.openParenMatcher = matcher(OPEN_PAREN_PATTERN);
+            this.closeParenMatcher = matcher(CLOSE_PAREN_PATTERN);
+            this.indexedPlaceholderMatcher = matcher(INDEXED_PLACEHOLDER_PATTERN);
+            this.identNamedPlaceholderMatcher = matcher(IDENT_NAMED_PLACEHOLDER_PATTERN);
+            this.stringNamedPlaceholderMatcher = matcher(STRING_NAMED_PLACEHOLDER_PATTERN);
+        }
 
-                tokens.add(token.withWhitespaceBefore(whitespaceBefore));
+        @Override
+        public boolean hasNext() {
+            if (nextToken != null) {
+                return true;
             }
+            // grab any preceding whitespace
+            int start = position;
+            while (position < length && Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+            if (position == length) {
+                return false;
+            }
+            String whitespaceBefore = input.subSequence(start, position).toString();
+            // Get the next token and the token type
+            Token token = this.getNextToken();
+            // Advance the cursor
+            position += token.value.length();
+            previousToken = token;
+            nextToken = token.withWhitespaceBefore(whitespaceBefore);
+            return true;
         }
-        return new JSLikeList<>(tokens);
-    }
 
-    // private String getWhitespace(String input) {
-    //   String firstMatch = getFirstMatch(input, this.WHITESPACE_PATTERN);
-    //   return firstMatch != null ? firstMatch : "";
-    // }
-
-    private String[] findBeforeWhitespace(String input) {
-        int index = 0;
-        char[] chars = input.toCharArray();
-        int beforeLength = chars.length;
-        while (index != beforeLength && Character.isWhitespace(chars[index])) {
-            index++;
+        @Override
+        public Token next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Token token = nextToken;
+            nextToken = null;
+            return token;
         }
-        return new String[]{
-                new String(chars, 0, index), new String(chars, index, beforeLength - index)
-        };
-    }
 
-    private Token getNextToken(String input, Token previousToken) {
-        return SqlFormatterHelper.firstNotnull(
-                () -> this.getCommentToken(input),
-                () -> this.getStringToken(input),
-                () -> this.getOpenParenToken(input),
-                () -> this.getCloseParenToken(input),
-                () -> this.getPlaceholderToken(input),
-                () -> this.getNumberToken(input),
-                () -> this.getReservedWordToken(input, previousToken),
-                () -> this.getWordToken(input),
-                () -> this.getOperatorToken(input));
-    }
+        private Matcher matcher(Pattern pattern) {
+            return pattern == null ? null : pattern.matcher(input);
+        }
 
-    private Token getCommentToken(String input) {
-        return SqlFormatterHelper.firstNotnull(
-                () -> this.getLineCommentToken(input), () -> this.getBlockCommentToken(input));
-    }
+        private String getFirstMatch(Matcher matcher) {
+            if (matcher == null) {
+                return null;
+            }
+            matcher.region(position, length);
+            if (matcher.lookingAt()) {
+                return matcher.group(1);
+            } else {
+                return null;
+            }
+        }
 
-    private Token getLineCommentToken(String input) {
-        return this.getTokenOnFirstMatch(input, TokenTypes.LINE_COMMENT, this.LINE_COMMENT_PATTERN);
-    }
+        private Token getNextToken() {
+            return SqlFormatterHelper.firstNotnull(
+                    this::getCommentToken,
+                    this::getStringToken,
+                    this::getOpenParenToken,
+                    this::getCloseParenToken,
+                    this::getPlaceholderToken,
+                    this::getNumberToken,
+                    this::getReservedWordToken,
+                    this::getWordToken,
+                    this::getOperatorToken);
+        }
 
-    private Token getBlockCommentToken(String input) {
-        return this.getTokenOnFirstMatch(input, TokenTypes.BLOCK_COMMENT, this.BLOCK_COMMENT_PATTERN);
-    }
+        private Token getCommentToken() {
+            return SqlFormatterHelper.firstNotnull(this::getLineCommentToken, this::getBlockCommentToken);
+        }
 
-    private Token getStringToken(String input) {
-        return this.getTokenOnFirstMatch(input, TokenTypes.STRING, this.STRING_PATTERN);
-    }
+        private Token getLineCommentToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.LINE_COMMENT, this.lineCommentMatcher);
+        }
 
-    private Token getOpenParenToken(String input) {
-        return this.getTokenOnFirstMatch(input, TokenTypes.OPEN_PAREN, this.OPEN_PAREN_PATTERN);
-    }
+        private Token getBlockCommentToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.BLOCK_COMMENT, this.blockCommentMatcher);
+        }
 
-    private Token getCloseParenToken(String input) {
-        return this.getTokenOnFirstMatch(input, TokenTypes.CLOSE_PAREN, this.CLOSE_PAREN_PATTERN);
-    }
+        private Token getStringToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.STRING, this.stringMatcher);
+        }
 
-    private Token getPlaceholderToken(String input) {
-        return SqlFormatterHelper.firstNotnull(
-                () -> this.getIdentNamedPlaceholderToken(input),
-                () -> this.getStringNamedPlaceholderToken(input),
-                () -> this.getIndexedPlaceholderToken(input));
-    }
+        private Token getOpenParenToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.OPEN_PAREN, this.openParenMatcher);
+        }
 
-    private Token getIdentNamedPlaceholderToken(String input) {
-        return this.getPlaceholderTokenWithKey(
-                input, this.IDENT_NAMED_PLACEHOLDER_PATTERN, v -> v.substring(1));
-    }
+        private Token getCloseParenToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.CLOSE_PAREN, this.closeParenMatcher);
+        }
 
-    private Token getStringNamedPlaceholderToken(String input) {
-        return this.getPlaceholderTokenWithKey(
-                input,
-                this.STRING_NAMED_PLACEHOLDER_PATTERN,
-                v ->
-                        this.getEscapedPlaceholderKey(
-                                v.substring(2, v.length() - 1), v.substring(v.length() - 1)));
-    }
+        private Token getPlaceholderToken() {
+            return SqlFormatterHelper.firstNotnull(
+                    this::getIdentNamedPlaceholderToken,
+                    this::getStringNamedPlaceholderToken,
+                    this::getIndexedPlaceholderToken);
+        }
 
-    private Token getIndexedPlaceholderToken(String input) {
-        return this.getPlaceholderTokenWithKey(
-                input, this.INDEXED_PLACEHOLDER_PATTERN, v -> v.substring(1));
-    }
+        private Token getIdentNamedPlaceholderToken() {
+            return this.getPlaceholderTokenWithKey(this.identNamedPlaceholderMatcher, v -> v.substring(1));
+        }
 
-    private Token getPlaceholderTokenWithKey(
-            String input, Pattern regex, java.util.function.Function<String, String> parseKey) {
-        Token token = this.getTokenOnFirstMatch(input, TokenTypes.PLACEHOLDER, regex);
-        if (token != null) {
-            return token.withKey(parseKey.apply(token.value));
+        private Token getStringNamedPlaceholderToken() {
+            return this.getPlaceholderTokenWithKey(
+                    this.stringNamedPlaceholderMatcher,
+                    v ->
+                            getEscapedPlaceholderKey(
+                                    v.substring(2, v.length() - 1), v.substring(v.length() - 1)));
         }
-        return token;
-    }
 
-    private String getEscapedPlaceholderKey(String key, String quoteChar) {
-        return key.replaceAll(ToolRegex.escapeRegExp("\\") + quoteChar, quoteChar);
-    }
+        private Token getIndexedPlaceholderToken() {
+            return this.getPlaceholderTokenWithKey(this.indexedPlaceholderMatcher, v -> v.substring(1));
+        }
 
-    // Decimal, binary, or hex numbers
-    private Token getNumberToken(String input) {
-        return this.getTokenOnFirstMatch(input, TokenTypes.NUMBER, this.NUMBER_PATTERN);
-    }
+        private Token getPlaceholderTokenWithKey(Matcher matcher, Function<String, String> parseKey) {
+            Token token = this.getTokenOnFirstMatch(TokenTypes.PLACEHOLDER, matcher);
+            if (token != null) {
+                return token.withKey(parseKey.apply(token.value));
+            }
+            return token;
+        }
 
-    // Punctuation and symbols
-    private Token getOperatorToken(String input) {
-        return this.getTokenOnFirstMatch(input, TokenTypes.OPERATOR, this.OPERATOR_PATTERN);
-    }
+        // Decimal, binary, or hex numbers
+        private Token getNumberToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.NUMBER, this.numberMatcher);
+        }
 
-    private Token getReservedWordToken(String input, Token previousToken) {
-        // A reserved word cannot be preceded by a "."
-        // this makes it so in "mytable.from", "from" is not considered a reserved word
-        if (previousToken != null && previousToken.value != null && previousToken.value.equals(".")) {
-            return null;
+        // Punctuation and symbols
+        private Token getOperatorToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.OPERATOR, this.operatorMatcher);
         }
-        return SqlFormatterHelper.firstNotnull(
-                () -> this.getToplevelReservedToken(input),
-                () -> this.getNewlineReservedToken(input),
-                () -> this.getTopLevelReservedTokenNoIndent(input),
-                () -> this.getPlainReservedToken(input));
-    }
 
-    private Token getToplevelReservedToken(String input) {
-        return this.getTokenOnFirstMatch(
-                input, TokenTypes.RESERVED_TOP_LEVEL, this.RESERVED_TOP_LEVEL_PATTERN);
-    }
+        private Token getReservedWordToken() {
+            // A reserved word cannot be preceded by a "."
+            // this makes it so in "mytable.from", "from" is not considered a reserved word
+            if (previousToken != null && previousToken.value != null && previousToken.value.equals(".")) {
+                return null;
+            }
+            return SqlFormatterHelper.firstNotnull(
+                    this::getToplevelReservedToken,
+                    this::getNewlineReservedToken,
+                    this::getTopLevelReservedTokenNoIndent,
+                    this::getPlainReservedToken);
+        }
 
-    private Token getNewlineReservedToken(String input) {
-        return this.getTokenOnFirstMatch(
-                input, TokenTypes.RESERVED_NEWLINE, this.RESERVED_NEWLINE_PATTERN);
-    }
+        private Token getToplevelReservedToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.RESERVED_TOP_LEVEL, this.reservedTopLevelMatcher);
+        }
 
-    private Token getTopLevelReservedTokenNoIndent(String input) {
-        return this.getTokenOnFirstMatch(
-                input, TokenTypes.RESERVED_TOP_LEVEL_NO_INDENT, this.RESERVED_TOP_LEVEL_NO_INDENT_PATTERN);
-    }
+        private Token getNewlineReservedToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.RESERVED_NEWLINE, this.reservedNewlineMatcher);
+        }
 
-    private Token getPlainReservedToken(String input) {
-        return this.getTokenOnFirstMatch(input, TokenTypes.RESERVED, this.RESERVED_PLAIN_PATTERN);
-    }
+        private Token getTopLevelReservedTokenNoIndent() {
+            return this.getTokenOnFirstMatch(
+                    TokenTypes.RESERVED_TOP_LEVEL_NO_INDENT, this.reservedTopLevelNoIndentMatcher);
+        }
 
-    private Token getWordToken(String input) {
-        return this.getTokenOnFirstMatch(input, TokenTypes.WORD, this.WORD_PATTERN);
-    }
+        private Token getPlainReservedToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.RESERVED, this.reservedPlainMatcher);
+        }
 
-    private Token getTokenOnFirstMatch(String input, TokenTypes type, Pattern regex) {
-        String firstMatch = getFirstMatch(input, regex);
+        private Token getWordToken() {
+            return this.getTokenOnFirstMatch(TokenTypes.WORD, this.wordMatcher);
+        }
 
-        if (firstMatch != null) {
-            return new Token(type, firstMatch);
-        } else {
-            return null;
+        private Token getTokenOnFirstMatch(TokenTypes type, Matcher matcher) {
+            String firstMatch = getFirstMatch(matcher);
+
+            if (firstMatch != null) {
+                return new Token(type, firstMatch);
+            } else {
+                return null;
+            }
         }
     }
 }
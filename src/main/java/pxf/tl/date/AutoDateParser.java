@@ -0,0 +1,405 @@
+package pxf.tl.date;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 自动识别格式的日期解析器，供{@link DateUtil#parse(CharSequence)}使用<br>
+ * 只扫描一遍字符，识别的同时直接计算毫秒数，不生成中间字符串，支持的格式：
+ *
+ * <pre>
+ * yyyyMMdd、yyyyMMddHHmmss、yyyyMMddHHmmssSSS、HHmmss
+ * yyyy-MM-dd、yyyy-MM-dd HH:mm、yyyy-MM-dd HH:mm:ss、yyyy-MM-dd HH:mm:ss.SSSSSS
+ * yyyy年MM月dd日 HH时mm分ss秒（日期分隔符可为-、/、.、年、月，时间分隔符可为:、时、分）
+ * yyyy-MM-dd'T'HH:mm:ss、yyyy-MM-dd'T'HH:mm:ss.SSS，后接Z、+HH:mm、+HHmm、+HH或不带时区
+ * </pre>
+ *
+ * 结果与按对应{@link DatePattern}格式解析一致；无法识别的格式、超出范围的字段、早于1901年或处于夏令时切换中的时间返回{@code null}，
+ * 由调用方继续按格式解析（包括JDK的Date.toString格式等带英文名称的格式）。
+ *
+ * @author potatoxf
+ */
+final class AutoDateParser {
+    /**
+     * 快速解析支持的最小年份，更早的时间超出{@link TimeZone}的时区数据范围，交由{@link Calendar}处理
+     */
+    private static final int MIN_YEAR = 1901;
+    /**
+     * 标准格式使用的时区
+     */
+    private static final TimeZone LOCAL_ZONE = DatePattern.NORM_DATETIME_FORMAT.getTimeZone();
+    /**
+     * 标准格式使用的时区规则
+     */
+    private static final ZoneRules LOCAL_RULES = LOCAL_ZONE.toZoneId().getRules();
+    /**
+     * UTC格式使用的时区
+     */
+    private static final TimeZone UTC_ZONE = DatePattern.UTC_FORMAT.getTimeZone();
+    /**
+     * 标准格式是否使用公历，非公历（如泰国佛历）时不做快速解析
+     */
+    private static final boolean GREGORIAN =
+            "gregory"
+                    .equals(
+                            Calendar.getInstance(LOCAL_ZONE, DatePattern.NORM_DATETIME_FORMAT.getLocale())
+                                    .getCalendarType());
+    /**
+     * 按偏移分钟数缓存的时区
+     */
+    private static final AtomicReferenceArray<TimeZone> OFFSET_ZONES =
+            new AtomicReferenceArray<>(24 * 60);
+
+    private AutoDateParser() {
+    }
+
+    /**
+     * 解析日期字符串
+     *
+     * @param dateStr 日期字符串
+     * @return {@link DateTime}，无法快速解析返回{@code null}
+     */
+    static DateTime parse(CharSequence dateStr) {
+        return parse(dateStr, LOCAL_ZONE, LOCAL_RULES);
+    }
+
+    /**
+     * 按指定时区解析日期字符串，结果与使用该时区的{@link FastDateFormat}解析一致
+     *
+     * @param dateStr 日期字符串
+     * @param zone    不带偏移的格式使用的时区
+     * @return {@link DateTime}，无法快速解析返回{@code null}
+     */
+    static DateTime parse(CharSequence dateStr, TimeZone zone) {
+        return parse(dateStr, zone, zone.toZoneId().getRules());
+    }
+
+    private static DateTime parse(CharSequence dateStr, TimeZone zone, ZoneRules rules) {
+        if (!GREGORIAN) {
+            return null;
+        }
+        int start = 0;
+        int end = dateStr.length();
+        while (start < end && dateStr.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && dateStr.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int i = start;
+        int n = countDigits(dateStr, i, end);
+        if (i + n == end) {
+            return parsePure(dateStr, i, n, zone, rules);
+        }
+        if (n != 4) {
+            return null;
+        }
+        // 日期部分
+        final int year = toInt(dateStr, i, 4);
+        i += 4;
+        final char separator1 = dateStr.charAt(i++);
+        if (!isDateSeparator(separator1)) {
+            return null;
+        }
+        n = countDigits(dateStr, i, end);
+        if (n < 1 || n > 2) {
+            return null;
+        }
+        final int month = toInt(dateStr, i, n);
+        final boolean canonical = n == 2;
+        i += n;
+        if (i == end || !isDateSeparator(dateStr.charAt(i))) {
+            return null;
+        }
+        final char separator2 = dateStr.charAt(i++);
+        n = countDigits(dateStr, i, end);
+        if (n < 1 || n > 2) {
+            return null;
+        }
+        final int day = toInt(dateStr, i, n);
+        i += n;
+        if (i < end && dateStr.charAt(i) == 'T') {
+            // UTC时间只支持标准宽度
+            if (separator1 != '-' || separator2 != '-' || !canonical || n != 2) {
+                return null;
+            }
+            return parseUTC(dateStr, i + 1, end, year, month, day);
+        }
+        if (i < end && dateStr.charAt(i) == '日') {
+            i++;
+        }
+        if (i == end) {
+            return toLocal(zone, rules, year, month, day, 0, 0, 0, 0);
+        }
+        if (dateStr.charAt(i) != ' ') {
+            return null;
+        }
+        while (i < end && dateStr.charAt(i) == ' ') {
+            i++;
+        }
+
+        // 时间部分
+        n = countDigits(dateStr, i, end);
+        if (n < 1 || n > 2) {
+            return null;
+        }
+        final int hour = toInt(dateStr, i, n);
+        i += n;
+        if (i == end || !isTimeSeparator(dateStr.charAt(i))) {
+            return null;
+        }
+        i++;
+        n = countDigits(dateStr, i, end);
+        if (n < 1 || n > 2) {
+            return null;
+        }
+        final int minute = toInt(dateStr, i, n);
+        i += n;
+        int second = 0;
+        int millisecond = 0;
+        if (i + 1 < end && isTimeSeparator(dateStr.charAt(i)) && isDigit(dateStr.charAt(i + 1))) {
+            i++;
+            n = countDigits(dateStr, i, end);
+            if (n > 2) {
+                return null;
+            }
+            second = toInt(dateStr, i, n);
+            i += n;
+            if (i < end && isFractionSeparator(dateStr.charAt(i))) {
+                n = countDigits(dateStr, i + 1, end);
+                if (n < 1 || n > 6) {
+                    return null;
+                }
+                // 超过3位的部分截断
+                millisecond = toInt(dateStr, i + 1, Math.min(n, 3));
+                i += n + 1;
+            }
+        } else if (i < end && isFractionSeparator(dateStr.charAt(i))) {
+            // 只有时分时忽略小数部分
+            n = countDigits(dateStr, i + 1, end);
+            if (n < 1 || n > 6) {
+                return null;
+            }
+            i += n + 1;
+        }
+        // 末尾的一个分隔符和“秒”
+        if (i < end && isTimeSeparator(dateStr.charAt(i))) {
+            i++;
+        }
+        if (i < end && dateStr.charAt(i) == '秒') {
+            i++;
+        }
+        if (i != end) {
+            return null;
+        }
+        return toLocal(zone, rules, year, month, day, hour, minute, second, millisecond);
+    }
+
+    /**
+     * 解析纯数字格式
+     *
+     * @param dateStr 日期字符串
+     * @param i       开始位置
+     * @param length  长度
+     * @param zone    时区
+     * @param rules   时区规则
+     * @return {@link DateTime}，无法快速解析返回{@code null}
+     */
+    private static DateTime parsePure(CharSequence dateStr, int i, int length, TimeZone zone, ZoneRules rules) {
+        switch (length) {
+            case 6:
+                // HHmmss
+                return toLocal(
+                        zone, rules, 1970, 1, 1, toInt(dateStr, i, 2), toInt(dateStr, i + 2, 2), toInt(dateStr, i + 4, 2), 0);
+            case 8:
+                // yyyyMMdd
+                return toLocal(
+                        zone, rules, toInt(dateStr, i, 4), toInt(dateStr, i + 4, 2), toInt(dateStr, i + 6, 2), 0, 0, 0, 0);
+            case 14:
+            case 17:
+                // yyyyMMddHHmmss 或 yyyyMMddHHmmssSSS
+                return toLocal(
+                        zone,
+                        rules,
+                        toInt(dateStr, i, 4),
+                        toInt(dateStr, i + 4, 2),
+                        toInt(dateStr, i + 6, 2),
+                        toInt(dateStr, i + 8, 2),
+                        toInt(dateStr, i + 10, 2),
+                        toInt(dateStr, i + 12, 2),
+                        length == 17 ? toInt(dateStr, i + 14, 3) : 0);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 解析UTC时间中'T'之后的部分
+     *
+     * @param dateStr 日期字符串
+     * @param i       'T'之后的位置
+     * @param end     结束位置
+     * @param year    年
+     * @param month   月
+     * @param day     日
+     * @return {@link DateTime}，无法快速解析返回{@code null}
+     */
+    private static DateTime parseUTC(
+            CharSequence dateStr, int i, int end, int year, int month, int day) {
+        if (i + 8 > end
+                || countDigits(dateStr, i, i + 2) != 2
+                || dateStr.charAt(i + 2) != ':'
+                || countDigits(dateStr, i + 3, i + 5) != 2
+                || dateStr.charAt(i + 5) != ':'
+                || countDigits(dateStr, i + 6, i + 8) != 2) {
+            return null;
+        }
+        final int hour = toInt(dateStr, i, 2);
+        final int minute = toInt(dateStr, i + 3, 2);
+        final int second = toInt(dateStr, i + 6, 2);
+        i += 8;
+        int millisecond = 0;
+        if (i < end && dateStr.charAt(i) == '.') {
+            final int n = countDigits(dateStr, i + 1, end);
+            if (n < 1 || n > 3) {
+                return null;
+            }
+            millisecond = toInt(dateStr, i + 1, n);
+            i += n + 1;
+        }
+        if (!isValid(year, month, day, hour, minute, second)) {
+            return null;
+        }
+        final long localMillis =
+                LocalDateTime.of(year, month, day, hour, minute, second).toEpochSecond(ZoneOffset.UTC) * 1000
+                        + millisecond;
+        if (i == end || (dateStr.charAt(i) == 'Z' && i + 1 == end)) {
+            return new DateTime(localMillis, UTC_ZONE);
+        }
+
+        // 偏移：+HH:mm、+HHmm（分钟被忽略）或+HH
+        if (dateStr.charAt(i) == ' ') {
+            i++;
+        }
+        if (i + 3 > end || dateStr.charAt(i) != '+' || countDigits(dateStr, i + 1, i + 3) != 2) {
+            return null;
+        }
+        final int offsetHour = toInt(dateStr, i + 1, 2);
+        int offsetMinute = 0;
+        i += 3;
+        if (i + 3 == end && dateStr.charAt(i) == ':' && countDigits(dateStr, i + 1, end) == 2) {
+            offsetMinute = toInt(dateStr, i + 1, 2);
+        } else if (i != end && !(i + 2 == end && countDigits(dateStr, i, end) == 2)) {
+            return null;
+        }
+        if (offsetHour > 23 || offsetMinute > 59) {
+            return null;
+        }
+        final int offset = offsetHour * 60 + offsetMinute;
+        return new DateTime(localMillis - offset * 60_000L, getOffsetZone(offset));
+    }
+
+    /**
+     * 按时区计算时间<br>
+     * 偏移取自{@link TimeZone}而不是{@link ZoneRules}，两者的历史数据和远期规则不完全一致，{@link Calendar}使用前者
+     *
+     * @return {@link DateTime}，字段超出范围或处于夏令时切换中返回{@code null}
+     */
+    private static DateTime toLocal(
+            TimeZone zone,
+            ZoneRules rules,
+            int year,
+            int month,
+            int day,
+            int hour,
+            int minute,
+            int second,
+            int millisecond) {
+        if (!isValid(year, month, day, hour, minute, second)) {
+            return null;
+        }
+        final LocalDateTime localDateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+        if (!rules.isFixedOffset() && null != rules.getTransition(localDateTime)) {
+            return null;
+        }
+        final long wallMillis = localDateTime.toEpochSecond(ZoneOffset.UTC) * 1000;
+        final int offset = zone.getOffset(wallMillis - zone.getRawOffset());
+        if (zone.getOffset(wallMillis - offset) != offset) {
+            // 在TimeZone的切换附近
+            return null;
+        }
+        return new DateTime(wallMillis - offset + millisecond, zone);
+    }
+
+    private static boolean isValid(int year, int month, int day, int hour, int minute, int second) {
+        return year >= MIN_YEAR
+                && month >= 1
+                && month <= 12
+                && day >= 1
+                && day <= Month.of(month).length(Year.isLeap(year))
+                && hour <= 23
+                && minute <= 59
+                && second <= 59;
+    }
+
+    /**
+     * 获取固定偏移的时区，与{@link TimeZone#getTimeZone(String)}传入GMT+HH:mm的结果一致
+     *
+     * @param offset 偏移分钟数
+     * @return {@link TimeZone}
+     */
+    private static TimeZone getOffsetZone(int offset) {
+        TimeZone zone = OFFSET_ZONES.get(offset);
+        if (null == zone) {
+            final StringBuilder id = new StringBuilder("GMT+");
+            appendTwoDigits(id, offset / 60).append(':');
+            appendTwoDigits(id, offset % 60);
+            zone = TimeZone.getTimeZone(id.toString());
+            OFFSET_ZONES.compareAndSet(offset, null, zone);
+        }
+        return zone;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+        return builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static int countDigits(CharSequence dateStr, int i, int end) {
+        final int start = i;
+        while (i < end && isDigit(dateStr.charAt(i))) {
+            i++;
+        }
+        return i - start;
+    }
+
+    private static int toInt(CharSequence dateStr, int i, int length) {
+        int value = 0;
+        for (int end = i + length; i < end; i++) {
+            value = value * 10 + (dateStr.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDateSeparator(char c) {
+        return c == '-' || c == '/' || c == '.' || c == '年' || c == '月';
+    }
+
+    private static boolean isTimeSeparator(char c) {
+        return c == ':' || c == '时' || c == '分';
+    }
+
+    private static boolean isFractionSeparator(char c) {
+        return c == '.' || c == ',';
+    }
+}
@@ -359,6 +359,13 @@ public class DateTime extends Date {
         if (null == calendar) {
             throw new DateException("Parse [{}] with format [{}] error!", dateStr, parser.getPattern());
         }
+        try {
+            // 严格模式下字段越界（如2月30日）在计算时间时才抛出异常
+            calendar.getTimeInMillis();
+        } catch (IllegalArgumentException e) {
+            throw new DateException(
+                    ToolString.format("Parse [{}] with format [{}] error!", dateStr, parser.getPattern()), e);
+        }
 
         //noinspection MagicConstant
         calendar.setFirstDayOfWeek(Week.MONDAY.getValue());
@@ -950,9 +950,14 @@ public class DateUtil {
         if (Whether.blank(dateCharSequence)) {
             return null;
         }
+        // 常用的数字格式单次扫描直接解析
+        final DateTime dateTime = AutoDateParser.parse(dateCharSequence);
+        if (null != dateTime) {
+            return dateTime;
+        }
         String dateStr = dateCharSequence.toString();
         // 去掉两边空格并去掉中文日期中的“日”和“秒”，以规范长度
-        dateStr = dateStr.trim().replace('日', '秒');
+        dateStr = ToolString.remove(ToolString.remove(dateStr.trim(), '日'), '秒');
         int length = dateStr.length();
 
         if (ToolNumber.isNumber(dateStr)) {
@@ -3,6 +3,7 @@ package pxf.tl.io.file;
 
 import pxf.tl.api.Charsets;
 import pxf.tl.api.PoolOfCharacter;
+import pxf.tl.concurrent.VirtualThreads;
 import pxf.tl.date.DateUnit;
 import pxf.tl.exception.IORuntimeException;
 import pxf.tl.exception.UtilException;
@@ -89,13 +90,38 @@ public class Tailer implements Serializable {
      */
     public Tailer(
             File file, Charsets charset, LineHandler lineHandler, int initReadLine, long period) {
+        this(file, charset, lineHandler, initReadLine, period, false);
+    }
+
+    /**
+     * 构造<br>
+     * 使用虚拟线程时，读取文件阻塞期间不占用平台线程，运行时不支持虚拟线程时使用普通线程；
+     * 虚拟线程总是守护线程，异步监听时不会阻止JVM退出
+     *
+     * @param file           文件
+     * @param charset        编码
+     * @param lineHandler    行处理器
+     * @param initReadLine   启动时预读取的行数
+     * @param period         检查间隔
+     * @param virtualThreads 是否使用虚拟线程读取文件
+     */
+    public Tailer(
+            File file,
+            Charsets charset,
+            LineHandler lineHandler,
+            int initReadLine,
+            long period,
+            boolean virtualThreads) {
         checkFile(file);
         this.charset = charset;
         this.lineHandler = lineHandler;
         this.period = period;
         this.initReadLine = initReadLine;
         this.randomAccessFile = FileUtil.createRandomAccessFile(file, FileMode.r);
-        this.executorService = Executors.newSingleThreadScheduledExecutor();
+        this.executorService =
+                virtualThreads && VirtualThreads.isSupported()
+                        ? Executors.newSingleThreadScheduledExecutor(VirtualThreads.newThreadFactory("tailer-"))
+                        : Executors.newSingleThreadScheduledExecutor();
     }
 
     /**
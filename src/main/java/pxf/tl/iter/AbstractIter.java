@@ -56,7 +56,8 @@ public abstract class AbstractIter<T> implements Iter<T>, Closeable {
             // 读取结束
             return false;
         } else {
-            if (!isSupportAgain()) {
+            // 第一次遍历总是允许，之后的遍历须支持重复迭代
+            if (!first && !isSupportAgain()) {
                 throw new UnsupportedOperationException("Unsupported Reset Operation");
             }
         }
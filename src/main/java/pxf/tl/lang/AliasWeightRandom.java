@@ -0,0 +1,209 @@
+package pxf.tl.lang;
+
+
+import pxf.tl.api.MutableObjectNumber;
+import pxf.tl.util.ToolRandom;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基于别名方法（Vose's Alias Method）的权重随机算法实现<br>
+ *
+ * <p>构建时将N个元素的权重归一化为平均值1，权重小于1的元素用权重大于1的元素补齐，
+ * 得到N个概率为1的列，每列最多包含两个元素（自身和别名）。<br>
+ * 随机时先均匀选择一列，再以该列的概率决定返回自身还是别名，每次随机为O(1)，不会创建任何对象。
+ *
+ * <p>构建后不可变，可在多线程间共享，默认使用{@link java.util.concurrent.ThreadLocalRandom}，无需同步。
+ * 与{@link WeightRandom}不同，本类构建后不能再增加对象，可通过{@link WeightRandom#freeze()}从已有的权重表创建。
+ *
+ * @param <T> 权重随机获取的对象类型
+ * @author potatoxf
+ */
+public final class AliasWeightRandom<T> implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 对象
+     */
+    private final Object[] items;
+    /**
+     * 每列返回自身的概率
+     */
+    private final double[] probabilities;
+    /**
+     * 每列的别名下标
+     */
+    private final int[] aliases;
+
+    /**
+     * 构造
+     *
+     * @param weightObjs 带有权重的对象，权重不大于0的对象被忽略
+     */
+    public AliasWeightRandom(Iterable<MutableObjectNumber<T>> weightObjs) {
+        final List<Object> itemList = new ArrayList<>();
+        final List<Double> weightList = new ArrayList<>();
+        if (null != weightObjs) {
+            for (MutableObjectNumber<T> weightObj : weightObjs) {
+                if (null != weightObj) {
+                    final double weight = weightObj.gainDoubleValue(-1);
+                    if (weight > 0) {
+                        itemList.add(weightObj.get());
+                        weightList.add(weight);
+                    }
+                }
+            }
+        }
+        final int size = itemList.size();
+        this.items = itemList.toArray();
+        this.probabilities = new double[size];
+        this.aliases = new int[size];
+        final double[] weights = new double[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = weightList.get(i);
+        }
+        build(weights);
+    }
+
+    /**
+     * 构造
+     *
+     * @param weightObjs 带有权重的对象，权重不大于0的对象被忽略
+     */
+    public AliasWeightRandom(MutableObjectNumber<T>[] weightObjs) {
+        this(null == weightObjs ? null : Arrays.asList(weightObjs));
+    }
+
+    /**
+     * 按Vose算法构建概率表与别名表
+     *
+     * @param weights 权重
+     */
+    private void build(double[] weights) {
+        final int size = weights.length;
+        if (size == 0) {
+            return;
+        }
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        // 归一化使平均权重为1
+        final double[] scaled = new double[size];
+        final int[] small = new int[size];
+        final int[] large = new int[size];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            if (scaled[i] < 1) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+        while (smallSize > 0 && largeSize > 0) {
+            final int less = small[--smallSize];
+            final int more = large[--largeSize];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // 剩余的列由于浮点误差接近1，直接置为1
+        while (largeSize > 0) {
+            final int index = large[--largeSize];
+            probabilities[index] = 1;
+            aliases[index] = index;
+        }
+        while (smallSize > 0) {
+            final int index = small[--smallSize];
+            probabilities[index] = 1;
+            aliases[index] = index;
+        }
+    }
+
+    /**
+     * 对象个数
+     *
+     * @return 对象个数
+     */
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * 下一个随机对象，使用{@link java.util.concurrent.ThreadLocalRandom}
+     *
+     * @return 随机对象，没有对象时返回{@code null}
+     */
+    public T next() {
+        return next(ToolRandom.getRandom());
+    }
+
+    /**
+     * 下一个随机对象
+     *
+     * @param random 随机数生成器
+     * @return 随机对象，没有对象时返回{@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public T next(Random random) {
+        final int index = nextIndex(random);
+        return index < 0 ? null : (T) items[index];
+    }
+
+    /**
+     * 下一个随机对象的下标，可通过{@link #get(int)}获取对象
+     *
+     * @param random 随机数生成器
+     * @return 下标，没有对象时返回-1
+     */
+    public int nextIndex(Random random) {
+        final int size = items.length;
+        if (size == 0) {
+            return -1;
+        }
+        final int column = random.nextInt(size);
+        return random.nextDouble() < probabilities[column] ? column : aliases[column];
+    }
+
+    /**
+     * 批量获取随机对象，使用{@link java.util.concurrent.ThreadLocalRandom}
+     *
+     * @param n 个数
+     * @return 随机对象列表，没有对象时返回空列表
+     */
+    public List<T> next(int n) {
+        if (items.length == 0) {
+            return new ArrayList<>(0);
+        }
+        final Random random = ToolRandom.getRandom();
+        final List<T> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(next(random));
+        }
+        return result;
+    }
+
+    /**
+     * 获取指定下标的对象
+     *
+     * @param index 下标
+     * @return 对象
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) items[index];
+    }
+}
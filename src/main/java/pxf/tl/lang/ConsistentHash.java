@@ -1,32 +1,55 @@
 package pxf.tl.lang;
 
 
-import pxf.tl.help.Whether;
 import pxf.tl.math.hash.Hash32;
 import pxf.tl.util.ToolHash;
 
+import java.io.Serial;
 import java.io.Serializable;
-import java.util.Collection;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 一致性Hash算法 算法详解：http://blog.csdn.net/sparkliang/article/details/5279393
  * 算法实现：https://weblogs.java.net/blog/2007/11/27/consistent-hashing
  *
+ * <p>Hash环保存为有序的{@code int[]}，查找时使用二分查找，不会装箱也不会创建对象。<br>
+ * 增删节点时复制整个环并发布新的快照（写时复制），查找无需加锁，适合读多写少的路由场景。<br>
+ * 节点可以带权重，权重为{@code n}的节点拥有{@code n}倍的虚拟节点。
+ *
+ * <p>有界负载模式：通过{@link #acquire(Object)}和{@link #release(Object)}记录每个节点上的负载，
+ * 任何节点的负载不超过按权重分摊的平均负载的{@link #getLoadFactor()}倍，超过时顺时针顺延到下一个未满的节点。
+ *
  * @param <T> 节点类型
  * @author potatoxf
  */
 public class ConsistentHash<T> implements Serializable {
+    @Serial
     private static final long serialVersionUID = 1L;
+    /**
+     * 默认负载系数
+     */
+    public static final double DEFAULT_LOAD_FACTOR = 1.25;
+    /**
+     * 已移除节点的负载标记，节点移除后不再接受获取和释放
+     */
+    private static final long RETIRED = Long.MIN_VALUE;
     /**
      * 复制的节点个数
      */
     private final int numberOfReplicas;
     /**
-     * 一致性Hash环
+     * 有界负载模式下所有节点的负载总和，节点的负载先于总和更新，移除节点时减去其最终负载
      */
-    private final SortedMap<Integer, T> circle = new TreeMap<>();
+    private final AtomicLong totalLoad = new AtomicLong();
+    /**
+     * 一致性Hash环快照
+     */
+    private volatile Ring<T> ring = new Ring<>(new int[0], newNodeArray(0), Collections.emptyMap(), 0);
+    /**
+     * 有界负载模式的负载系数
+     */
+    private volatile double loadFactor = DEFAULT_LOAD_FACTOR;
     /**
      * Hash计算对象，用于自定义hash算法
      */
@@ -39,16 +62,13 @@ public class ConsistentHash<T> implements Serializable {
      * @param nodes            节点对象
      */
     public ConsistentHash(int numberOfReplicas, Collection<T> nodes) {
-        this.numberOfReplicas = numberOfReplicas;
-        this.hashFunc =
+        this(
                 key -> {
                     // 默认使用FNV1hash算法
                     return ToolHash.fnvHash(key.toString());
-                };
-        // 初始化节点
-        for (T node : nodes) {
-            add(node);
-        }
+                },
+                numberOfReplicas,
+                nodes);
     }
 
     /**
@@ -62,9 +82,22 @@ public class ConsistentHash<T> implements Serializable {
         this.numberOfReplicas = numberOfReplicas;
         this.hashFunc = hashFunc;
         // 初始化节点
-        for (T node : nodes) {
-            add(node);
-        }
+        addAll(nodes);
+    }
+
+    /**
+     * 构造，使用字符串Hash算法，键通过{@link Object#toString()}转为字符串，
+     * 可直接使用{@link pxf.tl.math.hash.KetamaHash}或{@code MurmurHash::hash32}等
+     *
+     * @param hashFunc         字符串hash算法
+     * @param numberOfReplicas 复制的节点个数，增加每个节点的复制节点有利于负载均衡
+     * @param nodes            节点对象
+     * @param <T>              节点类型
+     * @return {@code ConsistentHash}
+     */
+    public static <T> ConsistentHash<T> of(
+            Hash32<? super String> hashFunc, int numberOfReplicas, Collection<T> nodes) {
+        return new ConsistentHash<>(key -> hashFunc.hash32(key.toString()), numberOfReplicas, nodes);
     }
 
     /**
@@ -75,9 +108,35 @@ public class ConsistentHash<T> implements Serializable {
      * @param node 节点对象
      */
     public void add(T node) {
-        for (int i = 0; i < numberOfReplicas; i++) {
-            circle.put(hashFunc.hash32(node.toString() + i), node);
+        add(node, 1);
+    }
+
+    /**
+     * 增加带权重的节点，节点拥有{@code 复制的节点个数 * weight}个虚拟节点，已存在的节点会更新权重
+     *
+     * @param node   节点对象
+     * @param weight 权重，必须大于0
+     */
+    public synchronized void add(T node, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("The weight must be greater than 0");
+        }
+        Map<T, Integer> weights = new LinkedHashMap<>(ring.weights);
+        weights.put(node, weight);
+        rebuild(weights);
+    }
+
+    /**
+     * 批量增加节点，只重建一次Hash环
+     *
+     * @param nodes 节点对象
+     */
+    public synchronized void addAll(Collection<T> nodes) {
+        Map<T, Integer> weights = new LinkedHashMap<>(ring.weights);
+        for (T node : nodes) {
+            weights.put(node, 1);
         }
+        rebuild(weights);
     }
 
     /**
@@ -85,10 +144,13 @@ public class ConsistentHash<T> implements Serializable {
      *
      * @param node 节点对象
      */
-    public void remove(T node) {
-        for (int i = 0; i < numberOfReplicas; i++) {
-            circle.remove(hashFunc.hash32(node.toString() + i));
+    public synchronized void remove(T node) {
+        if (!ring.weights.containsKey(node)) {
+            return;
         }
+        Map<T, Integer> weights = new LinkedHashMap<>(ring.weights);
+        weights.remove(node);
+        rebuild(weights);
     }
 
     /**
@@ -98,15 +160,259 @@ public class ConsistentHash<T> implements Serializable {
      * @return 节点对象
      */
     public T get(Object key) {
-        if (Whether.empty(circle)) {
+        final Ring<T> current = ring;
+        if (current.hashes.length == 0) {
             return null;
         }
-        int hash = hashFunc.hash32(key);
-        if (false == circle.containsKey(hash)) {
-            SortedMap<Integer, T> tailMap = circle.tailMap(hash); // 返回此映射的部分视图，其键大于等于 hash
-            hash = Whether.empty(tailMap) ? circle.firstKey() : tailMap.firstKey();
+        return current.owners[current.indexOf(hashFunc.hash32(key))].value;
+    }
+
+    /**
+     * 有界负载模式下获取节点，并将该节点的负载加1，使用完毕后需调用{@link #release(Object)}<br>
+     * 顺时针查找第一个负载未超过容量的节点，容量为{@code ceil(负载系数 * (总负载 + 1) * 节点权重 / 总权重)}
+     *
+     * @param key 键
+     * @return 节点对象，没有节点时返回{@code null}
+     */
+    public T acquire(Object key) {
+        for (; ; ) {
+            final Ring<T> current = ring;
+            final int length = current.hashes.length;
+            if (length == 0) {
+                return null;
+            }
+            final int start = current.indexOf(hashFunc.hash32(key));
+            final double factor = loadFactor;
+            for (int i = 0; i < length; i++) {
+                final Node<T> node = current.owners[(start + i) % length];
+                final long capacity =
+                        (long) Math.ceil(factor * (totalLoad.get() + 1) * node.weight / current.totalWeight);
+                final long load = node.load.get();
+                if (load >= 0 && load < capacity && node.load.compareAndSet(load, load + 1)) {
+                    totalLoad.incrementAndGet();
+                    return node.value;
+                }
+            }
+            // 并发竞争下所有节点都未能获取，退回到最近的节点
+            final Node<T> node = current.owners[start];
+            long load;
+            do {
+                load = node.load.get();
+            } while (load >= 0 && !node.load.compareAndSet(load, load + 1));
+            if (load >= 0) {
+                totalLoad.incrementAndGet();
+                return node.value;
+            }
+            // 节点已被移除，新的快照已发布，重新查找
+        }
+    }
+
+    /**
+     * 有界负载模式下释放{@link #acquire(Object)}获取的节点，节点负载减1，已移除的节点忽略
+     *
+     * @param node 节点对象
+     */
+    public void release(T node) {
+        final Node<T> holder = ring.nodes.get(node);
+        if (holder == null) {
+            return;
+        }
+        long load;
+        do {
+            load = holder.load.get();
+            if (load <= 0) {
+                return;
+            }
+        } while (!holder.load.compareAndSet(load, load - 1));
+        totalLoad.decrementAndGet();
+    }
+
+    /**
+     * 获取节点当前的负载
+     *
+     * @param node 节点对象
+     * @return 负载，节点不存在时返回0
+     */
+    public long getLoad(T node) {
+        final Node<T> holder = ring.nodes.get(node);
+        return holder == null ? 0 : holder.load.get();
+    }
+
+    /**
+     * 获取有界负载模式的负载系数
+     *
+     * @return 负载系数
+     */
+    public double getLoadFactor() {
+        return loadFactor;
+    }
+
+    /**
+     * 设置有界负载模式的负载系数，必须大于1
+     *
+     * @param loadFactor 负载系数
+     */
+    public void setLoadFactor(double loadFactor) {
+        if (loadFactor <= 1) {
+            throw new IllegalArgumentException("The load factor must be greater than 1");
+        }
+        this.loadFactor = loadFactor;
+    }
+
+    /**
+     * 获取所有节点及其权重
+     *
+     * @return 节点到权重的只读映射
+     */
+    public Map<T, Integer> getNodes() {
+        return ring.weights;
+    }
+
+    /**
+     * 按权重重建Hash环并发布，已存在节点的负载保留，被移除节点的负载从总和中减去，调用时需持有锁
+     *
+     * @param weights 节点权重
+     */
+    private void rebuild(Map<T, Integer> weights) {
+        final Ring<T> previous = ring;
+        final Map<T, Node<T>> nodes = new LinkedHashMap<>(weights.size() * 2);
+        int virtualCount = 0;
+        long totalWeight = 0;
+        for (Map.Entry<T, Integer> entry : weights.entrySet()) {
+            Node<T> node = previous.nodes.get(entry.getKey());
+            if (node == null || node.weight != entry.getValue()) {
+                node = new Node<>(entry.getKey(), entry.getValue(), node);
+            }
+            nodes.put(entry.getKey(), node);
+            virtualCount += numberOfReplicas * node.weight;
+            totalWeight += node.weight;
+        }
+        // 按hash排序虚拟节点，hash相同时后加入的节点覆盖先加入的节点
+        final long[] entries = new long[virtualCount];
+        final List<Node<T>> order = new ArrayList<>(nodes.size());
+        int count = 0;
+        for (Node<T> node : nodes.values()) {
+            final String name = node.value.toString();
+            final int replicas = numberOfReplicas * node.weight;
+            for (int i = 0; i < replicas; i++) {
+                // 高32位为hash，低32位为加入顺序
+                entries[count++] = ((long) hashFunc.hash32(name + i) << 32) | order.size();
+            }
+            order.add(node);
+        }
+        Arrays.sort(entries);
+        final int[] hashes = new int[virtualCount];
+        final Node<T>[] owners = newNodeArray(virtualCount);
+        int size = 0;
+        for (long entry : entries) {
+            final int hash = (int) (entry >> 32);
+            final Node<T> owner = order.get((int) entry);
+            if (size > 0 && hashes[size - 1] == hash) {
+                owners[size - 1] = owner;
+            } else {
+                hashes[size] = hash;
+                owners[size] = owner;
+                size++;
+            }
+        }
+        ring = new Ring<>(
+                Arrays.copyOf(hashes, size),
+                Arrays.copyOf(owners, size),
+                Collections.unmodifiableMap(new LinkedHashMap<>(weights)),
+                totalWeight,
+                nodes);
+        // 先发布新的快照再退役被移除的节点，之后旧快照上的获取和释放都不会再修改其负载，
+        // 看到退役标记的获取操作重新读取快照时一定能读到新的快照
+        for (Map.Entry<T, Node<T>> entry : previous.nodes.entrySet()) {
+            if (!nodes.containsKey(entry.getKey())) {
+                final long load = entry.getValue().load.getAndSet(RETIRED);
+                if (load > 0) {
+                    totalLoad.addAndGet(-load);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newNodeArray(int length) {
+        return new Node[length];
+    }
+
+    /**
+     * 不可变的Hash环快照
+     *
+     * @param <T> 节点类型
+     */
+    private static final class Ring<T> implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        /**
+         * 有序的虚拟节点hash
+         */
+        final int[] hashes;
+        /**
+         * 虚拟节点对应的实际节点
+         */
+        final Node<T>[] owners;
+        /**
+         * 节点到权重
+         */
+        final Map<T, Integer> weights;
+        /**
+         * 节点到节点持有者
+         */
+        final Map<T, Node<T>> nodes;
+        /**
+         * 权重总和
+         */
+        final long totalWeight;
+
+        Ring(int[] hashes, Node<T>[] owners, Map<T, Integer> weights, long totalWeight) {
+            this(hashes, owners, weights, totalWeight, Collections.emptyMap());
+        }
+
+        Ring(int[] hashes, Node<T>[] owners, Map<T, Integer> weights, long totalWeight, Map<T, Node<T>> nodes) {
+            this.hashes = hashes;
+            this.owners = owners;
+            this.weights = weights;
+            this.totalWeight = totalWeight;
+            this.nodes = nodes;
+        }
+
+        /**
+         * 二分查找顺时针方向上最近的虚拟节点下标，超过最后一个时回到第一个
+         *
+         * @param hash 键的hash
+         * @return 虚拟节点下标
+         */
+        int indexOf(int hash) {
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) {
+                index = -index - 1;
+                if (index == hashes.length) {
+                    index = 0;
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 节点持有者，记录节点的权重与负载
+     *
+     * @param <T> 节点类型
+     */
+    private static final class Node<T> implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        final T value;
+        final int weight;
+        final AtomicLong load;
+
+        Node(T value, int weight, Node<T> previous) {
+            this.value = value;
+            this.weight = weight;
+            this.load = previous == null ? new AtomicLong() : previous.load;
         }
-        // 正好命中
-        return circle.get(hash);
     }
 }
@@ -7,9 +7,7 @@ import pxf.tl.util.ToolRandom;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.Random;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.*;
 
 /**
  * 权重随机算法实现<br>
@@ -22,7 +20,7 @@ import java.util.TreeMap;
  *
  * <p>参考博客：https://www.cnblogs.com/waterystone/p/5708063.html
  *
- * <p>
+ * <p>每次随机需要O(log n)的查找，权重表构建完成后可通过{@link #freeze()}转换为O(1)的{@link AliasWeightRandom}
  *
  * @param <T> 权重随机获取的对象类型
  * @author potatoxf
@@ -148,4 +146,20 @@ public class WeightRandom<T> implements Serializable {
         return this.weightMap.get(tailMap.firstKey());
     }
 
+    /**
+     * 以当前权重表创建不可变的{@link AliasWeightRandom}，之后对本对象的修改不影响返回的对象
+     *
+     * @return {@link AliasWeightRandom}
+     */
+    public AliasWeightRandom<T> freeze() {
+        final List<MutableObjectNumber<T>> weightObjs = new ArrayList<>(this.weightMap.size());
+        double lastWeight = 0;
+        for (Map.Entry<Double, T> entry : this.weightMap.entrySet()) {
+            // 累加权重还原为单个权重
+            weightObjs.add(new MutableObjectNumber<>(entry.getValue(), entry.getKey() - lastWeight));
+            lastWeight = entry.getKey();
+        }
+        return new AliasWeightRandom<>(weightObjs);
+    }
+
 }
@@ -32,6 +32,10 @@ public final class ArithmeticExpression {
      * 变量值
      */
     private final Map<String, Double> valueMap;
+    /**
+     * 编译后的表达式
+     */
+    private volatile CompiledArithmeticExpression compiled;
 
     private ArithmeticExpression(
             Expression rootExpression,
@@ -113,6 +117,34 @@ public final class ArithmeticExpression {
         return rootExpression.strictEvaluate(checkArg(arithmeticData));
     }
 
+    /**
+     * 批量计算，每个变量对应一列值，行数为最短列的长度
+     *
+     * @param columns 变量名到列值
+     * @return 每行的计算结果
+     * @see CompiledArithmeticExpression#evaluate(Map, double[])
+     */
+    public double[] evaluate(Map<String, double[]> columns) {
+        return compile().evaluate(columns);
+    }
+
+    /**
+     * 编译表达式，变量绑定到槽位数组的固定下标，编译结果会被缓存
+     *
+     * @return {@code CompiledArithmeticExpression}
+     * @see CompiledArithmeticExpression
+     */
+    public CompiledArithmeticExpression compile() {
+        CompiledArithmeticExpression result = compiled;
+        if (result == null) {
+            ExpressionCompiler compiler = new ExpressionCompiler();
+            result = new CompiledArithmeticExpression(
+                    compiler.compile(rootExpression), compiler.slots(), isOptionalValueMap, valueMap);
+            compiled = result;
+        }
+        return result;
+    }
+
     private pxf.tl.text.arithmetic.ArithmeticData checkArg(pxf.tl.text.arithmetic.ArithmeticData arithmeticData) {
         pxf.tl.text.arithmetic.ArithmeticData wrapper =
                 arithmeticData != null ? new pxf.tl.text.arithmetic.ArithmeticData(arithmeticData) : new pxf.tl.text.arithmetic.ArithmeticData();
@@ -0,0 +1,334 @@
+package pxf.tl.text.arithmetic;
+
+
+import pxf.tl.help.Whether;
+
+import java.io.Serial;
+import java.lang.invoke.MethodHandle;
+import java.nio.DoubleBuffer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 编译后的四则运算表达式，由{@link ArithmeticExpression#compile()}创建<br>
+ * 表达式被编译为{@link MethodHandle}链，每个变量绑定到槽位数组中的固定下标，
+ * 通过{@link #evaluate(double[])}求值时不会创建任何对象，适合在热点循环中反复计算同一公式。
+ *
+ * <p>本类不可变，可在多线程间共享，槽位数组由调用方自行维护，不同线程应使用各自的槽位数组。
+ *
+ * <p>批量计算时以列的形式传入变量值，每个变量对应一个{@code double[]}或{@link DoubleBuffer}，
+ * 结果写入输出数组，行数超过{@link #PARALLEL_THRESHOLD}时拆分到{@link ForkJoinPool}并行计算。
+ *
+ * <pre>
+ * CompiledArithmeticExpression compiled = ArithmeticExpression.of("price * (1 - discount)").compile();
+ * double[] slots = compiled.newSlots();
+ * int price = compiled.slotOf("price");
+ * int discount = compiled.slotOf("discount");
+ * for (...) {
+ *     slots[price] = ...;
+ *     slots[discount] = ...;
+ *     double result = compiled.evaluate(slots);
+ * }
+ * </pre>
+ *
+ * @author potatoxf
+ */
+public final class CompiledArithmeticExpression {
+    /**
+     * 批量计算时单个任务处理的最大行数，超过时拆分并行计算
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 14;
+    /**
+     * 求值句柄，类型为{@code (double[])double}
+     */
+    private final MethodHandle handle;
+    /**
+     * 槽位对应的变量名
+     */
+    private final String[] variableNames;
+    /**
+     * 变量名到槽位下标
+     */
+    private final Map<String, Integer> slotMap;
+    /**
+     * 槽位默认值，必需变量为{@link Double#NaN}
+     */
+    private final double[] defaultSlots;
+    /**
+     * 槽位对应的变量是否可选
+     */
+    private final boolean[] optionalSlots;
+
+    CompiledArithmeticExpression(
+            MethodHandle handle,
+            Map<String, Integer> slotMap,
+            Map<String, Boolean> isOptionalValueMap,
+            Map<String, Double> valueMap) {
+        this.handle = handle;
+        this.slotMap = Collections.unmodifiableMap(new LinkedHashMap<>(slotMap));
+        this.variableNames = slotMap.keySet().toArray(new String[0]);
+        this.defaultSlots = new double[variableNames.length];
+        this.optionalSlots = new boolean[variableNames.length];
+        for (int i = 0; i < variableNames.length; i++) {
+            boolean optional = Boolean.TRUE.equals(isOptionalValueMap.get(variableNames[i]));
+            Double value = valueMap.get(variableNames[i]);
+            optionalSlots[i] = optional;
+            defaultSlots[i] = optional && value != null ? value : Double.NaN;
+        }
+    }
+
+    /**
+     * 槽位对应的变量名，下标即槽位
+     *
+     * @return {@code List<String>}
+     */
+    public List<String> variableNames() {
+        return Arrays.asList(variableNames.clone());
+    }
+
+    /**
+     * 槽位数量
+     *
+     * @return 槽位数量
+     */
+    public int slotCount() {
+        return variableNames.length;
+    }
+
+    /**
+     * 获取变量的槽位下标
+     *
+     * @param variableName 变量名
+     * @return 槽位下标，表达式不含该变量时返回-1
+     */
+    public int slotOf(String variableName) {
+        Integer slot = slotMap.get(variableName);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * 创建槽位数组，可选变量填充默认值，必需变量填充{@link Double#NaN}
+     *
+     * @return 槽位数组
+     */
+    public double[] newSlots() {
+        return defaultSlots.clone();
+    }
+
+    /**
+     * 计算，不会创建任何对象
+     *
+     * @param slots 槽位数组，长度不小于{@link #slotCount()}
+     * @return 返回计算结果值
+     */
+    public double evaluate(double[] slots) {
+        try {
+            return (double) handle.invokeExact(slots);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 计算，从数据中读取变量值填充槽位，缺少必需变量时抛出异常
+     *
+     * @param arithmeticData 数据
+     * @return 返回计算结果值
+     */
+    public double evaluate(ArithmeticData arithmeticData) {
+        double[] slots = newSlots();
+        List<String> exception = new ArrayList<>();
+        for (int i = 0; i < variableNames.length; i++) {
+            ArithmeticVariable variable = arithmeticData == null ? null : arithmeticData.findVariable(variableNames[i]);
+            if (variable != null) {
+                slots[i] = variable.getValue();
+            } else if (!optionalSlots[i]) {
+                exception.add(variableNames[i]);
+            }
+        }
+        if (Whether.noEmpty(exception)) {
+            throw new IllegalArgumentException("Missing parameter: " + exception);
+        }
+        return evaluate(slots);
+    }
+
+    /**
+     * 批量计算，行数为最短列的长度
+     *
+     * @param columns 变量名到列值，可选变量可以不提供
+     * @return 计算结果
+     */
+    public double[] evaluate(Map<String, double[]> columns) {
+        int rows = Integer.MAX_VALUE;
+        for (String variableName : variableNames) {
+            double[] column = columns.get(variableName);
+            if (column != null) {
+                rows = Math.min(rows, column.length);
+            }
+        }
+        double[] output = new double[rows == Integer.MAX_VALUE ? 0 : rows];
+        evaluate(columns, output);
+        return output;
+    }
+
+    /**
+     * 批量计算，行数为输出数组的长度
+     *
+     * @param columns 变量名到列值，可选变量可以不提供，不提供时使用默认值
+     * @param output  输出数组
+     * @throws IllegalArgumentException 缺少必需变量或列长度小于输出数组长度
+     */
+    public void evaluate(Map<String, double[]> columns, double[] output) {
+        evaluate(columns, output, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量计算，行数为输出数组的长度
+     *
+     * @param columns 变量名到列值，可选变量可以不提供，不提供时使用默认值
+     * @param output  输出数组
+     * @param pool    并行计算使用的线程池
+     * @throws IllegalArgumentException 缺少必需变量或列长度小于输出数组长度
+     */
+    public void evaluate(Map<String, double[]> columns, double[] output, ForkJoinPool pool) {
+        double[][] arrays = new double[variableNames.length][];
+        List<String> exception = new ArrayList<>();
+        for (int i = 0; i < variableNames.length; i++) {
+            double[] column = columns.get(variableNames[i]);
+            if (column == null) {
+                if (!optionalSlots[i]) {
+                    exception.add(variableNames[i]);
+                }
+                continue;
+            }
+            checkColumnLength(variableNames[i], column.length, output.length);
+            arrays[i] = column;
+        }
+        if (Whether.noEmpty(exception)) {
+            throw new IllegalArgumentException("Missing parameter: " + exception);
+        }
+        execute(new Batch(arrays, new int[arrays.length], new DoubleBuffer[arrays.length], output, 0, output.length), pool);
+    }
+
+    /**
+     * 批量计算，行数为输出数组的长度，列从各自的{@link DoubleBuffer#position()}开始读取，不改变缓冲区的位置
+     *
+     * @param columns 变量名到列值，可选变量可以不提供，不提供时使用默认值
+     * @param output  输出数组
+     * @throws IllegalArgumentException 缺少必需变量或列剩余长度小于输出数组长度
+     */
+    public void evaluateBuffers(Map<String, DoubleBuffer> columns, double[] output) {
+        evaluateBuffers(columns, output, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量计算，行数为输出数组的长度，列从各自的{@link DoubleBuffer#position()}开始读取，不改变缓冲区的位置
+     *
+     * @param columns 变量名到列值，可选变量可以不提供，不提供时使用默认值
+     * @param output  输出数组
+     * @param pool    并行计算使用的线程池
+     * @throws IllegalArgumentException 缺少必需变量或列剩余长度小于输出数组长度
+     */
+    public void evaluateBuffers(Map<String, DoubleBuffer> columns, double[] output, ForkJoinPool pool) {
+        double[][] arrays = new double[variableNames.length][];
+        int[] offsets = new int[variableNames.length];
+        DoubleBuffer[] buffers = new DoubleBuffer[variableNames.length];
+        List<String> exception = new ArrayList<>();
+        for (int i = 0; i < variableNames.length; i++) {
+            DoubleBuffer column = columns.get(variableNames[i]);
+            if (column == null) {
+                if (!optionalSlots[i]) {
+                    exception.add(variableNames[i]);
+                }
+                continue;
+            }
+            checkColumnLength(variableNames[i], column.remaining(), output.length);
+            if (column.hasArray()) {
+                // 堆缓冲区直接访问底层数组
+                arrays[i] = column.array();
+                offsets[i] = column.arrayOffset() + column.position();
+            } else {
+                buffers[i] = column;
+                offsets[i] = column.position();
+            }
+        }
+        if (Whether.noEmpty(exception)) {
+            throw new IllegalArgumentException("Missing parameter: " + exception);
+        }
+        execute(new Batch(arrays, offsets, buffers, output, 0, output.length), pool);
+    }
+
+    private void execute(Batch batch, ForkJoinPool pool) {
+        if (variableNames.length == 0) {
+            // 常量表达式只计算一次
+            Arrays.fill(batch.output, batch.from, batch.to, evaluate(defaultSlots.clone()));
+        } else if (batch.to - batch.from <= PARALLEL_THRESHOLD) {
+            batch.compute();
+        } else {
+            pool.invoke(batch);
+        }
+    }
+
+    private static void checkColumnLength(String variableName, int length, int rows) {
+        if (length < rows) {
+            throw new IllegalArgumentException(
+                    "The column of '" + variableName + "' has " + length + " rows, but " + rows + " rows are required");
+        }
+    }
+
+    /**
+     * 批量计算任务，按行区间拆分，每个任务使用独立的槽位数组
+     */
+    private final class Batch extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final double[][] arrays;
+        private final int[] offsets;
+        private final DoubleBuffer[] buffers;
+        private final double[] output;
+        private final int from;
+        private final int to;
+
+        Batch(double[][] arrays, int[] offsets, DoubleBuffer[] buffers, double[] output, int from, int to) {
+            this.arrays = arrays;
+            this.offsets = offsets;
+            this.buffers = buffers;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Batch(arrays, offsets, buffers, output, from, middle),
+                        new Batch(arrays, offsets, buffers, output, middle, to));
+                return;
+            }
+            double[] slots = newSlots();
+            for (int row = from; row < to; row++) {
+                for (int i = 0; i < slots.length; i++) {
+                    if (arrays[i] != null) {
+                        slots[i] = arrays[i][offsets[i] + row];
+                    } else if (buffers[i] != null) {
+                        slots[i] = buffers[i].get(offsets[i] + row);
+                    }
+                }
+                output[row] = evaluate(slots);
+            }
+        }
+    }
+
+    /**
+     * 获取求值句柄，类型为{@code (double[])double}
+     *
+     * @return {@code MethodHandle}
+     */
+    public MethodHandle handle() {
+        return handle;
+    }
+}
@@ -1,5 +1,7 @@
 package pxf.tl.text.arithmetic;
 
+import java.lang.invoke.MethodHandle;
+
 /**
  * Represents the result of a parsed expression.
  *
@@ -70,6 +72,14 @@ abstract class Expression {
         return false;
     }
 
+    /**
+     * 编译为{@code (double[])double}类型的方法句柄，变量从槽位数组中读取
+     *
+     * @param compiler 表达式编译器
+     * @return 方法句柄
+     */
+    protected abstract MethodHandle compile(ExpressionCompiler compiler);
+
     /**
      * Returns a string representation of the object. In general, the <code>toString</code> method
      * returns a string that "textually represents" this object. The result should be a concise but
@@ -1,5 +1,7 @@
 package pxf.tl.text.arithmetic;
 
+import java.lang.invoke.MethodHandle;
+
 /**
  * Represents a binary operation.
  * <p>
@@ -187,6 +189,11 @@ class ExpressionBinary extends Expression {
         return this;
     }
 
+    @Override
+    protected MethodHandle compile(ExpressionCompiler compiler) {
+        return compiler.binary(op, left.compile(compiler), right.compile(compiler));
+    }
+
     @Override
     protected String toExpressionString() {
         return left + " " + op + " " + right;
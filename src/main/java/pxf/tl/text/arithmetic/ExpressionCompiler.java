@@ -0,0 +1,315 @@
+package pxf.tl.text.arithmetic;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 表达式编译器，将{@link Expression}树编译为类型为{@code (double[])double}的{@link MethodHandle}链<br>
+ * 每个变量按首次出现的顺序绑定到槽位数组中的固定下标，{@link ArithmeticData#ROOT}中的常量直接折叠为常量。<br>
+ * 编译后的句柄在求值时不会创建任何对象，自定义了{@link ArithmeticFunction#eval(ArithmeticData, List)}
+ * 的函数无法编译，会退化为按槽位构建{@link ArithmeticData}后解释执行。
+ *
+ * @author potatoxf
+ */
+final class ExpressionCompiler {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    /**
+     * 求值句柄的类型
+     */
+    static final MethodType EVALUATOR_TYPE = MethodType.methodType(double.class, double[].class);
+    private static final MethodType BINARY_TYPE =
+            MethodType.methodType(double.class, double.class, double.class);
+    private static final MethodHandle SLOT_GETTER = MethodHandles.arrayElementGetter(double[].class);
+    private static final MethodHandle ADD = findStatic("add", BINARY_TYPE);
+    private static final MethodHandle SUBTRACT = findStatic("subtract", BINARY_TYPE);
+    private static final MethodHandle MULTIPLY = findStatic("multiply", BINARY_TYPE);
+    private static final MethodHandle DIVIDE = findStatic("divide", BINARY_TYPE);
+    private static final MethodHandle MODULO = findStatic("modulo", BINARY_TYPE);
+    private static final MethodHandle POWER = findStatic("power", BINARY_TYPE);
+    private static final MethodHandle LT = findStatic("lt", BINARY_TYPE);
+    private static final MethodHandle LT_EQ = findStatic("ltEq", BINARY_TYPE);
+    private static final MethodHandle EQ = findStatic("eq", BINARY_TYPE);
+    private static final MethodHandle GT_EQ = findStatic("gtEq", BINARY_TYPE);
+    private static final MethodHandle GT = findStatic("gt", BINARY_TYPE);
+    private static final MethodHandle NEQ = findStatic("neq", BINARY_TYPE);
+    private static final MethodHandle AND = findStatic("and", BINARY_TYPE);
+    private static final MethodHandle OR = findStatic("or", BINARY_TYPE);
+    private static final MethodHandle UNARY_FUNCTION =
+            findStatic("unaryFunction",
+                    MethodType.methodType(double.class, ArithmeticFunction.class, double.class));
+    private static final MethodHandle BINARY_FUNCTION =
+            findStatic("binaryFunction",
+                    MethodType.methodType(double.class, ArithmeticFunction.BinaryArithmeticFunction.class,
+                            double.class, double.class));
+    private static final MethodHandle IS_NAN =
+            findStatic("isNaN", MethodType.methodType(boolean.class, double.class));
+    private static final MethodHandle IS_TRUE =
+            findStatic("isTrue", MethodType.methodType(boolean.class, double.class));
+    private static final MethodHandle INTERPRET =
+            findStatic("interpret",
+                    MethodType.methodType(double.class, Expression.class, String[].class, double[].class));
+
+    /**
+     * 变量名到槽位下标
+     */
+    private final Map<String, Integer> slots = new LinkedHashMap<>();
+
+    /**
+     * 编译表达式
+     *
+     * @param expression 表达式
+     * @return {@code (double[])double}句柄
+     */
+    MethodHandle compile(Expression expression) {
+        return expression.compile(this);
+    }
+
+    /**
+     * 变量名到槽位下标，按首次出现的顺序排列
+     *
+     * @return {@code Map<String, Integer>}
+     */
+    Map<String, Integer> slots() {
+        return slots;
+    }
+
+    /**
+     * 常量句柄
+     *
+     * @param value 常量值
+     * @return {@code (double[])double}句柄
+     */
+    MethodHandle constant(double value) {
+        return MethodHandles.dropArguments(MethodHandles.constant(double.class, value), 0, double[].class);
+    }
+
+    /**
+     * 变量句柄，{@link ArithmeticData#ROOT}中的常量直接折叠
+     *
+     * @param name 变量名
+     * @return {@code (double[])double}句柄
+     */
+    MethodHandle variable(String name) {
+        ArithmeticVariable rootVariable = ArithmeticData.ROOT.findVariable(name);
+        if (rootVariable instanceof ArithmeticConstant) {
+            return constant(rootVariable.getValue());
+        }
+        return MethodHandles.insertArguments(SLOT_GETTER, 1, slot(name));
+    }
+
+    /**
+     * 二元运算句柄
+     *
+     * @param op    运算符
+     * @param left  左操作数句柄
+     * @param right 右操作数句柄
+     * @return {@code (double[])double}句柄
+     */
+    MethodHandle binary(ExpressionBinary.Op op, MethodHandle left, MethodHandle right) {
+        MethodHandle operator = switch (op) {
+            case ADD -> ADD;
+            case SUBTRACT -> SUBTRACT;
+            case MULTIPLY -> MULTIPLY;
+            case DIVIDE -> DIVIDE;
+            case MODULO -> MODULO;
+            case POWER -> POWER;
+            case LT -> LT;
+            case LT_EQ -> LT_EQ;
+            case EQ -> EQ;
+            case GT_EQ -> GT_EQ;
+            case GT -> GT;
+            case NEQ -> NEQ;
+            case AND -> AND;
+            case OR -> OR;
+        };
+        return combine(operator, left, right);
+    }
+
+    /**
+     * 函数调用句柄
+     *
+     * @param function   函数
+     * @param parameters 参数表达式
+     * @param expression 函数表达式，无法编译时用于解释执行
+     * @return {@code (double[])double}句柄
+     */
+    MethodHandle function(ArithmeticFunction function, List<Expression> parameters, Expression expression) {
+        if (function == ArithmeticFunction.IF) {
+            return condition(compile(parameters.get(0)), compile(parameters.get(1)), compile(parameters.get(2)));
+        }
+        if (function == ArithmeticFunction.AVG) {
+            if (parameters.isEmpty()) {
+                return constant(0);
+            }
+            MethodHandle sum = constant(0);
+            for (Expression parameter : parameters) {
+                sum = combine(ADD, sum, compile(parameter));
+            }
+            return combine(DIVIDE, sum, constant(parameters.size()));
+        }
+        Class<?> declaringClass = evalDeclaringClass(function);
+        if (declaringClass == ArithmeticFunction.class) {
+            return MethodHandles.filterArguments(
+                    UNARY_FUNCTION.bindTo(function), 0, compile(parameters.get(0)));
+        }
+        if (declaringClass == ArithmeticFunction.BinaryArithmeticFunction.class) {
+            return combine(BINARY_FUNCTION.bindTo(function),
+                    compile(parameters.get(0)), compile(parameters.get(1)));
+        }
+        return interpret(expression);
+    }
+
+    /**
+     * 条件句柄，与{@link ArithmeticFunction#IF}一致，条件为NaN时返回NaN
+     */
+    private MethodHandle condition(MethodHandle check, MethodHandle then, MethodHandle otherwise) {
+        // (double check, double[] slots)double
+        MethodHandle checkValue = MethodHandles.dropArguments(MethodHandles.identity(double.class), 1, double[].class);
+        MethodHandle branch = MethodHandles.guardWithTest(
+                IS_TRUE,
+                MethodHandles.dropArguments(then, 0, double.class),
+                MethodHandles.dropArguments(otherwise, 0, double.class));
+        MethodHandle target = MethodHandles.guardWithTest(IS_NAN, checkValue, branch);
+        return MethodHandles.foldArguments(target, check);
+    }
+
+    /**
+     * 解释执行无法编译的子表达式，会为每次求值构建{@link ArithmeticData}
+     */
+    private MethodHandle interpret(Expression expression) {
+        // 先编译参数以登记其中的变量
+        if (expression instanceof ExpressionFunction) {
+            for (Expression parameter : ((ExpressionFunction) expression).getParameters()) {
+                compile(parameter);
+            }
+        }
+        String[] names = slots.keySet().toArray(new String[0]);
+        return MethodHandles.insertArguments(INTERPRET, 0, expression, names);
+    }
+
+    private int slot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(name, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * 将{@code (double,double)double}的运算与两个{@code (double[])double}操作数组合为{@code (double[])double}
+     */
+    private static MethodHandle combine(MethodHandle operator, MethodHandle left, MethodHandle right) {
+        MethodHandle filtered = MethodHandles.filterArguments(operator, 0, left, right);
+        return MethodHandles.permuteArguments(filtered, EVALUATOR_TYPE, 0, 0);
+    }
+
+    private static Class<?> evalDeclaringClass(ArithmeticFunction function) {
+        try {
+            return function.getClass().getMethod("eval", ArithmeticData.class, List.class).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return function.getClass();
+        }
+    }
+
+    private static MethodHandle findStatic(String name, MethodType type) {
+        try {
+            return LOOKUP.findStatic(ExpressionCompiler.class, name, type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static double add(double a, double b) {
+        return a + b;
+    }
+
+    private static double subtract(double a, double b) {
+        return a - b;
+    }
+
+    private static double multiply(double a, double b) {
+        return a * b;
+    }
+
+    private static double divide(double a, double b) {
+        return a / b;
+    }
+
+    private static double modulo(double a, double b) {
+        return a % b;
+    }
+
+    private static double power(double a, double b) {
+        return Math.pow(a, b);
+    }
+
+    private static double lt(double a, double b) {
+        return a < b ? 1 : 0;
+    }
+
+    private static double ltEq(double a, double b) {
+        return a < b || Math.abs(a - b) < ExpressionBinary.EPSILON ? 1 : 0;
+    }
+
+    private static double eq(double a, double b) {
+        return Math.abs(a - b) < ExpressionBinary.EPSILON ? 1 : 0;
+    }
+
+    private static double gtEq(double a, double b) {
+        return a > b || Math.abs(a - b) < ExpressionBinary.EPSILON ? 1 : 0;
+    }
+
+    private static double gt(double a, double b) {
+        return a > b ? 1 : 0;
+    }
+
+    private static double neq(double a, double b) {
+        return Math.abs(a - b) > ExpressionBinary.EPSILON ? 1 : 0;
+    }
+
+    private static double and(double a, double b) {
+        return Math.abs(a) > 0 && Math.abs(b) > 0 ? 1 : 0;
+    }
+
+    private static double or(double a, double b) {
+        return Math.abs(a) > 0 || Math.abs(b) > 0 ? 1 : 0;
+    }
+
+    private static double unaryFunction(ArithmeticFunction function, double a) {
+        if (Double.isNaN(a)) {
+            return a;
+        }
+        return function.eval(a);
+    }
+
+    private static double binaryFunction(ArithmeticFunction.BinaryArithmeticFunction function, double a, double b) {
+        if (Double.isNaN(a)) {
+            return a;
+        }
+        if (Double.isNaN(b)) {
+            return b;
+        }
+        return function.eval(a, b);
+    }
+
+    private static boolean isNaN(double value) {
+        return Double.isNaN(value);
+    }
+
+    private static boolean isTrue(double value) {
+        return Math.abs(value) > 0;
+    }
+
+    private static double interpret(Expression expression, String[] names, double[] slots) {
+        ArithmeticData arithmeticData = new ArithmeticData();
+        for (int i = 0; i < names.length; i++) {
+            arithmeticData.create(names[i]).setValue(slots[i]);
+        }
+        return expression.evaluate(arithmeticData);
+    }
+}
@@ -1,5 +1,7 @@
 package pxf.tl.text.arithmetic;
 
+import java.lang.invoke.MethodHandle;
+
 /**
  * Represents a constant numeric expression.
  *
@@ -33,6 +35,11 @@ class ExpressionConstant extends Expression {
         return true;
     }
 
+    @Override
+    protected MethodHandle compile(ExpressionCompiler compiler) {
+        return compiler.constant(value);
+    }
+
     @Override
     protected String toExpressionString() {
         return String.valueOf(value);
@@ -1,5 +1,6 @@
 package pxf.tl.text.arithmetic;
 
+import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -38,6 +39,11 @@ class ExpressionFunction extends Expression {
         return new ExpressionConstant(evaluate());
     }
 
+    @Override
+    protected MethodHandle compile(ExpressionCompiler compiler) {
+        return compiler.function(arithmeticFunction, parameters, this);
+    }
+
     /**
      * 获取表达式字符串
      *
@@ -1,5 +1,7 @@
 package pxf.tl.text.arithmetic;
 
+import java.lang.invoke.MethodHandle;
+
 /**
  * Represents a reference to a variable.
  *
@@ -21,6 +23,11 @@ class ExpressionVariable extends Expression {
         return arithmeticData.getVariable(name).getValue();
     }
 
+    @Override
+    protected MethodHandle compile(ExpressionCompiler compiler) {
+        return compiler.variable(name);
+    }
+
     /**
      * 获取表达式字符串
      *
@@ -17,6 +17,10 @@ public class CronConfig {
      * 是否支持秒匹配
      */
     protected boolean matchSecond;
+    /**
+     * 是否按下次执行时间调度
+     */
+    protected boolean nextFireTimeMode;
 
     public CronConfig() {
     }
@@ -60,4 +64,26 @@ public class CronConfig {
         this.matchSecond = isMatchSecond;
         return this;
     }
+
+    /**
+     * 是否按下次执行时间调度
+     *
+     * @return {@code true}按下次执行时间调度，{@code false}每次检查所有任务
+     */
+    public boolean isNextFireTimeMode() {
+        return this.nextFireTimeMode;
+    }
+
+    /**
+     * 设置是否按下次执行时间调度，默认不使用<br>
+     * 开启后为每个任务计算下次执行时间并放入按时间排序的优先队列，定时器每次只取出到期的任务，
+     * 不再对每个任务匹配表达式，适用于任务数量很多的情况
+     *
+     * @param nextFireTimeMode {@code true}按下次执行时间调度，{@code false}每次检查所有任务
+     * @return this
+     */
+    public CronConfig setNextFireTimeMode(boolean nextFireTimeMode) {
+        this.nextFireTimeMode = nextFireTimeMode;
+        return this;
+    }
 }
@@ -4,8 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pxf.tl.api.PoolOfCharacter;
 import pxf.tl.api.Sized;
+import pxf.tl.concurrent.ConcurrencyLimitedExecutorService;
 import pxf.tl.concurrent.ExecutorBuilder;
 import pxf.tl.concurrent.ThreadFactoryBuilder;
+import pxf.tl.concurrent.VirtualThreads;
 import pxf.tl.help.Whether;
 import pxf.tl.setting.Setting;
 import pxf.tl.text.cron.listener.TaskListener;
@@ -23,6 +25,7 @@ import java.util.LinkedHashMap;
 import java.util.Map.Entry;
 import java.util.TimeZone;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -68,6 +71,14 @@ public class Scheduler implements Serializable, Sized {
      * 是否为守护线程
      */
     protected boolean daemon;
+    /**
+     * 是否使用虚拟线程执行任务
+     */
+    protected boolean virtualThreads;
+    /**
+     * 使用默认线程池时同时执行的最大任务数，不大于0表示不限制
+     */
+    protected int maxConcurrency;
     /**
      * 定时任务表
      */
@@ -88,6 +99,10 @@ public class Scheduler implements Serializable, Sized {
      * 线程池，用于执行TaskLauncher和TaskExecutor
      */
     protected ExecutorService threadExecutor;
+    /**
+     * 用于执行TaskExecutor，设置了最大任务数时只限制作业的并发，启动器不受限制
+     */
+    protected ExecutorService taskThreadExecutor;
     /**
      * 是否已经启动
      */
@@ -167,6 +182,54 @@ public class Scheduler implements Serializable, Sized {
         return this;
     }
 
+    /**
+     * 是否使用虚拟线程执行任务
+     *
+     * @return 是否使用虚拟线程
+     */
+    public boolean isVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    /**
+     * 设置是否使用虚拟线程执行任务，运行时不支持虚拟线程时使用普通线程<br>
+     * 虚拟线程总是守护线程，{@link #setDaemon(boolean)}对任务线程无效，定时器线程不受影响<br>
+     * 如果用户调用{@link #setThreadExecutor(ExecutorService)}自定义线程池则此参数无效
+     *
+     * @param virtualThreads 是否使用虚拟线程
+     * @return this
+     * @throws CronException 定时任务已经启动抛出此异常
+     */
+    public Scheduler setVirtualThreads(boolean virtualThreads) throws CronException {
+        lock.lock();
+        try {
+            checkStarted();
+            this.virtualThreads = virtualThreads;
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * 设置同时执行的最大任务数，避免大量任务同时访问下游资源，只限制作业的执行，不限制启动器<br>
+     * 如果用户调用{@link #setThreadExecutor(ExecutorService)}自定义线程池则此参数无效
+     *
+     * @param maxConcurrency 最大任务数，不大于0表示不限制
+     * @return this
+     * @throws CronException 定时任务已经启动抛出此异常
+     */
+    public Scheduler setMaxConcurrency(int maxConcurrency) throws CronException {
+        lock.lock();
+        try {
+            checkStarted();
+            this.maxConcurrency = maxConcurrency;
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
     /**
      * 是否支持秒匹配
      *
@@ -187,6 +250,34 @@ public class Scheduler implements Serializable, Sized {
         return this;
     }
 
+    /**
+     * 是否按下次执行时间调度
+     *
+     * @return {@code true}按下次执行时间调度，{@code false}每次检查所有任务
+     */
+    public boolean isNextFireTimeMode() {
+        return this.config.isNextFireTimeMode();
+    }
+
+    /**
+     * 设置是否按下次执行时间调度，默认不使用<br>
+     * 开启后定时器每次只处理到期的任务，不再对所有任务匹配表达式，适用于任务数量很多的情况
+     *
+     * @param nextFireTimeMode {@code true}按下次执行时间调度，{@code false}每次检查所有任务
+     * @return this
+     * @throws CronException 定时任务已经启动抛出此异常
+     */
+    public Scheduler setNextFireTimeMode(boolean nextFireTimeMode) throws CronException {
+        lock.lock();
+        try {
+            checkStarted();
+            this.config.setNextFireTimeMode(nextFireTimeMode);
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
     /**
      * 增加监听器
      *
@@ -424,9 +515,22 @@ public class Scheduler implements Serializable, Sized {
                                         ThreadFactoryBuilder.create()
                                                 .setNamePrefix("hutool-cron-")
                                                 .setDaemon(this.daemon)
+                                                .setVirtual(this.virtualThreads)
                                                 .build() //
                                 )
-                                .build();
+                                .setVirtualThreads(this.virtualThreads)
+                                .buildExecutorService();
+                // 启动器提交作业时不能占用信号量，否则启动器与作业互相等待
+                if (this.maxConcurrency > 0) {
+                    this.taskThreadExecutor = new ConcurrencyLimitedExecutorService(
+                            this.threadExecutor,
+                            new Semaphore(this.maxConcurrency),
+                            this.virtualThreads && VirtualThreads.isSupported());
+                } else {
+                    this.taskThreadExecutor = this.threadExecutor;
+                }
+            } else {
+                this.taskThreadExecutor = this.threadExecutor;
             }
             this.taskLauncherManager = new TaskLauncherManager(this);
             this.taskExecutorManager = new TaskExecutorManager(this);
@@ -474,6 +578,7 @@ public class Scheduler implements Serializable, Sized {
             // 停止线程池
             this.threadExecutor.shutdown();
             this.threadExecutor = null;
+            this.taskThreadExecutor = null;
 
             // 可选是否清空任务表
             if (clearTasks) {
@@ -40,7 +40,9 @@ public class TaskExecutorManager implements Serializable {
     }
 
     /**
-     * 启动 执行器TaskExecutor，即启动作业
+     * 启动 执行器TaskExecutor，即启动作业<br>
+     * 作业在{@link Scheduler#setVirtualThreads(boolean)}开启时运行在虚拟线程中；
+     * 未使用虚拟线程且设置了最大并发数时，并发数已满会阻塞调用此方法的启动器，直到有作业结束，启动器不占用并发数
      *
      * @param task {@link Task}
      * @return {@link TaskExecutor}
@@ -53,7 +55,7 @@ public class TaskExecutorManager implements Serializable {
         // 子线程是否为deamon线程取决于父线程，因此此处无需显示调用
         // executor.setDaemon(this.scheduler.daemon);
         //		executor.start();
-        this.scheduler.threadExecutor.execute(executor);
+        this.scheduler.taskThreadExecutor.execute(executor);
         return executor;
     }
 
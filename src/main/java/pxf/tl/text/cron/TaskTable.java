@@ -2,6 +2,7 @@ package pxf.tl.text.cron;
 
 
 import pxf.tl.api.Sized;
+import pxf.tl.date.DateUnit;
 import pxf.tl.text.cron.pattern.CronPattern;
 import pxf.tl.text.cron.task.CronTask;
 import pxf.tl.text.cron.task.Task;
@@ -9,8 +10,14 @@ import pxf.tl.util.ToolString;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -18,7 +25,9 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * 定时任务表<br>
  * 任务表将ID、表达式、任务一一对应，定时任务执行过程中，会周期性检查定时任务表中的所有任务表达式匹配情况，从而执行其对应的任务<br>
- * 任务的添加、移除使用读写锁保证线程安全性
+ * 任务的添加、移除使用读写锁保证线程安全性<br>
+ * 调度器开启{@link CronConfig#setNextFireTimeMode(boolean)}时，任务表额外维护按下次执行时间排序的优先队列，
+ * 每次定时只取出到期的任务执行并计算其下次执行时间，不再逐个匹配所有任务的表达式
  *
  * @author potatoxf
  */
@@ -32,6 +41,23 @@ public class TaskTable implements Serializable, Sized {
     private final List<Task> tasks;
     private int size;
 
+    /**
+     * 按下次执行时间排序的任务队列，首次按下次执行时间调度时创建
+     */
+    private transient PriorityQueue<FireEntry> fireQueue;
+    /**
+     * ID与队列中任务的对应关系，用于移除和更新
+     */
+    private transient Map<String, FireEntry> fireEntries;
+    /**
+     * 计算下次执行时间使用的时区
+     */
+    private transient TimeZone fireTimeZone;
+    /**
+     * 定时单位，为秒或者分的毫秒值
+     */
+    private transient long fireUnit;
+
     /**
      * 构造
      */
@@ -71,6 +97,9 @@ public class TaskTable implements Serializable, Sized {
             patterns.add(pattern);
             tasks.add(task);
             size++;
+            if (null != fireQueue) {
+                addFireEntry(id, pattern, task, nextFireTimeFrom(System.currentTimeMillis()));
+            }
         } finally {
             writeLock.unlock();
         }
@@ -140,6 +169,9 @@ public class TaskTable implements Serializable, Sized {
             patterns.remove(index);
             ids.remove(index);
             size--;
+            if (null != fireQueue) {
+                removeFireEntry(id);
+            }
         } finally {
             writeLock.unlock();
         }
@@ -160,6 +192,10 @@ public class TaskTable implements Serializable, Sized {
             final int index = ids.indexOf(id);
             if (index > -1) {
                 patterns.set(index, pattern);
+                if (null != fireQueue) {
+                    removeFireEntry(id);
+                    addFireEntry(id, pattern, tasks.get(index), nextFireTimeFrom(System.currentTimeMillis()));
+                }
                 return true;
             }
         } finally {
@@ -244,6 +280,17 @@ public class TaskTable implements Serializable, Sized {
      * @param millis    时间毫秒
      */
     public void executeTaskIfMatch(Scheduler scheduler, long millis) {
+        if (scheduler.config.nextFireTimeMode) {
+            // 取出到期任务需要修改队列
+            final Lock writeLock = lock.writeLock();
+            writeLock.lock();
+            try {
+                executeTaskIfDueInternal(scheduler, millis);
+            } finally {
+                writeLock.unlock();
+            }
+            return;
+        }
         final Lock readLock = lock.readLock();
         readLock.lock();
         try {
@@ -277,4 +324,110 @@ public class TaskTable implements Serializable, Sized {
             }
         }
     }
+
+    /**
+     * 执行所有到期的Task，并计算其下次执行时间，无锁<br>
+     * 首次调用或时区、秒匹配设置变化时重新计算所有任务的下次执行时间
+     *
+     * @param scheduler {@link Scheduler}
+     * @param millis    时间毫秒
+     */
+    protected void executeTaskIfDueInternal(Scheduler scheduler, long millis) {
+        final CronConfig config = scheduler.config;
+        final long unit = config.matchSecond ? DateUnit.SECOND.getMillis() : DateUnit.MINUTE.getMillis();
+        if (null == fireQueue || fireUnit != unit || false == config.timezone.equals(fireTimeZone)) {
+            buildFireQueue(config.timezone, unit, millis);
+        }
+        // 本次定时点，时间记录为定时单位的起始
+        final long tick = (millis / fireUnit) * fireUnit;
+        FireEntry entry;
+        while (null != (entry = fireQueue.peek()) && entry.nextFireTime <= millis) {
+            fireQueue.poll();
+            if (entry.cancelled) {
+                continue;
+            }
+            scheduler.taskExecutorManager.spawnExecutor(new CronTask(entry.id, entry.pattern, entry.task));
+            // 错过的执行点不补偿，从下一个定时点开始计算
+            entry.nextFireTime = nextFireTime(entry.pattern, tick + fireUnit);
+            fireQueue.offer(entry);
+        }
+    }
+
+    /**
+     * 重新建立按下次执行时间排序的任务队列
+     *
+     * @param timeZone 时区
+     * @param unit     定时单位，为秒或者分的毫秒值
+     * @param millis   当前定时时间毫秒，当前定时点匹配的任务将在本次执行
+     */
+    private void buildFireQueue(TimeZone timeZone, long unit, long millis) {
+        this.fireTimeZone = timeZone;
+        this.fireUnit = unit;
+        this.fireQueue = new PriorityQueue<>(Math.max(size, 1), Comparator.comparingLong(e -> e.nextFireTime));
+        this.fireEntries = new HashMap<>(Math.max(size * 4 / 3 + 1, 16));
+        final long from = (millis / unit) * unit;
+        for (int i = 0; i < size; i++) {
+            addFireEntry(ids.get(i), patterns.get(i), tasks.get(i), from);
+        }
+    }
+
+    private void addFireEntry(String id, CronPattern pattern, Task task, long from) {
+        final FireEntry entry = new FireEntry(id, pattern, task, nextFireTime(pattern, from));
+        fireEntries.put(id, entry);
+        fireQueue.offer(entry);
+    }
+
+    /**
+     * 标记队列中的任务为已取消，到期出队时丢弃，避免在队列中线性查找
+     *
+     * @param id ID
+     */
+    private void removeFireEntry(String id) {
+        final FireEntry entry = fireEntries.remove(id);
+        if (null != entry) {
+            entry.cancelled = true;
+        }
+    }
+
+    /**
+     * 给定时间之后的第一个定时点
+     *
+     * @param millis 时间毫秒
+     * @return 定时点毫秒
+     */
+    private long nextFireTimeFrom(long millis) {
+        return (millis / fireUnit + 1) * fireUnit;
+    }
+
+    /**
+     * 计算不早于给定定时点的下次执行时间，不匹配秒时取所在分钟的定时点
+     *
+     * @param pattern 表达式
+     * @param from    定时点毫秒
+     * @return 下次执行时间毫秒
+     */
+    private long nextFireTime(CronPattern pattern, long from) {
+        final Calendar calendar = Calendar.getInstance(fireTimeZone);
+        calendar.setTimeInMillis(from);
+        final long next = pattern.nextMatchAfter(calendar).getTimeInMillis();
+        return (next / fireUnit) * fireUnit;
+    }
+
+    /**
+     * 队列中的任务
+     */
+    private static final class FireEntry {
+        final String id;
+        final CronPattern pattern;
+        final Task task;
+        long nextFireTime;
+        boolean cancelled;
+
+        FireEntry(String id, CronPattern pattern, Task task, long nextFireTime) {
+            this.id = id;
+            this.pattern = pattern;
+            this.task = task;
+            this.nextFireTime = nextFireTime;
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package pxf.tl.text.cron.pattern.matcher;
 
 
+import pxf.tl.date.Month;
 import pxf.tl.text.cron.pattern.Part;
 
 import java.time.Year;
@@ -151,6 +152,7 @@ public class PatternMatcher {
         calendar.set(Calendar.MILLISECOND, 0);
 
         final int[] newValues = nextMatchValuesAfter(values);
+        clampLastDayOfMonth(values, newValues);
         for (int i = 0; i < newValues.length; i++) {
             // 周无需设置
             if (i != Part.DAY_OF_WEEK.ordinal()) {
@@ -230,6 +232,27 @@ public class PatternMatcher {
         return newValues;
     }
 
+    /**
+     * 表达式定义了最后一天（31）时，将超出当月天数的日修正为当月最后一天，避免{@link Calendar}将日期滚动到下个月而跳过较短的月份<br>
+     * 给定时间已是当月最后一天时不修正，此时超出的日表示进入下个月
+     *
+     * @param values    给定的时间字段值
+     * @param newValues 下一个匹配的时间字段值，{second, minute, hour, dayOfMonth, month, dayOfWeek, year}
+     */
+    private void clampLastDayOfMonth(int[] values, int[] newValues) {
+        final int day = Part.DAY_OF_MONTH.ordinal();
+        final int month = Part.MONTH.ordinal();
+        final int year = Part.YEAR.ordinal();
+        final PartMatcher matcher = matchers[day];
+        if (newValues[day] > 28 && matcher instanceof DayOfMonthMatcher && matcher.test(31)) {
+            final int lastDay = Month.getLastDay(newValues[month] - 1, Year.isLeap(newValues[year]));
+            final boolean sameMonth = values[month] == newValues[month] && values[year] == newValues[year];
+            if (newValues[day] > lastDay && (false == sameMonth || values[day] < lastDay)) {
+                newValues[day] = lastDay;
+            }
+        }
+    }
+
     /**
      * 设置从{@link Part#SECOND}到指定部分，全部设置为最小值
      *
@@ -6,9 +6,11 @@ import pxf.tl.util.ToolThread;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * 系统计时器
+ * 系统计时器<br>
+ * 线程安全，任意线程都可以添加任务，添加任务和推进时间轮由同一把锁串行执行
  *
  * @author potatoxf
  */
@@ -23,6 +25,11 @@ public class SystemTimer {
      */
     private final DelayQueue<TimerTaskList> delayQueue = new DelayQueue<>();
 
+    /**
+     * 时间轮锁，{@link TimingWheel}本身非线程安全
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
     /**
      * 执行队列取元素超时时长，单位毫秒，默认100
      */
@@ -60,7 +67,7 @@ public class SystemTimer {
         bossThreadPool = ToolThread.newSingleExecutor();
         bossThreadPool.submit(
                 () -> {
-                    while (true) {
+                    while (false == Thread.currentThread().isInterrupted()) {
                         if (false == advanceClock()) {
                             break;
                         }
@@ -70,10 +77,13 @@ public class SystemTimer {
     }
 
     /**
-     * 强制结束
+     * 强制结束，中断轮询线程，未到期的任务不再执行
      */
     public void stop() {
-        this.bossThreadPool.shutdown();
+        final ExecutorService bossThreadPool = this.bossThreadPool;
+        if (null != bossThreadPool) {
+            bossThreadPool.shutdownNow();
+        }
     }
 
     /**
@@ -82,8 +92,15 @@ public class SystemTimer {
      * @param timerTask 任务
      */
     public void addTask(TimerTask timerTask) {
+        final boolean added;
+        lock.lock();
+        try {
+            added = timeWheel.addTask(timerTask);
+        } finally {
+            lock.unlock();
+        }
         // 添加失败任务直接执行
-        if (false == timeWheel.addTask(timerTask)) {
+        if (false == added) {
             ToolThread.execAsync(timerTask.getTask());
         }
     }
@@ -97,10 +114,15 @@ public class SystemTimer {
         try {
             TimerTaskList timerTaskList = poll();
             if (null != timerTaskList) {
-                // 推进时间
-                timeWheel.advanceClock(timerTaskList.getExpire());
-                // 执行过期任务（包含降级操作）
-                timerTaskList.flush(this::addTask);
+                lock.lock();
+                try {
+                    // 推进时间
+                    timeWheel.advanceClock(timerTaskList.getExpire());
+                    // 执行过期任务（包含降级操作）
+                    timerTaskList.flush(this::addTask);
+                } finally {
+                    lock.unlock();
+                }
             }
         } catch (InterruptedException ignore) {
             return false;
@@ -62,6 +62,16 @@ public class TimerTask {
         return delayMs;
     }
 
+    /**
+     * 取消任务，将任务从所在时间槽中移除
+     */
+    public void cancel() {
+        final TimerTaskList list = this.timerTaskList;
+        if (null != list) {
+            list.removeTask(this);
+        }
+    }
+
     @Override
     public String toString() {
         return desc;
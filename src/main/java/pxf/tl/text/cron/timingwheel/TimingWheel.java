@@ -8,7 +8,8 @@ import java.util.function.Consumer;
 /**
  * 多层时间轮，常用于延时任务。<br>
  * 时间轮是一种环形数据结构，由多个槽组成，每个槽中存放任务集合。<br>
- * 一个单独的线程推进时间一槽一槽的移动，并执行槽中的任务。
+ * 一个单独的线程推进时间一槽一槽的移动，并执行槽中的任务。<br>
+ * 此类非线程安全，多线程添加任务时需由调用方串行化{@link #addTask(TimerTask)}和{@link #advanceClock(long)}，参见{@link SystemTimer}
  *
  * @author potatoxf
  */
@@ -93,8 +94,8 @@ public class TimingWheel {
             long virtualId = expiration / tickMs;
             int index = (int) (virtualId % wheelSize);
 
-            if (LOGGER.isInfoEnabled()) {
-                LOGGER.info("tickMs: {} ------index: {} ------expiration: {}", tickMs, index, expiration);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("tickMs: {} ------index: {} ------expiration: {}", tickMs, index, expiration);
             }
             TimerTaskList timerTaskList = timerTaskLists[index];
             if (null == timerTaskList) {
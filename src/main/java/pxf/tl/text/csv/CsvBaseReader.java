@@ -2,6 +2,8 @@ package pxf.tl.text.csv;
 
 
 import pxf.tl.api.Charsets;
+import pxf.tl.concurrent.ExecutorBuilder;
+import pxf.tl.concurrent.ThreadFactoryBuilder;
 import pxf.tl.exception.IORuntimeException;
 import pxf.tl.help.Assert;
 import pxf.tl.help.Safe;
@@ -17,6 +19,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
 
 /**
  * CSV文件读取器基础类，提供灵活的文件、路径中的CSV读取，一次构造可多次调用读取不同数据，参考：FastCSV
@@ -245,6 +250,84 @@ public class CsvBaseReader implements Serializable {
         read(parse(reader), rowHandler);
     }
 
+    /**
+     * 多线程读取CSV文件，默认UTF-8编码，线程数为CPU核数
+     *
+     * @param path       CSV文件
+     * @param rowHandler 行处理器，无序时会在多个线程中同时调用，须线程安全
+     * @param ordered    是否按文件中的顺序处理
+     * @throws IORuntimeException IO异常
+     * @see #readParallel(Path, Charsets, CsvRowHandler, boolean, int)
+     */
+    public void readParallel(Path path, CsvRowHandler rowHandler, boolean ordered) throws IORuntimeException {
+        readParallel(path, DEFAULT_CHARSET, rowHandler, ordered, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 多线程读取CSV文件<br>
+     * 文件被映射到内存并按记录边界切分成块，多个块同时解析，引号内的换行不会被切开，行号与顺序读取一致。<br>
+     * 有序时按文件顺序在调用线程中处理行，同时解析的块数有上限；无序时每个块解析出的行直接在解析线程中处理。<br>
+     * 编码或分隔符不能按字节切分时（如UTF-16）退化为顺序读取。
+     *
+     * @param path        CSV文件
+     * @param charset     文件编码
+     * @param rowHandler  行处理器，无序时会在多个线程中同时调用，须线程安全
+     * @param ordered     是否按文件中的顺序处理
+     * @param parallelism 线程数
+     * @throws IORuntimeException IO异常
+     */
+    public void readParallel(Path path, Charsets charset, CsvRowHandler rowHandler, boolean ordered, int parallelism)
+            throws IORuntimeException {
+        Assert.notNull(path, "path must not be null");
+        if (parallelism <= 1 || !CsvParallelParser.isSupported(charset.get(), config)) {
+            read(FileUtil.getReader(path, charset), rowHandler);
+            return;
+        }
+        final ExecutorService executor = ExecutorBuilder.create()
+                .setCorePoolSize(parallelism)
+                .setMaxPoolSize(parallelism)
+                .setWorkQueue(new LinkedBlockingQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("csv-parallel-").setDaemon(true).build())
+                .build();
+        try {
+            new CsvParallelParser(path, charset.get(), config, CsvParallelParser.DEFAULT_CHUNK_SIZE, executor)
+                    .read(rowHandler, ordered, executor, parallelism * 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 创建多线程读取CSV文件的并行流，默认UTF-8编码
+     *
+     * @param path CSV文件
+     * @return {@link Stream}
+     * @throws IORuntimeException IO异常
+     * @see #parallelStream(Path, Charsets)
+     */
+    public Stream<CsvRow> parallelStream(Path path) throws IORuntimeException {
+        return parallelStream(path, DEFAULT_CHARSET);
+    }
+
+    /**
+     * 创建多线程读取CSV文件的并行流，各块在{@link java.util.concurrent.ForkJoinPool#commonPool()}中解析<br>
+     * 流是有序的，{@link Stream#forEachOrdered}按文件顺序处理，不关心顺序时调用{@link Stream#unordered()}效率更高。<br>
+     * 编码或分隔符不能按字节切分时（如UTF-16）退化为顺序流。
+     *
+     * @param path    CSV文件
+     * @param charset 文件编码
+     * @return {@link Stream}
+     * @throws IORuntimeException IO异常
+     */
+    public Stream<CsvRow> parallelStream(Path path, Charsets charset) throws IORuntimeException {
+        Assert.notNull(path, "path must not be null");
+        if (!CsvParallelParser.isSupported(charset.get(), config)) {
+            return CsvParallelParser.rows(parse(FileUtil.getReader(path, charset)));
+        }
+        return new CsvParallelParser(path, charset.get(), config, CsvParallelParser.DEFAULT_CHUNK_SIZE, null)
+                .stream();
+    }
+
     // ---------------------------------------------------------------------------------------------
     // Private method start
 
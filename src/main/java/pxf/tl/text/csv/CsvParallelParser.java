@@ -0,0 +1,506 @@
+package pxf.tl.text.csv;
+
+
+import pxf.tl.api.PoolOfCharacter;
+import pxf.tl.exception.IORuntimeException;
+import pxf.tl.help.Safe;
+import pxf.tl.util.ToolIO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 多线程CSV文件解析器<br>
+ * 将文件映射到内存，按记录边界切分为多个块，每个块由独立的{@link CsvParser}并行解析。
+ *
+ * <p>切分分两步：
+ * <ol>
+ *     <li>推测：将文件等分为若干区间并行扫描，由于区间起点处于引号内、注释行内或二者都不是无法预知，
+ *     对每种可能的起始状态各扫描一遍，得到区间内第一个记录边界和区间末尾的状态</li>
+ *     <li>确定：从文件开头的已知状态出发，依次用上一区间的末尾状态选出本区间的推测结果，得到真实的记录边界</li>
+ * </ol>
+ * 引号内的换行不会被当作记录边界，块的起点与从头解析时的记录起点完全一致，行号也与顺序解析相同。
+ *
+ * <p>只有分隔符、包装符、注释符和换行符在编码后为单个ASCII字节且不会出现在多字节字符中时才能按字节切分，
+ * 即UTF-8、US-ASCII及单字节编码，其它情况应使用顺序解析，见{@link #isSupported(Charset, CsvReadConfig)}。
+ *
+ * @author potatoxf
+ */
+final class CsvParallelParser {
+    /**
+     * 默认块大小
+     */
+    static final long DEFAULT_CHUNK_SIZE = 32L << 20;
+
+    private static final byte CR = PoolOfCharacter.CR;
+    private static final byte LF = PoolOfCharacter.LF;
+    /**
+     * 状态位：引号内
+     */
+    private static final int IN_QUOTES = 1;
+    /**
+     * 状态位：注释行内
+     */
+    private static final int IN_COMMENT = 2;
+    /**
+     * 推测的起始状态个数
+     */
+    private static final int STATE_COUNT = 4;
+
+    private final Charset charset;
+    private final CsvReadConfig config;
+    private final byte textDelimiter;
+    /**
+     * 注释符，{@link Integer#MIN_VALUE}表示无注释
+     */
+    private final int commentCharacter;
+    /**
+     * 切分后的块
+     */
+    private final List<Chunk> chunks;
+
+    /**
+     * 构造，映射文件并切分
+     *
+     * @param path      文件
+     * @param charset   编码
+     * @param config    配置项
+     * @param chunkSize 块大小
+     * @param executor  执行推测扫描的线程池，{@code null}表示使用并行流
+     * @throws IORuntimeException IO异常
+     */
+    CsvParallelParser(Path path, Charset charset, CsvReadConfig config, long chunkSize, ExecutorService executor)
+            throws IORuntimeException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be greater than 0");
+        }
+        this.charset = charset;
+        this.config = Safe.value(config, CsvReadConfig::defaultConfig);
+        this.textDelimiter = (byte) this.config.textDelimiter;
+        this.commentCharacter = null == this.config.commentCharacter ? Integer.MIN_VALUE : this.config.commentCharacter;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.chunks = split(channel, chunkSize, executor);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    /**
+     * 是否可以按字节切分
+     *
+     * @param charset 编码
+     * @param config  配置项
+     * @return 是否可以并行解析
+     */
+    static boolean isSupported(Charset charset, CsvReadConfig config) {
+        config = Safe.value(config, CsvReadConfig::defaultConfig);
+        if (config.fieldSeparator >= 0x80 || config.textDelimiter >= 0x80
+                || (null != config.commentCharacter && config.commentCharacter >= 0x80)) {
+            return false;
+        }
+        // UTF-8的多字节字符中每个字节都不小于0x80，单字节编码每个字符只有一个字节
+        return StandardCharsets.UTF_8.equals(charset)
+                || StandardCharsets.US_ASCII.equals(charset)
+                || (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1
+                && "\r\n".equals(new String("\r\n".getBytes(charset), StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * 块的个数
+     *
+     * @return 块的个数
+     */
+    int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * 读取所有行
+     *
+     * @param rowHandler 行处理器，无序时会在多个线程中同时调用，须线程安全
+     * @param ordered    是否按文件中的顺序处理
+     * @param executor   解析使用的线程池
+     * @param window     有序时最多同时解析的块数，用于限制内存占用
+     * @throws IORuntimeException IO异常
+     */
+    void read(CsvRowHandler rowHandler, boolean ordered, ExecutorService executor, int window)
+            throws IORuntimeException {
+        final Prefix prefix = readPrefix();
+        prefix.rows.forEach(rowHandler::handle);
+        final Deque<Future<List<CsvRow>>> futures = new ArrayDeque<>();
+        try {
+            if (ordered) {
+                drain(prefix.parser, rowHandler);
+                int next = prefix.nextChunk;
+                while (next < chunks.size() || !futures.isEmpty()) {
+                    while (next < chunks.size() && futures.size() < window) {
+                        final Chunk chunk = chunks.get(next++);
+                        futures.add(executor.submit(() -> {
+                            final List<CsvRow> rows = new ArrayList<>();
+                            drain(parser(chunk, prefix.header, prefix.firstLineFieldCount), rows::add);
+                            return rows;
+                        }));
+                    }
+                    getResult(futures.poll()).forEach(rowHandler::handle);
+                }
+            } else {
+                for (int i = prefix.nextChunk; i < chunks.size(); i++) {
+                    final Chunk chunk = chunks.get(i);
+                    futures.add(executor.submit(() -> {
+                        drain(parser(chunk, prefix.header, prefix.firstLineFieldCount), rowHandler);
+                        return null;
+                    }));
+                }
+                // 当前块在调用线程中解析，与其它块并行
+                drain(prefix.parser, rowHandler);
+                while (!futures.isEmpty()) {
+                    getResult(futures.poll());
+                }
+            }
+        } finally {
+            for (Future<List<CsvRow>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 创建并行流，所有块在{@link java.util.concurrent.ForkJoinPool#commonPool()}中并行解析<br>
+     * 流是有序的，使用{@link Stream#forEachOrdered(Consumer)}可按文件顺序处理，不关心顺序时调用{@link Stream#unordered()}效率更高
+     *
+     * @return {@link Stream}
+     */
+    Stream<CsvRow> stream() {
+        final Prefix prefix = readPrefix();
+        final Stream<CsvRow> head = Stream.concat(prefix.rows.stream(), rows(prefix.parser));
+        final Stream<CsvRow> tail = IntStream.range(prefix.nextChunk, chunks.size())
+                .parallel()
+                .mapToObj(chunks::get)
+                .flatMap(chunk -> rows(parser(chunk, prefix.header, prefix.firstLineFieldCount)));
+        return Stream.concat(head, tail).parallel();
+    }
+
+    /**
+     * 顺序解析开头的块，直到得到标题行和第一行字段数，之后的块才能并行解析
+     *
+     * @return 已解析的行及当前块的解析器
+     */
+    private Prefix readPrefix() {
+        final Prefix prefix = new Prefix();
+        for (; ; ) {
+            final CsvParser parser = parser(chunks.get(prefix.nextChunk++), prefix.header, prefix.firstLineFieldCount);
+            for (; ; ) {
+                final boolean resolved = (config.headerLineNo < 0 || null != prefix.header)
+                        && (!config.errorOnDifferentFieldCount || prefix.firstLineFieldCount >= 0);
+                if (resolved || prefix.nextChunk == chunks.size()) {
+                    prefix.parser = parser;
+                    return prefix;
+                }
+                final CsvRow row = parser.nextRow();
+                prefix.header = parser.getHeaderRow();
+                prefix.firstLineFieldCount = parser.getFirstLineFieldCount();
+                if (null == row) {
+                    ToolIO.closes(parser);
+                    break;
+                }
+                prefix.rows.add(row);
+            }
+        }
+    }
+
+    private CsvParser parser(Chunk chunk, CsvRow header, int firstLineFieldCount) {
+        final InputStreamReader reader = new InputStreamReader(new ByteBufferInputStream(chunk.buffer.duplicate()), charset);
+        return new CsvParser(reader, config, chunk.lineNo, header, firstLineFieldCount);
+    }
+
+    private static void drain(CsvParser parser, CsvRowHandler rowHandler) {
+        try {
+            CsvRow row;
+            while ((row = parser.nextRow()) != null) {
+                rowHandler.handle(row);
+            }
+        } finally {
+            ToolIO.closes(parser);
+        }
+    }
+
+    /**
+     * 将解析器转换为顺序流，流关闭时关闭解析器
+     *
+     * @param parser 解析器
+     * @return {@link Stream}
+     */
+    static Stream<CsvRow> rows(CsvParser parser) {
+        final Spliterator<CsvRow> spliterator =
+                new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                    @Override
+                    public boolean tryAdvance(Consumer<? super CsvRow> action) {
+                        final CsvRow row = parser.nextRow();
+                        if (null == row) {
+                            return false;
+                        }
+                        action.accept(row);
+                        return true;
+                    }
+                };
+        return StreamSupport.stream(spliterator, false).onClose(() -> ToolIO.closes(parser));
+    }
+
+    private static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IORuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IORuntimeException(cause);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Split start
+
+    /**
+     * 推测并确定记录边界，映射每个块
+     */
+    private List<Chunk> split(FileChannel channel, long chunkSize, ExecutorService executor) throws IOException {
+        final long size = channel.size();
+        final int rangeCount = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        final Speculation[] speculations = new Speculation[rangeCount];
+        if (rangeCount == 1) {
+            speculations[0] = speculate(channel, 0, size);
+        } else if (null == executor) {
+            IntStream.range(0, rangeCount).parallel().forEach(i -> speculations[i] = speculate(channel,
+                    i * chunkSize, Math.min(size, (i + 1) * chunkSize)));
+        } else {
+            final List<Future<Speculation>> futures = new ArrayList<>(rangeCount);
+            for (int i = 0; i < rangeCount; i++) {
+                final long start = i * chunkSize;
+                futures.add(executor.submit(() -> speculate(channel, start, Math.min(size, start + chunkSize))));
+            }
+            for (int i = 0; i < rangeCount; i++) {
+                speculations[i] = getResult(futures.get(i));
+            }
+        }
+
+        // 从文件开头的已知状态出发，确定每个区间的真实边界
+        final List<Chunk> result = new ArrayList<>();
+        long chunkStart = 0;
+        long chunkLineNo = 0;
+        long lines = 0;
+        int state = 0;
+        for (int i = 0; i < rangeCount; i++) {
+            final Speculation speculation = speculations[i];
+            if (i > 0 && speculation.boundaries[state] >= 0 && speculation.boundaries[state] < size) {
+                final long boundary = speculation.boundaries[state];
+                result.add(map(channel, chunkStart, boundary, chunkLineNo));
+                chunkStart = boundary;
+                chunkLineNo = lines + speculation.linesBefore[state];
+            }
+            lines += speculation.lines;
+            state = speculation.endStates[state];
+        }
+        result.add(map(channel, chunkStart, size, chunkLineNo));
+        return result;
+    }
+
+    /**
+     * 推测扫描一个区间
+     */
+    private Speculation speculate(FileChannel channel, long start, long end) {
+        // 多映射前后各一个字节，用于判断行首和\r\n
+        final long from = Math.max(0, start - 1);
+        final long to = Math.min(channelSize(channel), end + 1);
+        final MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        final int offset = (int) (start - from);
+        final int limit = (int) (end - from);
+        final int preByte = offset > 0 ? buffer.get(offset - 1) : -1;
+        final Speculation speculation = new Speculation();
+        for (int state = 0; state < STATE_COUNT; state++) {
+            scan(buffer, offset, limit, preByte, state, from, speculation);
+        }
+        return speculation;
+    }
+
+    /**
+     * 从给定的起始状态扫描区间，状态转换与{@link CsvParser}一致
+     */
+    private void scan(ByteBuffer buffer, int offset, int limit, int preByte, int startState,
+                      long base, Speculation speculation) {
+        int state = startState;
+        int pre = preByte;
+        long lines = 0;
+        long boundary = -1;
+        long linesBefore = 0;
+        for (int i = offset; i < limit; i++) {
+            final int c = buffer.get(i);
+            if ((pre < 0 || pre == CR || pre == LF) && c == commentCharacter) {
+                state |= IN_COMMENT;
+            }
+            final boolean lineEnd = c == CR || (c == LF && pre != CR);
+            if ((state & IN_COMMENT) != 0) {
+                if (c == CR || c == LF) {
+                    state &= ~IN_COMMENT;
+                }
+            } else if (c == textDelimiter) {
+                state ^= IN_QUOTES;
+            }
+            if (lineEnd) {
+                lines++;
+                if (boundary < 0 && state == 0) {
+                    // \r\n不能拆开，边界在\n之后
+                    int next = i + 1;
+                    if (c == CR && next < buffer.limit() && buffer.get(next) == LF) {
+                        next++;
+                    }
+                    boundary = base + next;
+                    linesBefore = lines;
+                }
+            }
+            pre = c;
+        }
+        speculation.boundaries[startState] = boundary;
+        speculation.linesBefore[startState] = linesBefore;
+        speculation.endStates[startState] = state;
+        speculation.lines = lines;
+    }
+
+    private Chunk map(FileChannel channel, long start, long end, long lineNo) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IORuntimeException("CSV record at line {} is too large to be split", lineNo);
+        }
+        return new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), lineNo);
+    }
+
+    private static long channelSize(FileChannel channel) {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+    // ---------------------------------------------------------------------------------------------
+    // Split end
+
+    /**
+     * 区间的推测结果，按起始状态索引
+     */
+    private static final class Speculation {
+        /**
+         * 区间内第一个记录边界的文件偏移，-1表示没有
+         */
+        final long[] boundaries = new long[STATE_COUNT];
+        /**
+         * 区间起点到第一个记录边界之间的行数
+         */
+        final long[] linesBefore = new long[STATE_COUNT];
+        /**
+         * 区间末尾的状态
+         */
+        final int[] endStates = new int[STATE_COUNT];
+        /**
+         * 区间内的行数，与起始状态无关
+         */
+        long lines;
+    }
+
+    /**
+     * 从记录边界开始的块
+     */
+    private static final class Chunk {
+        final MappedByteBuffer buffer;
+        /**
+         * 块第一行的原始行号
+         */
+        final long lineNo;
+
+        Chunk(MappedByteBuffer buffer, long lineNo) {
+            this.buffer = buffer;
+            this.lineNo = lineNo;
+        }
+    }
+
+    /**
+     * 顺序解析的开头部分
+     */
+    private static final class Prefix {
+        final List<CsvRow> rows = new ArrayList<>();
+        CsvRow header;
+        int firstLineFieldCount = -1;
+        /**
+         * 当前块的解析器，剩余的行尚未读取
+         */
+        CsvParser parser;
+        /**
+         * 下一个待解析的块
+         */
+        int nextChunk;
+    }
+
+    /**
+     * 读取{@link ByteBuffer}的输入流
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -7,8 +7,6 @@ import pxf.tl.exception.IORuntimeException;
 import pxf.tl.help.Safe;
 import pxf.tl.help.Whether;
 import pxf.tl.iter.AbstractIter;
-import pxf.tl.lang.TextBuilder;
-import pxf.tl.util.ToolString;
 
 import java.io.*;
 import java.util.*;
@@ -16,22 +14,23 @@ import java.util.*;
 /**
  * CSV行解析器，参考：FastCSV
  *
+ * <p>{@link #nextRow()}每行创建新的{@link CsvRow}，{@link #nextCursor()}返回复用的{@link CsvRowCursor}，
+ * 不为字段创建字符串，适合只读取部分列或数值列的大文件。
+ *
  * @author potatoxf
  */
 public final class CsvParser extends AbstractIter<CsvRow> implements Closeable, Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private static final int DEFAULT_ROW_CAPACITY = 10;
-
     private final Reader reader;
     private final CsvReadConfig config;
 
     private final Buffer buf = new Buffer(JavaEnvironment.DEFAULT_LARGE_BUFFER_SIZE);
     /**
-     * 当前读取字段
+     * 当前读取行，每行复用
      */
-    private final TextBuilder currentField = TextBuilder.of(512);
+    private final CsvRowCursor cursor;
     /**
      * 前一个特殊分界字符
      */
@@ -57,9 +56,9 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
      */
     private int firstLineFieldCount = -1;
     /**
-     * 最大字段数量，用于初始化行，减少扩容
+     * 按标题名选择的列，标题解析后转换为列号
      */
-    private int maxFieldCount;
+    private String[] selectedNames;
     /**
      * 是否读取结束
      */
@@ -72,8 +71,58 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
      * @param config 配置，null则为默认配置
      */
     public CsvParser(final Reader reader, CsvReadConfig config) {
+        this(reader, config, 0, null, -1);
+    }
+
+    /**
+     * CSV解析器，用于从文件中间的某一行开始解析，沿用之前解析得到的标题和字段数
+     *
+     * @param reader              Reader
+     * @param config              配置，null则为默认配置
+     * @param firstLineNo         第一行的原始行号
+     * @param header              已解析的标题行，null表示尚未解析
+     * @param firstLineFieldCount 已解析的第一行字段数，-1表示尚未解析
+     */
+    CsvParser(final Reader reader, CsvReadConfig config, long firstLineNo, CsvRow header, int firstLineFieldCount) {
         this.reader = Objects.requireNonNull(reader, "reader must not be null");
         this.config = Safe.value(config, CsvReadConfig::defaultConfig);
+        this.cursor = new CsvRowCursor(this.config);
+        this.lineNo = firstLineNo - 1;
+        this.header = header;
+        this.firstLineFieldCount = firstLineFieldCount;
+        if (null != header) {
+            this.cursor.setHeaderMap(header.headerMap);
+        }
+    }
+
+    /**
+     * 只读取指定的列，未选择的列不做去包装和去转义处理，{@link #nextRow()}中为{@code null}，
+     * {@link CsvRowCursor}中访问时抛出{@link IllegalStateException}<br>
+     * 标题行同样只读取选择的列
+     *
+     * @param columns 列号，从0开始，为空表示全部列
+     * @return this
+     */
+    public CsvParser selectColumns(int... columns) {
+        this.selectedNames = null;
+        this.cursor.setSelected(Whether.empty(columns) ? null : columns);
+        return this;
+    }
+
+    /**
+     * 只读取指定标题名的列，标题行读取全部列，之后的行只读取选择的列
+     *
+     * @param names 标题名，为空表示全部列
+     * @return this
+     * @see #selectColumns(int...)
+     */
+    public CsvParser selectColumns(String... names) {
+        this.cursor.setSelected(null);
+        this.selectedNames = Whether.empty(names) ? null : names;
+        if (null != this.selectedNames && null != header) {
+            selectHeaderColumns();
+        }
+        return this;
     }
 
     /**
@@ -92,6 +141,24 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
         return header.fields;
     }
 
+    /**
+     * 获取标题行，尚未解析时返回{@code null}
+     *
+     * @return 标题行
+     */
+    CsvRow getHeaderRow() {
+        return header;
+    }
+
+    /**
+     * 获取第一行字段数，尚未解析时返回-1
+     *
+     * @return 第一行字段数
+     */
+    int getFirstLineFieldCount() {
+        return firstLineFieldCount;
+    }
+
     @Override
     protected CsvRow doNext() {
         return nextRow();
@@ -104,13 +171,32 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
      * @throws IORuntimeException IO读取异常
      */
     public CsvRow nextRow() throws IORuntimeException {
-        List<String> currentFields;
+        return advance() ? new CsvRow(lineNo, null == header ? null : header.headerMap, cursor.toList()) : null;
+    }
+
+    /**
+     * 读取下一行数据到复用的游标中，游标只在读取下一行之前有效
+     *
+     * @return 复用的{@link CsvRowCursor}，读取结束返回{@code null}
+     * @throws IORuntimeException IO读取异常
+     */
+    public CsvRowCursor nextCursor() throws IORuntimeException {
+        return advance() ? cursor : null;
+    }
+
+    /**
+     * 读取下一个有效行到游标中
+     *
+     * @return 是否读取到
+     * @throws IORuntimeException IO读取异常
+     */
+    private boolean advance() throws IORuntimeException {
+        final CsvRowCursor cursor = this.cursor;
         int fieldCount;
         while (false == finished) {
-            currentFields = readLine();
-            fieldCount = currentFields.size();
+            fieldCount = readLine();
             if (fieldCount < 1) {
-                // 空List表示读取结束
+                // 0表示读取结束
                 break;
             }
 
@@ -125,7 +211,7 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
             }
 
             // 跳过空行
-            if (config.skipEmptyRows && fieldCount == 1 && Whether.empty(currentFields.get(0))) {
+            if (config.skipEmptyRows && cursor.isEmptyRow()) {
                 // [""]表示空行
                 continue;
             }
@@ -142,22 +228,18 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
                 }
             }
 
-            // 记录最大字段数
-            if (fieldCount > maxFieldCount) {
-                maxFieldCount = fieldCount;
-            }
-
             // 初始化标题
             if (lineNo == config.headerLineNo && null == header) {
-                initHeader(currentFields);
+                initHeader(cursor.toList());
                 // 作为标题行后，此行跳过，下一行做为第一行
                 continue;
             }
 
-            return new CsvRow(lineNo, null == header ? null : header.headerMap, currentFields);
+            cursor.setLineNo(lineNo);
+            return true;
         }
 
-        return null;
+        return false;
     }
 
     /**
@@ -183,18 +265,37 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
                         this.lineNo,
                         Collections.unmodifiableMap(localHeaderMap),
                         Collections.unmodifiableList(currentFields));
+        cursor.setHeaderMap(header.headerMap);
+        if (null != selectedNames) {
+            selectHeaderColumns();
+        }
     }
 
     /**
-     * 读取一行数据，如果读取结束，返回size为0的List<br>
-     * 空行是size为1的List，唯一元素是""
+     * 将按标题名选择的列转换为列号
+     */
+    private void selectHeaderColumns() {
+        final int[] columns = new int[selectedNames.length];
+        for (int i = 0; i < columns.length; i++) {
+            final Integer column = header.headerMap.get(selectedNames[i]);
+            if (null == column) {
+                throw new IllegalArgumentException("No header named: " + selectedNames[i]);
+            }
+            columns[i] = column;
+        }
+        cursor.setSelected(columns);
+    }
+
+    /**
+     * 读取一行数据到游标中，如果读取结束，返回0<br>
+     * 空行是只有一个空字段的行
      *
      * <p>行号要考虑注释行和引号包装的内容中的换行
      *
-     * @return 一行数据
+     * @return 字段数
      * @throws IORuntimeException IO异常
      */
-    private List<String> readLine() throws IORuntimeException {
+    private int readLine() throws IORuntimeException {
         // 矫正行号
         // 当一行内容包含多行数据时，记录首行行号，但是读取下一行时，需要把多行内容的行数加上
         if (inQuotesLineCount > 0) {
@@ -202,10 +303,8 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
             this.inQuotesLineCount = 0;
         }
 
-        final List<String> currentFields =
-                new ArrayList<>(maxFieldCount > 0 ? maxFieldCount : DEFAULT_ROW_CAPACITY);
-
-        final TextBuilder currentField = this.currentField;
+        final CsvRowCursor cursor = this.cursor;
+        cursor.reset();
         final Buffer buf = this.buf;
         int preChar = this.preChar; // 前一个特殊分界字符
         int copyLen = 0; // 拷贝长度
@@ -215,16 +314,16 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
             if (false == buf.hasRemaining()) {
                 // 此Buffer读取结束，开始读取下一段
                 if (copyLen > 0) {
-                    buf.appendTo(currentField, copyLen);
+                    buf.appendTo(cursor, copyLen);
                     // 此处无需mark，read方法会重置mark
                 }
                 if (buf.read(this.reader) < 0) {
                     // CSV读取结束
                     finished = true;
 
-                    if (currentField.length() != 0 || preChar == config.fieldSeparator) {
+                    if (cursor.hasPendingField() || preChar == config.fieldSeparator) {
                         // 剩余部分作为一个字段
-                        addField(currentFields, currentField.toStringAndReset());
+                        cursor.endField();
                     }
                     break;
                 }
@@ -274,11 +373,11 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
                 if (c == config.fieldSeparator) {
                     // 一个字段结束
                     if (copyLen > 0) {
-                        buf.appendTo(currentField, copyLen);
+                        buf.appendTo(cursor, copyLen);
                         copyLen = 0;
                     }
                     buf.mark();
-                    addField(currentFields, currentField.toStringAndReset());
+                    cursor.endField();
                 } else if (c == config.textDelimiter) {
                     // 引号开始
                     inQuotes = true;
@@ -286,20 +385,20 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
                 } else if (c == PoolOfCharacter.CR) {
                     // \r，直接结束
                     if (copyLen > 0) {
-                        buf.appendTo(currentField, copyLen);
+                        buf.appendTo(cursor, copyLen);
                     }
                     buf.mark();
-                    addField(currentFields, currentField.toStringAndReset());
+                    cursor.endField();
                     preChar = c;
                     break;
                 } else if (c == PoolOfCharacter.LF) {
                     // \n
                     if (preChar != PoolOfCharacter.CR) {
                         if (copyLen > 0) {
-                            buf.appendTo(currentField, copyLen);
+                            buf.appendTo(cursor, copyLen);
                         }
                         buf.mark();
-                        addField(currentFields, currentField.toStringAndReset());
+                        cursor.endField();
                         preChar = c;
                         break;
                     }
@@ -318,7 +417,7 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
         this.preChar = preChar;
 
         lineNo++;
-        return currentFields;
+        return cursor.getFieldCount();
     }
 
     @Override
@@ -326,27 +425,6 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
         reader.close();
     }
 
-    /**
-     * 将字段加入字段列表并自动去包装和去转义
-     *
-     * @param currentFields 当前的字段列表（即为行）
-     * @param field         字段
-     */
-    private void addField(List<String> currentFields, String field) {
-        final char textDelimiter = this.config.textDelimiter;
-
-        // 忽略多余引号后的换行符
-        field = ToolString.trim(field, 1, (c -> c == PoolOfCharacter.LF || c == PoolOfCharacter.CR));
-
-        field = ToolString.unWrap(field, textDelimiter);
-        field = ToolString.replace(field, "" + textDelimiter + textDelimiter, textDelimiter + "");
-        if (this.config.trimField) {
-            // issue#I49M0C@Gitee
-            field = ToolString.trim(field);
-        }
-        currentFields.add(field);
-    }
-
     /**
      * 是否行结束符
      *
@@ -432,14 +510,14 @@ public final class CsvParser extends AbstractIter<CsvRow> implements Closeable,
         }
 
         /**
-         * 将数据追加到{@link StringBuilder}，追加结束后需手动调用{@link #mark()} 重置读取位置
+         * 将数据追加到{@link CsvRowCursor}，追加结束后需手动调用{@link #mark()} 重置读取位置
          *
-         * @param builder {@link StringBuilder}
-         * @param length  追加的长度
+         * @param cursor {@link CsvRowCursor}
+         * @param length 追加的长度
          * @see #mark()
          */
-        void appendTo(TextBuilder builder, int length) {
-            builder.append(this.buf, this.mark, length);
+        void appendTo(CsvRowCursor cursor, int length) {
+            cursor.append(this.buf, this.mark, length);
         }
     }
 }
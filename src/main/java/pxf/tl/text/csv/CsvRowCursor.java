@@ -0,0 +1,495 @@
+package pxf.tl.text.csv;
+
+
+import pxf.tl.api.PoolOfCharacter;
+import pxf.tl.api.Sized;
+import pxf.tl.help.Assert;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可复用的CSV行游标，由{@link CsvParser#nextCursor()}返回<br>
+ * 一行的所有字段去包装、去转义后依次存放在同一个字符数组中，游标只记录每个字段的起止位置，读取下一行时复用，不创建任何对象。
+ *
+ * <p>{@link #get(int)}返回的字段视图和游标本身只在读取下一行之前有效，需要保留的字段应调用{@link #getString(int)}
+ * 或{@link #toRow()}复制出来。{@link #getInt(int)}等方法直接从字符数组中解析，不创建字符串。
+ *
+ * <p>通过{@link CsvParser#selectColumns(int...)}选择列后，未选择的列不做去包装和去转义处理，也不保存内容，
+ * 访问时抛出{@link IllegalStateException}。
+ *
+ * @author potatoxf
+ */
+public final class CsvRowCursor implements Sized, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_ROW_CAPACITY = 10;
+    /**
+     * 可精确表示的10的幂
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final char textDelimiter;
+    private final boolean trimField;
+    /**
+     * 当前行所有字段的内容
+     */
+    private char[] chars = new char[512];
+    /**
+     * 已使用的长度
+     */
+    private int length;
+    /**
+     * 正在读取的字段在{@link #chars}中的起始位置
+     */
+    private int fieldStart;
+    private int[] starts = new int[DEFAULT_ROW_CAPACITY];
+    private int[] ends = new int[DEFAULT_ROW_CAPACITY];
+    private int fieldCount;
+    /**
+     * 选择的列，{@code null}表示全部
+     */
+    private boolean[] selected;
+    /**
+     * 已创建的字段字符串
+     */
+    private transient String[] strings;
+    /**
+     * 字段视图，按列复用
+     */
+    private transient FieldView[] views;
+    private long lineNo;
+    private Map<String, Integer> headerMap;
+
+    /**
+     * 构造
+     *
+     * @param config 配置项
+     */
+    CsvRowCursor(CsvReadConfig config) {
+        this.textDelimiter = config.textDelimiter;
+        this.trimField = config.trimField;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Parser start
+
+    /**
+     * 开始新的一行
+     */
+    void reset() {
+        if (null != strings) {
+            Arrays.fill(strings, 0, Math.min(fieldCount, strings.length), null);
+        }
+        length = 0;
+        fieldStart = 0;
+        fieldCount = 0;
+    }
+
+    /**
+     * 追加当前字段的原始内容
+     */
+    void append(char[] source, int offset, int len) {
+        if (length + len > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length << 1, length + len));
+        }
+        System.arraycopy(source, offset, chars, length, len);
+        length += len;
+    }
+
+    /**
+     * 当前字段是否已有内容
+     */
+    boolean hasPendingField() {
+        return length > fieldStart;
+    }
+
+    /**
+     * 结束当前字段，就地去除末尾换行符、去包装、去转义，按配置去除两边空白符<br>
+     * 未选择的列直接丢弃，第一列总是处理，用于判断空行
+     */
+    void endField() {
+        final int index = fieldCount;
+        if (index == starts.length) {
+            starts = Arrays.copyOf(starts, index << 1);
+            ends = Arrays.copyOf(ends, index << 1);
+        }
+        fieldCount = index + 1;
+        if (index > 0 && !isSelected(index)) {
+            starts[index] = -1;
+            ends[index] = -1;
+            length = fieldStart;
+            return;
+        }
+        final char[] chars = this.chars;
+        final char delimiter = this.textDelimiter;
+        int start = fieldStart;
+        int end = length;
+        // 忽略多余引号后的换行符
+        while (end > start && (chars[end - 1] == PoolOfCharacter.LF || chars[end - 1] == PoolOfCharacter.CR)) {
+            end--;
+        }
+        if (end - start >= 2 && chars[start] == delimiter && chars[end - 1] == delimiter) {
+            start++;
+            end--;
+        }
+        // 两个包装符转义为一个
+        int write = start;
+        for (int read = start; read < end; read++) {
+            final char c = chars[read];
+            chars[write++] = c;
+            if (c == delimiter && read + 1 < end && chars[read + 1] == delimiter) {
+                read++;
+            }
+        }
+        end = write;
+        if (trimField) {
+            while (start < end && chars[start] <= ' ') {
+                start++;
+            }
+            while (end > start && chars[end - 1] <= ' ') {
+                end--;
+            }
+        }
+        starts[index] = start;
+        ends[index] = end;
+        length = end;
+        fieldStart = end;
+    }
+
+    /**
+     * 设置选择的列
+     *
+     * @param columns 列号，{@code null}表示全部
+     */
+    void setSelected(int[] columns) {
+        if (null == columns) {
+            this.selected = null;
+            return;
+        }
+        int max = -1;
+        for (int column : columns) {
+            Assert.isTrue(column >= 0, "Column must be greater than or equal to 0: {}", column);
+            max = Math.max(max, column);
+        }
+        final boolean[] selected = new boolean[max + 1];
+        for (int column : columns) {
+            selected[column] = true;
+        }
+        this.selected = selected;
+    }
+
+    void setLineNo(long lineNo) {
+        this.lineNo = lineNo;
+    }
+
+    void setHeaderMap(Map<String, Integer> headerMap) {
+        this.headerMap = headerMap;
+    }
+
+    /**
+     * 是否为空行，即只有一个空字段
+     */
+    boolean isEmptyRow() {
+        return fieldCount == 1 && starts[0] == ends[0];
+    }
+    // ---------------------------------------------------------------------------------------------
+    // Parser end
+
+    /**
+     * 获取原始行号，多行情况下为首行行号
+     *
+     * @return 行号
+     */
+    public long getOriginalLineNumber() {
+        return lineNo;
+    }
+
+    /**
+     * 获取字段数，包括未选择的列
+     *
+     * @return 字段数
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    @Override
+    public int size() {
+        return fieldCount;
+    }
+
+    /**
+     * 列是否被选择
+     *
+     * @param col 列号
+     * @return 是否被选择
+     */
+    public boolean isSelected(int col) {
+        return null == selected || (col < selected.length && selected[col]);
+    }
+
+    /**
+     * 获取字段长度
+     *
+     * @param col 列号
+     * @return 长度
+     */
+    public int length(int col) {
+        checkColumn(col);
+        return ends[col] - starts[col];
+    }
+
+    /**
+     * 获取字段视图，不复制内容，只在读取下一行之前有效
+     *
+     * @param col 列号
+     * @return 字段视图
+     */
+    public CharSequence get(int col) {
+        checkColumn(col);
+        if (null == views || col >= views.length) {
+            views = null == views ? new FieldView[Math.max(col + 1, DEFAULT_ROW_CAPACITY)] : Arrays.copyOf(views, Math.max(col + 1, views.length << 1));
+        }
+        FieldView view = views[col];
+        if (null == view) {
+            view = views[col] = new FieldView(col);
+        }
+        return view;
+    }
+
+    /**
+     * 获取字段字符串，同一行中多次获取返回同一个对象
+     *
+     * @param col 列号
+     * @return 字段值
+     */
+    public String getString(int col) {
+        checkColumn(col);
+        if (null == strings || col >= strings.length) {
+            strings = null == strings ? new String[Math.max(fieldCount, DEFAULT_ROW_CAPACITY)] : Arrays.copyOf(strings, Math.max(fieldCount, strings.length << 1));
+        }
+        String value = strings[col];
+        if (null == value) {
+            value = strings[col] = new String(chars, starts[col], ends[col] - starts[col]);
+        }
+        return value;
+    }
+
+    /**
+     * 获取标题对应的字段视图
+     *
+     * @param name 标题名
+     * @return 字段视图，null表示无此字段
+     * @throws IllegalStateException CSV文件无标题行抛出此异常
+     */
+    public CharSequence getByName(String name) {
+        final int col = columnOf(name);
+        return col < 0 ? null : get(col);
+    }
+
+    /**
+     * 获取标题对应的字段字符串
+     *
+     * @param name 标题名
+     * @return 字段值，null表示无此字段
+     * @throws IllegalStateException CSV文件无标题行抛出此异常
+     */
+    public String getStringByName(String name) {
+        final int col = columnOf(name);
+        return col < 0 ? null : getString(col);
+    }
+
+    /**
+     * 直接从缓冲区解析int
+     *
+     * @param col 列号
+     * @return int值
+     * @throws NumberFormatException 字段不是int
+     */
+    public int getInt(int col) {
+        final long value = getLong(col);
+        if (value != (int) value) {
+            throw numberFormatException(col);
+        }
+        return (int) value;
+    }
+
+    /**
+     * 直接从缓冲区解析long
+     *
+     * @param col 列号
+     * @return long值
+     * @throws NumberFormatException 字段不是long
+     */
+    public long getLong(int col) {
+        checkColumn(col);
+        final char[] chars = this.chars;
+        final int end = ends[col];
+        int i = starts[col];
+        if (i >= end) {
+            throw numberFormatException(col);
+        }
+        boolean negative = false;
+        final char first = chars[i];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end) {
+                throw numberFormatException(col);
+            }
+        }
+        // 按负数累加，避免Long.MIN_VALUE溢出
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            final int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyMin) {
+                throw numberFormatException(col);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormatException(col);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * 解析double，不超过15位有效数字且小数位不超过22位的普通小数直接从缓冲区精确计算，其余交给{@link Double#parseDouble(String)}
+     *
+     * @param col 列号
+     * @return double值
+     * @throws NumberFormatException 字段不是double
+     */
+    public double getDouble(int col) {
+        checkColumn(col);
+        final char[] chars = this.chars;
+        final int end = ends[col];
+        int i = starts[col];
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        boolean anyDigit = false;
+        boolean simple = true;
+        for (; simple && i < end; i++) {
+            final char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (mantissa != 0 || c != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (dot) {
+                    scale++;
+                }
+                simple = digits <= 15 && scale < POWERS_OF_TEN.length;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                simple = false;
+            }
+        }
+        if (simple && anyDigit) {
+            final double value = mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(getString(col));
+    }
+
+    /**
+     * 复制为{@link CsvRow}，未选择的列为{@code null}
+     *
+     * @return {@link CsvRow}
+     */
+    public CsvRow toRow() {
+        return new CsvRow(lineNo, headerMap, toList());
+    }
+
+    /**
+     * 复制为字段列表，未选择的列为{@code null}
+     *
+     * @return 字段列表
+     */
+    List<String> toList() {
+        final List<String> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(isSelected(i) ? getString(i) : null);
+        }
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    private int columnOf(String name) {
+        Assert.notNull(this.headerMap, "No header available!");
+        final Integer col = headerMap.get(name);
+        return null == col ? -1 : col;
+    }
+
+    private void checkColumn(int col) {
+        if (col < 0 || col >= fieldCount) {
+            throw new IndexOutOfBoundsException("Column " + col + " out of bounds for field count " + fieldCount);
+        }
+        if (!isSelected(col)) {
+            throw new IllegalStateException("Column " + col + " is not selected");
+        }
+    }
+
+    private NumberFormatException numberFormatException(int col) {
+        return new NumberFormatException("For input string: \"" + getString(col) + "\"");
+    }
+
+    /**
+     * 字段视图，读取游标当前行对应列的内容
+     */
+    private final class FieldView implements CharSequence {
+        private final int col;
+
+        FieldView(int col) {
+            this.col = col;
+        }
+
+        @Override
+        public int length() {
+            return CsvRowCursor.this.length(col);
+        }
+
+        @Override
+        public char charAt(int index) {
+            final int start = starts[col];
+            if (index < 0 || index >= ends[col] - start) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (ends[col] - start));
+            }
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return getString(col).substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return getString(col);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import pxf.tl.date.DateTime;
 import pxf.tl.date.DateUtil;
 import pxf.tl.exception.UtilException;
 import pxf.tl.help.Whether;
+import pxf.tl.lang.AliasWeightRandom;
 import pxf.tl.lang.WeightRandom;
 
 import java.math.BigDecimal;
@@ -575,6 +576,28 @@ public final class ToolRandom {
         return new WeightRandom<>(weightObjs);
     }
 
+    /**
+     * 带有权重的不可变随机生成器，每次随机为O(1)
+     *
+     * @param <T>        随机对象类型
+     * @param weightObjs 带有权重的对象列表
+     * @return {@link AliasWeightRandom}
+     */
+    public static <T> AliasWeightRandom<T> aliasWeightRandom(MutableObjectNumber<T>[] weightObjs) {
+        return new AliasWeightRandom<>(weightObjs);
+    }
+
+    /**
+     * 带有权重的不可变随机生成器，每次随机为O(1)
+     *
+     * @param <T>        随机对象类型
+     * @param weightObjs 带有权重的对象列表
+     * @return {@link AliasWeightRandom}
+     */
+    public static <T> AliasWeightRandom<T> aliasWeightRandom(Iterable<MutableObjectNumber<T>> weightObjs) {
+        return new AliasWeightRandom<>(weightObjs);
+    }
+
     /**
      * 以当天为基准，随机产生一个日期
      *
@@ -26,16 +26,25 @@ package pxf.tlx.mybatis;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.SimpleExecutor;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+import pxf.tl.api.PageList;
+import pxf.tl.cache.CacheUtil;
+import pxf.tl.concurrent.ExecutorBuilder;
+import pxf.tl.concurrent.ThreadFactoryBuilder;
 import pxf.tl.help.Whether;
 import pxf.tl.util.ToolBytecode;
 import pxf.tlx.mybatis.page.BoundSqlInterceptor;
 import pxf.tlx.mybatis.page.Dialect;
 import pxf.tlx.mybatis.page.PageException;
+import pxf.tlx.mybatis.page.PageHelper;
 import pxf.tlx.mybatis.page.cache.Cache;
 import pxf.tlx.mybatis.page.cache.CacheFactory;
 import pxf.tlx.mybatis.page.util.ExecutorUtil;
@@ -45,9 +54,20 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Mybatis - 通用分页拦截器
+ * <p>
+ * 通过 {@link PageHelper#startPage(int, int, boolean, long)} 可以让 count 查询在单独的连接上与分页查询并行执行，
+ * 并缓存相同 SQL 和参数的 count 结果。支持以下配置：
+ * <ul>
+ *     <li>asyncCountThreads：执行 count 查询的线程数，默认为 CPU 核数，也可以通过 {@link #setCountExecutor(ExecutorService)} 指定线程池</li>
+ *     <li>countCache.size：最多缓存的 count 结果数量，默认 1000</li>
+ * </ul>
  *
  * @author potatoxf
  */
@@ -63,6 +83,11 @@ public class PageInterceptor implements Interceptor {
     protected Cache<String, MappedStatement> msCountMap = null;
     private volatile Dialect dialect;
     private String countSuffix = "_COUNT";
+    //count 结果缓存，每个结果的过期时间由分页参数指定
+    private pxf.tl.cache.Cache<CacheKey, Integer> countCache;
+    //执行并行 count 查询的线程池
+    private volatile ExecutorService countExecutor;
+    private int asyncCountThreads = Runtime.getRuntime().availableProcessors();
 
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
@@ -94,17 +119,40 @@ public class PageInterceptor implements Interceptor {
             //调用方法判断是否需要进行分页，如果不需要，直接返回结果
             if (!dialect.skip(ms, parameter, rowBounds)) {
                 //判断是否需要进行 count 查询
+                resultList = null;
                 if (dialect.beforeCount(ms, parameter, rowBounds)) {
+                    PageList<?> pageList = PageHelper.getLocalPage();
+                    CountQuery countQuery = prepareCount(executor, ms, parameter, rowBounds, boundSql);
                     //查询总数
-                    Integer count = count(executor, ms, parameter, rowBounds, null, boundSql);
+                    Integer count = getCachedCount(pageList, countQuery);
+                    if (count == null) {
+                        if (isAsyncCount(pageList)) {
+                            //count 查询和分页查询并行执行
+                            Future<Integer> countFuture = submitCount(ms.getConfiguration(), parameter, countQuery);
+                            try {
+                                resultList = ExecutorUtil.pageQuery(dialect, executor,
+                                        ms, parameter, rowBounds, resultHandler, boundSql, cacheKey);
+                            } catch (Throwable e) {
+                                countFuture.cancel(true);
+                                throw e;
+                            }
+                            count = joinCount(countFuture);
+                        } else {
+                            count = ExecutorUtil.executeCount(executor, countQuery.countMs, parameter,
+                                    countQuery.countKey, countQuery.countBoundSql, null);
+                        }
+                        putCachedCount(pageList, countQuery, count);
+                    }
                     //处理查询总数，返回 true 时继续分页查询，false 时直接返回
                     if (!dialect.afterCount(count, parameter, rowBounds)) {
                         //当查询总数为 0 时，直接返回空的结果
                         return dialect.afterPage(new ArrayList(), parameter, rowBounds);
                     }
                 }
-                resultList = ExecutorUtil.pageQuery(dialect, executor,
-                        ms, parameter, rowBounds, resultHandler, boundSql, cacheKey);
+                if (resultList == null) {
+                    resultList = ExecutorUtil.pageQuery(dialect, executor,
+                            ms, parameter, rowBounds, resultHandler, boundSql, cacheKey);
+                }
             } else {
                 //rowBounds用参数值，不使用分页插件处理时，仍然支持默认的内存分页
                 resultList = executor.query(ms, parameter, rowBounds, resultHandler, cacheKey, boundSql);
@@ -132,30 +180,118 @@ public class PageInterceptor implements Interceptor {
         }
     }
 
-    private Integer count(Executor executor, MappedStatement ms, Object parameter,
-                          RowBounds rowBounds, ResultHandler resultHandler,
-                          BoundSql boundSql) throws SQLException {
+    /**
+     * 在当前线程准备 count 查询，方言和 BoundSql 拦截器依赖当前线程的分页参数
+     */
+    private CountQuery prepareCount(Executor executor, MappedStatement ms, Object parameter,
+                                    RowBounds rowBounds, BoundSql boundSql) {
         String countMsId = ms.getId() + countSuffix;
-        Integer count;
         //先判断是否存在手写的 count 查询
         MappedStatement countMs = ExecutorUtil.getExistedMappedStatement(ms.getConfiguration(), countMsId);
         if (countMs != null) {
-            count = ExecutorUtil.executeManualCount(executor, countMs, parameter, boundSql, resultHandler);
-        } else {
+            CacheKey countKey = executor.createCacheKey(countMs, parameter, RowBounds.DEFAULT, boundSql);
+            return new CountQuery(countMs, countKey, countMs.getBoundSql(parameter));
+        }
+        if (msCountMap != null) {
+            countMs = msCountMap.get(countMsId);
+        }
+        //自动创建
+        if (countMs == null) {
+            //根据当前的 ms 创建一个返回值为 Long 类型的 ms
+            countMs = MSUtils.newCountMappedStatement(ms, countMsId);
             if (msCountMap != null) {
-                countMs = msCountMap.get(countMsId);
+                msCountMap.put(countMsId, countMs);
+            }
+        }
+        //创建 count 查询的缓存 key
+        CacheKey countKey = executor.createCacheKey(countMs, parameter, RowBounds.DEFAULT, boundSql);
+        BoundSql countBoundSql = ExecutorUtil.getAutoCountBoundSql(dialect, countMs, parameter, boundSql, rowBounds, countKey);
+        return new CountQuery(countMs, countKey, countBoundSql);
+    }
+
+    /**
+     * 分页合理化时页码依赖总数，不能并行
+     */
+    private boolean isAsyncCount(PageList<?> pageList) {
+        return pageList != null && pageList.isAsyncCount()
+                && (pageList.getReasonable() == null || !pageList.getReasonable());
+    }
+
+    private Integer getCachedCount(PageList<?> pageList, CountQuery countQuery) {
+        if (pageList == null || pageList.getCountCacheTtl() <= 0) {
+            return null;
+        }
+        return countCache.get(countQuery.countKey);
+    }
+
+    private void putCachedCount(PageList<?> pageList, CountQuery countQuery, Integer count) {
+        if (pageList != null && pageList.getCountCacheTtl() > 0) {
+            countCache.put(countQuery.countKey, count, pageList.getCountCacheTtl());
+        }
+    }
+
+    /**
+     * 在单独的连接上执行 count 查询，不经过插件，不参与当前事务
+     */
+    private Future<Integer> submitCount(Configuration configuration, Object parameter, CountQuery countQuery) {
+        return getCountExecutor().submit(() -> {
+            Environment environment = configuration.getEnvironment();
+            Transaction transaction = environment.getTransactionFactory()
+                    .newTransaction(environment.getDataSource(), null, true);
+            Executor executor = new SimpleExecutor(configuration, transaction);
+            try {
+                return ExecutorUtil.executeCount(executor, countQuery.countMs, parameter,
+                        countQuery.countKey, countQuery.countBoundSql, null);
+            } finally {
+                executor.close(false);
+            }
+        });
+    }
+
+    private Integer joinCount(Future<Integer> countFuture) throws SQLException {
+        try {
+            return countFuture.get();
+        } catch (InterruptedException e) {
+            countFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PageException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
             }
-            //自动创建
-            if (countMs == null) {
-                //根据当前的 ms 创建一个返回值为 Long 类型的 ms
-                countMs = MSUtils.newCountMappedStatement(ms, countMsId);
-                if (msCountMap != null) {
-                    msCountMap.put(countMsId, countMs);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new PageException(cause);
+        }
+    }
+
+    private ExecutorService getCountExecutor() {
+        ExecutorService executor = countExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = countExecutor;
+                if (executor == null) {
+                    executor = countExecutor = ExecutorBuilder.create()
+                            .setCorePoolSize(asyncCountThreads)
+                            .setMaxPoolSize(asyncCountThreads)
+                            .setWorkQueue(new LinkedBlockingQueue<>())
+                            .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("page-count-").setDaemon(true).build())
+                            .build();
                 }
             }
-            count = ExecutorUtil.executeAutoCount(this.dialect, executor, countMs, parameter, boundSql, rowBounds, resultHandler);
         }
-        return count;
+        return executor;
+    }
+
+    /**
+     * 设置执行并行 count 查询的线程池
+     *
+     * @param countExecutor 线程池
+     */
+    public void setCountExecutor(ExecutorService countExecutor) {
+        this.countExecutor = countExecutor;
     }
 
     @Override
@@ -182,6 +318,27 @@ public class PageInterceptor implements Interceptor {
         if (Whether.noEmpty(countSuffix)) {
             this.countSuffix = countSuffix;
         }
+        String countCacheSize = properties.getProperty("countCache.size");
+        countCache = CacheUtil.newTinyLFUCache(Whether.noEmpty(countCacheSize) ? Integer.parseInt(countCacheSize) : 1000);
+        String asyncCountThreads = properties.getProperty("asyncCountThreads");
+        if (Whether.noEmpty(asyncCountThreads)) {
+            this.asyncCountThreads = Integer.parseInt(asyncCountThreads);
+        }
+    }
+
+    /**
+     * 已准备好的 count 查询
+     */
+    private static final class CountQuery {
+        private final MappedStatement countMs;
+        private final CacheKey countKey;
+        private final BoundSql countBoundSql;
+
+        private CountQuery(MappedStatement countMs, CacheKey countKey, BoundSql countBoundSql) {
+            this.countMs = countMs;
+            this.countKey = countKey;
+            this.countBoundSql = countBoundSql;
+        }
     }
 
 }
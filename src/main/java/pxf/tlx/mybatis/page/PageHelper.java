@@ -160,6 +160,23 @@ public class PageHelper implements Dialect, BoundSqlInterceptor.Chain {
         return pageList;
     }
 
+    /**
+     * 开始分页，count查询在单独的连接上与分页查询并行执行
+     * <p>
+     * count查询不在当前事务中，看不到当前事务未提交的数据；开启分页合理化时仍按顺序执行
+     *
+     * @param pageNum       页码
+     * @param pageSize      每页显示数量
+     * @param asyncCount    是否并行执行count查询
+     * @param countCacheTtl 相同SQL和参数的count结果缓存时间，单位：毫秒，不大于0表示不缓存
+     */
+    public static <E> PageList<E> startPage(int pageNum, int pageSize, boolean asyncCount, long countCacheTtl) {
+        PageList<E> pageList = startPage(pageNum, pageSize);
+        pageList.setAsyncCount(asyncCount);
+        pageList.setCountCacheTtl(countCacheTtl);
+        return pageList;
+    }
+
     /**
      * 开始分页
      *
@@ -188,6 +205,31 @@ public class PageHelper implements Dialect, BoundSqlInterceptor.Chain {
         return pageList;
     }
 
+    /**
+     * 开始 keyset 分页，根据上一页最后一行的排序键值定位下一页，不使用 offset，不进行count查询
+     * <p>
+     * 查询后通过 {@link PageList#getNextCursor()} 获取下一页的排序键值，没有下一页时为 null
+     *
+     * @param pageSize   每页显示数量
+     * @param orderBy    排序键，必须有序且唯一，如 {@code create_time desc, id desc}
+     * @param lastValues 上一页最后一行的排序键值，与排序键一一对应，为空表示第一页
+     */
+    public static <E> PageList<E> keysetPage(int pageSize, String orderBy, Object... lastValues) {
+        if (pageSize <= 0) {
+            throw new PageException("keyset 分页的 pageSize 必须大于0");
+        }
+        if (Whether.empty(orderBy)) {
+            throw new PageException("keyset 分页必须指定排序键");
+        }
+        PageList<E> pageList = new PageList<E>(1, pageSize, false);
+        pageList.setReasonable(false);
+        pageList.setPageSizeZero(false);
+        pageList.setKeysetOrderBy(orderBy);
+        pageList.setKeysetValues(lastValues == null || lastValues.length == 0 ? null : lastValues);
+        setLocalPage(pageList);
+        return pageList;
+    }
+
     /**
      * 排序
      *
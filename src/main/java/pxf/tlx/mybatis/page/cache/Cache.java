@@ -24,6 +24,8 @@
 
 package pxf.tlx.mybatis.page.cache;
 
+import pxf.tl.cache.CacheStats;
+
 /**
  * Simple cache interface
  *
@@ -34,4 +36,13 @@ public interface Cache<K, V> {
     V get(K key);
 
     void put(K key, V value);
+
+    /**
+     * 获取统计快照，不支持统计的实现返回{@link CacheStats#EMPTY}
+     *
+     * @return {@link CacheStats}
+     */
+    default CacheStats stats() {
+        return CacheStats.EMPTY;
+    }
 }
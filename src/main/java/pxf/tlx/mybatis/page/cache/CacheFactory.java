@@ -38,14 +38,14 @@ import java.util.Properties;
 public abstract class CacheFactory {
 
     /**
-     * 创建 SQL 缓存
+     * 创建 SQL 缓存，未指定实现类时使用 {@link ConcurrentCache}
      *
      * @param sqlCacheClass
      * @return
      */
     public static <K, V> Cache<K, V> createCache(String sqlCacheClass, String prefix, Properties properties) {
         if (Whether.empty(sqlCacheClass)) {
-            return new SimpleCache<>(properties, prefix);
+            return new ConcurrentCache<>(properties, prefix);
         } else {
             try {
                 Class<? extends Cache> clazz = (Class<? extends Cache>) Class.forName(sqlCacheClass);
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 abel533@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package pxf.tlx.mybatis.page.cache;
+
+import pxf.tl.cache.CacheRegistry;
+import pxf.tl.cache.CacheStats;
+import pxf.tl.cache.impl.TinyLFUCache;
+import pxf.tl.help.Whether;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 有界并发 SQL 缓存，默认的 SQL 缓存实现
+ * <p>
+ * 基于 {@link TinyLFUCache}，读操作不加锁，多个线程同时分页时不会在缓存上互相阻塞。
+ * 支持以下配置（prefix 为 count 或 page）：
+ * <ul>
+ *     <li>prefix.size：最多缓存的 SQL 数量，默认 {@value #DEFAULT_SIZE}</li>
+ *     <li>prefix.flushInterval：缓存过期时间，单位毫秒，默认不过期</li>
+ * </ul>
+ * 缓存以"PageHelper-prefix-序号"为名称注册到 {@link CacheRegistry}，命中率等统计可通过 {@link #stats()} 或注册表导出
+ *
+ * @author potatoxf
+ */
+public class ConcurrentCache<K, V> implements Cache<K, V> {
+    /**
+     * 默认缓存数量
+     */
+    public static final int DEFAULT_SIZE = 1000;
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final TinyLFUCache<K, V> cache;
+
+    public ConcurrentCache(Properties properties, String prefix) {
+        String size = properties.getProperty(prefix + ".size");
+        String flushInterval = properties.getProperty(prefix + ".flushInterval");
+        this.cache = new TinyLFUCache<>(
+                Whether.noEmpty(size) ? Integer.parseInt(size) : DEFAULT_SIZE,
+                Whether.noEmpty(flushInterval) ? Long.parseLong(flushInterval) : 0);
+        CacheRegistry.register("PageHelper-" + prefix + "-" + SEQUENCE.incrementAndGet(), cache);
+    }
+
+    @Override
+    public V get(K key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
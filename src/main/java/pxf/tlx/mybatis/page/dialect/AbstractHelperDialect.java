@@ -24,6 +24,7 @@
 
 package pxf.tlx.mybatis.page.dialect;
 
+import net.sf.jsqlparser.statement.select.OrderByElement;
 import org.apache.ibatis.builder.annotation.ProviderSqlSource;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.mapping.BoundSql;
@@ -33,8 +34,12 @@ import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.RowBounds;
 import pxf.tl.api.PageList;
 import pxf.tl.help.Whether;
+import pxf.tlx.mybatis.page.PageException;
 import pxf.tlx.mybatis.page.PageHelper;
 import pxf.tlx.mybatis.page.PageRowBounds;
+import pxf.tlx.mybatis.page.cache.Cache;
+import pxf.tlx.mybatis.page.cache.CacheFactory;
+import pxf.tlx.mybatis.page.parser.KeysetParser;
 import pxf.tlx.mybatis.page.parser.OrderByParser;
 import pxf.tlx.mybatis.page.util.ExecutorUtil;
 import pxf.tlx.mybatis.page.util.MetaObjectUtil;
@@ -56,6 +61,15 @@ public abstract class AbstractHelperDialect extends AbstractDialect {
     public static final String PAGEPARAMETER_FIRST = "First" + SUFFIX_PAGE;
     //第二个分页参数
     public static final String PAGEPARAMETER_SECOND = "Second" + SUFFIX_PAGE;
+    //keyset 分页参数前缀
+    public static final String PAGEPARAMETER_KEYSET = "Keyset";
+    //缓存键中分隔 SQL 和 count 列、排序的字符，SQL 中不会出现
+    private static final char CACHE_KEY_SEPARATOR = '\u0000';
+
+    //count 查询 SQL 缓存，键为原始 SQL 和 count 列
+    protected Cache<String, String> countSqlCache;
+    //分页 SQL 缓存，键为原始 SQL 和排序
+    protected Cache<String, String> pageSqlCache;
 
     /**
      * 获取分页参数
@@ -82,11 +96,32 @@ public abstract class AbstractHelperDialect extends AbstractDialect {
     @Override
     public String getCountSql(MappedStatement ms, BoundSql boundSql, Object parameterObject, RowBounds rowBounds, CacheKey countKey) {
         PageList<Object> pageList = getLocalPage();
+        String sql = boundSql.getSql();
         String countColumn = pageList.getCountColumn();
+        if (countSqlCache == null) {
+            return parseCountSql(sql, countColumn);
+        }
+        String key = Whether.noEmpty(countColumn) ? countColumn + CACHE_KEY_SEPARATOR + sql : sql;
+        String countSql = countSqlCache.get(key);
+        if (countSql == null) {
+            countSql = parseCountSql(sql, countColumn);
+            countSqlCache.put(key, countSql);
+        }
+        return countSql;
+    }
+
+    /**
+     * 解析 count 查询 SQL，结果会被缓存
+     *
+     * @param sql         原始 SQL
+     * @param countColumn count 列，为空时使用默认列
+     * @return count 查询 SQL
+     */
+    protected String parseCountSql(String sql, String countColumn) {
         if (Whether.noEmpty(countColumn)) {
-            return countSqlParser.getSmartCountSql(boundSql.getSql(), countColumn);
+            return countSqlParser.getSmartCountSql(sql, countColumn);
         }
-        return countSqlParser.getSmartCountSql(boundSql.getSql());
+        return countSqlParser.getSmartCountSql(sql);
     }
 
     @Override
@@ -163,9 +198,53 @@ public abstract class AbstractHelperDialect extends AbstractDialect {
                 }
             }
         }
+        if (pageList.isKeyset() && pageList.getKeysetValues() != null) {
+            handleKeysetParameter(ms, paramMap, pageList, boundSql, pageKey);
+        }
         return processPageParameter(ms, paramMap, pageList, boundSql, pageKey);
     }
 
+    /**
+     * 处理 keyset 分页参数，参数加在原参数之后、分页参数之前
+     *
+     * @param ms
+     * @param paramMap
+     * @param pageList
+     * @param boundSql
+     * @param pageKey
+     */
+    protected void handleKeysetParameter(MappedStatement ms, Map<String, Object> paramMap, PageList<?> pageList, BoundSql boundSql, CacheKey pageKey) {
+        List<OrderByElement> keys = KeysetParser.parseKeys(pageList.getKeysetOrderBy());
+        Object[] values = pageList.getKeysetValues();
+        if (values.length != keys.size()) {
+            throw new PageException("keyset 分页的排序键[" + pageList.getKeysetOrderBy() + "]与键值数量不一致");
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new PageException("keyset 分页的排序键值不能为 null");
+            }
+            paramMap.put(PAGEPARAMETER_KEYSET + i + SUFFIX_PAGE, values[i]);
+            pageKey.update(values[i]);
+        }
+        if (boundSql.getParameterMappings() != null) {
+            List<ParameterMapping> newParameterMappings = new ArrayList<ParameterMapping>(boundSql.getParameterMappings());
+            for (int i : KeysetParser.parameterOrder(keys, supportsRowValue())) {
+                newParameterMappings.add(new ParameterMapping.Builder(ms.getConfiguration(), PAGEPARAMETER_KEYSET + i + SUFFIX_PAGE, values[i].getClass()).build());
+            }
+            MetaObject metaObject = MetaObjectUtil.forObject(boundSql);
+            metaObject.setValue("parameterMappings", newParameterMappings);
+        }
+    }
+
+    /**
+     * 数据库是否支持 {@code (a, b) > (?, ?)} 形式的行值比较
+     *
+     * @return
+     */
+    protected boolean supportsRowValue() {
+        return false;
+    }
+
     /**
      * 处理分页参数
      *
@@ -188,11 +267,26 @@ public abstract class AbstractHelperDialect extends AbstractDialect {
     public String getPageSql(MappedStatement ms, BoundSql boundSql, Object parameterObject, RowBounds rowBounds, CacheKey pageKey) {
         String sql = boundSql.getSql();
         PageList<?> pageList = getLocalPage();
+        //keyset 分页，排序由排序键决定
+        if (pageList.isKeyset()) {
+            pageKey.update(pageList.getKeysetOrderBy());
+            return getPageSql(getKeysetSql(sql, pageList), pageList, pageKey);
+        }
         //支持 order by
         String orderBy = pageList.getOrderBy();
         if (Whether.noEmpty(orderBy)) {
             pageKey.update(orderBy);
-            sql = OrderByParser.converToOrderBySql(sql, orderBy);
+            if (pageSqlCache == null) {
+                sql = parseOrderBySql(sql, orderBy);
+            } else {
+                String key = orderBy + CACHE_KEY_SEPARATOR + sql;
+                String orderBySql = pageSqlCache.get(key);
+                if (orderBySql == null) {
+                    orderBySql = parseOrderBySql(sql, orderBy);
+                    pageSqlCache.put(key, orderBySql);
+                }
+                sql = orderBySql;
+            }
         }
         if (pageList.isOrderByOnly()) {
             return sql;
@@ -200,6 +294,50 @@ public abstract class AbstractHelperDialect extends AbstractDialect {
         return getPageSql(sql, pageList, pageKey);
     }
 
+    /**
+     * 生成 keyset 分页 SQL，结果会被缓存
+     *
+     * @param sql
+     * @param pageList
+     * @return
+     */
+    private String getKeysetSql(String sql, PageList<?> pageList) {
+        boolean firstPage = pageList.getKeysetValues() == null;
+        if (pageSqlCache == null) {
+            return parseKeysetSql(sql, pageList.getKeysetOrderBy(), firstPage);
+        }
+        String key = (firstPage ? "keyset-first" : "keyset") + CACHE_KEY_SEPARATOR + pageList.getKeysetOrderBy() + CACHE_KEY_SEPARATOR + sql;
+        String keysetSql = pageSqlCache.get(key);
+        if (keysetSql == null) {
+            keysetSql = parseKeysetSql(sql, pageList.getKeysetOrderBy(), firstPage);
+            pageSqlCache.put(key, keysetSql);
+        }
+        return keysetSql;
+    }
+
+    /**
+     * 将 keyset 条件和排序加入 SQL，结果会被缓存
+     *
+     * @param sql       原始 SQL
+     * @param orderBy   排序键
+     * @param firstPage 是否第一页
+     * @return keyset SQL
+     */
+    protected String parseKeysetSql(String sql, String orderBy, boolean firstPage) {
+        return KeysetParser.converToKeysetSql(sql, orderBy, firstPage, supportsRowValue());
+    }
+
+    /**
+     * 将排序加入 SQL，结果会被缓存
+     *
+     * @param sql     原始 SQL
+     * @param orderBy 排序
+     * @return 排序后的 SQL
+     */
+    protected String parseOrderBySql(String sql, String orderBy) {
+        return OrderByParser.converToOrderBySql(sql, orderBy);
+    }
+
     /**
      * 单独处理分页部分
      *
@@ -217,6 +355,9 @@ public abstract class AbstractHelperDialect extends AbstractDialect {
             return pageList;
         }
         page.addAll(pageList);
+        if (page.isKeyset()) {
+            page.setNextCursor(getNextCursor(page, pageList));
+        }
         if (!page.isCount()) {
             page.setTotal(-1);
         } else if ((page.getPageSizeZero() != null && page.getPageSizeZero()) && page.getPageSize() == 0) {
@@ -227,6 +368,45 @@ public abstract class AbstractHelperDialect extends AbstractDialect {
         return page;
     }
 
+    /**
+     * 从最后一行获取下一页的排序键值，本页不满时没有下一页
+     *
+     * @param page
+     * @param resultList
+     * @return
+     */
+    protected Object[] getNextCursor(PageList<?> page, List<?> resultList) {
+        if (resultList.isEmpty() || resultList.size() < page.getPageSize()) {
+            return null;
+        }
+        List<OrderByElement> keys = KeysetParser.parseKeys(page.getKeysetOrderBy());
+        Object last = resultList.get(resultList.size() - 1);
+        MetaObject metaObject = MetaObjectUtil.forObject(last);
+        Object[] cursor = new Object[keys.size()];
+        for (int i = 0; i < cursor.length; i++) {
+            String column = KeysetParser.getColumnName(keys.get(i));
+            String property = column == null ? null : findProperty(last, metaObject, column);
+            if (property == null) {
+                throw new PageException("keyset 分页无法从查询结果中获取排序键[" + keys.get(i) + "]的值");
+            }
+            cursor[i] = metaObject.getValue(property);
+        }
+        return cursor;
+    }
+
+    private String findProperty(Object row, MetaObject metaObject, String column) {
+        if (row instanceof Map) {
+            for (Object key : ((Map<?, ?>) row).keySet()) {
+                if (key instanceof String && ((String) key).equalsIgnoreCase(column)) {
+                    return (String) key;
+                }
+            }
+            return null;
+        }
+        //忽略大小写和下划线
+        return metaObject.findProperty(column, true);
+    }
+
     @Override
     public void afterAll() {
 
@@ -234,7 +414,13 @@ public abstract class AbstractHelperDialect extends AbstractDialect {
 
     @Override
     public void setProperties(Properties properties) {
-
+        //sqlCacheClass 为空或 false 时使用默认的 ConcurrentCache
+        String sqlCacheClass = properties.getProperty("sqlCacheClass");
+        if ("false".equalsIgnoreCase(sqlCacheClass)) {
+            sqlCacheClass = null;
+        }
+        countSqlCache = CacheFactory.createCache(sqlCacheClass, "count", properties);
+        pageSqlCache = CacheFactory.createCache(sqlCacheClass, "page", properties);
     }
 
     /**
@@ -245,7 +431,7 @@ public abstract class AbstractHelperDialect extends AbstractDialect {
     @Deprecated
     protected void handleParameter(BoundSql boundSql, MappedStatement ms) {
         if (boundSql.getParameterMappings() != null) {
-            handleParameter(boundSql, ms, long.class, long.class);
+            handleParameter(boundSql, ms, int.class, int.class);
         }
     }
 
@@ -45,7 +45,7 @@ public class Db2Dialect extends AbstractHelperDialect {
         pageKey.update(pageList.getStartRow() + 1);
         pageKey.update(pageList.getEndRow());
         //处理参数配置
-        handleParameter(boundSql, ms, long.class, long.class);
+        handleParameter(boundSql, ms, int.class, int.class);
         return paramMap;
     }
 
@@ -56,7 +56,7 @@ public class HsqldbDialect extends AbstractHelperDialect {
                 newParameterMappings.add(new ParameterMapping.Builder(ms.getConfiguration(), PAGEPARAMETER_FIRST, int.class).build());
             }
             if (pageList.getStartRow() > 0) {
-                newParameterMappings.add(new ParameterMapping.Builder(ms.getConfiguration(), PAGEPARAMETER_SECOND, long.class).build());
+                newParameterMappings.add(new ParameterMapping.Builder(ms.getConfiguration(), PAGEPARAMETER_SECOND, int.class).build());
             }
             MetaObject metaObject = MetaObjectUtil.forObject(boundSql);
             metaObject.setValue("parameterMappings", newParameterMappings);
@@ -76,4 +76,9 @@ public class HsqldbDialect extends AbstractHelperDialect {
         }
         return sqlBuilder.toString();
     }
+
+    @Override
+    protected boolean supportsRowValue() {
+        return true;
+    }
 }
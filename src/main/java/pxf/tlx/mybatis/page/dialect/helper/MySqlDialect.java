@@ -55,7 +55,7 @@ public class MySqlDialect extends AbstractHelperDialect {
             if (pageList.getStartRow() == 0) {
                 newParameterMappings.add(new ParameterMapping.Builder(ms.getConfiguration(), PAGEPARAMETER_SECOND, int.class).build());
             } else {
-                newParameterMappings.add(new ParameterMapping.Builder(ms.getConfiguration(), PAGEPARAMETER_FIRST, long.class).build());
+                newParameterMappings.add(new ParameterMapping.Builder(ms.getConfiguration(), PAGEPARAMETER_FIRST, int.class).build());
                 newParameterMappings.add(new ParameterMapping.Builder(ms.getConfiguration(), PAGEPARAMETER_SECOND, int.class).build());
             }
             MetaObject metaObject = MetaObjectUtil.forObject(boundSql);
@@ -76,4 +76,8 @@ public class MySqlDialect extends AbstractHelperDialect {
         return sqlBuilder.toString();
     }
 
+    @Override
+    protected boolean supportsRowValue() {
+        return true;
+    }
 }
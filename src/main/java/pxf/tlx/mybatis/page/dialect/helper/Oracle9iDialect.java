@@ -51,7 +51,7 @@ public class Oracle9iDialect extends AbstractHelperDialect {
         pageKey.update(pageList.getEndRow());
         pageKey.update(pageList.getStartRow());
         //处理参数配置
-        handleParameter(boundSql, ms, long.class, long.class);
+        handleParameter(boundSql, ms, int.class, int.class);
         return paramMap;
     }
 
@@ -45,7 +45,7 @@ public class OracleDialect extends AbstractHelperDialect {
         pageKey.update(pageList.getEndRow());
         pageKey.update(pageList.getStartRow());
         //处理参数配置
-        handleParameter(boundSql, ms, long.class, long.class);
+        handleParameter(boundSql, ms, int.class, int.class);
         return paramMap;
     }
 
@@ -44,7 +44,7 @@ public class SqlServer2012Dialect extends SqlServerDialect {
         pageKey.update(pageList.getStartRow());
         pageKey.update(pageList.getPageSize());
         //处理参数配置
-        handleParameter(boundSql, ms, long.class, int.class);
+        handleParameter(boundSql, ms, int.class, int.class);
         return paramMap;
     }
 
@@ -27,11 +27,8 @@ package pxf.tlx.mybatis.page.dialect.helper;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
-import org.apache.ibatis.session.RowBounds;
 import pxf.tl.help.Whether;
 import pxf.tl.api.PageList;
-import pxf.tlx.mybatis.page.cache.Cache;
-import pxf.tlx.mybatis.page.cache.CacheFactory;
 import pxf.tlx.mybatis.page.dialect.AbstractHelperDialect;
 import pxf.tlx.mybatis.page.dialect.ReplaceSql;
 import pxf.tlx.mybatis.page.dialect.replace.RegexWithNolockReplaceSql;
@@ -47,24 +44,13 @@ import java.util.Properties;
  */
 public class SqlServerDialect extends AbstractHelperDialect {
     protected SqlServerParser pageSql = new SqlServerParser();
-    protected Cache<String, String> CACHE_COUNTSQL;
-    protected Cache<String, String> CACHE_PAGESQL;
     protected ReplaceSql replaceSql;
 
     @Override
-    public String getCountSql(MappedStatement ms, BoundSql boundSql, Object parameterObject, RowBounds rowBounds, CacheKey countKey) {
-        String sql = boundSql.getSql();
-        String cacheSql = CACHE_COUNTSQL.get(sql);
-        if (cacheSql != null) {
-            return cacheSql;
-        } else {
-            cacheSql = sql;
-        }
-        cacheSql = replaceSql.replace(cacheSql);
-        cacheSql = countSqlParser.getSmartCountSql(cacheSql);
-        cacheSql = replaceSql.restore(cacheSql);
-        CACHE_COUNTSQL.put(sql, cacheSql);
-        return cacheSql;
+    protected String parseCountSql(String sql, String countColumn) {
+        sql = replaceSql.replace(sql);
+        sql = super.parseCountSql(sql, countColumn);
+        return replaceSql.restore(sql);
     }
 
     @Override
@@ -77,13 +63,13 @@ public class SqlServerDialect extends AbstractHelperDialect {
         //处理pageKey
         pageKey.update(pageList.getStartRow());
         pageKey.update(pageList.getPageSize());
-        String cacheSql = CACHE_PAGESQL.get(sql);
+        String cacheSql = pageSqlCache.get(sql);
         if (cacheSql == null) {
             cacheSql = sql;
             cacheSql = replaceSql.replace(cacheSql);
             cacheSql = pageSql.convertToPageSql(cacheSql, null, null);
             cacheSql = replaceSql.restore(cacheSql);
-            CACHE_PAGESQL.put(sql, cacheSql);
+            pageSqlCache.put(sql, cacheSql);
         }
         cacheSql = cacheSql.replace(String.valueOf(Long.MIN_VALUE), String.valueOf(pageList.getStartRow()));
         cacheSql = cacheSql.replace(String.valueOf(Long.MAX_VALUE), String.valueOf(pageList.getPageSize()));
@@ -92,24 +78,23 @@ public class SqlServerDialect extends AbstractHelperDialect {
 
     /**
      * 分页查询，pageHelper转换SQL时报错with(nolock)不识别的问题，
-     * 重写父类AbstractHelperDialect.getPageSql转换出错的方法。
+     * 重写父类AbstractHelperDialect.parseOrderBySql转换出错的方法。
      * 1. this.replaceSql.replace(sql);先转换成假的表名
      * 2. 然后进行SQL转换
      * 3. this.replaceSql.restore(sql);最后再恢复成真的with(nolock)
      */
     @Override
-    public String getPageSql(MappedStatement ms, BoundSql boundSql, Object parameterObject, RowBounds rowBounds, CacheKey pageKey) {
-        String sql = boundSql.getSql();
-        PageList<?> pageList = this.getLocalPage();
-        String orderBy = pageList.getOrderBy();
-        if (Whether.noEmpty(orderBy)) {
-            pageKey.update(orderBy);
-            sql = this.replaceSql.replace(sql);
-            sql = OrderByParser.converToOrderBySql(sql, orderBy);
-            sql = this.replaceSql.restore(sql);
-        }
+    protected String parseOrderBySql(String sql, String orderBy) {
+        sql = this.replaceSql.replace(sql);
+        sql = OrderByParser.converToOrderBySql(sql, orderBy);
+        return this.replaceSql.restore(sql);
+    }
 
-        return pageList.isOrderByOnly() ? sql : this.getPageSql(sql, pageList, pageKey);
+    @Override
+    protected String parseKeysetSql(String sql, String orderBy, boolean firstPage) {
+        sql = this.replaceSql.replace(sql);
+        sql = super.parseKeysetSql(sql, orderBy, firstPage);
+        return this.replaceSql.restore(sql);
     }
 
     @Override
@@ -128,13 +113,5 @@ public class SqlServerDialect extends AbstractHelperDialect {
                         + ReplaceSql.class.getCanonicalName() + " 接口的全限定类名", e);
             }
         }
-        String sqlCacheClass = properties.getProperty("sqlCacheClass");
-        if (Whether.noEmpty(sqlCacheClass) && !sqlCacheClass.equalsIgnoreCase("false")) {
-            CACHE_COUNTSQL = CacheFactory.createCache(sqlCacheClass, "count", properties);
-            CACHE_PAGESQL = CacheFactory.createCache(sqlCacheClass, "page", properties);
-        } else {
-            CACHE_COUNTSQL = CacheFactory.createCache(null, "count", properties);
-            CACHE_PAGESQL = CacheFactory.createCache(null, "page", properties);
-        }
     }
 }
@@ -0,0 +1,218 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2017 abel533@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package pxf.tlx.mybatis.page.parser;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.select.*;
+import pxf.tlx.mybatis.page.PageException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 处理 keyset 分页
+ * <p>
+ * 根据有序且唯一的排序键和上一页最后一行的键值，生成 {@code WHERE (k1, k2) > (?, ?) ORDER BY k1, k2} 形式的 SQL，
+ * 数据库可以直接从索引定位到下一页，不需要扫描并丢弃前面的行。
+ * 不支持行值比较或各排序键方向不同时，展开为 {@code k1 > ? OR (k1 = ? AND k2 > ?)}。
+ * <p>
+ * 简单查询直接修改 where 和 order by，此时排序键为表中的列；
+ * 包含 group by、distinct、集合操作等的查询包装为子查询，此时排序键为结果列名
+ *
+ * @author potatoxf
+ */
+public class KeysetParser {
+
+    /**
+     * 解析排序键
+     *
+     * @param orderBy 排序，如 {@code create_time desc, id desc}
+     * @return 排序键
+     */
+    public static List<OrderByElement> parseKeys(String orderBy) {
+        try {
+            PlainSelect plainSelect = (PlainSelect) ((Select) CCJSqlParserUtil.parse("SELECT 1 FROM KEYSET_T ORDER BY " + orderBy)).getSelectBody();
+            return plainSelect.getOrderByElements();
+        } catch (JSQLParserException | ClassCastException e) {
+            throw new PageException("keyset 分页的排序键[" + orderBy + "]不合法", e);
+        }
+    }
+
+    /**
+     * 条件中参数对应的排序键序号，按参数在 SQL 中出现的顺序
+     *
+     * @param keys     排序键
+     * @param rowValue 数据库是否支持行值比较
+     * @return 排序键序号
+     */
+    public static int[] parameterOrder(List<OrderByElement> keys, boolean rowValue) {
+        int size = keys.size();
+        if (isRowValue(keys, rowValue)) {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            return order;
+        }
+        int[] order = new int[size * (size + 1) / 2];
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j <= i; j++) {
+                order[index++] = j;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * convert to keyset sql
+     *
+     * @param sql       原 SQL
+     * @param orderBy   排序
+     * @param firstPage 是否第一页，第一页只排序
+     * @param rowValue  数据库是否支持行值比较
+     * @return
+     */
+    public static String converToKeysetSql(String sql, String orderBy, boolean firstPage, boolean rowValue) {
+        List<OrderByElement> keys = parseKeys(orderBy);
+        Select select;
+        try {
+            select = (Select) CCJSqlParserUtil.parse(sql);
+        } catch (Throwable e) {
+            throw new PageException("keyset 分页无法解析SQL[" + sql + "]", e);
+        }
+        Expression condition = firstPage ? null : buildCondition(keys, rowValue);
+        SelectBody selectBody = select.getSelectBody();
+        if (isSimple(selectBody)) {
+            PlainSelect plainSelect = (PlainSelect) selectBody;
+            if (condition != null) {
+                Expression where = plainSelect.getWhere();
+                plainSelect.setWhere(where == null ? condition : new AndExpression(new Parenthesis(where), condition));
+            }
+            plainSelect.setOrderByElements(keys);
+            return select.toString();
+        }
+        //去掉原有的 order by 后包装为子查询，新增的参数都在原 SQL 的参数之后
+        List<OrderByElement> orderByElements = OrderByParser.extraOrderBy(selectBody);
+        if (selectBody instanceof SetOperationList) {
+            orderByElements = ((SetOperationList) selectBody).getOrderByElements();
+            ((SetOperationList) selectBody).setOrderByElements(null);
+        }
+        if (PlainSelect.orderByToString(orderByElements).indexOf('?') != -1) {
+            throw new PageException("原SQL[" + sql + "]中的order by包含参数，因此不能使用 keyset 分页!");
+        }
+        StringBuilder sqlBuilder = new StringBuilder(sql.length() + 64);
+        sqlBuilder.append("SELECT * FROM (").append(select).append(") KEYSET_T");
+        if (condition != null) {
+            sqlBuilder.append(" WHERE ").append(condition);
+        }
+        sqlBuilder.append(PlainSelect.orderByToString(keys));
+        return sqlBuilder.toString();
+    }
+
+    /**
+     * 获取排序键对应的结果列名
+     *
+     * @param key 排序键
+     * @return 列名，排序键不是列时返回 null
+     */
+    public static String getColumnName(OrderByElement key) {
+        if (key.getExpression() instanceof Column) {
+            String name = ((Column) key.getExpression()).getColumnName();
+            if (name.length() > 1 && "`\"[".indexOf(name.charAt(0)) != -1) {
+                name = name.substring(1, name.length() - 1);
+            }
+            return name;
+        }
+        return null;
+    }
+
+    /**
+     * 可以直接修改 where 和 order by 的查询，所有参数都在 where 之前或之中
+     */
+    private static boolean isSimple(SelectBody selectBody) {
+        if (!(selectBody instanceof PlainSelect)) {
+            return false;
+        }
+        PlainSelect plainSelect = (PlainSelect) selectBody;
+        return plainSelect.getGroupBy() == null
+                && plainSelect.getDistinct() == null
+                && plainSelect.getHaving() == null
+                && plainSelect.getLimit() == null
+                && plainSelect.getOffset() == null
+                && plainSelect.getFetch() == null
+                && plainSelect.getTop() == null
+                && PlainSelect.orderByToString(plainSelect.getOrderByElements()).indexOf('?') == -1;
+    }
+
+    private static boolean isRowValue(List<OrderByElement> keys, boolean rowValue) {
+        if (!rowValue || keys.size() < 2) {
+            return false;
+        }
+        boolean asc = keys.get(0).isAsc();
+        for (OrderByElement key : keys) {
+            if (key.isAsc() != asc) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Expression buildCondition(List<OrderByElement> keys, boolean rowValue) {
+        StringBuilder condition = new StringBuilder();
+        if (isRowValue(keys, rowValue)) {
+            List<String> columns = new ArrayList<>(keys.size());
+            List<String> parameters = new ArrayList<>(keys.size());
+            for (OrderByElement key : keys) {
+                columns.add(key.getExpression().toString());
+                parameters.add("?");
+            }
+            condition.append('(').append(String.join(", ", columns)).append(") ")
+                    .append(keys.get(0).isAsc() ? '>' : '<')
+                    .append(" (").append(String.join(", ", parameters)).append(')');
+        } else {
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) {
+                    condition.append(" OR ");
+                }
+                condition.append('(');
+                for (int j = 0; j < i; j++) {
+                    condition.append(keys.get(j).getExpression()).append(" = ? AND ");
+                }
+                condition.append(keys.get(i).getExpression()).append(keys.get(i).isAsc() ? " > ?" : " < ?").append(')');
+            }
+        }
+        try {
+            return new Parenthesis(CCJSqlParserUtil.parseCondExpression(condition.toString()));
+        } catch (JSQLParserException e) {
+            throw new PageException("keyset 分页无法生成条件[" + condition + "]", e);
+        }
+    }
+}
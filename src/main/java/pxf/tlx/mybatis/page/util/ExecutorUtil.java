@@ -32,7 +32,6 @@ import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
-import pxf.tl.help.Safe;
 import pxf.tlx.mybatis.page.BoundSqlInterceptor;
 import pxf.tlx.mybatis.page.Dialect;
 import pxf.tlx.mybatis.page.PageException;
@@ -147,9 +146,26 @@ public abstract class ExecutorUtil {
     public static Integer executeAutoCount(Dialect dialect, Executor executor, MappedStatement countMs,
                                         Object parameter, BoundSql boundSql,
                                         RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
-        Map<String, Object> additionalParameters = getAdditionalParameter(boundSql);
         //创建 count 查询的缓存 key
         CacheKey countKey = executor.createCacheKey(countMs, parameter, RowBounds.DEFAULT, boundSql);
+        BoundSql countBoundSql = getAutoCountBoundSql(dialect, countMs, parameter, boundSql, rowBounds, countKey);
+        return executeCount(executor, countMs, parameter, countKey, countBoundSql, resultHandler);
+    }
+
+    /**
+     * 生成自动 count 查询的 BoundSql，需要在分页参数所在的线程调用
+     *
+     * @param dialect
+     * @param countMs
+     * @param parameter
+     * @param boundSql
+     * @param rowBounds
+     * @param countKey
+     * @return
+     */
+    public static BoundSql getAutoCountBoundSql(Dialect dialect, MappedStatement countMs, Object parameter,
+                                                BoundSql boundSql, RowBounds rowBounds, CacheKey countKey) {
+        Map<String, Object> additionalParameters = getAdditionalParameter(boundSql);
         //调用方言获取 count sql
         String countSql = dialect.getCountSql(countMs, boundSql, parameter, rowBounds, countKey);
         //countKey.update(countSql);
@@ -162,9 +178,25 @@ public abstract class ExecutorUtil {
         if (dialect instanceof BoundSqlInterceptor.Chain) {
             countBoundSql = ((BoundSqlInterceptor.Chain) dialect).doBoundSql(BoundSqlInterceptor.Type.COUNT_SQL, countBoundSql, countKey);
         }
-        //执行 count 查询
+        return countBoundSql;
+    }
+
+    /**
+     * 执行 count 查询
+     *
+     * @param executor
+     * @param countMs
+     * @param parameter
+     * @param countKey
+     * @param countBoundSql
+     * @param resultHandler
+     * @return
+     * @throws SQLException
+     */
+    public static Integer executeCount(Executor executor, MappedStatement countMs, Object parameter, CacheKey countKey,
+                                       BoundSql countBoundSql, ResultHandler resultHandler) throws SQLException {
         Object countResultList = executor.query(countMs, parameter, RowBounds.DEFAULT, resultHandler, countKey, countBoundSql);
-        return Safe.toInteger((Number) ((List<?>) countResultList).get(0),0);
+        return ((Number) ((List<?>) countResultList).get(0)).intValue();
     }
 
     /**
@@ -1,6 +1,8 @@
 package pxf.tlx.pigeon.mail;
 
 
+import pxf.tl.concurrent.GlobalThreadPool;
+import pxf.tl.concurrent.VirtualThreads;
 import pxf.tl.help.Valid;
 
 import javax.mail.*;
@@ -12,6 +14,9 @@ import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * 邮件发送服务
@@ -32,6 +37,10 @@ public abstract class MailSenderServer<T extends MailSenderServer<T>> extends Ma
      * 缓存Transport
      */
     private transient volatile Transport cacheTransport;
+    /**
+     * 异步发送邮件的执行器，为空时使用默认执行器
+     */
+    private transient volatile Executor sendExecutor;
 
     @Override
     protected void initProperties(Properties properties) {
@@ -124,6 +133,54 @@ public abstract class MailSenderServer<T extends MailSenderServer<T>> extends Ma
      * @throws MessagingException 如果发送信息出现异常
      */
     public final void sendMessage(EmailMessageContent emailMessageContent) throws MessagingException {
+        sendMessage(createMimeMessage(emailMessageContent));
+    }
+
+    /**
+     * 异步发送信息，邮件内容在当前线程构建
+     *
+     * @param emailMessageContent 邮件消息内容
+     * @return 发送完成的{@link CompletableFuture}，发送失败时以{@link MessagingException}异常完成
+     * @throws MessagingException 如果构建邮件出现异常
+     * @see #sendMessageAsync(Message)
+     */
+    public final CompletableFuture<Void> sendMessageAsync(EmailMessageContent emailMessageContent)
+            throws MessagingException {
+        return sendMessageAsync(createMimeMessage(emailMessageContent));
+    }
+
+    /**
+     * 异步发送信息<br>
+     * 每次发送使用独立的{@link Transport}，多封邮件可以同时发送；
+     * 默认在虚拟线程中发送，运行时不支持虚拟线程时使用{@link GlobalThreadPool}，可通过{@link #setSendExecutor(Executor)}指定
+     *
+     * @param message Message
+     * @return 发送完成的{@link CompletableFuture}，发送失败时以{@link MessagingException}异常完成
+     */
+    public final CompletableFuture<Void> sendMessageAsync(Message message) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Transport transport = obtainOrCreateSession().getTransport(obtainOrCreateUrlName());
+                try {
+                    transport.connect();
+                    transport.sendMessage(message, message.getAllRecipients());
+                } finally {
+                    transport.close();
+                }
+            } catch (MessagingException e) {
+                throw new CompletionException(e);
+            }
+        }, getSendExecutor());
+    }
+
+    /**
+     * 构建邮件信息
+     *
+     * @param emailMessageContent 邮件消息内容
+     * @return MimeMessage
+     * @throws MessagingException 如果构建邮件出现异常
+     */
+    private MimeMessage createMimeMessage(EmailMessageContent emailMessageContent) throws MessagingException {
         MimeMessage mimeMessage = createNewMimeMessage();
         for (InternetAddress recipient : emailMessageContent.getRecipientCC()) {
             mimeMessage.addRecipient(Message.RecipientType.TO, recipient);
@@ -150,7 +207,7 @@ public abstract class MailSenderServer<T extends MailSenderServer<T>> extends Ma
         // 如果有多个附件，可以创建多个多次添加
         mimeMultipart.setSubType("mixed");
         mimeMessage.setContent(mimeMultipart);
-        sendMessage(mimeMessage);
+        return mimeMessage;
     }
 
     /**
@@ -192,6 +249,30 @@ public abstract class MailSenderServer<T extends MailSenderServer<T>> extends Ma
         return (T) this;
     }
 
+    /**
+     * 获取异步发送邮件的执行器，未设置时返回默认执行器
+     *
+     * @return 异步发送邮件的执行器
+     */
+    public final Executor getSendExecutor() {
+        Executor executor = sendExecutor;
+        if (executor != null) {
+            return executor;
+        }
+        return VirtualThreads.isSupported() ? VirtualSendExecutorHolder.EXECUTOR : GlobalThreadPool.getExecutor();
+    }
+
+    /**
+     * 设置异步发送邮件的执行器
+     *
+     * @param sendExecutor 异步发送邮件的执行器，为空时使用默认执行器
+     * @return this
+     */
+    public final T setSendExecutor(Executor sendExecutor) {
+        this.sendExecutor = sendExecutor;
+        return (T) this;
+    }
+
     protected boolean checkDefaultFromAddress() {
         return true;
     }
@@ -202,4 +283,11 @@ public abstract class MailSenderServer<T extends MailSenderServer<T>> extends Ma
             cacheTransport.close();
         }
     }
+
+    /**
+     * 默认的虚拟线程发送执行器，首次异步发送时创建
+     */
+    private static final class VirtualSendExecutorHolder {
+        private static final Executor EXECUTOR = VirtualThreads.newExecutor("mail-sender-");
+    }
 }
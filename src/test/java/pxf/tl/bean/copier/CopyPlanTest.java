@@ -0,0 +1,162 @@
+package pxf.tl.bean.copier;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pxf.tl.bean.BeanUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link CopyPlan}测试，Bean与类库不在同一个类加载器中时拷贝结果须一致
+ *
+ * @author potatoxf
+ */
+public class CopyPlanTest {
+
+    @Test
+    public void publicBeanTest() throws Exception {
+        assertCopy(PublicBean.class);
+        assertCopy(new ChildFirstClassLoader().loadClass(PublicBean.class.getName()));
+    }
+
+    @Test
+    public void packagePrivateBeanTest() throws Exception {
+        assertCopy(PackageBean.class);
+        assertCopy(new ChildFirstClassLoader().loadClass(PackageBean.class.getName()));
+    }
+
+    @Test
+    public void childLoaderTest() throws Exception {
+        final Class<?> beanClass = new ChildFirstClassLoader().loadClass(PublicBean.class.getName());
+        Assert.assertNotSame(PublicBean.class, beanClass);
+        Assert.assertNotSame(CopyPlan.class.getClassLoader(), beanClass.getClassLoader());
+    }
+
+    private static void assertCopy(Class<?> beanClass) throws Exception {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("name", null);
+        values.put("age", 3);
+        values.put("score", 5);
+
+        // Map转Bean，null值覆盖已有值
+        final Object bean = newInstance(beanClass);
+        BeanUtil.copyProperties(Map.of("name", "old"), bean, CopyOptions.create());
+        BeanUtil.copyProperties(values, bean, CopyOptions.create());
+        Assert.assertEquals(values, BeanUtil.beanToMap(bean));
+
+        // Bean转Bean
+        final Object target = newInstance(beanClass);
+        BeanUtil.copyProperties(Map.of("name", "old"), target, CopyOptions.create());
+        BeanUtil.copyProperties(bean, target, CopyOptions.create());
+        Assert.assertEquals(values, BeanUtil.beanToMap(target));
+
+        // 忽略null值
+        BeanUtil.copyProperties(Map.of("name", "kept"), target, CopyOptions.create());
+        BeanUtil.copyProperties(bean, target, CopyOptions.create().setIgnoreNullValue(true));
+        Assert.assertEquals("kept", BeanUtil.beanToMap(target).get("name"));
+    }
+
+    private static Object newInstance(Class<?> beanClass) throws Exception {
+        final Constructor<?> constructor = beanClass.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+
+    /**
+     * 优先自己加载测试Bean的类加载器，模拟Web容器、插件等子类加载器
+     */
+    private static final class ChildFirstClassLoader extends ClassLoader {
+        private ChildFirstClassLoader() {
+            super(CopyPlanTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (false == name.startsWith(CopyPlanTest.class.getName() + "$")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (null == loaded) {
+                    try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        if (null == in) {
+                            throw new ClassNotFoundException(name);
+                        }
+                        final byte[] bytes = in.readAllBytes();
+                        loaded = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+    }
+
+    public static class PublicBean {
+        private String name;
+        private Integer age;
+        private int score;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public void setScore(int score) {
+            this.score = score;
+        }
+    }
+
+    static class PackageBean {
+        private String name;
+        private Integer age;
+        private int score;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public void setScore(int score) {
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package pxf.tl.date;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pxf.tl.date.format.FastDateFormat;
+
+import java.time.LocalDateTime;
+import java.time.zone.ZoneRules;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * {@link AutoDateParser}测试，快速解析的结果须与按对应格式解析的结果一致<br>
+ * {@link AutoDateParser}使用的默认时区在类加载时确定，因此不同时区通过{@link AutoDateParser#parse(CharSequence, TimeZone)}测试
+ *
+ * @author potatoxf
+ */
+public class AutoDateParserTest {
+    private static final String[] ZONES = {
+            "UTC", "Asia/Shanghai", "America/New_York", "Europe/London", "Australia/Lord_Howe", "Africa/Windhoek"
+    };
+
+    @Test
+    public void parseLocalShapesTest() {
+        for (String id : ZONES) {
+            final TimeZone zone = TimeZone.getTimeZone(id);
+            assertSame("20240105", "20240105", DatePattern.PURE_DATE_PATTERN, zone);
+            assertSame("20240105123045", "20240105123045", DatePattern.PURE_DATETIME_PATTERN, zone);
+            assertSame("20240105123045123", "20240105123045123", DatePattern.PURE_DATETIME_MS_PATTERN, zone);
+            assertSame("123045", "123045", DatePattern.PURE_TIME_PATTERN, zone);
+            assertSame("2024-01-05", "2024-01-05", DatePattern.NORM_DATE_PATTERN, zone);
+            assertSame("2024/1/5", "2024-01-05", DatePattern.NORM_DATE_PATTERN, zone);
+            assertSame("2024.01.05", "2024-01-05", DatePattern.NORM_DATE_PATTERN, zone);
+            assertSame("2024-01-05 12:30", "2024-01-05 12:30", DatePattern.NORM_DATETIME_MINUTE_PATTERN, zone);
+            assertSame("2024-01-05 12:30:45", "2024-01-05 12:30:45", DatePattern.NORM_DATETIME_PATTERN, zone);
+            assertSame("  2024-1-5 8:3:4  ", "2024-01-05 08:03:04", DatePattern.NORM_DATETIME_PATTERN, zone);
+            assertSame("2024-01-05 12:30:45.1", "2024-01-05 12:30:45.001", DatePattern.NORM_DATETIME_MS_PATTERN, zone);
+            assertSame("2024-01-05 12:30:45.123", "2024-01-05 12:30:45.123", DatePattern.NORM_DATETIME_MS_PATTERN, zone);
+            assertSame("2024-01-05 12:30:45.123456", "2024-01-05 12:30:45.123", DatePattern.NORM_DATETIME_MS_PATTERN, zone);
+            assertSame("2024年01月05日", "2024-01-05", DatePattern.NORM_DATE_PATTERN, zone);
+            assertSame("2024年1月5日 12时30分45秒", "2024-01-05 12:30:45", DatePattern.NORM_DATETIME_PATTERN, zone);
+            assertSame("2024年1月5日 12时30分", "2024-01-05 12:30", DatePattern.NORM_DATETIME_MINUTE_PATTERN, zone);
+            assertSame("2024-07-15 23:59:59", "2024-07-15 23:59:59", DatePattern.NORM_DATETIME_PATTERN, zone);
+            assertSame("1901-01-01 00:00:00", "1901-01-01 00:00:00", DatePattern.NORM_DATETIME_PATTERN, zone);
+            assertSame("2100-01-01 00:00:00", "2100-01-01 00:00:00", DatePattern.NORM_DATETIME_PATTERN, zone);
+        }
+    }
+
+    @Test
+    public void parseUtcShapesTest() {
+        for (String id : ZONES) {
+            final TimeZone zone = TimeZone.getTimeZone(id);
+            assertSame("2024-01-05T12:30:45Z", DatePattern.UTC_FORMAT, zone);
+            assertSame("2024-01-05T12:30:45.123Z", DatePattern.UTC_MS_FORMAT, zone);
+            assertSame("2024-01-05T12:30:45", DatePattern.UTC_SIMPLE_FORMAT, zone);
+            assertSame("2024-01-05T12:30:45+0800", DatePattern.UTC_WITH_ZONE_OFFSET_FORMAT, zone);
+            assertSame("2024-01-05T12:30:45+08:00", DatePattern.UTC_WITH_XXX_OFFSET_FORMAT, zone);
+            assertSame("2024-01-05T12:30:45.123+08:00", DatePattern.UTC_MS_WITH_XXX_OFFSET_FORMAT, zone);
+        }
+    }
+
+    @Test
+    public void parseRandomTest() {
+        final Random random = new Random(20241018L);
+        for (String id : ZONES) {
+            final TimeZone zone = TimeZone.getTimeZone(id);
+            final ZoneRules rules = zone.toZoneId().getRules();
+            final FastDateFormat format = FastDateFormat.getInstance(DatePattern.NORM_DATETIME_PATTERN, zone);
+            for (int i = 0; i < 5000; i++) {
+                final int year = 1901 + random.nextInt(200);
+                final int month = 1 + random.nextInt(12);
+                final int day = 1 + random.nextInt(31);
+                final int hour = random.nextInt(24);
+                final int minute = random.nextInt(60);
+                final int second = random.nextInt(60);
+                final String str = String.format("%04d-%02d-%02d %02d:%02d:%02d", year, month, day, hour, minute, second);
+                final DateTime actual = AutoDateParser.parse(str, zone);
+                if (null == actual) {
+                    // 只有无效日期和夏令时切换中的时间交由格式解析
+                    boolean valid;
+                    try {
+                        valid = null == rules.getTransition(LocalDateTime.of(year, month, day, hour, minute, second));
+                    } catch (RuntimeException e) {
+                        valid = false;
+                    }
+                    Assert.assertFalse(str + " in " + id, valid);
+                    continue;
+                }
+                final DateTime expected = DateUtil.parse(str, format);
+                Assert.assertEquals(str + " in " + id, expected.getTime(), actual.getTime());
+                Assert.assertEquals(str + " in " + id, expected.getTimeZone(), actual.getTimeZone());
+            }
+        }
+    }
+
+    @Test
+    public void parseRejectedTest() {
+        final TimeZone zone = TimeZone.getTimeZone("America/New_York");
+        Assert.assertNull(AutoDateParser.parse("2024-02-30", zone));
+        Assert.assertNull(AutoDateParser.parse("2024-01-05 24:00:00", zone));
+        Assert.assertNull(AutoDateParser.parse("1900-01-01", zone));
+        Assert.assertNull(AutoDateParser.parse("2024-03-10 02:30:00", zone));
+        Assert.assertNull(AutoDateParser.parse("2024-01-05 12:30:45.1234567", zone));
+        Assert.assertNull(AutoDateParser.parse("2024-01-05\t12:00", zone));
+        Assert.assertNull(AutoDateParser.parse("12:30:45", zone));
+        Assert.assertNull(AutoDateParser.parse("abc", zone));
+    }
+
+    @Test
+    public void parseDefaultZoneTest() {
+        Assert.assertEquals(
+                DateUtil.parse("2024-01-05 12:30:45", DatePattern.NORM_DATETIME_FORMAT),
+                DateUtil.parse("2024-01-05 12:30:45"));
+        Assert.assertEquals(
+                DateUtil.parse("2024-01-05", DatePattern.NORM_DATE_FORMAT),
+                DateUtil.parse("2024年1月5日"));
+        Assert.assertEquals(
+                DateUtil.parse("2024-01-05T12:30:45Z", DatePattern.UTC_FORMAT),
+                DateUtil.parse("2024-01-05T12:30:45Z"));
+    }
+
+    @Test
+    public void parseFallbackTest() {
+        // 快速解析不支持的格式由格式解析处理，无法解析时抛出DateException
+        Assert.assertEquals(
+                DateUtil.parse("12:30:45", DatePattern.NORM_TIME_FORMAT).toString(DatePattern.NORM_TIME_PATTERN),
+                DateUtil.parse("12:30:45").toString(DatePattern.NORM_TIME_PATTERN));
+        assertDateException("2024-02-30");
+        assertDateException("2024-01-05 12:30:45.1234567");
+        assertDateException("2024年1月5日12时");
+        assertDateException("2024-01-05\t12:00");
+        assertDateException("abc");
+    }
+
+    private static void assertSame(String str, String normalized, String pattern, TimeZone zone) {
+        final DateTime expected = DateUtil.parse(normalized, FastDateFormat.getInstance(pattern, zone));
+        final DateTime actual = AutoDateParser.parse(str, zone);
+        Assert.assertNotNull(str + " in " + zone.getID(), actual);
+        Assert.assertEquals(str + " in " + zone.getID(), expected.getTime(), actual.getTime());
+        Assert.assertEquals(str + " in " + zone.getID(), expected.getTimeZone(), actual.getTimeZone());
+    }
+
+    private static void assertSame(String str, FastDateFormat format, TimeZone zone) {
+        final DateTime expected = DateUtil.parse(str, format);
+        final DateTime actual = AutoDateParser.parse(str, zone);
+        Assert.assertNotNull(str + " in " + zone.getID(), actual);
+        Assert.assertEquals(str + " in " + zone.getID(), expected.getTime(), actual.getTime());
+    }
+
+    private static void assertDateException(String str) {
+        try {
+            DateUtil.parse(str);
+            Assert.fail("Expected DateException: " + str);
+        } catch (DateException e) {
+            // 预期的异常
+        }
+    }
+}
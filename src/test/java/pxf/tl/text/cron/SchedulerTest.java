@@ -0,0 +1,59 @@
+package pxf.tl.text.cron;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Scheduler}测试
+ *
+ * @author potatoxf
+ */
+public class SchedulerTest {
+
+    @Test
+    public void maxConcurrencyTest() throws InterruptedException {
+        final int jobCount = 5;
+        final int maxConcurrency = 2;
+        final CountDownLatch latch = new CountDownLatch(jobCount);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final boolean[] ran = new boolean[jobCount];
+        final Scheduler scheduler = new Scheduler();
+        scheduler.setMatchSecond(true);
+        scheduler.setDaemon(true);
+        scheduler.setMaxConcurrency(maxConcurrency);
+        for (int i = 0; i < jobCount; i++) {
+            final int index = i;
+            final Runnable job = () -> {
+                final int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                synchronized (ran) {
+                    if (false == ran[index]) {
+                        ran[index] = true;
+                        latch.countDown();
+                    }
+                }
+            };
+            // 所有作业同时到期，作业数多于并发数
+            scheduler.schedule("* * * * * *", job);
+        }
+        scheduler.start();
+        try {
+            Assert.assertTrue("Not all jobs ran", latch.await(10, TimeUnit.SECONDS));
+            Assert.assertTrue("Max running: " + maxRunning.get(), maxRunning.get() <= maxConcurrency);
+        } finally {
+            scheduler.stop(true);
+        }
+    }
+}